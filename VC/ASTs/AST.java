@@ -6,21 +6,27 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public abstract class AST {
 
-  public SourcePosition	position;
+  public long span;  // see VC.Scanner.Span
   public AST parent;
- 
-  public AST (SourcePosition Position) {
-    position = Position;
-  }
+  private final int kind;  // see Kinds
 
-  public SourcePosition getPosition() {
-    return position;
+  long fingerprint, spanFingerprint;  // see Fingerprint; 0 if not known
+ 
+  public AST (long span, int kind) {
+    this.span = span;
+    this.kind = kind;
   }
 
   public abstract Object visit(Visitor v, Object o);
 
+  // The kind of the node (see Kinds), on which TypedVisitor.visit
+  // switches. It is kept in the node, so that reading it is not a
+  // virtual call.
+
+  public final int kind() {
+    return kind;
+  }
+
 }
@@ -0,0 +1,446 @@
+/*
+ * ArenaBuilder.java
+ *
+ * Converts an AST to a NodeArena, numbering its nodes in preorder.
+ * Lists are walked iteratively, as they can be longer than the stack
+ * is deep.
+ */
+
+package VC.ASTs;
+
+import java.util.IdentityHashMap;
+
+final class ArenaBuilder implements Visitor {
+
+  private final NodeArena arena = new NodeArena(1024);
+  private final IdentityHashMap<Type, Integer> types = new IdentityHashMap<>();
+  private int last;     // the node added for the AST node visited last
+
+  NodeArena build(AST ast) {
+    ast.visit(this, null);
+    arena.trim();
+    return arena;
+  }
+
+  private int node(AST ast) {
+    ast.visit(this, null);
+    return last;
+  }
+
+  private int leaf(int kind, AST ast) {
+    return last = arena.add(kind, ast.span, 0);
+  }
+
+  private int terminal(int kind, Terminal ast) {
+    return last = arena.add(kind, ast.span, arena.addString(ast.spelling));
+  }
+
+  private int decl(int kind, Decl ast) {
+    return arena.add(kind, ast.span, ast.hasErrors ? 1 : 0);
+  }
+
+  // A Type met again is a SHARED node.
+
+  private boolean shared(Type ast) {
+    Integer n = types.get(ast);
+    if (n == null)
+      return false;
+    last = arena.add(NodeArena.SHARED, ast.span, n);
+    return true;
+  }
+
+  private Object type(int kind, Type ast) {
+    if (!shared(ast))
+      types.put(ast, leaf(kind, ast));
+    return null;
+  }
+
+  // Programs
+
+  public Object visitProgram(Program ast, Object o) {
+    int n = leaf(Kinds.PROGRAM, ast);
+    arena.link(n, node(ast.FL));
+    last = n;
+    return null;
+  }
+
+  // Lists for denoting the null reference
+
+  public Object visitEmptyDeclList(EmptyDeclList ast, Object o) {
+    leaf(Kinds.EMPTY_DECL_LIST, ast);
+    return null;
+  }
+
+  public Object visitEmptyStmtList(EmptyStmtList ast, Object o) {
+    leaf(Kinds.EMPTY_STMT_LIST, ast);
+    return null;
+  }
+
+  public Object visitEmptyArrayExprList(EmptyArrayExprList ast, Object o) {
+    leaf(Kinds.EMPTY_ARRAY_EXPR_LIST, ast);
+    return null;
+  }
+
+  public Object visitEmptyParaList(EmptyParaList ast, Object o) {
+    leaf(Kinds.EMPTY_PARA_LIST, ast);
+    return null;
+  }
+
+  public Object visitEmptyArgList(EmptyArgList ast, Object o) {
+    leaf(Kinds.EMPTY_ARG_LIST, ast);
+    return null;
+  }
+
+  // Declarations
+
+  public Object visitDeclList(DeclList ast, Object o) {
+    int first = leaf(Kinds.DECL_LIST, ast);
+    int n = first;
+    for (DeclList cell = ast; ; cell = (DeclList) cell.DL) {
+      int d = node(cell.D);
+      int tail = (cell.DL instanceof DeclList) ? leaf(Kinds.DECL_LIST, cell.DL) : node(cell.DL);
+      arena.link(n, d, tail);
+      if (!(cell.DL instanceof DeclList))
+        break;
+      n = tail;
+    }
+    last = first;
+    return null;
+  }
+
+  public Object visitFuncDecl(FuncDecl ast, Object o) {
+    int n = decl(Kinds.FUNC_DECL, ast);
+    arena.link(n, node(ast.T), node(ast.I), node(ast.PL), node(ast.S));
+    last = n;
+    return null;
+  }
+
+  public Object visitGlobalVarDecl(GlobalVarDecl ast, Object o) {
+    int n = decl(Kinds.GLOBAL_VAR_DECL, ast);
+    arena.link(n, node(ast.T), node(ast.I), node(ast.E));
+    last = n;
+    return null;
+  }
+
+  public Object visitLocalVarDecl(LocalVarDecl ast, Object o) {
+    int n = decl(Kinds.LOCAL_VAR_DECL, ast);
+    arena.link(n, node(ast.T), node(ast.I), node(ast.E));
+    last = n;
+    return null;
+  }
+
+  public Object visitErrorDecl(ErrorDecl ast, Object o) {
+    last = decl(Kinds.ERROR_DECL, ast);
+    return null;
+  }
+
+  // Stmts
+
+  public Object visitStmtList(StmtList ast, Object o) {
+    int first = leaf(Kinds.STMT_LIST, ast);
+    int n = first;
+    for (StmtList cell = ast; ; cell = (StmtList) cell.SL) {
+      int s = node(cell.S);
+      int tail = (cell.SL instanceof StmtList) ? leaf(Kinds.STMT_LIST, cell.SL) : node(cell.SL);
+      arena.link(n, s, tail);
+      if (!(cell.SL instanceof StmtList))
+        break;
+      n = tail;
+    }
+    last = first;
+    return null;
+  }
+
+  public Object visitIfStmt(IfStmt ast, Object o) {
+    int n = leaf(Kinds.IF_STMT, ast);
+    arena.link(n, node(ast.E), node(ast.S1), node(ast.S2));
+    last = n;
+    return null;
+  }
+
+  public Object visitWhileStmt(WhileStmt ast, Object o) {
+    int n = leaf(Kinds.WHILE_STMT, ast);
+    arena.link(n, node(ast.E), node(ast.S));
+    last = n;
+    return null;
+  }
+
+  public Object visitForStmt(ForStmt ast, Object o) {
+    int n = leaf(Kinds.FOR_STMT, ast);
+    arena.link(n, node(ast.E1), node(ast.E2), node(ast.E3), node(ast.S));
+    last = n;
+    return null;
+  }
+
+  public Object visitBreakStmt(BreakStmt ast, Object o) {
+    leaf(Kinds.BREAK_STMT, ast);
+    return null;
+  }
+
+  public Object visitContinueStmt(ContinueStmt ast, Object o) {
+    leaf(Kinds.CONTINUE_STMT, ast);
+    return null;
+  }
+
+  public Object visitReturnStmt(ReturnStmt ast, Object o) {
+    int n = leaf(Kinds.RETURN_STMT, ast);
+    arena.link(n, node(ast.E));
+    last = n;
+    return null;
+  }
+
+  public Object visitCompoundStmt(CompoundStmt ast, Object o) {
+    int n = leaf(Kinds.COMPOUND_STMT, ast);
+    arena.link(n, node(ast.DL), node(ast.SL));
+    last = n;
+    return null;
+  }
+
+  public Object visitExprStmt(ExprStmt ast, Object o) {
+    int n = leaf(Kinds.EXPR_STMT, ast);
+    arena.link(n, node(ast.E));
+    last = n;
+    return null;
+  }
+
+  public Object visitEmptyCompStmt(EmptyCompStmt ast, Object o) {
+    leaf(Kinds.EMPTY_COMP_STMT, ast);
+    return null;
+  }
+
+  public Object visitEmptyStmt(EmptyStmt ast, Object o) {
+    leaf(Kinds.EMPTY_STMT, ast);
+    return null;
+  }
+
+  public Object visitErrorStmt(ErrorStmt ast, Object o) {
+    leaf(Kinds.ERROR_STMT, ast);
+    return null;
+  }
+
+  // Expressions
+
+  public Object visitIntExpr(IntExpr ast, Object o) {
+    int n = leaf(Kinds.INT_EXPR, ast);
+    arena.link(n, node(ast.IL));
+    last = n;
+    return null;
+  }
+
+  public Object visitFloatExpr(FloatExpr ast, Object o) {
+    int n = leaf(Kinds.FLOAT_EXPR, ast);
+    arena.link(n, node(ast.FL));
+    last = n;
+    return null;
+  }
+
+  public Object visitBooleanExpr(BooleanExpr ast, Object o) {
+    int n = leaf(Kinds.BOOLEAN_EXPR, ast);
+    arena.link(n, node(ast.BL));
+    last = n;
+    return null;
+  }
+
+  public Object visitStringExpr(StringExpr ast, Object o) {
+    int n = leaf(Kinds.STRING_EXPR, ast);
+    arena.link(n, node(ast.SL));
+    last = n;
+    return null;
+  }
+
+  public Object visitUnaryExpr(UnaryExpr ast, Object o) {
+    int n = leaf(Kinds.UNARY_EXPR, ast);
+    arena.link(n, node(ast.O), node(ast.E));
+    last = n;
+    return null;
+  }
+
+  public Object visitBinaryExpr(BinaryExpr ast, Object o) {
+    int n = leaf(Kinds.BINARY_EXPR, ast);
+    arena.link(n, node(ast.E1), node(ast.O), node(ast.E2));
+    last = n;
+    return null;
+  }
+
+  public Object visitArrayInitExpr(ArrayInitExpr ast, Object o) {
+    int n = leaf(Kinds.ARRAY_INIT_EXPR, ast);
+    arena.link(n, node(ast.IL));
+    last = n;
+    return null;
+  }
+
+  public Object visitArrayExprList(ArrayExprList ast, Object o) {
+    int first = leaf(Kinds.ARRAY_EXPR_LIST, ast);
+    int n = first;
+    for (ArrayExprList cell = ast; ; cell = (ArrayExprList) cell.EL) {
+      int e = node(cell.E);
+      int tail = (cell.EL instanceof ArrayExprList)
+                 ? leaf(Kinds.ARRAY_EXPR_LIST, cell.EL) : node(cell.EL);
+      arena.link(n, e, tail);
+      if (!(cell.EL instanceof ArrayExprList))
+        break;
+      n = tail;
+    }
+    last = first;
+    return null;
+  }
+
+  public Object visitArrayExpr(ArrayExpr ast, Object o) {
+    int n = leaf(Kinds.ARRAY_EXPR, ast);
+    arena.link(n, node(ast.V), node(ast.E));
+    last = n;
+    return null;
+  }
+
+  public Object visitVarExpr(VarExpr ast, Object o) {
+    int n = leaf(Kinds.VAR_EXPR, ast);
+    arena.link(n, node(ast.V));
+    last = n;
+    return null;
+  }
+
+  public Object visitCallExpr(CallExpr ast, Object o) {
+    int n = leaf(Kinds.CALL_EXPR, ast);
+    arena.link(n, node(ast.I), node(ast.AL));
+    last = n;
+    return null;
+  }
+
+  public Object visitAssignExpr(AssignExpr ast, Object o) {
+    int n = leaf(Kinds.ASSIGN_EXPR, ast);
+    arena.link(n, node(ast.E1), node(ast.E2));
+    last = n;
+    return null;
+  }
+
+  public Object visitEmptyExpr(EmptyExpr ast, Object o) {
+    leaf(Kinds.EMPTY_EXPR, ast);
+    return null;
+  }
+
+  // Literals and identifiers
+
+  public Object visitIntLiteral(IntLiteral ast, Object o) {
+    terminal(Kinds.INT_LITERAL, ast);
+    return null;
+  }
+
+  public Object visitFloatLiteral(FloatLiteral ast, Object o) {
+    terminal(Kinds.FLOAT_LITERAL, ast);
+    return null;
+  }
+
+  public Object visitBooleanLiteral(BooleanLiteral ast, Object o) {
+    terminal(Kinds.BOOLEAN_LITERAL, ast);
+    return null;
+  }
+
+  public Object visitStringLiteral(StringLiteral ast, Object o) {
+    terminal(Kinds.STRING_LITERAL, ast);
+    return null;
+  }
+
+  public Object visitIdent(Ident ast, Object o) {
+    terminal(Kinds.IDENT, ast);
+    return null;
+  }
+
+  public Object visitOperator(Operator ast, Object o) {
+    terminal(Kinds.OPERATOR, ast);
+    return null;
+  }
+
+  // Parameters
+
+  public Object visitParaList(ParaList ast, Object o) {
+    int first = leaf(Kinds.PARA_LIST, ast);
+    int n = first;
+    for (ParaList cell = ast; ; cell = (ParaList) cell.PL) {
+      int p = node(cell.P);
+      int tail = (cell.PL instanceof ParaList) ? leaf(Kinds.PARA_LIST, cell.PL) : node(cell.PL);
+      arena.link(n, p, tail);
+      if (!(cell.PL instanceof ParaList))
+        break;
+      n = tail;
+    }
+    last = first;
+    return null;
+  }
+
+  public Object visitParaDecl(ParaDecl ast, Object o) {
+    int n = decl(Kinds.PARA_DECL, ast);
+    arena.link(n, node(ast.T), node(ast.I));
+    last = n;
+    return null;
+  }
+
+  // Arguments
+
+  public Object visitArgList(ArgList ast, Object o) {
+    int first = leaf(Kinds.ARG_LIST, ast);
+    int n = first;
+    for (ArgList cell = ast; ; cell = (ArgList) cell.AL) {
+      int a = node(cell.A);
+      int tail = (cell.AL instanceof ArgList) ? leaf(Kinds.ARG_LIST, cell.AL) : node(cell.AL);
+      arena.link(n, a, tail);
+      if (!(cell.AL instanceof ArgList))
+        break;
+      n = tail;
+    }
+    last = first;
+    return null;
+  }
+
+  public Object visitArg(Arg ast, Object o) {
+    int n = leaf(Kinds.ARG, ast);
+    arena.link(n, node(ast.E));
+    last = n;
+    return null;
+  }
+
+  // Types
+
+  public Object visitVoidType(VoidType ast, Object o) {
+    return type(Kinds.VOID_TYPE, ast);
+  }
+
+  public Object visitBooleanType(BooleanType ast, Object o) {
+    return type(Kinds.BOOLEAN_TYPE, ast);
+  }
+
+  public Object visitIntType(IntType ast, Object o) {
+    return type(Kinds.INT_TYPE, ast);
+  }
+
+  public Object visitFloatType(FloatType ast, Object o) {
+    return type(Kinds.FLOAT_TYPE, ast);
+  }
+
+  public Object visitStringType(StringType ast, Object o) {
+    return type(Kinds.STRING_TYPE, ast);
+  }
+
+  public Object visitArrayType(ArrayType ast, Object o) {
+    if (shared(ast))
+      return null;
+    int n = leaf(Kinds.ARRAY_TYPE, ast);
+    types.put(ast, n);
+    arena.link(n, node(ast.T), node(ast.E));
+    last = n;
+    return null;
+  }
+
+  public Object visitErrorType(ErrorType ast, Object o) {
+    return type(Kinds.ERROR_TYPE, ast);
+  }
+
+  // Variables
+
+  public Object visitSimpleVar(SimpleVar ast, Object o) {
+    int n = leaf(Kinds.SIMPLE_VAR, ast);
+    arena.link(n, node(ast.I));
+    last = n;
+    return null;
+  }
+
+}
@@ -8,14 +8,12 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class Arg extends Expr {
 
   public Expr E;
 
-  public Arg (Expr eAST, SourcePosition position) {
-    super (position);
+  public Arg (Expr eAST, long span) {
+    super (span, Kinds.ARG);
     E = eAST;
     eAST.parent = this;
   }
@@ -8,17 +8,24 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class ArgList extends List {
   public Arg A;
   public List AL;
 
-  public ArgList(Arg aAST, List alAST, SourcePosition thePosition) {
-    super (thePosition);
+  public ArgList(Arg aAST, List alAST, long span) {
+    super (span, Kinds.ARG_LIST);
     A = aAST;
     AL = alAST;
     A.parent = AL.parent = this;
+    size = AL.size + 1;
+  }
+
+  AST head() {
+    return A;
+  }
+
+  List tail() {
+    return AL;
   }
 
   public Object visit(Visitor v, Object o) {
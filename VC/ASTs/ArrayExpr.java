@@ -8,15 +8,13 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class ArrayExpr extends Expr {
 
   public Var V;
   public Expr E; // index of array var
 
-  public ArrayExpr (Var idAST, Expr indexAST, SourcePosition position) {
-    super (position);
+  public ArrayExpr (Var idAST, Expr indexAST, long span) {
+    super (span, Kinds.ARRAY_EXPR);
     V = idAST;
     E = indexAST;
     V.parent = E.parent = this;
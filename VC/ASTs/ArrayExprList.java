@@ -19,8 +19,6 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class ArrayExprList extends List {
   public Expr E;
   public List EL;
@@ -28,11 +26,20 @@ public class ArrayExprList extends List {
   // array index where this element should go
   public int index;
 
-  public ArrayExprList(Expr eAST, List elAST, SourcePosition thePosition) {
-    super (thePosition);
+  public ArrayExprList(Expr eAST, List elAST, long span) {
+    super (span, Kinds.ARRAY_EXPR_LIST);
     E = eAST;
     EL = elAST;
     E.parent = EL.parent = this;
+    size = EL.size + 1;
+  }
+
+  AST head() {
+    return E;
+  }
+
+  List tail() {
+    return EL;
   }
 
   public Object visit(Visitor v, Object o) {
@@ -22,14 +22,12 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class ArrayInitExpr extends Expr {
 
   public List IL;
 
-  public ArrayInitExpr (List ilAST, SourcePosition position) {
-    super (position);
+  public ArrayInitExpr (List ilAST, long span) {
+    super (span, Kinds.ARRAY_INIT_EXPR);
     IL = ilAST;
     IL.parent = this;
   }
@@ -9,20 +9,31 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
+import VC.Scanner.Span;
 
 public class ArrayType extends Type {
 
   public Type T;
   public Expr E;
 
-  public ArrayType (Type tAST, Expr dAST, SourcePosition Position) {
-    super (Position);
+  public ArrayType (Type tAST, Expr dAST, long span) {
+    super (span, Kinds.ARRAY_TYPE, Types.ARRAY);
     T = tAST;
     E = dAST;
     T.parent = E.parent = this;
   }
 
+  // The canonical array type numbered code by a TypeTable. Its element
+  // type is canonical, and shared by other types, so it is not made a
+  // child of this one.
+
+  ArrayType (Type tAST, Expr dAST, int code) {
+    super (Span.NONE, Kinds.ARRAY_TYPE, code);
+    T = tAST;
+    E = dAST;
+    E.parent = this;
+  }
+
   public Object visit (Visitor v, Object o) {
     return v.visitArrayType(this, o);
   }
@@ -40,16 +51,18 @@ public class ArrayType extends Type {
   }
 
   public String toString() {
-    if (T instanceof IntType)
-      return "[I";
-    else if (T instanceof FloatType)
-      return "[F";
-    else if (T instanceof BooleanType)
-      return "[Z";
-    else if (T instanceof VoidType)
-      return "[V";   // will be detected as semantic errors
-    else  // should not happen
-      return "[*";
+    switch (T.code()) {
+      case Types.INT:
+        return "[I";
+      case Types.FLOAT:
+        return "[F";
+      case Types.BOOLEAN:
+        return "[Z";
+      case Types.VOID:
+        return "[V";   // will be detected as semantic errors
+      default:  // should not happen
+        return "[*";
+    }
   }
 
 }
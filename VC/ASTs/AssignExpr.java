@@ -8,8 +8,6 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class AssignExpr extends Expr {
 
   /*
@@ -18,8 +16,8 @@ public class AssignExpr extends Expr {
    */
   public Expr E1, E2;
 
-  public AssignExpr (Expr e1AST, Expr e2AST, SourcePosition Position) {
-    super (Position);
+  public AssignExpr (Expr e1AST, Expr e2AST, long span) {
+    super (span, Kinds.ASSIGN_EXPR);
     E1 = e1AST;
     E2 = e2AST;
     E1.parent = E2.parent = this;
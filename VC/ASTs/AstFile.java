@@ -0,0 +1,113 @@
+/*
+ * AstFile.java
+ *
+ * Reads and writes the AST of a program as a .vcast file, so that the
+ * compilation of a program that has not changed since the file was
+ * written can load its AST instead of lexing and parsing it again.
+ *
+ *   magic   "VCAST" and the version of the format (a byte)
+ *   stamp   the hash of the program (see sourceHash, 32 bytes)
+ *   tree    the NodeArena of the AST (see NodeArena.write)
+ *   check   the CRC-32 of all of the above (4 bytes)
+ *
+ * A file that is stamped with another hash, or is damaged, is not
+ * read. The file is memory-mapped, and the nodes are rebuilt straight
+ * from it.
+ *
+ * The AST is the one the parser built: the annotations of the checker
+ * are not kept, so a loaded AST is checked again.
+ */
+
+package VC.ASTs;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+public final class AstFile {
+
+  private static final byte[] MAGIC = { 'V', 'C', 'A', 'S', 'T', 1 };
+  private static final int STAMP = 32;   // the bytes of a SHA-256 hash
+
+  private AstFile() { }
+
+  // Returns the hash that stamps the AST of the program in the file
+  // filename: the SHA-256 of its bytes and of the name of the charset
+  // that decodes them (which the spans depend on). A file that is not a
+  // regular file (a FIFO, say) cannot be read again to be hashed, and
+  // its program is not cached.
+
+  public static byte[] sourceHash(String filename) throws IOException {
+    if (!Files.isRegularFile(Paths.get(filename)))
+      throw new IOException("not a regular file: " + filename);
+    try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      digest.update(Charset.defaultCharset().name().getBytes(StandardCharsets.UTF_8));
+      digest.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+      return digest.digest();
+    } catch (NoSuchAlgorithmException e) {
+      throw new IOException(e);  // every Java platform has SHA-256
+    }
+  }
+
+  // Writes the AST ast, stamped with stamp, to the file filename.
+
+  public static void write(AST ast, byte[] stamp, String filename) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 16);
+    out.write(MAGIC);
+    out.write(stamp);
+    NodeArena.of(ast).write(out);
+    CRC32 crc = new CRC32();
+    byte[] bytes = out.toByteArray();
+    crc.update(bytes);
+    try (OutputStream file = Files.newOutputStream(Paths.get(filename))) {
+      file.write(bytes);
+      int check = (int) crc.getValue();
+      file.write(new byte[] {
+        (byte) (check >>> 24), (byte) (check >>> 16), (byte) (check >>> 8), (byte) check
+      });
+    }
+  }
+
+  // Returns the AST in the file filename if the file is stamped with
+  // stamp, and null if it is not, or is missing or damaged.
+
+  public static AST read(String filename, byte[] stamp) {
+    try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+      ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      int end = in.limit() - 4;
+      if (end < MAGIC.length + STAMP)
+        return null;
+      byte[] header = new byte[MAGIC.length];
+      byte[] hash = new byte[STAMP];
+      in.get(header).get(hash);
+      if (!Arrays.equals(header, MAGIC) || !Arrays.equals(hash, stamp))
+        return null;
+
+      CRC32 crc = new CRC32();
+      crc.update(in.duplicate().position(0).limit(end));
+      if ((int) crc.getValue() != in.getInt(end))
+        return null;
+
+      in.limit(end);
+      NodeArena arena = NodeArena.read(in);
+      if (in.hasRemaining() || arena.kind(0) != Kinds.PROGRAM)
+        return null;
+      return arena.toAST();
+    } catch (IOException | RuntimeException e) {
+      return null;
+    }
+  }
+
+}
@@ -7,15 +7,13 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class BinaryExpr extends Expr {
 
   public Expr E1, E2;
   public Operator O;
 
-  public BinaryExpr(Expr e1AST, Operator oAST, Expr e2AST, SourcePosition Position) {
-    super (Position);
+  public BinaryExpr(Expr e1AST, Operator oAST, Expr e2AST, long span) {
+    super (span, Kinds.BINARY_EXPR);
     O = oAST;
     E1 = e1AST;
     E2 = e2AST;
@@ -10,8 +10,6 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class BooleanExpr extends Expr {
 
   public BooleanLiteral BL;
@@ -20,8 +18,8 @@ public class BooleanExpr extends Expr {
   // The two fields below are not used for this year's assignments
   public AST trueSuccessor, falseSuccessor;
 
-  public BooleanExpr(BooleanLiteral blAST, SourcePosition position) {
-    super (position);
+  public BooleanExpr(BooleanLiteral blAST, long span) {
+    super (span, Kinds.BOOLEAN_EXPR);
     BL = blAST;
     BL.parent = this;
   }
@@ -7,12 +7,10 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class BooleanLiteral extends Terminal {
 
-  public BooleanLiteral (String value, SourcePosition position) {
-    super (value, position);
+  public BooleanLiteral (String value, long span) {
+    super (value, span, Kinds.BOOLEAN_LITERAL);
   }
 
   public Object visit(Visitor v, Object o) {
@@ -8,12 +8,10 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class BooleanType extends Type {
 
-  public BooleanType (SourcePosition Position) {
-    super (Position);
+  public BooleanType (long span) {
+    super (span, Kinds.BOOLEAN_TYPE, Types.BOOLEAN);
   }
 
   public Object visit (Visitor v, Object o) {
@@ -21,10 +19,10 @@ public class BooleanType extends Type {
   }
 
   public boolean equals(Object obj) {
-    if (obj != null && obj instanceof ErrorType)
-      return true;
-    else    
-      return (obj != null && obj instanceof BooleanType);
+    if (!(obj instanceof Type))
+      return false;
+    int code = ((Type) obj).code();
+    return code == Types.BOOLEAN || code == Types.ERROR;
   }
 
   public boolean assignable(Object obj) {
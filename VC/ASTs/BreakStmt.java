@@ -4,12 +4,10 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class BreakStmt extends Stmt {
 
-  public BreakStmt(SourcePosition Position) {
-    super (Position);
+  public BreakStmt(long span) {
+    super (span, Kinds.BREAK_STMT);
   }
 
   public Object visit(Visitor v, Object o) {
@@ -8,15 +8,13 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class CallExpr extends Expr {
 
   public Ident I;
   public List AL;
 
-  public CallExpr(Ident id, List aplAST, SourcePosition Position) {
-    super (Position);
+  public CallExpr(Ident id, List aplAST, long span) {
+    super (span, Kinds.CALL_EXPR);
     I = id;
     AL = aplAST;
     I.parent = AL.parent = this;
@@ -4,15 +4,14 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class CompoundStmt extends Stmt {
 
   public List DL;
   public List SL;
+  public Scope scope;  // what the statements see, left by the checker
 
-  public CompoundStmt(List dlAST, List slAST, SourcePosition position) {
-    super (position);
+  public CompoundStmt(List dlAST, List slAST, long span) {
+    super (span, Kinds.COMPOUND_STMT);
     DL = dlAST;
     SL = slAST;
     DL.parent = SL.parent = this;
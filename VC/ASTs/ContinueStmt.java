@@ -4,12 +4,10 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class ContinueStmt extends Stmt {
 
-  public ContinueStmt(SourcePosition Position) {
-    super (Position);
+  public ContinueStmt(long span) {
+    super (span, Kinds.CONTINUE_STMT);
   }
 
   public Object visit(Visitor v, Object o) {
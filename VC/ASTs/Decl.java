@@ -4,8 +4,6 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public abstract class Decl extends AST {
 
   public Type T;
@@ -15,8 +13,15 @@ public abstract class Decl extends AST {
   // See page 72, the JVM spec, 2nd edition.
   public int index; 
 
-  public Decl(SourcePosition Position) {
-    super (Position);
+  // the number the checker gives this declaration (see Symbols.java)
+  public int symbol = Symbols.NONE;
+
+  // whether the parser found a syntax error in this declaration (and
+  // so it contains an ErrorStmt or ErrorDecl, or is an ErrorDecl)
+  public boolean hasErrors;
+
+  public Decl(long span, int kind) {
+    super (span, kind);
   }
 
   // The following methods will be used in Assignments 4 and 5.
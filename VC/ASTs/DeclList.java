@@ -4,18 +4,25 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class DeclList extends List {
 
   public Decl D;
   public List DL;
 
-  public DeclList(Decl dAST, List dlAST, SourcePosition position) {
-    super (position);
+  public DeclList(Decl dAST, List dlAST, long span) {
+    super (span, Kinds.DECL_LIST);
     D = dAST;
     DL = dlAST;
     D.parent = DL.parent = this;
+    size = DL.size + 1;
+  }
+
+  AST head() {
+    return D;
+  }
+
+  List tail() {
+    return DL;
   }
 
   public Object visit(Visitor v, Object o) {
@@ -8,12 +8,10 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class EmptyArgList extends List {
 
-  public EmptyArgList(SourcePosition position) {
-    super (position);
+  public EmptyArgList(long span) {
+    super (span, Kinds.EMPTY_ARG_LIST);
   }
 
   public Object visit(Visitor v, Object o) {
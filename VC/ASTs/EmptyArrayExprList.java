@@ -9,12 +9,10 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class EmptyArrayExprList extends List {
 
-  public EmptyArrayExprList(SourcePosition Position) {
-    super (Position);
+  public EmptyArrayExprList(long span) {
+    super (span, Kinds.EMPTY_ARRAY_EXPR_LIST);
   }
 
   public Object visit(Visitor v, Object o) {
@@ -8,12 +8,10 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class EmptyCompStmt extends Stmt {
 
-  public EmptyCompStmt(SourcePosition Position) {
-    super (Position);
+  public EmptyCompStmt(long span) {
+    super (span, Kinds.EMPTY_COMP_STMT);
   }
 
   public Object visit(Visitor v, Object o) {
@@ -9,12 +9,10 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class EmptyDeclList extends List {
 
-  public EmptyDeclList(SourcePosition Position) {
-    super (Position);
+  public EmptyDeclList(long span) {
+    super (span, Kinds.EMPTY_DECL_LIST);
   }
 
   public Object visit(Visitor v, Object o) {
@@ -17,12 +17,10 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class EmptyExpr extends Expr {
 
-  public EmptyExpr (SourcePosition thePosition) {
-    super (thePosition);
+  public EmptyExpr (long span) {
+    super (span, Kinds.EMPTY_EXPR);
   }
 
   public Object visit(Visitor v, Object o) {
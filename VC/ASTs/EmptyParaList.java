@@ -8,12 +8,10 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class EmptyParaList extends List {
 
-  public EmptyParaList(SourcePosition Position) {
-    super (Position);
+  public EmptyParaList(long span) {
+    super (span, Kinds.EMPTY_PARA_LIST);
   }
 
   public Object visit(Visitor v, Object o) {
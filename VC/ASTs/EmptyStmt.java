@@ -7,12 +7,10 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class EmptyStmt extends Stmt {
 
-  public EmptyStmt(SourcePosition Position) {
-    super (Position);
+  public EmptyStmt(long span) {
+    super (span, Kinds.EMPTY_STMT);
   }
 
   public Object visit(Visitor v, Object o) {
@@ -8,12 +8,10 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class EmptyStmtList extends List {
 
-  public EmptyStmtList(SourcePosition Position) {
-    super (Position);
+  public EmptyStmtList(long span) {
+    super (span, Kinds.EMPTY_STMT_LIST);
   }
 
   public Object visit(Visitor v, Object o) {
@@ -0,0 +1,24 @@
+/*
+ * ErrorDecl.java
+ *
+ * Used for representing a declaration in which the parser found a
+ * syntax error and skipped to the start of the next declaration (or
+ * the end of a local one). It has no type and no identifier (T and I
+ * are null). The checker skips it.
+ *
+ */
+
+package VC.ASTs;
+
+public class ErrorDecl extends Decl {
+
+  public ErrorDecl(long span) {
+    super (span, Kinds.ERROR_DECL);
+    hasErrors = true;
+  }
+
+  public Object visit(Visitor v, Object o) {
+    return v.visitErrorDecl(this, o);
+  }
+
+}
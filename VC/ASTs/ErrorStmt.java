@@ -0,0 +1,21 @@
+/*
+ * ErrorStmt.java
+ *
+ * Used for representing a statement in which the parser found a
+ * syntax error and skipped to the end of the statement.
+ *
+ */
+
+package VC.ASTs;
+
+public class ErrorStmt extends Stmt {
+
+  public ErrorStmt(long span) {
+    super (span, Kinds.ERROR_STMT);
+  }
+
+  public Object visit(Visitor v, Object o) {
+    return v.visitErrorStmt(this, o);
+  }
+
+}
@@ -8,12 +8,10 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class ErrorType extends Type {
 
-  public ErrorType(SourcePosition thePosition) {
-    super (thePosition);
+  public ErrorType(long span) {
+    super (span, Kinds.ERROR_TYPE, Types.ERROR);
   }
 
   public Object visit (Visitor v, Object o) {
@@ -7,7 +7,6 @@ package VC.ASTs;
 
 import java.util.LinkedList;
 
-import VC.Scanner.SourcePosition;
 
 public abstract class Expr extends AST {
 
@@ -15,8 +14,8 @@ public abstract class Expr extends AST {
 
  
 
-  public Expr (SourcePosition Position) {
-    super (Position);
+  public Expr (long span, int kind) {
+    super (span, kind);
     type = null;
   }
 
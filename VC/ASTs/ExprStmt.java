@@ -10,14 +10,12 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class ExprStmt extends Stmt {
 
   public Expr E;
 
-  public ExprStmt (Expr eAST, SourcePosition Position) {
-    super (Position);
+  public ExprStmt (Expr eAST, long span) {
+    super (span, Kinds.EXPR_STMT);
     E = eAST;
     E.parent = this;
   }
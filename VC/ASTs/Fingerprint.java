@@ -0,0 +1,751 @@
+/*
+ * Fingerprint.java
+ *
+ * Structural hashes of subtrees, and structural equality.
+ *
+ * A subtree has two 64-bit fingerprints: of its shape (the kinds of its
+ * nodes, the spellings of its terminals and whether its declarations
+ * have syntax errors), and of its shape and the spans of its nodes.
+ * Both are stable from one run to the next, so the fingerprint of a
+ * function can tell whether it has changed since the last compilation,
+ * and the shape alone whether a program parses back from its unparsed
+ * text to the same tree (see vc -r). The annotations of the checker
+ * (Ident.decl, Expr.type) are not part of either.
+ *
+ * The fingerprints are cached in the nodes. A node that is changed
+ * must be passed to invalidate, which forgets the fingerprints of it
+ * and of the nodes above it, or to invalidateSpans if only its span
+ * was changed, which keeps the fingerprints of their shapes. (The
+ * parser and checker do this.)
+ *
+ * Two subtrees are equal (see equal and equalWithSpans) if they have
+ * the same fingerprint and are then found to be the same node by node,
+ * so a difference is almost always found at the root, for the price of
+ * the fingerprints.
+ *
+ * Lists are walked iteratively, as they can be longer than the stack
+ * is deep.
+ */
+
+package VC.ASTs;
+
+public final class Fingerprint implements Visitor {
+
+  private static final long SHAPE = 0x6A09E667F3BCC908L;
+  private static final long SPANS = 0xBB67AE8584CAA73BL;
+
+  private static final Fingerprint hasher = new Fingerprint();
+
+  private Fingerprint() { }
+
+  // The fingerprint of the shape of the subtree ast.
+
+  public static long of(AST ast) {
+    if (ast.fingerprint == 0)
+      ast.visit(hasher, null);
+    return ast.fingerprint;
+  }
+
+  // The fingerprint of the shape and the spans of the subtree ast.
+
+  public static long withSpans(AST ast) {
+    hasher.ensure(ast);
+    return ast.spanFingerprint;
+  }
+
+  // Whether the subtrees a and b have the same shape.
+
+  public static boolean equal(AST a, AST b) {
+    return new Matcher(false).same(a, b);
+  }
+
+  // Whether the subtrees a and b have the same shape and spans.
+
+  public static boolean equalWithSpans(AST a, AST b) {
+    return new Matcher(true).same(a, b);
+  }
+
+  // Forgets the fingerprints of ast and of the nodes above it, after
+  // ast has been changed. A node whose fingerprint (of either kind) is
+  // known has that of all the nodes below it known, and one whose
+  // spans are hashed has its shape hashed, so the walk up stops at the
+  // first node whose shape is not.
+
+  public static void invalidate(AST ast) {
+    for (AST n = ast; n != null && n.fingerprint != 0; n = n.parent)
+      n.fingerprint = n.spanFingerprint = 0;
+  }
+
+  // Forgets the fingerprints with spans of ast and of the nodes above
+  // it, after the span of ast has been changed.
+
+  public static void invalidateSpans(AST ast) {
+    for (AST n = ast; n != null && n.spanFingerprint != 0; n = n.parent)
+      n.spanFingerprint = 0;
+  }
+
+  // ======================== HASHING ========================
+
+  private void ensure(AST ast) {
+    if (ast.spanFingerprint == 0)
+      ast.visit(this, null);
+  }
+
+  private static long mix(long h, long x) {
+    h = (h ^ x) * 0x9E3779B97F4A7C15L;
+    return h ^ (h >>> 32);
+  }
+
+  // The finaliser of SplitMix64; 0 stands for "not known".
+
+  private static long finish(long h) {
+    h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+    h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+    h ^= h >>> 31;
+    return h != 0 ? h : 1;
+  }
+
+  private static long hash(String s) {
+    long h = 0xCBF29CE484222325L;  // FNV-1a
+    for (int i = 0; i < s.length(); i++)
+      h = (h ^ s.charAt(i)) * 0x100000001B3L;
+    return h;
+  }
+
+  // Sets the fingerprints of the node ast of kind kind (see NodeArena)
+  // from extra (what else, besides its children, it is made of) and
+  // its children, up to four, in order (the others null).
+
+  private void node(AST ast, int kind, long extra, AST c1, AST c2, AST c3, AST c4) {
+    long shape = mix(mix(SHAPE, kind), extra);
+    long spans = mix(mix(mix(SPANS, kind), extra), ast.span);
+    AST[] children = { c1, c2, c3, c4 };
+    for (AST c : children) {
+      if (c == null)
+        break;
+      ensure(c);
+      shape = mix(shape, c.fingerprint);
+      spans = mix(spans, c.spanFingerprint);
+    }
+    ast.fingerprint = finish(shape);
+    ast.spanFingerprint = finish(spans);
+  }
+
+  private void leaf(AST ast, int kind) {
+    node(ast, kind, 0, null, null, null, null);
+  }
+
+  private void terminal(Terminal ast, int kind) {
+    node(ast, kind, hash(ast.spelling), null, null, null, null);
+  }
+
+  private static long errors(Decl ast) {
+    return ast.hasErrors ? 1 : 0;
+  }
+
+  // Hashes the cells of a list whose fingerprints are not known, last
+  // to first, after the elements they hold.
+
+  private void list(List ast, int kind) {
+    int n = ast.size();
+    int known = 0;
+    while (known < n && ast.cell(known).spanFingerprint == 0)
+      known++;
+    ensure(ast.cell(known));
+    for (int i = 0; i < known; i++)
+      ensure(ast.get(i));
+    for (int i = known - 1; i >= 0; i--)
+      node(ast.cell(i), kind, 0, ast.get(i), ast.cell(i + 1), null, null);
+  }
+
+  // Programs
+
+  public Object visitProgram(Program ast, Object o) {
+    node(ast, Kinds.PROGRAM, 0, ast.FL, null, null, null);
+    return null;
+  }
+
+  // Lists for denoting the null reference
+
+  public Object visitEmptyDeclList(EmptyDeclList ast, Object o) {
+    leaf(ast, Kinds.EMPTY_DECL_LIST);
+    return null;
+  }
+
+  public Object visitEmptyStmtList(EmptyStmtList ast, Object o) {
+    leaf(ast, Kinds.EMPTY_STMT_LIST);
+    return null;
+  }
+
+  public Object visitEmptyArrayExprList(EmptyArrayExprList ast, Object o) {
+    leaf(ast, Kinds.EMPTY_ARRAY_EXPR_LIST);
+    return null;
+  }
+
+  public Object visitEmptyParaList(EmptyParaList ast, Object o) {
+    leaf(ast, Kinds.EMPTY_PARA_LIST);
+    return null;
+  }
+
+  public Object visitEmptyArgList(EmptyArgList ast, Object o) {
+    leaf(ast, Kinds.EMPTY_ARG_LIST);
+    return null;
+  }
+
+  // Declarations
+
+  public Object visitDeclList(DeclList ast, Object o) {
+    list(ast, Kinds.DECL_LIST);
+    return null;
+  }
+
+  public Object visitFuncDecl(FuncDecl ast, Object o) {
+    node(ast, Kinds.FUNC_DECL, errors(ast), ast.T, ast.I, ast.PL, ast.S);
+    return null;
+  }
+
+  public Object visitGlobalVarDecl(GlobalVarDecl ast, Object o) {
+    node(ast, Kinds.GLOBAL_VAR_DECL, errors(ast), ast.T, ast.I, ast.E, null);
+    return null;
+  }
+
+  public Object visitLocalVarDecl(LocalVarDecl ast, Object o) {
+    node(ast, Kinds.LOCAL_VAR_DECL, errors(ast), ast.T, ast.I, ast.E, null);
+    return null;
+  }
+
+  public Object visitErrorDecl(ErrorDecl ast, Object o) {
+    node(ast, Kinds.ERROR_DECL, errors(ast), null, null, null, null);
+    return null;
+  }
+
+  // Stmts
+
+  public Object visitStmtList(StmtList ast, Object o) {
+    list(ast, Kinds.STMT_LIST);
+    return null;
+  }
+
+  public Object visitIfStmt(IfStmt ast, Object o) {
+    node(ast, Kinds.IF_STMT, 0, ast.E, ast.S1, ast.S2, null);
+    return null;
+  }
+
+  public Object visitWhileStmt(WhileStmt ast, Object o) {
+    node(ast, Kinds.WHILE_STMT, 0, ast.E, ast.S, null, null);
+    return null;
+  }
+
+  public Object visitForStmt(ForStmt ast, Object o) {
+    node(ast, Kinds.FOR_STMT, 0, ast.E1, ast.E2, ast.E3, ast.S);
+    return null;
+  }
+
+  public Object visitBreakStmt(BreakStmt ast, Object o) {
+    leaf(ast, Kinds.BREAK_STMT);
+    return null;
+  }
+
+  public Object visitContinueStmt(ContinueStmt ast, Object o) {
+    leaf(ast, Kinds.CONTINUE_STMT);
+    return null;
+  }
+
+  public Object visitReturnStmt(ReturnStmt ast, Object o) {
+    node(ast, Kinds.RETURN_STMT, 0, ast.E, null, null, null);
+    return null;
+  }
+
+  public Object visitCompoundStmt(CompoundStmt ast, Object o) {
+    node(ast, Kinds.COMPOUND_STMT, 0, ast.DL, ast.SL, null, null);
+    return null;
+  }
+
+  public Object visitExprStmt(ExprStmt ast, Object o) {
+    node(ast, Kinds.EXPR_STMT, 0, ast.E, null, null, null);
+    return null;
+  }
+
+  public Object visitEmptyCompStmt(EmptyCompStmt ast, Object o) {
+    leaf(ast, Kinds.EMPTY_COMP_STMT);
+    return null;
+  }
+
+  public Object visitEmptyStmt(EmptyStmt ast, Object o) {
+    leaf(ast, Kinds.EMPTY_STMT);
+    return null;
+  }
+
+  public Object visitErrorStmt(ErrorStmt ast, Object o) {
+    leaf(ast, Kinds.ERROR_STMT);
+    return null;
+  }
+
+  // Expressions
+
+  public Object visitIntExpr(IntExpr ast, Object o) {
+    node(ast, Kinds.INT_EXPR, 0, ast.IL, null, null, null);
+    return null;
+  }
+
+  public Object visitFloatExpr(FloatExpr ast, Object o) {
+    node(ast, Kinds.FLOAT_EXPR, 0, ast.FL, null, null, null);
+    return null;
+  }
+
+  public Object visitBooleanExpr(BooleanExpr ast, Object o) {
+    node(ast, Kinds.BOOLEAN_EXPR, 0, ast.BL, null, null, null);
+    return null;
+  }
+
+  public Object visitStringExpr(StringExpr ast, Object o) {
+    node(ast, Kinds.STRING_EXPR, 0, ast.SL, null, null, null);
+    return null;
+  }
+
+  public Object visitUnaryExpr(UnaryExpr ast, Object o) {
+    node(ast, Kinds.UNARY_EXPR, 0, ast.O, ast.E, null, null);
+    return null;
+  }
+
+  public Object visitBinaryExpr(BinaryExpr ast, Object o) {
+    node(ast, Kinds.BINARY_EXPR, 0, ast.E1, ast.O, ast.E2, null);
+    return null;
+  }
+
+  public Object visitArrayInitExpr(ArrayInitExpr ast, Object o) {
+    node(ast, Kinds.ARRAY_INIT_EXPR, 0, ast.IL, null, null, null);
+    return null;
+  }
+
+  public Object visitArrayExprList(ArrayExprList ast, Object o) {
+    list(ast, Kinds.ARRAY_EXPR_LIST);
+    return null;
+  }
+
+  public Object visitArrayExpr(ArrayExpr ast, Object o) {
+    node(ast, Kinds.ARRAY_EXPR, 0, ast.V, ast.E, null, null);
+    return null;
+  }
+
+  public Object visitVarExpr(VarExpr ast, Object o) {
+    node(ast, Kinds.VAR_EXPR, 0, ast.V, null, null, null);
+    return null;
+  }
+
+  public Object visitCallExpr(CallExpr ast, Object o) {
+    node(ast, Kinds.CALL_EXPR, 0, ast.I, ast.AL, null, null);
+    return null;
+  }
+
+  public Object visitAssignExpr(AssignExpr ast, Object o) {
+    node(ast, Kinds.ASSIGN_EXPR, 0, ast.E1, ast.E2, null, null);
+    return null;
+  }
+
+  public Object visitEmptyExpr(EmptyExpr ast, Object o) {
+    leaf(ast, Kinds.EMPTY_EXPR);
+    return null;
+  }
+
+  // Literals and identifiers
+
+  public Object visitIntLiteral(IntLiteral ast, Object o) {
+    terminal(ast, Kinds.INT_LITERAL);
+    return null;
+  }
+
+  public Object visitFloatLiteral(FloatLiteral ast, Object o) {
+    terminal(ast, Kinds.FLOAT_LITERAL);
+    return null;
+  }
+
+  public Object visitBooleanLiteral(BooleanLiteral ast, Object o) {
+    terminal(ast, Kinds.BOOLEAN_LITERAL);
+    return null;
+  }
+
+  public Object visitStringLiteral(StringLiteral ast, Object o) {
+    terminal(ast, Kinds.STRING_LITERAL);
+    return null;
+  }
+
+  public Object visitIdent(Ident ast, Object o) {
+    terminal(ast, Kinds.IDENT);
+    return null;
+  }
+
+  public Object visitOperator(Operator ast, Object o) {
+    terminal(ast, Kinds.OPERATOR);
+    return null;
+  }
+
+  // Parameters
+
+  public Object visitParaList(ParaList ast, Object o) {
+    list(ast, Kinds.PARA_LIST);
+    return null;
+  }
+
+  public Object visitParaDecl(ParaDecl ast, Object o) {
+    node(ast, Kinds.PARA_DECL, errors(ast), ast.T, ast.I, null, null);
+    return null;
+  }
+
+  // Arguments
+
+  public Object visitArgList(ArgList ast, Object o) {
+    list(ast, Kinds.ARG_LIST);
+    return null;
+  }
+
+  public Object visitArg(Arg ast, Object o) {
+    node(ast, Kinds.ARG, 0, ast.E, null, null, null);
+    return null;
+  }
+
+  // Types
+
+  public Object visitVoidType(VoidType ast, Object o) {
+    leaf(ast, Kinds.VOID_TYPE);
+    return null;
+  }
+
+  public Object visitBooleanType(BooleanType ast, Object o) {
+    leaf(ast, Kinds.BOOLEAN_TYPE);
+    return null;
+  }
+
+  public Object visitIntType(IntType ast, Object o) {
+    leaf(ast, Kinds.INT_TYPE);
+    return null;
+  }
+
+  public Object visitFloatType(FloatType ast, Object o) {
+    leaf(ast, Kinds.FLOAT_TYPE);
+    return null;
+  }
+
+  public Object visitStringType(StringType ast, Object o) {
+    leaf(ast, Kinds.STRING_TYPE);
+    return null;
+  }
+
+  public Object visitArrayType(ArrayType ast, Object o) {
+    node(ast, Kinds.ARRAY_TYPE, 0, ast.T, ast.E, null, null);
+    return null;
+  }
+
+  public Object visitErrorType(ErrorType ast, Object o) {
+    leaf(ast, Kinds.ERROR_TYPE);
+    return null;
+  }
+
+  // Variables
+
+  public Object visitSimpleVar(SimpleVar ast, Object o) {
+    node(ast, Kinds.SIMPLE_VAR, 0, ast.I, null, null, null);
+    return null;
+  }
+
+  // ======================== EQUALITY ========================
+
+  // Compares two subtrees node by node: each visit method is called on
+  // a node of one with the node of the other in the same place as o,
+  // after same has found them to be of the same class.
+
+  private static final class Matcher implements Visitor {
+
+    private final boolean spans;
+
+    Matcher(boolean spans) {
+      this.spans = spans;
+    }
+
+    boolean same(AST a, AST b) {
+      if (a == b)
+        return true;
+      if (a.getClass() != b.getClass())
+        return false;
+      if (spans ? withSpans(a) != withSpans(b) : of(a) != of(b))
+        return false;
+      if (spans && a.span != b.span)
+        return false;
+      return (Boolean) a.visit(this, b);
+    }
+
+    private boolean sameList(List a, List b) {
+      int n = a.size();
+      if (n != b.size())
+        return false;
+      for (int i = 0; i < n; i++) {
+        if (spans && a.cell(i).span != b.cell(i).span)
+          return false;
+        if (!same(a.get(i), b.get(i)))
+          return false;
+      }
+      return same(a.cell(n), b.cell(n));
+    }
+
+    private Boolean sameDecl(Decl a, Decl b) {
+      return a.hasErrors == b.hasErrors;
+    }
+
+    private Boolean sameSpelling(Terminal a, Object b) {
+      return a.spelling.equals(((Terminal) b).spelling);
+    }
+
+    // Programs
+
+    public Object visitProgram(Program ast, Object o) {
+      return same(ast.FL, ((Program) o).FL);
+    }
+
+    // Lists for denoting the null reference
+
+    public Object visitEmptyDeclList(EmptyDeclList ast, Object o) {
+      return true;
+    }
+
+    public Object visitEmptyStmtList(EmptyStmtList ast, Object o) {
+      return true;
+    }
+
+    public Object visitEmptyArrayExprList(EmptyArrayExprList ast, Object o) {
+      return true;
+    }
+
+    public Object visitEmptyParaList(EmptyParaList ast, Object o) {
+      return true;
+    }
+
+    public Object visitEmptyArgList(EmptyArgList ast, Object o) {
+      return true;
+    }
+
+    // Declarations
+
+    public Object visitDeclList(DeclList ast, Object o) {
+      return sameList(ast, (List) o);
+    }
+
+    public Object visitFuncDecl(FuncDecl ast, Object o) {
+      FuncDecl b = (FuncDecl) o;
+      return sameDecl(ast, b) && same(ast.T, b.T) && same(ast.I, b.I)
+             && same(ast.PL, b.PL) && same(ast.S, b.S);
+    }
+
+    public Object visitGlobalVarDecl(GlobalVarDecl ast, Object o) {
+      GlobalVarDecl b = (GlobalVarDecl) o;
+      return sameDecl(ast, b) && same(ast.T, b.T) && same(ast.I, b.I) && same(ast.E, b.E);
+    }
+
+    public Object visitLocalVarDecl(LocalVarDecl ast, Object o) {
+      LocalVarDecl b = (LocalVarDecl) o;
+      return sameDecl(ast, b) && same(ast.T, b.T) && same(ast.I, b.I) && same(ast.E, b.E);
+    }
+
+    public Object visitErrorDecl(ErrorDecl ast, Object o) {
+      return sameDecl(ast, (Decl) o);
+    }
+
+    // Stmts
+
+    public Object visitStmtList(StmtList ast, Object o) {
+      return sameList(ast, (List) o);
+    }
+
+    public Object visitIfStmt(IfStmt ast, Object o) {
+      IfStmt b = (IfStmt) o;
+      return same(ast.E, b.E) && same(ast.S1, b.S1) && same(ast.S2, b.S2);
+    }
+
+    public Object visitWhileStmt(WhileStmt ast, Object o) {
+      WhileStmt b = (WhileStmt) o;
+      return same(ast.E, b.E) && same(ast.S, b.S);
+    }
+
+    public Object visitForStmt(ForStmt ast, Object o) {
+      ForStmt b = (ForStmt) o;
+      return same(ast.E1, b.E1) && same(ast.E2, b.E2) && same(ast.E3, b.E3) && same(ast.S, b.S);
+    }
+
+    public Object visitBreakStmt(BreakStmt ast, Object o) {
+      return true;
+    }
+
+    public Object visitContinueStmt(ContinueStmt ast, Object o) {
+      return true;
+    }
+
+    public Object visitReturnStmt(ReturnStmt ast, Object o) {
+      return same(ast.E, ((ReturnStmt) o).E);
+    }
+
+    public Object visitCompoundStmt(CompoundStmt ast, Object o) {
+      CompoundStmt b = (CompoundStmt) o;
+      return same(ast.DL, b.DL) && same(ast.SL, b.SL);
+    }
+
+    public Object visitExprStmt(ExprStmt ast, Object o) {
+      return same(ast.E, ((ExprStmt) o).E);
+    }
+
+    public Object visitEmptyCompStmt(EmptyCompStmt ast, Object o) {
+      return true;
+    }
+
+    public Object visitEmptyStmt(EmptyStmt ast, Object o) {
+      return true;
+    }
+
+    public Object visitErrorStmt(ErrorStmt ast, Object o) {
+      return true;
+    }
+
+    // Expressions
+
+    public Object visitIntExpr(IntExpr ast, Object o) {
+      return same(ast.IL, ((IntExpr) o).IL);
+    }
+
+    public Object visitFloatExpr(FloatExpr ast, Object o) {
+      return same(ast.FL, ((FloatExpr) o).FL);
+    }
+
+    public Object visitBooleanExpr(BooleanExpr ast, Object o) {
+      return same(ast.BL, ((BooleanExpr) o).BL);
+    }
+
+    public Object visitStringExpr(StringExpr ast, Object o) {
+      return same(ast.SL, ((StringExpr) o).SL);
+    }
+
+    public Object visitUnaryExpr(UnaryExpr ast, Object o) {
+      UnaryExpr b = (UnaryExpr) o;
+      return same(ast.O, b.O) && same(ast.E, b.E);
+    }
+
+    public Object visitBinaryExpr(BinaryExpr ast, Object o) {
+      BinaryExpr b = (BinaryExpr) o;
+      return same(ast.E1, b.E1) && same(ast.O, b.O) && same(ast.E2, b.E2);
+    }
+
+    public Object visitArrayInitExpr(ArrayInitExpr ast, Object o) {
+      return same(ast.IL, ((ArrayInitExpr) o).IL);
+    }
+
+    public Object visitArrayExprList(ArrayExprList ast, Object o) {
+      return sameList(ast, (List) o);
+    }
+
+    public Object visitArrayExpr(ArrayExpr ast, Object o) {
+      ArrayExpr b = (ArrayExpr) o;
+      return same(ast.V, b.V) && same(ast.E, b.E);
+    }
+
+    public Object visitVarExpr(VarExpr ast, Object o) {
+      return same(ast.V, ((VarExpr) o).V);
+    }
+
+    public Object visitCallExpr(CallExpr ast, Object o) {
+      CallExpr b = (CallExpr) o;
+      return same(ast.I, b.I) && same(ast.AL, b.AL);
+    }
+
+    public Object visitAssignExpr(AssignExpr ast, Object o) {
+      AssignExpr b = (AssignExpr) o;
+      return same(ast.E1, b.E1) && same(ast.E2, b.E2);
+    }
+
+    public Object visitEmptyExpr(EmptyExpr ast, Object o) {
+      return true;
+    }
+
+    // Literals and identifiers
+
+    public Object visitIntLiteral(IntLiteral ast, Object o) {
+      return sameSpelling(ast, o);
+    }
+
+    public Object visitFloatLiteral(FloatLiteral ast, Object o) {
+      return sameSpelling(ast, o);
+    }
+
+    public Object visitBooleanLiteral(BooleanLiteral ast, Object o) {
+      return sameSpelling(ast, o);
+    }
+
+    public Object visitStringLiteral(StringLiteral ast, Object o) {
+      return sameSpelling(ast, o);
+    }
+
+    public Object visitIdent(Ident ast, Object o) {
+      return sameSpelling(ast, o);
+    }
+
+    public Object visitOperator(Operator ast, Object o) {
+      return sameSpelling(ast, o);
+    }
+
+    // Parameters
+
+    public Object visitParaList(ParaList ast, Object o) {
+      return sameList(ast, (List) o);
+    }
+
+    public Object visitParaDecl(ParaDecl ast, Object o) {
+      ParaDecl b = (ParaDecl) o;
+      return sameDecl(ast, b) && same(ast.T, b.T) && same(ast.I, b.I);
+    }
+
+    // Arguments
+
+    public Object visitArgList(ArgList ast, Object o) {
+      return sameList(ast, (List) o);
+    }
+
+    public Object visitArg(Arg ast, Object o) {
+      return same(ast.E, ((Arg) o).E);
+    }
+
+    // Types
+
+    public Object visitVoidType(VoidType ast, Object o) {
+      return true;
+    }
+
+    public Object visitBooleanType(BooleanType ast, Object o) {
+      return true;
+    }
+
+    public Object visitIntType(IntType ast, Object o) {
+      return true;
+    }
+
+    public Object visitFloatType(FloatType ast, Object o) {
+      return true;
+    }
+
+    public Object visitStringType(StringType ast, Object o) {
+      return true;
+    }
+
+    public Object visitArrayType(ArrayType ast, Object o) {
+      ArrayType b = (ArrayType) o;
+      return same(ast.T, b.T) && same(ast.E, b.E);
+    }
+
+    public Object visitErrorType(ErrorType ast, Object o) {
+      return true;
+    }
+
+    // Variables
+
+    public Object visitSimpleVar(SimpleVar ast, Object o) {
+      return same(ast.I, ((SimpleVar) o).I);
+    }
+
+  }
+
+}
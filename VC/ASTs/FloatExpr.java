@@ -10,14 +10,12 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class FloatExpr extends Expr {
 
   public FloatLiteral FL;
 
-  public FloatExpr(FloatLiteral flAST, SourcePosition Position) {
-    super (Position);
+  public FloatExpr(FloatLiteral flAST, long span) {
+    super (span, Kinds.FLOAT_EXPR);
     FL = flAST;
     FL.parent = this;
   }
@@ -4,12 +4,10 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class FloatLiteral extends Terminal {
 
-  public FloatLiteral (String value, SourcePosition position) {
-    super (value, position);
+  public FloatLiteral (String value, long span) {
+    super (value, span, Kinds.FLOAT_LITERAL);
   }
 
   public Object visit(Visitor v, Object o) {
@@ -7,12 +7,10 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class FloatType extends Type {
 
-  public FloatType (SourcePosition Position) {
-    super (Position);
+  public FloatType (long span) {
+    super (span, Kinds.FLOAT_TYPE, Types.FLOAT);
   }
 
   public Object visit (Visitor v, Object o) {
@@ -20,18 +18,17 @@ public class FloatType extends Type {
   }
 
   public boolean equals(Object obj) {
-    if (obj != null && obj instanceof ErrorType)
-      return true;
-    else    
-      return (obj != null && obj instanceof FloatType);
+    if (!(obj instanceof Type))
+      return false;
+    int code = ((Type) obj).code();
+    return code == Types.FLOAT || code == Types.ERROR;
   }
 
   public boolean assignable(Object obj) {
-    if (obj != null && obj instanceof ErrorType)
-      return true;
-    else    
-      return (obj != null && (obj instanceof IntType
-	     || obj instanceof FloatType));
+    if (!(obj instanceof Type))
+      return false;
+    int code = ((Type) obj).code();
+    return Types.isNumeric(code) || code == Types.ERROR;
   }
 
   public String toString() {
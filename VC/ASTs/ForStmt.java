@@ -8,8 +8,6 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class ForStmt extends Stmt {
 
   public Expr E1;
@@ -19,8 +17,8 @@ public class ForStmt extends Stmt {
 
 
   public ForStmt(Expr e1AST, Expr e2AST, Expr e3AST, Stmt sAST,
-                                              SourcePosition Position) {
-    super (Position);
+                                              long span) {
+    super (span, Kinds.FOR_STMT);
     E1 = e1AST;
     E2 = e2AST;
     E3 = e3AST;
@@ -8,16 +8,15 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class FuncDecl extends Decl {
 
   public List PL;
   public Stmt S;
+  public Scope scope;  // what the body sees after the parameters, left by the checker
 
   public FuncDecl(Type tAST, Ident idAST, List fplAST, 
-         Stmt cAST, SourcePosition Position) {
-    super (Position);
+         Stmt cAST, long span) {
+    super (span, Kinds.FUNC_DECL);
     T = tAST;
     I = idAST;
     PL = fplAST;
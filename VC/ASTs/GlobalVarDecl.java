@@ -7,14 +7,12 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class GlobalVarDecl extends Decl {
 
   public Expr E;
 
-  public GlobalVarDecl(Type tAST, Ident iAST, Expr eAST, SourcePosition position) {
-    super (position);
+  public GlobalVarDecl(Type tAST, Ident iAST, Expr eAST, long span) {
+    super (span, Kinds.GLOBAL_VAR_DECL);
     T = tAST;
     I = iAST;
     E = eAST;
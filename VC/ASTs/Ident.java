@@ -4,15 +4,20 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
+import VC.Scanner.IdentifierPool;
 
 public class Ident extends Terminal {
 
   public AST decl; 
+  public int symbol;  // the number of decl (see Symbols.java), or Symbols.NONE
 
-  public Ident(String value , SourcePosition position) {
-    super (value, position);
+  // The spelling is interned, so two Idents name the same identifier
+  // iff their spellings are the same String (see IdentifierPool.java).
+
+  public Ident(String value , long span) {
+    super (IdentifierPool.intern(value), span, Kinds.IDENT);
     decl = null;
+    symbol = Symbols.NONE;
   }
 
   public Object visit(Visitor v, Object o) {
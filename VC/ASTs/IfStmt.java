@@ -8,7 +8,7 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
+import VC.Scanner.Span;
 
 public class IfStmt extends Stmt {
 
@@ -19,16 +19,16 @@ public class IfStmt extends Stmt {
   // The two fields below are not used for this year's assignments
   public AST trueSuccessor, falseSuccessor;
 
-  public IfStmt(Expr eAST, Stmt sAST, SourcePosition position) {
-    super (position);
+  public IfStmt(Expr eAST, Stmt sAST, long span) {
+    super (span, Kinds.IF_STMT);
     E = eAST;
     S1 = sAST;
-    S2 = new EmptyStmt(new SourcePosition());
+    S2 = new EmptyStmt(Span.NONE);
     E.parent = S1.parent = S2.parent = this;
   }
 
-  public IfStmt(Expr eAST, Stmt s1AST, Stmt s2AST, SourcePosition Position) {
-    super (Position);
+  public IfStmt(Expr eAST, Stmt s1AST, Stmt s2AST, long span) {
+    super (span, Kinds.IF_STMT);
     E = eAST;
     S1 = s1AST;
     S2 = s2AST;
@@ -9,14 +9,12 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class IntExpr extends Expr {
 
   public IntLiteral IL;
 
-  public IntExpr(IntLiteral ilAST, SourcePosition Position) {
-    super (Position);
+  public IntExpr(IntLiteral ilAST, long span) {
+    super (span, Kinds.INT_EXPR);
     IL = ilAST;
     IL.parent = this;
   }
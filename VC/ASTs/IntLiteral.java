@@ -8,12 +8,10 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class IntLiteral extends Terminal {
 
-  public IntLiteral (String value, SourcePosition position) {
-    super (value, position);
+  public IntLiteral (String value, long span) {
+    super (value, span, Kinds.INT_LITERAL);
   }
 
   public Object visit(Visitor v, Object o) {
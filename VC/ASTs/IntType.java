@@ -6,12 +6,10 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class IntType extends Type {
 
-  public IntType (SourcePosition Position) {
-    super (Position);
+  public IntType (long span) {
+    super (span, Kinds.INT_TYPE, Types.INT);
   }
 
   public Object visit (Visitor v, Object o) {
@@ -19,10 +17,10 @@ public class IntType extends Type {
   }
 
   public boolean equals(Object obj) {
-    if (obj != null && obj instanceof ErrorType)
-      return true;
-    else    
-      return (obj != null && obj instanceof IntType);
+    if (!(obj instanceof Type))
+      return false;
+    int code = ((Type) obj).code();
+    return code == Types.INT || code == Types.ERROR;
   }
 
   public boolean assignable(Object obj) {
@@ -0,0 +1,96 @@
+/*
+ * Kinds.java
+ *
+ * The kinds of the nodes of an AST, one for each class of node, as
+ * AST.kind() returns them. TypedVisitor.visit switches on them, and a
+ * NodeArena keeps them as the kinds of its nodes. The children of the
+ * nodes of each kind are listed with it, in the order of their fields.
+ */
+
+package VC.ASTs;
+
+public final class Kinds {
+
+  public static final int
+    PROGRAM               = 0,    // FL
+    EMPTY_DECL_LIST       = 1,
+    EMPTY_STMT_LIST       = 2,
+    EMPTY_ARRAY_EXPR_LIST = 3,
+    EMPTY_PARA_LIST       = 4,
+    EMPTY_ARG_LIST        = 5,
+    DECL_LIST             = 6,    // D DL
+    FUNC_DECL             = 7,    // T I PL S
+    GLOBAL_VAR_DECL       = 8,    // T I E
+    LOCAL_VAR_DECL        = 9,    // T I E
+    ERROR_DECL            = 10,
+    STMT_LIST             = 11,   // S SL
+    IF_STMT               = 12,   // E S1 S2
+    WHILE_STMT            = 13,   // E S
+    FOR_STMT              = 14,   // E1 E2 E3 S
+    BREAK_STMT            = 15,
+    CONTINUE_STMT         = 16,
+    RETURN_STMT           = 17,   // E
+    COMPOUND_STMT         = 18,   // DL SL
+    EXPR_STMT             = 19,   // E
+    EMPTY_COMP_STMT       = 20,
+    EMPTY_STMT            = 21,
+    ERROR_STMT            = 22,
+    INT_EXPR              = 23,   // IL
+    FLOAT_EXPR            = 24,   // FL
+    BOOLEAN_EXPR          = 25,   // BL
+    STRING_EXPR           = 26,   // SL
+    UNARY_EXPR            = 27,   // O E
+    BINARY_EXPR           = 28,   // E1 O E2
+    ARRAY_INIT_EXPR       = 29,   // IL
+    ARRAY_EXPR_LIST       = 30,   // E EL
+    ARRAY_EXPR            = 31,   // V E
+    VAR_EXPR              = 32,   // V
+    CALL_EXPR             = 33,   // I AL
+    ASSIGN_EXPR           = 34,   // E1 E2
+    EMPTY_EXPR            = 35,
+    INT_LITERAL           = 36,
+    FLOAT_LITERAL         = 37,
+    BOOLEAN_LITERAL       = 38,
+    STRING_LITERAL        = 39,
+    IDENT                 = 40,
+    OPERATOR              = 41,
+    PARA_LIST             = 42,   // P PL
+    PARA_DECL             = 43,   // T I
+    ARG_LIST              = 44,   // A AL
+    ARG                   = 45,   // E
+    VOID_TYPE             = 46,
+    BOOLEAN_TYPE          = 47,
+    INT_TYPE              = 48,
+    FLOAT_TYPE            = 49,
+    STRING_TYPE           = 50,
+    ARRAY_TYPE            = 51,   // T E
+    ERROR_TYPE            = 52,
+    SIMPLE_VAR            = 53;   // I
+
+  // The number of kinds.
+
+  public static final int COUNT = 54;
+
+  private static final String[] names = {
+    "Program", "EmptyDeclList", "EmptyStmtList", "EmptyArrayExprList",
+    "EmptyParaList", "EmptyArgList", "DeclList", "FuncDecl",
+    "GlobalVarDecl", "LocalVarDecl", "ErrorDecl", "StmtList", "IfStmt",
+    "WhileStmt", "ForStmt", "BreakStmt", "ContinueStmt", "ReturnStmt",
+    "CompoundStmt", "ExprStmt", "EmptyCompStmt", "EmptyStmt", "ErrorStmt",
+    "IntExpr", "FloatExpr", "BooleanExpr", "StringExpr", "UnaryExpr",
+    "BinaryExpr", "ArrayInitExpr", "ArrayExprList", "ArrayExpr", "VarExpr",
+    "CallExpr", "AssignExpr", "EmptyExpr", "IntLiteral", "FloatLiteral",
+    "BooleanLiteral", "StringLiteral", "Ident", "Operator", "ParaList",
+    "ParaDecl", "ArgList", "Arg", "VoidType", "BooleanType", "IntType",
+    "FloatType", "StringType", "ArrayType", "ErrorType", "SimpleVar"
+  };
+
+  private Kinds() { }
+
+  // The name of the class of the nodes of kind.
+
+  public static String name(int kind) {
+    return names[kind];
+  }
+
+}
@@ -1,16 +1,75 @@
 /*
  * List.java      
  *
+ * A list is a chain of cons cells (DeclList, StmtList, ...) ending in
+ * an Empty list. Besides walking the chain, a list can be read by
+ * index: every cell knows the number of elements from it to the end,
+ * and the cells of a chain share an array of them, made the first time
+ * one is asked for (cells are not changed once made). A cell reached
+ * through two lists shares their tail, so any array it is in will do.
+ * The array is filled before it is published, through a volatile field,
+ * so lists can be read by index from several threads at once (as the
+ * ParallelChecker does): a thread sees either no array or a whole one.
+ *
+ *   for (int i = 0; i < list.size(); i++)
+ *     list.get(i).visit(v, o);
+ *   list.cell(list.size()).visit(v, o);   // the Empty list
  */
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public abstract class List extends AST {
 
-  public List (SourcePosition position) {
-    super (position);
+  int size;             // the elements from this cell to the end
+  private volatile List[] cells; // the cells of a chain this one is in, and its Empty list
+
+  public List (long span, int kind) {
+    super (span, kind);
+  }
+
+  // The number of elements of this list.
+
+  public final int size() {
+    return size;
+  }
+
+  // The i-th element of this list.
+
+  public final AST get(int i) {
+    if (i == size)
+      throw new IndexOutOfBoundsException("element " + i + " of a list of " + size);
+    return cell(i).head();
+  }
+
+  // The cell of this list that holds its i-th element, that is, the
+  // list from it on: cell(0) is this list, and cell(size()) its Empty
+  // list.
+
+  public final List cell(int i) {
+    if (i < 0 || i > size)
+      throw new IndexOutOfBoundsException("cell " + i + " of a list of " + size);
+    if (i == 0)
+      return this;
+    List[] chain = cells;
+    if (chain == null) {
+      chain = new List[size + 1];
+      List cell = this;
+      for (int k = 0; k <= size; k++, cell = cell.tail())
+        chain[k] = cell;
+      for (List c : chain)
+        c.cells = chain;
+    }
+    return chain[chain.length - 1 - size + i];
+  }
+
+  // The element of a cons cell, and the list after it.
+
+  AST head() {
+    return null;
+  }
+
+  List tail() {
+    return null;
   }
 
 
@@ -6,14 +6,12 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class LocalVarDecl extends Decl {
 
   public Expr E;
 
-  public LocalVarDecl(Type tAST, Ident iAST, Expr eAST, SourcePosition position) {
-    super (position);
+  public LocalVarDecl(Type tAST, Ident iAST, Expr eAST, long span) {
+    super (span, Kinds.LOCAL_VAR_DECL);
     T = tAST;
     I = iAST;
     E = eAST;
@@ -0,0 +1,674 @@
+/*
+ * NodeArena.java
+ *
+ * A compact representation of an AST: the nodes are numbered, and each
+ * field of a node is an element of a primitive array indexed by its
+ * number, so a tree of a million nodes is a handful of arrays rather
+ * than a million objects.
+ *
+ *   kinds[n]        the kind of node n (see Kinds, and SHARED below)
+ *   firstChild[n]   its first child, or -1
+ *   nextSibling[n]  the next child of its parent, or -1
+ *   parent[n]       its parent, or -1 for the root
+ *   spans[n]        its span (see VC.Scanner.Span)
+ *   values[n]       the index in strings of the spelling of a Terminal,
+ *                   1 for a Decl with hasErrors set, and otherwise 0
+ *
+ * The children of a node are those of the AST node in the order of its
+ * fields (see the table below), and a cons list is kept as the chain
+ * of cells it is, so that a tree converted to an arena and back (see
+ * of and toAST) is the tree it was, spans, parents and all. The nodes
+ * are numbered in preorder, with the root 0. An arena can be written
+ * as bytes and read back (see write and read, and AstFile).
+ *
+ * The declarations of one declaration list share their Type: the Type
+ * is the child of the first one, and a SHARED node, whose value is the
+ * number of the Type, stands for it in the others.
+ *
+ * An arena holds the tree as the parser builds it: the annotations of
+ * the checker (Ident.decl, Expr.type) are not kept.
+ */
+
+package VC.ASTs;
+
+import VC.Scanner.Span;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+
+public final class NodeArena {
+
+  // The kinds of the nodes are those of the AST nodes (see Kinds), and
+  // SHARED, which stands for a Type shared by declarations (see above).
+
+  public static final int SHARED = Kinds.COUNT;
+
+  public static String kindName(int kind) {
+    return (kind == SHARED) ? "Shared" : Kinds.name(kind);
+  }
+
+  // The number of children of the nodes of each kind.
+
+  private static final byte[] arities = {
+    1, 0, 0, 0, 0, 0, 2, 4, 3, 3, 0, 2, 3, 2, 4, 0, 0, 1, 2, 1, 0, 0, 0,
+    1, 1, 1, 1, 2, 3, 1, 2, 2, 1, 2, 2, 0, 0, 0, 0, 0, 0, 0, 2, 2, 2, 1,
+    0, 0, 0, 0, 0, 2, 0, 1, 0
+  };
+
+  // Whether the nodes of a kind have a value.
+
+  private static boolean hasValue(int kind) {
+    return kind == Kinds.FUNC_DECL || kind == Kinds.GLOBAL_VAR_DECL
+           || kind == Kinds.LOCAL_VAR_DECL || kind == Kinds.ERROR_DECL
+           || kind == Kinds.PARA_DECL || kind == SHARED
+           || (Kinds.INT_LITERAL <= kind && kind <= Kinds.OPERATOR);
+  }
+
+  private byte[] kinds;
+  private int[] firstChild;
+  private int[] nextSibling;
+  private int[] parent;
+  private long[] spans;
+  private int[] values;
+  private int size;
+
+  private String[] strings = new String[16];
+  private int stringCount;
+  private HashMap<String, Integer> stringIndex = new HashMap<>();
+
+  NodeArena(int expectedNodes) {
+    int n = Math.max(16, expectedNodes);
+    kinds = new byte[n];
+    firstChild = new int[n];
+    nextSibling = new int[n];
+    parent = new int[n];
+    spans = new long[n];
+    values = new int[n];
+  }
+
+  // Returns the arena of the tree rooted at ast.
+
+  public static NodeArena of(AST ast) {
+    return new ArenaBuilder().build(ast);
+  }
+
+  // ======================== BUILDING ========================
+
+  // Adds a node without children and returns its number.
+
+  int add(int kind, long span, int value) {
+    if (size == kinds.length) {
+      int n = 2 * size;
+      kinds = Arrays.copyOf(kinds, n);
+      firstChild = Arrays.copyOf(firstChild, n);
+      nextSibling = Arrays.copyOf(nextSibling, n);
+      parent = Arrays.copyOf(parent, n);
+      spans = Arrays.copyOf(spans, n);
+      values = Arrays.copyOf(values, n);
+    }
+    kinds[size] = (byte) kind;
+    firstChild[size] = nextSibling[size] = parent[size] = -1;
+    spans[size] = span;
+    values[size] = value;
+    return size++;
+  }
+
+  int addString(String s) {
+    Integer i = stringIndex.get(s);
+    if (i == null) {
+      if (stringCount == strings.length)
+        strings = Arrays.copyOf(strings, 2 * stringCount);
+      strings[stringCount] = s;
+      i = stringCount++;
+      stringIndex.put(s, i);
+    }
+    return i;
+  }
+
+  // Makes children, in order, the children of node n.
+
+  void link(int n, int... children) {
+    int previous = -1;
+    for (int c : children) {
+      parent[c] = n;
+      if (previous < 0)
+        firstChild[n] = c;
+      else
+        nextSibling[previous] = c;
+      previous = c;
+    }
+  }
+
+  // Ends the building: trims the arrays to the nodes and spellings
+  // added, and drops the index of the spellings.
+
+  void trim() {
+    kinds = Arrays.copyOf(kinds, size);
+    firstChild = Arrays.copyOf(firstChild, size);
+    nextSibling = Arrays.copyOf(nextSibling, size);
+    parent = Arrays.copyOf(parent, size);
+    spans = Arrays.copyOf(spans, size);
+    values = Arrays.copyOf(values, size);
+    strings = Arrays.copyOf(strings, stringCount);
+    stringIndex = null;
+  }
+
+  // ======================== ACCESSORS ========================
+
+  // The number of nodes.
+
+  public int size() {
+    return size;
+  }
+
+  public int kind(int n) {
+    return kinds[n];
+  }
+
+  public int firstChild(int n) {
+    return firstChild[n];
+  }
+
+  public int nextSibling(int n) {
+    return nextSibling[n];
+  }
+
+  public int parent(int n) {
+    return parent[n];
+  }
+
+  public long span(int n) {
+    return spans[n];
+  }
+
+  // Returns the i-th child of node n, or -1 if it has fewer.
+
+  public int child(int n, int i) {
+    int c = firstChild[n];
+    while (i-- > 0 && c >= 0)
+      c = nextSibling[c];
+    return c;
+  }
+
+  // The spelling of a Terminal node.
+
+  public String spelling(int n) {
+    return strings[values[n]];
+  }
+
+  // Whether a Decl node has hasErrors set.
+
+  public boolean hasErrors(int n) {
+    return values[n] != 0;
+  }
+
+  // The node that a SHARED node stands for.
+
+  public int shared(int n) {
+    return values[n];
+  }
+
+  // The bytes held by the arrays of the nodes and of the spellings
+  // (without the Strings themselves).
+
+  public long footprint() {
+    long capacity = kinds.length;
+    return capacity * (1 + 4 + 4 + 4 + 8 + 4) + 4L * strings.length;
+  }
+
+  // ======================== TRAVERSAL ========================
+
+  // A visitor of the nodes of an arena, called in preorder by walk.
+  // enter returns whether to walk the children of the node; exit is
+  // called after them (or after enter, if they are not walked).
+
+  public interface NodeVisitor {
+    boolean enter(NodeArena arena, int n);
+    void exit(NodeArena arena, int n);
+  }
+
+  // Walks the tree rooted at node root. The walk follows the links of
+  // the nodes, so it uses no stack however deep the tree is.
+
+  public void walk(int root, NodeVisitor v) {
+    int n = root;
+    while (true) {
+      if (v.enter(this, n) && firstChild[n] >= 0) {
+        n = firstChild[n];
+        continue;
+      }
+      while (true) {
+        v.exit(this, n);
+        if (n == root)
+          return;
+        if (nextSibling[n] >= 0) {
+          n = nextSibling[n];
+          break;
+        }
+        n = parent[n];
+      }
+    }
+  }
+
+  public Cursor cursor() {
+    return new Cursor(0);
+  }
+
+  // A position in the arena that moves along the links of the nodes.
+  // Each move returns whether there was a node to move to; if not, the
+  // cursor stays where it is.
+
+  public final class Cursor {
+    private int node;
+
+    Cursor(int node) {
+      this.node = node;
+    }
+
+    public int node() {
+      return node;
+    }
+
+    public int kind() {
+      return kinds[node];
+    }
+
+    public long span() {
+      return spans[node];
+    }
+
+    public String spelling() {
+      return strings[values[node]];
+    }
+
+    public boolean toFirstChild() {
+      return moveTo(firstChild[node]);
+    }
+
+    public boolean toNextSibling() {
+      return moveTo(nextSibling[node]);
+    }
+
+    public boolean toParent() {
+      return moveTo(parent[node]);
+    }
+
+    private boolean moveTo(int n) {
+      if (n < 0)
+        return false;
+      node = n;
+      return true;
+    }
+
+    @Override
+    public String toString() {
+      return node + " " + kindName(kinds[node]);
+    }
+  }
+
+  // ======================== SERIALIZATION ========================
+
+  // An arena is written as its spellings and then its nodes in
+  // preorder, each as its kind, its span and, if it has one, its value.
+  // The links are not written: a kind has a fixed number of children
+  // (see arities), so the shape of the tree follows from the kinds.
+  // Numbers are written as varints (7 bits a byte, low bits first), a
+  // span as the distance of its start from the start of the node before
+  // and of its finish from its start, both zigzag encoded as they can be
+  // negative. Most nodes take 4 or 5 bytes.
+  //
+  //   count of spellings, then each as its length in UTF-8 and its bytes
+  //   count of nodes, then each as kind, start, finish [, value]
+
+  void write(OutputStream out) throws IOException {
+    writeNumber(out, stringCount);
+    for (int i = 0; i < stringCount; i++) {
+      byte[] utf8 = strings[i].getBytes(StandardCharsets.UTF_8);
+      writeNumber(out, utf8.length);
+      out.write(utf8);
+    }
+    writeNumber(out, size);
+    int start = 0;
+    for (int n = 0; n < size; n++) {
+      int s = Span.start(spans[n]);
+      out.write(kinds[n]);
+      writeNumber(out, zigzag(s - start));
+      writeNumber(out, zigzag(Span.finish(spans[n]) - s));
+      if (hasValue(kinds[n]))
+        writeNumber(out, values[n]);
+      start = s;
+    }
+  }
+
+  // Reads an arena written by write, relinking its nodes as it goes.
+  // Throws an IllegalArgumentException if in does not hold one.
+
+  static NodeArena read(ByteBuffer in) {
+    int count = readCount(in);
+    NodeArena arena = new NodeArena(0);
+    arena.strings = new String[count];
+    for (int i = 0; i < count; i++) {
+      byte[] utf8 = new byte[readCount(in)];
+      in.get(utf8);
+      arena.strings[i] = new String(utf8, StandardCharsets.UTF_8);
+    }
+    arena.stringCount = count;
+    arena.stringIndex = null;
+
+    int size = readCount(in);
+    arena.grow(size);
+    // the nodes whose children are still to come, with how many
+    int[] open = new int[16];
+    int[] left = new int[16];
+    int[] previous = new int[16];
+    int depth = 0;
+    int start = 0;
+    for (int n = 0; n < size; n++) {
+      int kind = in.get();
+      if (kind < 0 || kind > SHARED)
+        throw new IllegalArgumentException("node " + n + " of kind " + kind);
+      start += unzigzag(readNumber(in));
+      int finish = start + unzigzag(readNumber(in));
+      int value = hasValue(kind) ? readNumber(in) : 0;
+      if (kind == SHARED
+          && (value >= n || arena.kinds[value] < Kinds.VOID_TYPE
+              || arena.kinds[value] > Kinds.ERROR_TYPE))
+        throw new IllegalArgumentException("node " + n + " shares node " + value);
+      if (kind >= Kinds.INT_LITERAL && kind <= Kinds.OPERATOR && value >= arena.stringCount)
+        throw new IllegalArgumentException("node " + n + " has spelling " + value);
+      arena.add(kind, Span.of(start, finish), value);
+
+      if (n > 0) {
+        if (depth == 0)
+          throw new IllegalArgumentException("node " + n + " is not in the tree");
+        int p = open[depth - 1];
+        arena.parent[n] = p;
+        if (previous[depth - 1] < 0)
+          arena.firstChild[p] = n;
+        else
+          arena.nextSibling[previous[depth - 1]] = n;
+        previous[depth - 1] = n;
+        if (--left[depth - 1] == 0)
+          depth--;     // so the tail of a list takes the place of its cell
+      }
+      if (arities[kind] > 0) {
+        if (depth == open.length) {
+          open = Arrays.copyOf(open, 2 * depth);
+          left = Arrays.copyOf(left, 2 * depth);
+          previous = Arrays.copyOf(previous, 2 * depth);
+        }
+        open[depth] = n;
+        left[depth] = arities[kind];
+        previous[depth] = -1;
+        depth++;
+      }
+    }
+    if (depth > 0 || size == 0)
+      throw new IllegalArgumentException("the tree is incomplete");
+    return arena;
+  }
+
+  private void grow(int capacity) {
+    kinds = Arrays.copyOf(kinds, capacity);
+    firstChild = Arrays.copyOf(firstChild, capacity);
+    nextSibling = Arrays.copyOf(nextSibling, capacity);
+    parent = Arrays.copyOf(parent, capacity);
+    spans = Arrays.copyOf(spans, capacity);
+    values = Arrays.copyOf(values, capacity);
+  }
+
+  private static int zigzag(int n) {
+    return (n << 1) ^ (n >> 31);
+  }
+
+  private static int unzigzag(int n) {
+    return (n >>> 1) ^ -(n & 1);
+  }
+
+  private static void writeNumber(OutputStream out, int n) throws IOException {
+    while ((n & ~0x7F) != 0) {
+      out.write((n & 0x7F) | 0x80);
+      n >>>= 7;
+    }
+    out.write(n);
+  }
+
+  private static int readNumber(ByteBuffer in) {
+    int n = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      byte b = in.get();
+      n |= (b & 0x7F) << shift;
+      if (b >= 0)
+        return n;
+    }
+    throw new IllegalArgumentException("bad number at " + in.position());
+  }
+
+  private static int readCount(ByteBuffer in) {
+    int n = readNumber(in);
+    if (n < 0 || n > in.remaining())
+      throw new IllegalArgumentException("bad count " + n + " at " + in.position());
+    return n;
+  }
+
+  // ======================== CONVERSION ========================
+
+  // Returns the AST of the tree in the arena, as it was before it was
+  // converted by of.
+
+  public AST toAST() {
+    return new Converter().build(0);
+  }
+
+  private final class Converter {
+    private final AST[] types = new AST[size];   // the Types built, for SHARED
+
+    private AST build(int n) {
+      long span = spans[n];
+      int c = firstChild[n];
+      switch (kinds[n]) {
+        case Kinds.PROGRAM:
+          return new Program((List) build(c), span);
+        case Kinds.EMPTY_DECL_LIST:
+          return new EmptyDeclList(span);
+        case Kinds.EMPTY_STMT_LIST:
+          return new EmptyStmtList(span);
+        case Kinds.EMPTY_ARRAY_EXPR_LIST:
+          return new EmptyArrayExprList(span);
+        case Kinds.EMPTY_PARA_LIST:
+          return new EmptyParaList(span);
+        case Kinds.EMPTY_ARG_LIST:
+          return new EmptyArgList(span);
+        case Kinds.DECL_LIST:
+        case Kinds.STMT_LIST:
+        case Kinds.ARRAY_EXPR_LIST:
+        case Kinds.PARA_LIST:
+        case Kinds.ARG_LIST:
+          return buildList(n);
+        case Kinds.FUNC_DECL: {
+          Type tAST = (Type) build(c);
+          Ident iAST = (Ident) build(c = nextSibling[c]);
+          List plAST = (List) build(c = nextSibling[c]);
+          Decl dAST = new FuncDecl(tAST, iAST, plAST, (Stmt) build(nextSibling[c]), span);
+          dAST.hasErrors = values[n] != 0;
+          return dAST;
+        }
+        case Kinds.GLOBAL_VAR_DECL: {
+          Type tAST = (Type) build(c);
+          Ident iAST = (Ident) build(c = nextSibling[c]);
+          Decl dAST = new GlobalVarDecl(tAST, iAST, (Expr) build(nextSibling[c]), span);
+          dAST.hasErrors = values[n] != 0;
+          return dAST;
+        }
+        case Kinds.LOCAL_VAR_DECL: {
+          Type tAST = (Type) build(c);
+          Ident iAST = (Ident) build(c = nextSibling[c]);
+          Decl dAST = new LocalVarDecl(tAST, iAST, (Expr) build(nextSibling[c]), span);
+          dAST.hasErrors = values[n] != 0;
+          return dAST;
+        }
+        case Kinds.ERROR_DECL:
+          return new ErrorDecl(span);
+        case Kinds.IF_STMT: {
+          Expr eAST = (Expr) build(c);
+          Stmt s1AST = (Stmt) build(c = nextSibling[c]);
+          return new IfStmt(eAST, s1AST, (Stmt) build(nextSibling[c]), span);
+        }
+        case Kinds.WHILE_STMT: {
+          Expr eAST = (Expr) build(c);
+          return new WhileStmt(eAST, (Stmt) build(nextSibling[c]), span);
+        }
+        case Kinds.FOR_STMT: {
+          Expr e1AST = (Expr) build(c);
+          Expr e2AST = (Expr) build(c = nextSibling[c]);
+          Expr e3AST = (Expr) build(c = nextSibling[c]);
+          return new ForStmt(e1AST, e2AST, e3AST, (Stmt) build(nextSibling[c]), span);
+        }
+        case Kinds.BREAK_STMT:
+          return new BreakStmt(span);
+        case Kinds.CONTINUE_STMT:
+          return new ContinueStmt(span);
+        case Kinds.RETURN_STMT:
+          return new ReturnStmt((Expr) build(c), span);
+        case Kinds.COMPOUND_STMT: {
+          List dlAST = (List) build(c);
+          return new CompoundStmt(dlAST, (List) build(nextSibling[c]), span);
+        }
+        case Kinds.EXPR_STMT:
+          return new ExprStmt((Expr) build(c), span);
+        case Kinds.EMPTY_COMP_STMT:
+          return new EmptyCompStmt(span);
+        case Kinds.EMPTY_STMT:
+          return new EmptyStmt(span);
+        case Kinds.ERROR_STMT:
+          return new ErrorStmt(span);
+        case Kinds.INT_EXPR:
+          return new IntExpr((IntLiteral) build(c), span);
+        case Kinds.FLOAT_EXPR:
+          return new FloatExpr((FloatLiteral) build(c), span);
+        case Kinds.BOOLEAN_EXPR:
+          return new BooleanExpr((BooleanLiteral) build(c), span);
+        case Kinds.STRING_EXPR:
+          return new StringExpr((StringLiteral) build(c), span);
+        case Kinds.UNARY_EXPR: {
+          Operator oAST = (Operator) build(c);
+          return new UnaryExpr(oAST, (Expr) build(nextSibling[c]), span);
+        }
+        case Kinds.BINARY_EXPR: {
+          Expr e1AST = (Expr) build(c);
+          Operator oAST = (Operator) build(c = nextSibling[c]);
+          return new BinaryExpr(e1AST, oAST, (Expr) build(nextSibling[c]), span);
+        }
+        case Kinds.ARRAY_INIT_EXPR:
+          return new ArrayInitExpr((List) build(c), span);
+        case Kinds.ARRAY_EXPR: {
+          Var vAST = (Var) build(c);
+          return new ArrayExpr(vAST, (Expr) build(nextSibling[c]), span);
+        }
+        case Kinds.VAR_EXPR:
+          return new VarExpr((Var) build(c), span);
+        case Kinds.CALL_EXPR: {
+          Ident iAST = (Ident) build(c);
+          return new CallExpr(iAST, (List) build(nextSibling[c]), span);
+        }
+        case Kinds.ASSIGN_EXPR: {
+          Expr e1AST = (Expr) build(c);
+          return new AssignExpr(e1AST, (Expr) build(nextSibling[c]), span);
+        }
+        case Kinds.EMPTY_EXPR:
+          return new EmptyExpr(span);
+        case Kinds.INT_LITERAL:
+          return new IntLiteral(spelling(n), span);
+        case Kinds.FLOAT_LITERAL:
+          return new FloatLiteral(spelling(n), span);
+        case Kinds.BOOLEAN_LITERAL:
+          return new BooleanLiteral(spelling(n), span);
+        case Kinds.STRING_LITERAL:
+          return new StringLiteral(spelling(n), span);
+        case Kinds.IDENT:
+          return new Ident(spelling(n), span);
+        case Kinds.OPERATOR:
+          return new Operator(spelling(n), span);
+        case Kinds.PARA_DECL: {
+          Type tAST = (Type) build(c);
+          Decl dAST = new ParaDecl(tAST, (Ident) build(nextSibling[c]), span);
+          dAST.hasErrors = values[n] != 0;
+          return dAST;
+        }
+        case Kinds.ARG:
+          return new Arg((Expr) build(c), span);
+        case Kinds.VOID_TYPE:
+          return types[n] = new VoidType(span);
+        case Kinds.BOOLEAN_TYPE:
+          return types[n] = new BooleanType(span);
+        case Kinds.INT_TYPE:
+          return types[n] = new IntType(span);
+        case Kinds.FLOAT_TYPE:
+          return types[n] = new FloatType(span);
+        case Kinds.STRING_TYPE:
+          return types[n] = new StringType(span);
+        case Kinds.ARRAY_TYPE: {
+          Type tAST = (Type) build(c);
+          return types[n] = new ArrayType(tAST, (Expr) build(nextSibling[c]), span);
+        }
+        case Kinds.ERROR_TYPE:
+          return types[n] = new ErrorType(span);
+        case Kinds.SIMPLE_VAR:
+          return new SimpleVar((Ident) build(c), span);
+        case SHARED:
+          return types[values[n]];
+        default:
+          throw new IllegalStateException("node " + n + " of kind " + kinds[n]);
+      }
+    }
+
+    // Builds a cons list without recursing along it: the elements are
+    // built first to last, as the parser builds them, and the cells
+    // last to first.
+
+    private List buildList(int n) {
+      int cells = 0;
+      for (int m = n; isCell(kinds[m]); m = nextSibling[firstChild[m]])
+        cells++;
+      int[] cell = new int[cells];
+      AST[] elements = new AST[cells];
+      int m = n;
+      for (int i = 0; i < cells; i++, m = nextSibling[firstChild[m]]) {
+        cell[i] = m;
+        elements[i] = build(firstChild[m]);
+      }
+      List list = (List) build(m);
+      for (int i = cells - 1; i >= 0; i--) {
+        long span = spans[cell[i]];
+        switch (kinds[cell[i]]) {
+          case Kinds.DECL_LIST:
+            list = new DeclList((Decl) elements[i], list, span);
+            break;
+          case Kinds.STMT_LIST:
+            list = new StmtList((Stmt) elements[i], list, span);
+            break;
+          case Kinds.ARRAY_EXPR_LIST:
+            list = new ArrayExprList((Expr) elements[i], list, span);
+            break;
+          case Kinds.PARA_LIST:
+            list = new ParaList((ParaDecl) elements[i], list, span);
+            break;
+          default:
+            list = new ArgList((Arg) elements[i], list, span);
+            break;
+        }
+      }
+      return list;
+    }
+  }
+
+  private static boolean isCell(int kind) {
+    return kind == Kinds.DECL_LIST || kind == Kinds.STMT_LIST || kind == Kinds.ARRAY_EXPR_LIST
+           || kind == Kinds.PARA_LIST || kind == Kinds.ARG_LIST;
+  }
+
+}
@@ -4,12 +4,10 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class Operator extends Terminal {
 
-  public Operator (String value, SourcePosition position) {
-    super (value, position);
+  public Operator (String value, long span) {
+    super (value, span, Kinds.OPERATOR);
   }
 
   public Object visit(Visitor v, Object o) {
@@ -7,12 +7,10 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class ParaDecl extends Decl {
 
-  public ParaDecl (Type tAST, Ident idAST, SourcePosition position) {
-    super (position);
+  public ParaDecl (Type tAST, Ident idAST, long span) {
+    super (span, Kinds.PARA_DECL);
     T = tAST;
     I = idAST;
     T.parent = I.parent = this;
@@ -9,18 +9,25 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class ParaList extends List {
   public ParaDecl P;
   public List PL;
 
   public ParaList(ParaDecl pAST, List plAST,
-                                   SourcePosition thePosition) {
-    super (thePosition);
+                                   long span) {
+    super (span, Kinds.PARA_LIST);
     P = pAST;
     PL = plAST;
     P.parent = PL.parent = this;
+    size = PL.size + 1;
+  }
+
+  AST head() {
+    return P;
+  }
+
+  List tail() {
+    return PL;
   }
 
   public Object visit(Visitor v, Object o) {
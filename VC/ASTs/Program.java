@@ -4,14 +4,13 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class Program extends AST {
 
   public List FL;
+  public Symbols symbols;  // the declarations numbered by the checker
 
-  public Program (List dlAST, SourcePosition position) {
-    super (position);
+  public Program (List dlAST, long span) {
+    super (span, Kinds.PROGRAM);
     FL = dlAST;
     FL.parent = this;
   }
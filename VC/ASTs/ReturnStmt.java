@@ -8,14 +8,12 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class ReturnStmt extends Stmt {
 
   public Expr E;
 
-  public ReturnStmt(Expr eAST, SourcePosition Position) {
-    super (Position);
+  public ReturnStmt(Expr eAST, long span) {
+    super (span, Kinds.RETURN_STMT);
     E = eAST;
     E.parent = this;
   }
@@ -0,0 +1,216 @@
+/*
+ * Scope.java
+ *
+ * What is visible at a point of a program: an immutable map from
+ * identifiers to the declarations they name there, each with the scope
+ * level it was declared at. Declaring an identifier (declare) or opening
+ * a scope (open) returns a new Scope and leaves this one as it was, so a
+ * Scope can be kept, and queried from any thread, after the checker has
+ * moved on.
+ *
+ * The map is a hash array mapped trie: a node holds a 32-bit bitmap of
+ * the 5-bit hash chunks present at its depth and a packed array of its
+ * children, each a node, a binding or, for identifiers whose hashes are
+ * equal, an array of bindings. declare copies only the path from the
+ * root to the binding it adds, in time and space logarithmic (base 32)
+ * in the number of identifiers, and shares the rest with the Scope it
+ * was made from.
+ *
+ * The checker leaves the Scope in effect after the parameters of each
+ * function in FuncDecl.scope, and after the declarations of each
+ * compound statement in CompoundStmt.scope. Identifiers are compared by
+ * reference: they must be interned by VC.Scanner.IdentifierPool, as the
+ * spellings of Ident nodes are.
+ */
+
+package VC.ASTs;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+public final class Scope {
+
+  // The scope of a program before anything is declared in it: the
+  // global level, 1.
+
+  public static final Scope EMPTY = new Scope(Node.EMPTY, 1);
+
+  private final Node root;
+  private final int level;
+
+  private Scope(Node root, int level) {
+    this.root = root;
+    this.level = level;
+  }
+
+  // That an identifier names a declaration, declared at a level.
+
+  public static final class Binding {
+    public final String id;
+    final int hash;
+    public final Decl decl;
+    public final int level;
+
+    Binding(String id, int hash, Decl decl, int level) {
+      this.id = id;
+      this.hash = hash;
+      this.decl = decl;
+      this.level = level;
+    }
+  }
+
+  private static final class Node {
+    static final Node EMPTY = new Node(0, new Object[0]);
+
+    final int bitmap;
+    final Object[] children;  // Node, Binding or Binding[]
+
+    Node(int bitmap, Object[] children) {
+      this.bitmap = bitmap;
+      this.children = children;
+    }
+  }
+
+  // The scope level, 1 for the global scope.
+
+  public int level() {
+    return level;
+  }
+
+  // The binding of id, or null if it names nothing.
+
+  public Binding binding(String id) {
+    return find(id);
+  }
+
+  // The declaration id names, or null if it names none.
+
+  public Decl lookup(String id) {
+    Binding b = find(id);
+    return b == null ? null : b.decl;
+  }
+
+  // The level of the declaration id names, or 0 if it names none.
+
+  public int levelOf(String id) {
+    Binding b = find(id);
+    return b == null ? 0 : b.level;
+  }
+
+  // The declaration id names if it is in the innermost scope, so that
+  // declaring id again would be a redeclaration, or null.
+
+  public Decl lookupHere(String id) {
+    Binding b = find(id);
+    return b != null && b.level == level ? b.decl : null;
+  }
+
+  // Returns this scope with a new, innermost, scope opened, in which
+  // nothing is declared yet.
+
+  public Scope open() {
+    return new Scope(root, level + 1);
+  }
+
+  // Returns this scope with id declared by decl in the innermost scope,
+  // hiding any other declaration of id.
+
+  public Scope declare(String id, Decl decl) {
+    Node r = (Node) put(root, new Binding(id, hash(id), decl, level), 0);
+    return new Scope(r, level);
+  }
+
+  // Calls action with each visible declaration, in no particular order.
+
+  public void forEach(Consumer<Decl> action) {
+    forEach(root, action);
+  }
+
+  private static void forEach(Object child, Consumer<Decl> action) {
+    if (child instanceof Node) {
+      for (Object c : ((Node) child).children)
+        forEach(c, action);
+    } else if (child instanceof Binding) {
+      action.accept(((Binding) child).decl);
+    } else {
+      for (Binding b : (Binding[]) child)
+        action.accept(b.decl);
+    }
+  }
+
+  private static int hash(String id) {
+    int h = id.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  private Binding find(String id) {
+    int hash = hash(id);
+    Object child = root;
+    for (int shift = 0; ; shift += 5) {
+      if (child instanceof Node) {
+        Node node = (Node) child;
+        int bit = 1 << ((hash >>> shift) & 31);
+        if ((node.bitmap & bit) == 0)
+          return null;
+        child = node.children[Integer.bitCount(node.bitmap & (bit - 1))];
+      } else if (child instanceof Binding) {
+        Binding b = (Binding) child;
+        return b.id == id ? b : null;
+      } else {
+        for (Binding b : (Binding[]) child)
+          if (b.id == id)
+            return b;
+        return null;
+      }
+    }
+  }
+
+  // Returns child, at the depth of shift, with b put in it.
+
+  private static Object put(Object child, Binding b, int shift) {
+    if (child instanceof Node) {
+      Node node = (Node) child;
+      int bit = 1 << ((b.hash >>> shift) & 31);
+      int i = Integer.bitCount(node.bitmap & (bit - 1));
+      Object[] children;
+      if ((node.bitmap & bit) == 0) {
+        children = new Object[node.children.length + 1];
+        System.arraycopy(node.children, 0, children, 0, i);
+        children[i] = b;
+        System.arraycopy(node.children, i, children, i + 1, node.children.length - i);
+        return new Node(node.bitmap | bit, children);
+      }
+      children = node.children.clone();
+      children[i] = put(children[i], b, shift + 5);
+      return new Node(node.bitmap, children);
+    }
+
+    Binding[] same = (child instanceof Binding)
+                     ? new Binding[] { (Binding) child } : (Binding[]) child;
+    if (same[0].hash != b.hash) {
+      // split them below a node at this depth, where their hashes
+      // differ sooner or later
+      return put(node(child, same[0].hash, shift), b, shift);
+    }
+    for (int i = 0; i < same.length; i++) {
+      if (same[i].id == b.id) {
+        if (same.length == 1)
+          return b;
+        Binding[] bs = same.clone();
+        bs[i] = b;
+        return bs;
+      }
+    }
+    Binding[] bs = Arrays.copyOf(same, same.length + 1);
+    bs[same.length] = b;
+    return bs;
+  }
+
+  // Returns a node at the depth of shift with child, whose bindings
+  // have the given hash, as its only child.
+
+  private static Node node(Object child, int hash, int shift) {
+    return new Node(1 << ((hash >>> shift) & 31), new Object[] { child });
+  }
+
+}
@@ -12,14 +12,12 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class SimpleVar extends Var {
 
   public Ident I;
 
-  public SimpleVar(Ident idAST, SourcePosition thePosition) {
-    super (thePosition);
+  public SimpleVar(Ident idAST, long span) {
+    super (span, Kinds.SIMPLE_VAR);
     I = idAST;
     I.parent = this;
   }
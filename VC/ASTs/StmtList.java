@@ -4,18 +4,25 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class StmtList extends List {
 
   public Stmt S;
   public List SL;
 
-  public StmtList(Stmt sAST, List slAST, SourcePosition Position) {
-    super (Position);
+  public StmtList(Stmt sAST, List slAST, long span) {
+    super (span, Kinds.STMT_LIST);
     S = sAST;
     SL = slAST;
     S.parent = SL.parent = this;
+    size = SL.size + 1;
+  }
+
+  AST head() {
+    return S;
+  }
+
+  List tail() {
+    return SL;
   }
 
   public Object visit(Visitor v, Object o) {
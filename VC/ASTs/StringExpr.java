@@ -5,14 +5,12 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class StringExpr extends Expr {
 
   public StringLiteral SL;
 
-  public StringExpr(StringLiteral slAST, SourcePosition position) {
-    super (position);
+  public StringExpr(StringLiteral slAST, long span) {
+    super (span, Kinds.STRING_EXPR);
     SL = slAST;
     SL.parent = this;
   }
@@ -8,12 +8,10 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class StringLiteral extends Terminal {
 
-  public StringLiteral (String value, SourcePosition position) {
-    super (value, position);
+  public StringLiteral (String value, long span) {
+    super (value, span, Kinds.STRING_LITERAL);
   }
 
   public Object visit(Visitor v, Object o) {
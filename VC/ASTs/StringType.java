@@ -9,12 +9,10 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class StringType extends Type {
 
-  public StringType (SourcePosition Position) {
-    super (Position);
+  public StringType (long span) {
+    super (span, Kinds.STRING_TYPE, Types.STRING);
   }
 
   public Object visit (Visitor v, Object o) {
@@ -22,18 +20,15 @@ public class StringType extends Type {
   }
 
   public boolean equals(Object obj) {
-    if (obj != null && obj instanceof ErrorType)
-      return true;
-    else    
-      return (obj != null && obj instanceof StringType);
+    if (!(obj instanceof Type))
+      return false;
+    int code = ((Type) obj).code();
+    return code == Types.STRING || code == Types.ERROR;
   }
 
   // not used this year
   public boolean assignable(Object obj) {
-    if (obj != null && obj instanceof ErrorType)
-      return true;
-    else    
-      return (obj != null && obj instanceof StringType);
+    return equals(obj);
   }
 
   public String toString() {
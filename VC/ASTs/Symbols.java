@@ -0,0 +1,103 @@
+/*
+ * Symbols.java
+ *
+ * The declarations of a program numbered densely from 0 in the order
+ * the checker enters them (the std environment first), so that what a
+ * later pass needs to know about the declaration an identifier names
+ * can be read from flat arrays indexed by that number: the declaration
+ * itself, its type, its kind (FUNC_DECL, GLOBAL_VAR_DECL,
+ * LOCAL_VAR_DECL or PARA_DECL, as in Kinds) and, for a local
+ * variable or a parameter, the slot the code generator gives it.
+ *
+ * The checker numbers a declaration when it enters it in the symbol
+ * table (Decl.symbol), and annotates each Ident it resolves with the
+ * number of the declaration it names (Ident.symbol), or NONE if it
+ * names none. The table is left in Program.symbols.
+ */
+
+package VC.ASTs;
+
+import java.util.Arrays;
+
+public final class Symbols {
+
+  public static final int NONE = -1;
+
+  private Decl[] decls = new Decl[64];
+  private Type[] types = new Type[64];
+  private byte[] kinds = new byte[64];
+  private int[] slots = new int[64];
+  private int size;
+
+  // Numbers decl, which must not have been numbered, and returns its
+  // number.
+
+  public int add(Decl decl) {
+    int symbol = reserve(1);
+    set(symbol, decl);
+    return symbol;
+  }
+
+  // Sets aside the next n numbers, to be given out later with set, and
+  // returns the first of them. Numbers set aside and not yet given out
+  // name no declaration.
+
+  public int reserve(int n) {
+    if (size + n > decls.length) {
+      int length = Math.max(2 * decls.length, size + n);
+      decls = Arrays.copyOf(decls, length);
+      types = Arrays.copyOf(types, length);
+      kinds = Arrays.copyOf(kinds, length);
+      slots = Arrays.copyOf(slots, length);
+    }
+    int first = size;
+    size += n;
+    return first;
+  }
+
+  // Numbers decl with symbol, a number set aside by reserve. Different
+  // numbers may be given out from different threads at once, as long as
+  // no thread reserves numbers meanwhile.
+
+  public void set(int symbol, Decl decl) {
+    decls[symbol] = decl;
+    types[symbol] = decl.T;
+    kinds[symbol] = (byte) decl.kind();
+    slots[symbol] = NONE;
+    decl.symbol = symbol;
+  }
+
+  // The number of declarations numbered.
+
+  public int size() {
+    return size;
+  }
+
+  public Decl decl(int symbol) {
+    return decls[symbol];
+  }
+
+  public Type type(int symbol) {
+    return types[symbol];
+  }
+
+  public int kind(int symbol) {
+    return kinds[symbol];
+  }
+
+  public boolean isFunction(int symbol) {
+    return kinds[symbol] == Kinds.FUNC_DECL;
+  }
+
+  // The slot of a local variable or a parameter, or NONE before the
+  // code generator has given it one.
+
+  public int slot(int symbol) {
+    return slots[symbol];
+  }
+
+  public void setSlot(int symbol, int slot) {
+    slots[symbol] = slot;
+  }
+
+}
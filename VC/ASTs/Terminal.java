@@ -4,14 +4,12 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 abstract public class Terminal extends AST {
 
   public String spelling;
 
-  public Terminal (String value, SourcePosition Position) {
-    super (Position);
+  public Terminal (String value, long span, int kind) {
+    super (span, kind);
     spelling = value;
   }
 
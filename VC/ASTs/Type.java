@@ -4,12 +4,13 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public abstract class Type extends AST {
 
-  public Type(SourcePosition Position) {
-    super (Position);
+  private final int code;   // see Types.java
+
+  Type(long span, int kind, int code) {
+    super (span, kind);
+    this.code = code;
   }
 
   // The following methods will be used in Assignments 4 and 5.
@@ -22,32 +23,37 @@ public abstract class Type extends AST {
   //  false otherwise.
   public abstract boolean assignable(Object obj);
 
+  // The code of this type (see Types.java).
+  public final int code() {
+    return code;
+  }
+
   public boolean isVoidType() {
-    return (this instanceof VoidType);
+    return code() == Types.VOID;
   }
 
   public boolean isIntType() {
-    return (this instanceof IntType);
+    return code() == Types.INT;
   }
 
   public boolean isFloatType() {
-    return (this instanceof FloatType);
+    return code() == Types.FLOAT;
   }
 
   public boolean isStringType() {
-    return (this instanceof StringType);
+    return code() == Types.STRING;
   }
 
   public boolean isBooleanType() {
-    return (this instanceof BooleanType);
+    return code() == Types.BOOLEAN;
   }
 
   public boolean isArrayType() {
-    return (this instanceof ArrayType);
+    return Types.isArray(code());
   }
 
   public boolean isErrorType() {
-    return (this instanceof ErrorType);
+    return code() == Types.ERROR;
   }
 
 }
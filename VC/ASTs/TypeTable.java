@@ -0,0 +1,104 @@
+/*
+ * TypeTable.java
+ *
+ * The canonical types of one compilation: one Type for each distinct
+ * type, with its own code (see Types.java), so that the types the
+ * checker gives expressions are the same object exactly when they are
+ * the same type, and can be compared by identity or by code.
+ *
+ * The primitive types are made with the table. An array type is made,
+ * and numbered with the next code, the first time intern or array is
+ * asked for its element type and size; its element type is canonical
+ * too. The table is owned by the Checker of the compilation (and shared
+ * by the checkers of its function bodies, see ParallelChecker), so
+ * arrays may be interned from several threads at once.
+ *
+ * The canonical types have no span, and are not parts of the tree: the
+ * Type nodes of declarations stay as the parser built them.
+ */
+
+package VC.ASTs;
+
+import VC.Scanner.Span;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+public final class TypeTable {
+
+  public final ErrorType errorType = new ErrorType(Span.NONE);
+  public final VoidType voidType = new VoidType(Span.NONE);
+  public final BooleanType booleanType = new BooleanType(Span.NONE);
+  public final IntType intType = new IntType(Span.NONE);
+  public final FloatType floatType = new FloatType(Span.NONE);
+  public final StringType stringType = new StringType(Span.NONE);
+
+  private final Type[] primitives = {
+    errorType, voidType, booleanType, intType, floatType, stringType
+  };
+
+  // The array types by their element code and size (see key), and by
+  // their codes, less ARRAY + 1.
+
+  private final HashMap<Long, ArrayType> arrays = new HashMap<>();
+  private final ArrayList<ArrayType> numbered = new ArrayList<>();
+
+  // The canonical type of which t is a node.
+
+  public Type intern(Type t) {
+    int code = t.code();
+    if (code < Types.ARRAY)
+      return primitives[code];
+    ArrayType a = (ArrayType) t;
+    return array(a.T, size(a.E));
+  }
+
+  // The canonical array type of elements of type element, and of size
+  // size (or Types.NO_SIZE).
+
+  public synchronized ArrayType array(Type element, int size) {
+    Type canonical = intern(element);
+    Long key = key(canonical.code(), size);
+    ArrayType a = arrays.get(key);
+    if (a == null) {
+      Expr sizeExpr = (size == Types.NO_SIZE)
+                      ? new EmptyExpr(Span.NONE)
+                      : new IntExpr(new IntLiteral(Integer.toString(size), Span.NONE), Span.NONE);
+      a = new ArrayType(canonical, sizeExpr, Types.ARRAY + 1 + numbered.size());
+      arrays.put(key, a);
+      numbered.add(a);
+    }
+    return a;
+  }
+
+  // The canonical type with code, which this table has given out.
+
+  public synchronized Type type(int code) {
+    return (code < Types.ARRAY) ? primitives[code] : numbered.get(code - Types.ARRAY - 1);
+  }
+
+  // The number of types, primitive and array, in the table.
+
+  public synchronized int size() {
+    return Types.ARRAY + numbered.size();
+  }
+
+  // The size of an array type whose size expression is e: its int
+  // literal, which is 010 as much as 10, or NO_SIZE if it has none (or
+  // one too large for an int, which cannot be allocated anyway).
+
+  private static int size(Expr e) {
+    if (!(e instanceof IntExpr))
+      return Types.NO_SIZE;
+    try {
+      return Integer.parseInt(((IntExpr) e).IL.spelling);
+    } catch (NumberFormatException x) {
+      return Types.NO_SIZE;
+    }
+  }
+
+  private static Long key(int elementCode, int size) {
+    return ((long) elementCode << 32) | (size & 0xffffffffL);
+  }
+
+}
@@ -0,0 +1,212 @@
+/*
+ * TypedVisitor.java
+ *
+ * A visitor whose methods return an R and are passed a C, so that a
+ * pass can be written without casts, and is called through visit,
+ * which switches on the kind of a node rather than calling back from
+ * the node as AST.visit does. Each visit method is then called from one
+ * place, for nodes of one class.
+ *
+ * Visitor is the TypedVisitor<Object, Object> that the older passes
+ * implement, so they can be called either way.
+ */
+
+package VC.ASTs;
+
+public interface TypedVisitor<R, C> {
+
+  // Programs
+  public abstract R visitProgram(Program ast, C c);
+
+  // Lists for denoting the null reference
+
+  public abstract R visitEmptyDeclList(EmptyDeclList ast, C c);
+  public abstract R visitEmptyStmtList(EmptyStmtList ast, C c);
+  public abstract R visitEmptyArrayExprList(EmptyArrayExprList ast, C c);
+  public abstract R visitEmptyParaList(EmptyParaList ast, C c);
+  public abstract R visitEmptyArgList(EmptyArgList ast, C c);
+
+  // Declarations
+  public abstract R visitDeclList(DeclList ast, C c);
+  public abstract R visitFuncDecl(FuncDecl ast, C c);
+  public abstract R visitGlobalVarDecl(GlobalVarDecl ast, C c);
+  public abstract R visitLocalVarDecl(LocalVarDecl ast, C c);
+  public abstract R visitErrorDecl(ErrorDecl ast, C c);
+
+  // Stmts
+  public abstract R visitStmtList(StmtList ast, C c);
+  public abstract R visitIfStmt(IfStmt ast, C c);
+  public abstract R visitWhileStmt(WhileStmt ast, C c);
+  public abstract R visitForStmt(ForStmt ast, C c);
+  public abstract R visitBreakStmt(BreakStmt ast, C c);
+  public abstract R visitContinueStmt(ContinueStmt ast, C c);
+  public abstract R visitReturnStmt(ReturnStmt ast, C c);
+  public abstract R visitCompoundStmt(CompoundStmt ast, C c);
+  public abstract R visitExprStmt(ExprStmt ast, C c);
+  public abstract R visitEmptyCompStmt(EmptyCompStmt ast, C c);
+  public abstract R visitEmptyStmt(EmptyStmt ast, C c);
+  public abstract R visitErrorStmt(ErrorStmt ast, C c);
+
+  // Expressions
+  public abstract R visitIntExpr(IntExpr ast, C c);
+  public abstract R visitFloatExpr(FloatExpr ast, C c);
+  public abstract R visitBooleanExpr(BooleanExpr ast, C c);
+  public abstract R visitStringExpr(StringExpr ast, C c);
+  public abstract R visitUnaryExpr(UnaryExpr ast, C c);
+  public abstract R visitBinaryExpr(BinaryExpr ast, C c);
+  public abstract R visitArrayInitExpr(ArrayInitExpr ast, C c);
+  public abstract R visitArrayExprList(ArrayExprList ast, C c);
+  public abstract R visitArrayExpr(ArrayExpr ast, C c);
+  public abstract R visitVarExpr(VarExpr ast, C c);
+  public abstract R visitCallExpr(CallExpr ast, C c);
+  public abstract R visitAssignExpr(AssignExpr ast, C c);
+  public abstract R visitEmptyExpr(EmptyExpr ast, C c);
+
+  // Literals and identifiers
+  public abstract R visitIntLiteral(IntLiteral ast, C c);
+  public abstract R visitFloatLiteral(FloatLiteral ast, C c);
+  public abstract R visitBooleanLiteral(BooleanLiteral ast, C c);
+  public abstract R visitStringLiteral(StringLiteral ast, C c);
+  public abstract R visitIdent(Ident ast, C c);
+  public abstract R visitOperator(Operator ast, C c);
+
+  // Parameters
+
+  public abstract R visitParaList(ParaList ast, C c);
+  public abstract R visitParaDecl(ParaDecl ast, C c);
+
+  // Arguments
+  public abstract R visitArgList(ArgList ast, C c);
+  public abstract R visitArg(Arg ast, C c);
+
+  // Types 
+  public abstract R visitVoidType(VoidType ast, C c);
+  public abstract R visitBooleanType(BooleanType ast, C c);
+  public abstract R visitIntType(IntType ast, C c);
+  public abstract R visitFloatType(FloatType ast, C c);
+  public abstract R visitStringType(StringType ast, C c);
+  public abstract R visitArrayType(ArrayType ast, C c);
+  public abstract R visitErrorType(ErrorType ast, C c);
+
+
+  // Variables 
+  public abstract R visitSimpleVar(SimpleVar ast, C c);
+
+  // Calls the visit method for the class of ast.
+
+  public default R visit(AST ast, C c) {
+    switch (ast.kind()) {
+      case Kinds.PROGRAM:
+        return visitProgram((Program) ast, c);
+      case Kinds.EMPTY_DECL_LIST:
+        return visitEmptyDeclList((EmptyDeclList) ast, c);
+      case Kinds.EMPTY_STMT_LIST:
+        return visitEmptyStmtList((EmptyStmtList) ast, c);
+      case Kinds.EMPTY_ARRAY_EXPR_LIST:
+        return visitEmptyArrayExprList((EmptyArrayExprList) ast, c);
+      case Kinds.EMPTY_PARA_LIST:
+        return visitEmptyParaList((EmptyParaList) ast, c);
+      case Kinds.EMPTY_ARG_LIST:
+        return visitEmptyArgList((EmptyArgList) ast, c);
+      case Kinds.DECL_LIST:
+        return visitDeclList((DeclList) ast, c);
+      case Kinds.FUNC_DECL:
+        return visitFuncDecl((FuncDecl) ast, c);
+      case Kinds.GLOBAL_VAR_DECL:
+        return visitGlobalVarDecl((GlobalVarDecl) ast, c);
+      case Kinds.LOCAL_VAR_DECL:
+        return visitLocalVarDecl((LocalVarDecl) ast, c);
+      case Kinds.ERROR_DECL:
+        return visitErrorDecl((ErrorDecl) ast, c);
+      case Kinds.STMT_LIST:
+        return visitStmtList((StmtList) ast, c);
+      case Kinds.IF_STMT:
+        return visitIfStmt((IfStmt) ast, c);
+      case Kinds.WHILE_STMT:
+        return visitWhileStmt((WhileStmt) ast, c);
+      case Kinds.FOR_STMT:
+        return visitForStmt((ForStmt) ast, c);
+      case Kinds.BREAK_STMT:
+        return visitBreakStmt((BreakStmt) ast, c);
+      case Kinds.CONTINUE_STMT:
+        return visitContinueStmt((ContinueStmt) ast, c);
+      case Kinds.RETURN_STMT:
+        return visitReturnStmt((ReturnStmt) ast, c);
+      case Kinds.COMPOUND_STMT:
+        return visitCompoundStmt((CompoundStmt) ast, c);
+      case Kinds.EXPR_STMT:
+        return visitExprStmt((ExprStmt) ast, c);
+      case Kinds.EMPTY_COMP_STMT:
+        return visitEmptyCompStmt((EmptyCompStmt) ast, c);
+      case Kinds.EMPTY_STMT:
+        return visitEmptyStmt((EmptyStmt) ast, c);
+      case Kinds.ERROR_STMT:
+        return visitErrorStmt((ErrorStmt) ast, c);
+      case Kinds.INT_EXPR:
+        return visitIntExpr((IntExpr) ast, c);
+      case Kinds.FLOAT_EXPR:
+        return visitFloatExpr((FloatExpr) ast, c);
+      case Kinds.BOOLEAN_EXPR:
+        return visitBooleanExpr((BooleanExpr) ast, c);
+      case Kinds.STRING_EXPR:
+        return visitStringExpr((StringExpr) ast, c);
+      case Kinds.UNARY_EXPR:
+        return visitUnaryExpr((UnaryExpr) ast, c);
+      case Kinds.BINARY_EXPR:
+        return visitBinaryExpr((BinaryExpr) ast, c);
+      case Kinds.ARRAY_INIT_EXPR:
+        return visitArrayInitExpr((ArrayInitExpr) ast, c);
+      case Kinds.ARRAY_EXPR_LIST:
+        return visitArrayExprList((ArrayExprList) ast, c);
+      case Kinds.ARRAY_EXPR:
+        return visitArrayExpr((ArrayExpr) ast, c);
+      case Kinds.VAR_EXPR:
+        return visitVarExpr((VarExpr) ast, c);
+      case Kinds.CALL_EXPR:
+        return visitCallExpr((CallExpr) ast, c);
+      case Kinds.ASSIGN_EXPR:
+        return visitAssignExpr((AssignExpr) ast, c);
+      case Kinds.EMPTY_EXPR:
+        return visitEmptyExpr((EmptyExpr) ast, c);
+      case Kinds.INT_LITERAL:
+        return visitIntLiteral((IntLiteral) ast, c);
+      case Kinds.FLOAT_LITERAL:
+        return visitFloatLiteral((FloatLiteral) ast, c);
+      case Kinds.BOOLEAN_LITERAL:
+        return visitBooleanLiteral((BooleanLiteral) ast, c);
+      case Kinds.STRING_LITERAL:
+        return visitStringLiteral((StringLiteral) ast, c);
+      case Kinds.IDENT:
+        return visitIdent((Ident) ast, c);
+      case Kinds.OPERATOR:
+        return visitOperator((Operator) ast, c);
+      case Kinds.PARA_LIST:
+        return visitParaList((ParaList) ast, c);
+      case Kinds.PARA_DECL:
+        return visitParaDecl((ParaDecl) ast, c);
+      case Kinds.ARG_LIST:
+        return visitArgList((ArgList) ast, c);
+      case Kinds.ARG:
+        return visitArg((Arg) ast, c);
+      case Kinds.VOID_TYPE:
+        return visitVoidType((VoidType) ast, c);
+      case Kinds.BOOLEAN_TYPE:
+        return visitBooleanType((BooleanType) ast, c);
+      case Kinds.INT_TYPE:
+        return visitIntType((IntType) ast, c);
+      case Kinds.FLOAT_TYPE:
+        return visitFloatType((FloatType) ast, c);
+      case Kinds.STRING_TYPE:
+        return visitStringType((StringType) ast, c);
+      case Kinds.ARRAY_TYPE:
+        return visitArrayType((ArrayType) ast, c);
+      case Kinds.ERROR_TYPE:
+        return visitErrorType((ErrorType) ast, c);
+      case Kinds.SIMPLE_VAR:
+        return visitSimpleVar((SimpleVar) ast, c);
+      default:
+        throw new IllegalArgumentException(Kinds.name(ast.kind()));
+    }
+  }
+
+}
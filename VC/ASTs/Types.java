@@ -0,0 +1,43 @@
+/*
+ * Types.java
+ *
+ * The codes of the types of VC, small integers by which a type is
+ * compared, or told apart, by comparing or switching on its code
+ * (Type.code) rather than by testing the classes of Type nodes.
+ *
+ * The primitive types have the fixed codes below. Each distinct array
+ * type (element type and size) is given a code above ARRAY by the
+ * TypeTable of the compilation when it is first seen, and is then one
+ * canonical ArrayType; an ArrayType the parser built, which no table has
+ * numbered, has the code ARRAY.
+ */
+
+package VC.ASTs;
+
+public final class Types {
+
+  public static final int ERROR = 0;
+  public static final int VOID = 1;
+  public static final int BOOLEAN = 2;
+  public static final int INT = 3;
+  public static final int FLOAT = 4;
+  public static final int STRING = 5;
+  public static final int ARRAY = 6;
+
+  // The size of an array type whose size is not given.
+
+  public static final int NO_SIZE = -1;
+
+  private Types() { }
+
+  public static boolean isArray(int code) {
+    return code >= ARRAY;
+  }
+
+  // Whether code is int or float, the types arithmetic is done on.
+
+  public static boolean isNumeric(int code) {
+    return code == INT || code == FLOAT;
+  }
+
+}
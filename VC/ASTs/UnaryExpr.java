@@ -10,15 +10,13 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class UnaryExpr extends Expr {
 
   public Operator O;
   public Expr E;
 
-  public UnaryExpr(Operator oAST, Expr eAST, SourcePosition Position) {
-    super (Position);
+  public UnaryExpr(Operator oAST, Expr eAST, long span) {
+    super (span, Kinds.UNARY_EXPR);
     O = oAST;
     E = eAST;
     O.parent = E.parent = this;
@@ -4,14 +4,12 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public abstract class Var extends AST {
 
   public Type type;
 
-  public Var (SourcePosition Position) {
-    super (Position);
+  public Var (long span, int kind) {
+    super (span, kind);
     type = null;
   }
 
@@ -8,14 +8,12 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class VarExpr extends Expr {
 
   public Var V;
 
-  public VarExpr (Var vAST, SourcePosition position) {
-    super (position);
+  public VarExpr (Var vAST, long span) {
+    super (span, Kinds.VAR_EXPR);
     V = vAST;
     V.parent = this;
   }
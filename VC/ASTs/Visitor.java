@@ -4,7 +4,7 @@
 
 package VC.ASTs;
 
-public interface Visitor {
+public interface Visitor extends TypedVisitor<Object, Object> {
 
   // Programs
   public abstract Object visitProgram(Program ast, Object o);
@@ -22,6 +22,7 @@ public interface Visitor {
   public abstract Object visitFuncDecl(FuncDecl ast, Object o);
   public abstract Object visitGlobalVarDecl(GlobalVarDecl ast, Object o);
   public abstract Object visitLocalVarDecl(LocalVarDecl ast, Object o);
+  public abstract Object visitErrorDecl(ErrorDecl ast, Object o);
 
   // Stmts
   public abstract Object visitStmtList(StmtList ast, Object o);
@@ -35,6 +36,7 @@ public interface Visitor {
   public abstract Object visitExprStmt(ExprStmt ast, Object o);
   public abstract Object visitEmptyCompStmt(EmptyCompStmt ast, Object o);
   public abstract Object visitEmptyStmt(EmptyStmt ast, Object o);
+  public abstract Object visitErrorStmt(ErrorStmt ast, Object o);
 
   // Expressions
   public abstract Object visitIntExpr(IntExpr ast, Object o);
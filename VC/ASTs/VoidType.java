@@ -10,12 +10,10 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
-
 public class VoidType extends Type {
 
-  public VoidType (SourcePosition Position) {
-    super (Position);
+  public VoidType (long span) {
+    super (span, Kinds.VOID_TYPE, Types.VOID);
   }
 
   public Object visit (Visitor v, Object o) {
@@ -23,10 +21,10 @@ public class VoidType extends Type {
   }
 
   public boolean equals(Object obj) {
-    if (obj != null && obj instanceof ErrorType)
-      return true;
-    else    
-      return (obj != null && obj instanceof VoidType);
+    if (!(obj instanceof Type))
+      return false;
+    int code = ((Type) obj).code();
+    return code == Types.VOID || code == Types.ERROR;
   }
 
   // not used this year
@@ -8,7 +8,6 @@
 
 package VC.ASTs;
 
-import VC.Scanner.SourcePosition;
 import java.util.LinkedList;
 
 public class WhileStmt extends Stmt {
@@ -20,8 +19,8 @@ public class WhileStmt extends Stmt {
   // The two fields below are not used for this year's assignments
   public AST trueSuccessor, falseSuccessor;
 
-  public WhileStmt (Expr eAST, Stmt sAST, SourcePosition Position) {
-    super (Position);
+  public WhileStmt (Expr eAST, Stmt sAST, long span) {
+    super (span, Kinds.WHILE_STMT);
     E = eAST;
     S = sAST;
     E.parent = S.parent = this;
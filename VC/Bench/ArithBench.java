@@ -0,0 +1,53 @@
+/*
+ * ArithBench.java
+ *
+ * Times the Checker on arithmetic-heavy code (see Programs.arithmetic),
+ * whose time goes mostly to giving the operands and results of binary
+ * and unary expressions their types: handleArith, handleCompare and
+ * handleEQ, which switch on the codes of the canonical types (see
+ * TypeTable).
+ *
+ *   java VC.Bench.ArithBench [functions] [rounds]
+ *
+ * Each round checks a fresh tree of the same program.
+ */
+
+package VC.Bench;
+
+import VC.ErrorReporter;
+import VC.ASTs.Program;
+import VC.Checker.Checker;
+
+import java.util.Arrays;
+
+public final class ArithBench {
+
+  private static final class Quiet extends ErrorReporter {
+    @Override
+    public void reportError(String message, String tokenName, long span) {
+      throw new IllegalStateException("the generated program has errors");
+    }
+  }
+
+  public static void main(String[] args) {
+    int functions = (args.length > 0) ? Integer.parseInt(args[0]) : 2000;
+    int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 30;
+    String text = Programs.arithmetic(functions, 40);
+
+    long[] times = new long[rounds];
+    for (int r = 0; r < rounds; r++) {
+      Program program = Programs.parse(text);
+      long start = System.nanoTime();
+      new Checker(new Quiet()).check(program);
+      times[r] = System.nanoTime() - start;
+    }
+
+    // the first half of the rounds warm the JIT up
+    long[] measured = Arrays.copyOfRange(times, rounds / 2, rounds);
+    Arrays.sort(measured);
+    System.out.printf("check of %d functions, %d statements: median %.1f ms, best %.1f ms%n",
+                      functions, 40 * functions,
+                      measured[measured.length / 2] / 1e6, measured[0] / 1e6);
+  }
+
+}
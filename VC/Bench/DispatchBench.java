@@ -0,0 +1,360 @@
+/*
+ * DispatchBench.java
+ *
+ * Times a full pass over a generated program (see Programs.mixed) under
+ * the two ways of dispatching on the class of a node: switching on its
+ * kind, as TypedVisitor.visit does, and calling back from the node, as
+ * AST.visit does.
+ *
+ *   java VC.Bench.DispatchBench [switch|call|check] [functions] [rounds]
+ *
+ * switch and call walk every node of the tree with the same Walker,
+ * which differs only in how it goes to a child. check times
+ * Checker.check, which dispatches by switching, on a fresh tree each
+ * round. Each style is best run in a JVM of its own, so that what the
+ * JIT has seen of one does not shape the code of the other.
+ */
+
+package VC.Bench;
+
+import VC.ErrorReporter;
+import VC.ASTs.*;
+import VC.Checker.Checker;
+
+import java.util.Arrays;
+
+public final class DispatchBench {
+
+  // Walks every node of a tree, counting them; go is how it goes to a
+  // child. Lists are walked iteratively, as the passes do.
+
+  private abstract static class Walker implements Visitor {
+    long nodes;
+
+    abstract void go(AST ast);
+
+    private Object leaf() {
+      nodes++;
+      return null;
+    }
+
+    public Object visitProgram(Program ast, Object o) {
+      nodes++;
+      go(ast.FL);
+      return null;
+    }
+
+    public Object visitEmptyDeclList(EmptyDeclList ast, Object o) { return leaf(); }
+    public Object visitEmptyStmtList(EmptyStmtList ast, Object o) { return leaf(); }
+    public Object visitEmptyArrayExprList(EmptyArrayExprList ast, Object o) { return leaf(); }
+    public Object visitEmptyParaList(EmptyParaList ast, Object o) { return leaf(); }
+    public Object visitEmptyArgList(EmptyArgList ast, Object o) { return leaf(); }
+
+    public Object visitDeclList(DeclList ast, Object o) {
+      List list = ast;
+      for (; list instanceof DeclList; list = ((DeclList) list).DL) {
+        nodes++;
+        go(((DeclList) list).D);
+      }
+      go(list);
+      return null;
+    }
+
+    public Object visitFuncDecl(FuncDecl ast, Object o) {
+      nodes++;
+      go(ast.T);
+      go(ast.I);
+      go(ast.PL);
+      go(ast.S);
+      return null;
+    }
+
+    public Object visitGlobalVarDecl(GlobalVarDecl ast, Object o) {
+      nodes++;
+      go(ast.T);
+      go(ast.I);
+      go(ast.E);
+      return null;
+    }
+
+    public Object visitLocalVarDecl(LocalVarDecl ast, Object o) {
+      nodes++;
+      go(ast.T);
+      go(ast.I);
+      go(ast.E);
+      return null;
+    }
+
+    public Object visitErrorDecl(ErrorDecl ast, Object o) { return leaf(); }
+
+    public Object visitStmtList(StmtList ast, Object o) {
+      List list = ast;
+      for (; list instanceof StmtList; list = ((StmtList) list).SL) {
+        nodes++;
+        go(((StmtList) list).S);
+      }
+      go(list);
+      return null;
+    }
+
+    public Object visitIfStmt(IfStmt ast, Object o) {
+      nodes++;
+      go(ast.E);
+      go(ast.S1);
+      go(ast.S2);
+      return null;
+    }
+
+    public Object visitWhileStmt(WhileStmt ast, Object o) {
+      nodes++;
+      go(ast.E);
+      go(ast.S);
+      return null;
+    }
+
+    public Object visitForStmt(ForStmt ast, Object o) {
+      nodes++;
+      go(ast.E1);
+      go(ast.E2);
+      go(ast.E3);
+      go(ast.S);
+      return null;
+    }
+
+    public Object visitBreakStmt(BreakStmt ast, Object o) { return leaf(); }
+    public Object visitContinueStmt(ContinueStmt ast, Object o) { return leaf(); }
+
+    public Object visitReturnStmt(ReturnStmt ast, Object o) {
+      nodes++;
+      go(ast.E);
+      return null;
+    }
+
+    public Object visitCompoundStmt(CompoundStmt ast, Object o) {
+      nodes++;
+      go(ast.DL);
+      go(ast.SL);
+      return null;
+    }
+
+    public Object visitExprStmt(ExprStmt ast, Object o) {
+      nodes++;
+      go(ast.E);
+      return null;
+    }
+
+    public Object visitEmptyCompStmt(EmptyCompStmt ast, Object o) { return leaf(); }
+    public Object visitEmptyStmt(EmptyStmt ast, Object o) { return leaf(); }
+    public Object visitErrorStmt(ErrorStmt ast, Object o) { return leaf(); }
+
+    public Object visitIntExpr(IntExpr ast, Object o) {
+      nodes++;
+      go(ast.IL);
+      return null;
+    }
+
+    public Object visitFloatExpr(FloatExpr ast, Object o) {
+      nodes++;
+      go(ast.FL);
+      return null;
+    }
+
+    public Object visitBooleanExpr(BooleanExpr ast, Object o) {
+      nodes++;
+      go(ast.BL);
+      return null;
+    }
+
+    public Object visitStringExpr(StringExpr ast, Object o) {
+      nodes++;
+      go(ast.SL);
+      return null;
+    }
+
+    public Object visitUnaryExpr(UnaryExpr ast, Object o) {
+      nodes++;
+      go(ast.O);
+      go(ast.E);
+      return null;
+    }
+
+    public Object visitBinaryExpr(BinaryExpr ast, Object o) {
+      nodes++;
+      go(ast.E1);
+      go(ast.O);
+      go(ast.E2);
+      return null;
+    }
+
+    public Object visitArrayInitExpr(ArrayInitExpr ast, Object o) {
+      nodes++;
+      go(ast.IL);
+      return null;
+    }
+
+    public Object visitArrayExprList(ArrayExprList ast, Object o) {
+      List list = ast;
+      for (; list instanceof ArrayExprList; list = ((ArrayExprList) list).EL) {
+        nodes++;
+        go(((ArrayExprList) list).E);
+      }
+      go(list);
+      return null;
+    }
+
+    public Object visitArrayExpr(ArrayExpr ast, Object o) {
+      nodes++;
+      go(ast.V);
+      go(ast.E);
+      return null;
+    }
+
+    public Object visitVarExpr(VarExpr ast, Object o) {
+      nodes++;
+      go(ast.V);
+      return null;
+    }
+
+    public Object visitCallExpr(CallExpr ast, Object o) {
+      nodes++;
+      go(ast.I);
+      go(ast.AL);
+      return null;
+    }
+
+    public Object visitAssignExpr(AssignExpr ast, Object o) {
+      nodes++;
+      go(ast.E1);
+      go(ast.E2);
+      return null;
+    }
+
+    public Object visitEmptyExpr(EmptyExpr ast, Object o) { return leaf(); }
+
+    public Object visitIntLiteral(IntLiteral ast, Object o) { return leaf(); }
+    public Object visitFloatLiteral(FloatLiteral ast, Object o) { return leaf(); }
+    public Object visitBooleanLiteral(BooleanLiteral ast, Object o) { return leaf(); }
+    public Object visitStringLiteral(StringLiteral ast, Object o) { return leaf(); }
+    public Object visitIdent(Ident ast, Object o) { return leaf(); }
+    public Object visitOperator(Operator ast, Object o) { return leaf(); }
+
+    public Object visitParaList(ParaList ast, Object o) {
+      List list = ast;
+      for (; list instanceof ParaList; list = ((ParaList) list).PL) {
+        nodes++;
+        go(((ParaList) list).P);
+      }
+      go(list);
+      return null;
+    }
+
+    public Object visitParaDecl(ParaDecl ast, Object o) {
+      nodes++;
+      go(ast.T);
+      go(ast.I);
+      return null;
+    }
+
+    public Object visitArgList(ArgList ast, Object o) {
+      List list = ast;
+      for (; list instanceof ArgList; list = ((ArgList) list).AL) {
+        nodes++;
+        go(((ArgList) list).A);
+      }
+      go(list);
+      return null;
+    }
+
+    public Object visitArg(Arg ast, Object o) {
+      nodes++;
+      go(ast.E);
+      return null;
+    }
+
+    public Object visitVoidType(VoidType ast, Object o) { return leaf(); }
+    public Object visitBooleanType(BooleanType ast, Object o) { return leaf(); }
+    public Object visitIntType(IntType ast, Object o) { return leaf(); }
+    public Object visitFloatType(FloatType ast, Object o) { return leaf(); }
+    public Object visitStringType(StringType ast, Object o) { return leaf(); }
+
+    public Object visitArrayType(ArrayType ast, Object o) {
+      nodes++;
+      go(ast.T);
+      go(ast.E);
+      return null;
+    }
+
+    public Object visitErrorType(ErrorType ast, Object o) { return leaf(); }
+
+    public Object visitSimpleVar(SimpleVar ast, Object o) {
+      nodes++;
+      go(ast.I);
+      return null;
+    }
+  }
+
+  private static final class Switching extends Walker {
+    void go(AST ast) {
+      visit(ast, null);
+    }
+  }
+
+  private static final class Calling extends Walker {
+    void go(AST ast) {
+      ast.visit(this, null);
+    }
+  }
+
+  // Reports errors nowhere: the program is correct, and the time of
+  // printing is not what is measured.
+
+  private static final class Quiet extends ErrorReporter {
+    @Override
+    public void reportError(String message, String tokenName, long span) {
+      throw new IllegalStateException("the generated program has errors");
+    }
+  }
+
+  public static void main(String[] args) {
+    String style = (args.length > 0) ? args[0] : "switch";
+    int functions = (args.length > 1) ? Integer.parseInt(args[1]) : 2000;
+    int rounds = (args.length > 2) ? Integer.parseInt(args[2]) : 30;
+    String text = Programs.mixed(functions, 40);
+
+    long[] times = new long[rounds];
+    long nodes = 0;
+    if (style.equals("check")) {
+      for (int r = 0; r < rounds; r++) {
+        Program program = Programs.parse(text);
+        long start = System.nanoTime();
+        new Checker(new Quiet()).check(program);
+        times[r] = System.nanoTime() - start;
+      }
+    } else {
+      Program program = Programs.parse(text);
+      Walker walker;
+      if (style.equals("switch"))
+        walker = new Switching();
+      else if (style.equals("call"))
+        walker = new Calling();
+      else
+        throw new IllegalArgumentException("no style " + style);
+      for (int r = 0; r < rounds; r++) {
+        walker.nodes = 0;
+        long start = System.nanoTime();
+        walker.go(program);
+        times[r] = System.nanoTime() - start;
+        nodes = walker.nodes;
+      }
+    }
+
+    // the first half of the rounds warm the JIT up
+    long[] measured = Arrays.copyOfRange(times, rounds / 2, rounds);
+    Arrays.sort(measured);
+    System.out.printf("%s: %d functions%s, median %.2f ms, best %.2f ms%n",
+                      style, functions,
+                      (nodes > 0) ? ", " + nodes + " nodes" : "",
+                      measured[measured.length / 2] / 1e6, measured[0] / 1e6);
+  }
+
+}
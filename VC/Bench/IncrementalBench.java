@@ -0,0 +1,121 @@
+/*
+ * IncrementalBench.java
+ *
+ * Times checking a program again after an edit to the body of one of
+ * its functions (see Checker.enableIncremental).
+ *
+ *   java VC.Bench.IncrementalBench [callers] [rounds]
+ *
+ * The program starts with two functions, one called twice by each of
+ * callers functions after them and one not called at all. Each round
+ * edits the body of one of the two, leaving its signature as it is,
+ * and times the reparse and the incremental check of the program, then
+ * the incremental check of the program parsed in full instead. A full
+ * check of the program is timed for comparison.
+ */
+
+package VC.Bench;
+
+import VC.ErrorReporter;
+import VC.ASTs.Program;
+import VC.Checker.Checker;
+import VC.Parser.Parser;
+import VC.Scanner.SourceFile;
+import VC.Scanner.TokenStream;
+
+import java.io.StringReader;
+import java.util.Arrays;
+
+public final class IncrementalBench {
+
+  private static final class Quiet extends ErrorReporter {
+    @Override
+    public void reportError(String message, String tokenName, long span) {
+      throw new IllegalStateException("the edited program has errors");
+    }
+  }
+
+  private static double median(long[] times) {
+    long[] measured = Arrays.copyOfRange(times, times.length / 2, times.length);
+    Arrays.sort(measured);
+    return measured[measured.length / 2] / 1e6;
+  }
+
+  private static final String EDITED = "x = x + 1;";
+
+  private static String program(int callers) {
+    StringBuilder sb = new StringBuilder();
+    for (String name : new String[] {"called", "uncalled"})
+      sb.append("int ").append(name).append("(int a, float b) {\n  int x = a;\n  ")
+        .append(EDITED).append("\n  return x;\n}\n");
+    for (int f = 0; f < callers; f++) {
+      sb.append("int fn").append(f).append("(int a) {\n");
+      sb.append("  int r = called(a, 1.5) + called(a + ").append(f).append(", 2);\n");
+      sb.append("  return r;\n}\n");
+    }
+    sb.append("int main() {\n  return 0;\n}\n");
+    return sb.toString();
+  }
+
+  // Edits the body of function rounds times, by turning x + 1 into
+  // 2 * x + 1 and back, and returns the times of the reparses, of the
+  // incremental checks after them, and of the incremental checks after
+  // full parses.
+
+  private static long[][] edit(String text, String function, int rounds) {
+    ErrorReporter quiet = new Quiet();
+    TokenStream tokens = TokenStream.lex(new SourceFile(new StringReader(text)));
+    Checker checker = new Checker(quiet);
+    checker.enableIncremental();
+    Program ast = new Parser(tokens.cursor(quiet), quiet).parseProgram();
+    checker.check(ast);
+    Checker fresh = new Checker(quiet);
+    fresh.enableIncremental();
+    fresh.check(Programs.parse(text));
+
+    int at = text.indexOf(EDITED, text.indexOf(function + "(")) + 4;
+    long[] reparse = new long[rounds];
+    long[] reparsed = new long[rounds];
+    long[] parsed = new long[rounds];
+    for (int r = 0; r < rounds; r++) {
+      boolean insert = (r % 2 == 0);
+      long start = System.nanoTime();
+      TokenStream.Change change = tokens.relex(at, insert ? 0 : 4, insert ? "2 * " : "");
+      ast = Parser.reparse(ast, change, quiet);
+      reparse[r] = System.nanoTime() - start;
+      start = System.nanoTime();
+      checker.check(ast);
+      reparsed[r] = System.nanoTime() - start;
+      tokens = change.stream;
+
+      text = text.substring(0, at) + (insert ? "2 * " + text.substring(at) : text.substring(at + 4));
+      Program whole = Programs.parse(text);
+      start = System.nanoTime();
+      fresh.check(whole);
+      parsed[r] = System.nanoTime() - start;
+    }
+    return new long[][] {reparse, reparsed, parsed};
+  }
+
+  public static void main(String[] args) {
+    int callers = (args.length > 0) ? Integer.parseInt(args[0]) : 5000;
+    int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 40;
+
+    String text = program(callers);
+    long[] full = new long[rounds];
+    for (int r = 0; r < rounds; r++) {
+      Program ast = Programs.parse(text);
+      long start = System.nanoTime();
+      new Checker(new Quiet()).check(ast);
+      full[r] = System.nanoTime() - start;
+    }
+    System.out.printf("%d callers: full check median %.2f ms%n", callers, median(full));
+    for (String function : new String[] {"called", "uncalled"}) {
+      long[][] times = edit(text, function, rounds);
+      System.out.printf("body of %s: reparse median %.2f ms, check median %.2f ms,"
+                        + " check after a full parse median %.2f ms%n",
+                        function, median(times[0]), median(times[1]), median(times[2]));
+    }
+  }
+
+}
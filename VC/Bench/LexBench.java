@@ -0,0 +1,80 @@
+/*
+ * LexBench.java
+ *
+ * Times lexing a large generated program (see Programs.mixed) into a
+ * token stream, sequentially and by ParallelLexer on 1, 2, 4, ... up to
+ * as many threads as there are processors, and checks that each
+ * parallel stream is the sequential one.
+ *
+ *   java VC.Bench.LexBench [megabytes] [rounds]
+ */
+
+package VC.Bench;
+
+import VC.Scanner.SourceFile;
+import VC.Scanner.TokenStream;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+public final class LexBench {
+
+  private static boolean same(TokenStream a, TokenStream b) {
+    if (a.size() != b.size())
+      return false;
+    for (int i = 0; i < a.size(); i++) {
+      if (a.kind(i) != b.kind(i) || a.start(i) != b.start(i) || a.end(i) != b.end(i))
+        return false;
+    }
+    return true;
+  }
+
+  // The median of the last half of times, the first half having warmed
+  // the JIT up.
+
+  private static double median(long[] times) {
+    long[] measured = Arrays.copyOfRange(times, times.length / 2, times.length);
+    Arrays.sort(measured);
+    return measured[measured.length / 2] / 1e6;
+  }
+
+  public static void main(String[] args) {
+    int megabytes = (args.length > 0) ? Integer.parseInt(args[0]) : 64;
+    int rounds = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+
+    int perFunction = Programs.mixed(1, 40).length();
+    String text = Programs.mixed((megabytes << 20) / perFunction, 40);
+    SourceFile source = new SourceFile(new StringReader(text));
+
+    TokenStream sequential = null;
+    long[] times = new long[rounds];
+    for (int r = 0; r < rounds; r++) {
+      long start = System.nanoTime();
+      sequential = TokenStream.lex(source);
+      times[r] = System.nanoTime() - start;
+    }
+    double base = median(times);
+    System.out.printf("%d MB, %d tokens%n", text.length() >> 20, sequential.size());
+    System.out.printf("sequential: median %.1f ms%n", base);
+
+    int processors = Runtime.getRuntime().availableProcessors();
+    for (int threads = 1; ; threads = Math.min(2 * threads, processors)) {
+      ForkJoinPool pool = new ForkJoinPool(threads);
+      for (int r = 0; r < rounds; r++) {
+        long start = System.nanoTime();
+        TokenStream tokens = TokenStream.lex(source, pool);
+        times[r] = System.nanoTime() - start;
+        if (r == 0 && !same(tokens, sequential))
+          throw new IllegalStateException(threads + " threads: not the sequential stream");
+      }
+      pool.shutdown();
+      double time = median(times);
+      System.out.printf("%2d threads: median %.1f ms, speedup %.2f%n",
+                        threads, time, base / time);
+      if (threads == processors)
+        break;
+    }
+  }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * Programs.java
+ *
+ * Generates the VC programs that the benchmarks run on, so that they
+ * need no input files. The programs are correct VC, and the same for
+ * the same arguments.
+ */
+
+package VC.Bench;
+
+import VC.ErrorReporter;
+import VC.ASTs.Program;
+import VC.Parser.Parser;
+import VC.Scanner.SourceFile;
+import VC.Scanner.TokenStream;
+
+import java.io.StringReader;
+import java.util.Random;
+
+final class Programs {
+
+  private Programs() { }
+
+  // A program of functions functions, each of statements statements of
+  // int and float arithmetic, comparisons, calls, ifs, whiles and
+  // string output, that all use the globals g0 and f0, followed by
+  // main. Each function is headed by a block comment.
+
+  static String mixed(int functions, int statements) {
+    StringBuilder sb = new StringBuilder();
+    sb.append("int g0 = 1;\nfloat f0 = 2.5;\n");
+    for (int f = 0; f < functions; f++) {
+      sb.append("/*\n * fn").append(f).append(": a \"string\" in a comment\n */\n");
+      sb.append("int fn").append(f).append("(int a, float b) {\n");
+      sb.append("  int i; int x = a; float y = b; boolean c = true;\n");
+      for (int s = 0; s < statements; s++) {
+        switch (s % 8) {
+          case 0: sb.append("  x = x * 3 + a / 2 - g0;\n"); break;
+          case 1: sb.append("  y = y * 1.5 + x - f0 / 2;\n"); break;
+          case 2: sb.append("  c = x < y && y >= a || !c;\n"); break;
+          case 3: sb.append("  if (x > a) x = x - 1; else y = y + x;\n"); break;
+          case 4: sb.append("  while (i < 10) i = i + 1;\n"); break;
+          case 5: sb.append("  putStringLn(\"/* not a comment */\");\n"); break;
+          case 6:
+            if (f > 0)
+              sb.append("  x = fn").append(f - 1).append("(x + 1, y * 2);\n");
+            else
+              sb.append("  x = -x + a;\n");
+            break;
+          default: sb.append("  { int z = x / 7; y = y + z * 2.0; }\n"); break;
+        }
+      }
+      sb.append("  return x;\n}\n");
+    }
+    sb.append("int main() {\n  return 0;\n}\n");
+    return sb.toString();
+  }
+
+  // A program of functions functions, each of statements random
+  // statements of int and float arithmetic, comparisons, equalities and
+  // logic on nested expressions, the same for the same arguments.
+
+  static String arithmetic(int functions, int statements) {
+    Random random = new Random(7);
+    StringBuilder sb = new StringBuilder();
+    sb.append("int gi = 3;\nfloat gf = 2.5;\n");
+    for (int f = 0; f < functions; f++) {
+      sb.append("float f").append(f).append("(int a, float b) {\n");
+      sb.append("  int i = a; int j = 2; float x = b; float y = 1.5; boolean p = true;\n");
+      for (int s = 0; s < statements; s++) {
+        double k = random.nextDouble();
+        if (k < 0.5) {
+          sb.append("  x = ").append(term(random, 4)).append(";\n");
+        } else if (k < 0.7) {
+          sb.append("  i = i + j * ").append(1 + random.nextInt(9)).append(" - a / 2;\n");
+        } else if (k < 0.9) {
+          sb.append("  p = ").append(term(random, 2)).append(' ')
+            .append(COMPARISONS[random.nextInt(COMPARISONS.length)]).append(' ')
+            .append(term(random, 2)).append(" && ").append(term(random, 1))
+            .append(" == ").append(term(random, 1)).append(";\n");
+        } else {
+          sb.append("  p = !p || ").append(term(random, 2)).append(" != ")
+            .append(term(random, 2)).append(";\n");
+        }
+      }
+      sb.append("  return x + y;\n}\n");
+    }
+    sb.append("int main() {\n  putFloat(f0(1, 2.0));\n  return 0;\n}\n");
+    return sb.toString();
+  }
+
+  private static final String[] OPERANDS = {
+    "i", "j", "x", "y", "a", "b", "gi", "gf", "3", "4.5", "(i*2)", "(x/2.0)"
+  };
+  private static final String[] OPERATORS = { " + ", " - ", " * ", " / " };
+  private static final String[] COMPARISONS = { "<", "<=", ">", ">=" };
+
+  private static String term(Random random, int depth) {
+    if (depth == 0 || random.nextDouble() < 0.3)
+      return OPERANDS[random.nextInt(OPERANDS.length)];
+    return "(" + term(random, depth - 1) + OPERATORS[random.nextInt(OPERATORS.length)]
+           + term(random, depth - 1) + ")";
+  }
+
+  // The tree of text, which must be a correct program.
+
+  static Program parse(String text) {
+    TokenStream tokens = TokenStream.lex(new SourceFile(new StringReader(text)));
+    ErrorReporter reporter = new ErrorReporter(tokens.lineTable());
+    Program program = new Parser(tokens.cursor(reporter), reporter).parseProgram();
+    if (reporter.getNumErrors() > 0)
+      throw new IllegalStateException("the generated program has errors");
+    return program;
+  }
+
+}
@@ -0,0 +1,125 @@
+/*
+ * SymbolTableBench.java
+ *
+ * Times the symbol table on many globals and deep nesting.
+ *
+ *   java VC.Bench.SymbolTableBench [globals] [depth] [rounds]
+ *
+ * Each round declares the globals, looks each of them up, then opens
+ * depth nested scopes, each declaring a local that shadows a global and
+ * one of its own, looking up from the innermost scope a local of each
+ * enclosing scope, a global, and a redeclaration of each local, and
+ * finally closes them all. Then the Checker checks a program with the
+ * globals and a function nested depth blocks deep in which each block
+ * uses the globals and the locals of the blocks around it.
+ */
+
+package VC.Bench;
+
+import VC.ErrorReporter;
+import VC.ASTs.*;
+import VC.Checker.Checker;
+import VC.Checker.SymbolTable;
+import VC.Scanner.IdentifierPool;
+import VC.Scanner.Span;
+
+import java.util.Arrays;
+
+public final class SymbolTableBench {
+
+  private static final class Quiet extends ErrorReporter {
+    @Override
+    public void reportError(String message, String tokenName, long span) {
+      throw new IllegalStateException("the generated program has errors");
+    }
+  }
+
+  private static double median(long[] times) {
+    long[] measured = Arrays.copyOfRange(times, times.length / 2, times.length);
+    Arrays.sort(measured);
+    return measured[measured.length / 2] / 1e6;
+  }
+
+  private static String program(int globals, int depth) {
+    StringBuilder sb = new StringBuilder();
+    for (int g = 0; g < globals; g++)
+      sb.append("int g").append(g).append(" = ").append(g).append(";\n");
+    sb.append("int main() {\n");
+    for (int d = 0; d < depth; d++) {
+      sb.append("{ int l").append(d).append(" = g").append((d * 7919) % globals);
+      if (d > 0)
+        sb.append(" + l").append(d - 1);
+      sb.append("; int g").append(d % globals).append(" = l").append(d).append(";\n");
+    }
+    for (int d = 0; d < depth; d++)
+      sb.append("}");
+    sb.append("\nreturn 0;\n}\n");
+    return sb.toString();
+  }
+
+  public static void main(String[] args) {
+    int globals = (args.length > 0) ? Integer.parseInt(args[0]) : 100000;
+    int depth = (args.length > 1) ? Integer.parseInt(args[1]) : 1000;
+    int rounds = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+
+    String[] names = new String[globals];
+    Decl[] decls = new Decl[globals];
+    for (int g = 0; g < globals; g++) {
+      names[g] = IdentifierPool.intern("g" + g);
+      decls[g] = new GlobalVarDecl(new IntType(Span.NONE), new Ident(names[g], Span.NONE),
+                                   new EmptyExpr(Span.NONE), Span.NONE);
+    }
+    String[] locals = new String[depth];
+    for (int d = 0; d < depth; d++)
+      locals[d] = IdentifierPool.intern("l" + d);
+
+    long[] declare = new long[rounds];
+    long[] lookUp = new long[rounds];
+    long[] nest = new long[rounds];
+    long found = 0;
+    for (int r = 0; r < rounds; r++) {
+      SymbolTable table = new SymbolTable();
+      long start = System.nanoTime();
+      for (int g = 0; g < globals; g++)
+        table.insert(names[g], decls[g]);
+      declare[r] = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (int g = 0; g < globals; g++)
+        found += table.retrieve(names[g]).isPresent() ? 1 : 0;
+      lookUp[r] = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (int d = 0; d < depth; d++) {
+        table.openScope();
+        table.insert(names[d % globals], decls[d % globals]);
+        table.insert(locals[d], decls[d % globals]);
+        for (int e = 0; e <= d; e++) {
+          found += table.retrieve(locals[e]).isPresent() ? 1 : 0;
+          found += table.retrieve(names[(e * 7919) % globals]).isPresent() ? 1 : 0;
+          found += table.retrieveOneLevel(locals[e]).isPresent() ? 1 : 0;
+        }
+      }
+      for (int d = 0; d < depth; d++)
+        table.closeScope();
+      nest[r] = System.nanoTime() - start;
+    }
+    long lookups = (long) depth * (depth + 1) * 3 / 2;
+    System.out.printf("%d globals: insert median %.1f ms, retrieve median %.1f ms (%.0f ns each)%n",
+                      globals, median(declare), median(lookUp), median(lookUp) * 1e6 / globals);
+    System.out.printf("%d levels: %d lookups, median %.1f ms (%.0f ns each), %d found in all%n",
+                      depth, lookups, median(nest), median(nest) * 1e6 / lookups, found);
+
+    String text = program(globals, depth);
+    long[] check = new long[rounds];
+    for (int r = 0; r < rounds; r++) {
+      Program ast = Programs.parse(text);
+      long start = System.nanoTime();
+      new Checker(new Quiet()).check(ast);
+      check[r] = System.nanoTime() - start;
+    }
+    System.out.printf("check of %d globals and %d levels: median %.1f ms%n",
+                      globals, depth, median(check));
+  }
+
+}
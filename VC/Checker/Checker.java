@@ -6,6 +6,28 @@
  * type rules, decorates the AST with type information, and links identifiers 
  * to their declarations.
  *
+ * It is a TypedVisitor: each visit method returns the type of its node
+ * (null for a node that has none), and the children of a node are
+ * visited through visit, which switches on their kinds.
+ *
+ * The types the expressions are given are the canonical types of the
+ * TypeTable of the checker, one for each distinct type, so that two are
+ * the same type exactly when they are the same object, and are told
+ * apart by their codes (see Types.java).
+ *
+ * Each declaration is numbered as it is entered in the symbol table,
+ * and each identifier resolved is annotated with the number of its
+ * declaration (see Symbols.java), so that what it names is looked up by
+ * number rather than by testing the class of its declaration. The
+ * numbering is left in Program.symbols for the code generator.
+ *
+ * check(ast, pool) checks the bodies of the functions in parallel (see
+ * ParallelChecker.java), with the same results as check(ast).
+ *
+ * After enableIncremental, check(ast) checks an edited program again
+ * only where the edit, or a declaration it depends on, has changed (see
+ * IncrementalChecker.java), with the same results as a full check.
+ *
  * Sun 09 Mar 2025 08:44:27 AEDT
  *
  */
@@ -13,16 +35,18 @@
  package VC.Checker;
 
  import VC.ASTs.*;
- import VC.Scanner.SourcePosition;
+ import VC.Scanner.Span;
  import VC.ErrorReporter;
  import VC.StdEnvironment;
  
+ import java.util.ArrayList;
  import java.util.Objects;
+ import java.util.concurrent.ForkJoinPool;
  import java.util.Optional;
  import java.util.List;
  import java.util.LinkedList;
  
- public final class Checker implements Visitor {
+ public final class Checker implements TypedVisitor<Type, Object> {
  
      // Enum for error messages
      private enum ErrorMessage {
@@ -99,18 +123,41 @@
      }
  
      private final SymbolTable idTable;
-     private static final SourcePosition dummyPos = new SourcePosition();
-     private final ErrorReporter reporter;
+     private final Symbols symbols;
+     private final TypeTable types;   // the canonical types the expressions are given
+     private static final long dummyPos = Span.NONE;
+     ErrorReporter reporter;
      private int depth = 0;
      private boolean curFuncReturn;
+     boolean skippedDecls;   // whether an ErrorDecl was skipped
+     private int nextSymbol = Symbols.NONE;   // the next reserved number, if any
+     private IncrementalChecker incremental;
+     ArrayList<Ident> references;   // if not null, the identifiers resolved globally or not at all
  
      public Checker(ErrorReporter reporter) {
          this.reporter = Objects.requireNonNull(reporter, "ErrorReporter must not be null");
          this.idTable = new SymbolTable();
+         this.symbols = new Symbols();
+         this.types = new TypeTable();
          this.depth = 0;
          this.curFuncReturn = true;
          establishStdEnvironment();
      }
+
+     // A checker for one function body of the program that global is
+     // checking, which sees the global declarations in globals and
+     // numbers the declarations in the body from the reserved number
+     // firstSymbol on.
+
+     Checker(Checker global, ErrorReporter reporter, Scope globals, int firstSymbol) {
+         this.reporter = reporter;
+         this.idTable = new SymbolTable(globals);
+         this.symbols = global.symbols;
+         this.types = global.types;
+         this.nextSymbol = firstSymbol;
+         this.depth = 0;
+         this.curFuncReturn = true;
+     }
  
      /* Auxiliary Methods */
  
@@ -118,53 +165,105 @@
        * Declares a variable in the symbol table and checks for redeclaration errors.
        */
  
-     private void declareVariable(Ident ident, Decl decl) {
+     void declareVariable(Ident ident, Decl decl) {
+         if (nextSymbol == Symbols.NONE) {
+             symbols.add(decl);
+         } else {
+             symbols.set(nextSymbol++, decl);
+         }
+         enter(ident, decl);
+     }
+
+     // Declares decl, which has been numbered already.
+
+     void enter(Ident ident, Decl decl) {
          idTable.retrieveOneLevel(ident.spelling).ifPresent(entry -> 
-             reporter.reportError(ErrorMessage.IDENTIFIER_REDECLARED.getMessage(), ident.spelling, ident.position)
+             reporter.reportError(ErrorMessage.IDENTIFIER_REDECLARED.getMessage(), ident.spelling, ident.span)
          );
          idTable.insert(ident.spelling, decl);
-         ident.visit(this, null);
+         visit(ident, null);
      }
  
      // Your other auxilary methods
  
      public void check(AST ast) {
-         ast.visit(this, null);
+         if (incremental != null) {
+             incremental.check((Program) ast);
+         } else {
+             visit(ast, null);
+         }
+     }
+
+     // From now on, check remembers what each top-level declaration of
+     // the program it checks depends on, and checks a later version of
+     // that program only where it has changed (see IncrementalChecker).
+     // Must be called before the first check.
+
+     public void enableIncremental() {
+         incremental = new IncrementalChecker(this);
+     }
+
+     // Reports the errors found from now on to reporter, which can
+     // resolve the spans of the next version of the program.
+
+     public void setReporter(ErrorReporter reporter) {
+         this.reporter = Objects.requireNonNull(reporter, "ErrorReporter must not be null");
+     }
+
+     public void check(AST ast, ForkJoinPool pool) {
+         new ParallelChecker(this, (Program) ast).check(pool);
+     }
+
+     SymbolTable symbolTable() {
+         return idTable;
+     }
+
+     Symbols symbols() {
+         return symbols;
      }
  
      // Programs
  
      @Override
-     public Object visitProgram(Program ast, Object o) {
-         ast.FL.visit(this, null);
+     public Type visitProgram(Program ast, Object o) {
+         ast.symbols = symbols;
+         visit(ast.FL, null);
+         checkMain(ast);
+         return null;
+     }
+
+     void checkMain(Program ast) {
+         // main may be the declaration that was skipped
+         if (skippedDecls) {
+             return;
+         }
  
          idTable.retrieve("main")
              .filter(entry -> entry.attr instanceof FuncDecl)
              .map(entry -> entry.attr)
              .ifPresentOrElse(
                  mainDecl -> {
-                     if (!mainDecl.T.equals(StdEnvironment.intType)) {
-                         reporter.reportError(ErrorMessage.MAIN_RETURN_TYPE_NOT_INT.getMessage(), "", ast.position);
+                     if (!mainDecl.T.equals(types.intType)) {
+                         reporter.reportError(ErrorMessage.MAIN_RETURN_TYPE_NOT_INT.getMessage(), "", ast.span);
                      }
                  },
-                 () -> reporter.reportError(ErrorMessage.MISSING_MAIN.getMessage(), "", ast.position)
+                 () -> reporter.reportError(ErrorMessage.MISSING_MAIN.getMessage(), "", ast.span)
              );
- 
-         return null;
      }
  
      // Statements
  
      @Override
-     public Object visitCompoundStmt(CompoundStmt ast, Object o) {
+     public Type visitCompoundStmt(CompoundStmt ast, Object o) {
          boolean isFunctionBody = (ast.parent instanceof FuncDecl);
          
          if (!isFunctionBody) {
              idTable.openScope();
          }
          
-         ast.DL.visit(this, o);
-         ast.SL.visit(this, o);
+         visit(ast.DL, o);
+         ast.scope = idTable.snapshot();
+         visit(ast.SL, o);
          
          if (!isFunctionBody) {
              idTable.closeScope();
@@ -174,110 +273,118 @@
      }
  
      @Override
-     public Object visitStmtList(StmtList ast, Object o) {
-         ast.S.visit(this, o);
-         if (ast.S instanceof ReturnStmt && ast.SL instanceof StmtList) {
-             reporter.reportError(ErrorMessage.STATEMENTS_NOT_REACHED.getMessage(), "", ast.SL.position);
+     public Type visitStmtList(StmtList ast, Object o) {
+         int n = ast.size();
+         for (int i = 0; i < n; i++) {
+             AST stmt = ast.get(i);
+             visit(stmt, o);
+             if (stmt instanceof ReturnStmt && i + 1 < n) {
+                 reporter.reportError(ErrorMessage.STATEMENTS_NOT_REACHED.getMessage(), "", ast.cell(i + 1).span);
+             }
          }
-         ast.SL.visit(this, o);
          return null;
      }
  
      @Override
-     public Object visitExprStmt(ExprStmt ast, Object o) {
-         ast.E.visit(this, o);
+     public Type visitExprStmt(ExprStmt ast, Object o) {
+         visit(ast.E, o);
          return null;
      }
  
  
      @Override
-     public Object visitEmptyStmt(EmptyStmt ast, Object o) {
+     public Type visitEmptyStmt(EmptyStmt ast, Object o) {
+         return null;
+     }
+
+     @Override
+     public Type visitErrorStmt(ErrorStmt ast, Object o) {
          return null;
      }
  
      @Override
-     public Object visitEmptyStmtList(EmptyStmtList ast, Object o) {
+     public Type visitEmptyStmtList(EmptyStmtList ast, Object o) {
          return null;
      }
  
      @Override
-     public Object visitEmptyCompStmt(EmptyCompStmt ast, Object o) {
+     public Type visitEmptyCompStmt(EmptyCompStmt ast, Object o) {
          return null;
      }
  
      @Override
-     public Object visitIfStmt(IfStmt ast, Object o) {
-         Type t = (Type) ast.E.visit(this, o);
+     public Type visitIfStmt(IfStmt ast, Object o) {
+         Type t = visit(ast.E, o);
          
-         if (!t.equals(StdEnvironment.booleanType)) {
-             reporter.reportError(ErrorMessage.IF_CONDITIONAL_NOT_BOOLEAN.getMessage(), "", ast.E.position);
+         if (!t.equals(types.booleanType)) {
+             reporter.reportError(ErrorMessage.IF_CONDITIONAL_NOT_BOOLEAN.getMessage(), "", ast.E.span);
          }
          
-         ast.S1.visit(this, o);
+         visit(ast.S1, o);
          if (ast.S2 != null) {
-             ast.S2.visit(this, o);
+             visit(ast.S2, o);
          }
          
          return null;
      }
      
      @Override
-     public Object visitWhileStmt(WhileStmt ast, Object o) {
-         Type t = (Type) ast.E.visit(this, o);
+     public Type visitWhileStmt(WhileStmt ast, Object o) {
+         Type t = visit(ast.E, o);
          
-         if (!t.equals(StdEnvironment.booleanType)) {
-             reporter.reportError(ErrorMessage.WHILE_CONDITIONAL_NOT_BOOLEAN.getMessage(), "", ast.E.position);
+         if (!t.equals(types.booleanType)) {
+             reporter.reportError(ErrorMessage.WHILE_CONDITIONAL_NOT_BOOLEAN.getMessage(), "", ast.E.span);
          }
          
          depth++;
-         ast.S.visit(this, o);
+         visit(ast.S, o);
          depth--;
          
          return null;
      }
      
      @Override
-     public Object visitForStmt(ForStmt ast, Object o) {
+     public Type visitForStmt(ForStmt ast, Object o) {
          if (ast.E1 != null) {
-             ast.E1.visit(this, o);
+             visit(ast.E1, o);
          }
          
          if (ast.E2 != null) {
-             Type t = (Type) ast.E2.visit(this, o);
-             if (!t.equals(StdEnvironment.booleanType)) {
-                 reporter.reportError(ErrorMessage.FOR_CONDITIONAL_NOT_BOOLEAN.getMessage(), "", ast.E2.position);
+             Type t = visit(ast.E2, o);
+             if (!t.equals(types.booleanType)) {
+                 reporter.reportError(ErrorMessage.FOR_CONDITIONAL_NOT_BOOLEAN.getMessage(), "", ast.E2.span);
              }
          }
          
          if (ast.E3 != null) {
-             ast.E3.visit(this, o);
+             visit(ast.E3, o);
          }
          
          depth++;
-         ast.S.visit(this, o);
+         visit(ast.S, o);
          depth--;
          
          return null;
      }
      
      @Override
-     public Object visitBreakStmt(BreakStmt ast, Object o) {
+     public Type visitBreakStmt(BreakStmt ast, Object o) {
          if (depth == 0) {
-             reporter.reportError(ErrorMessage.BREAK_NOT_IN_LOOP.getMessage(), "", ast.position);
+             reporter.reportError(ErrorMessage.BREAK_NOT_IN_LOOP.getMessage(), "", ast.span);
          }
          return null;
      }
      
      @Override
-     public Object visitContinueStmt(ContinueStmt ast, Object o) {
+     public Type visitContinueStmt(ContinueStmt ast, Object o) {
          if (depth == 0) {
-             reporter.reportError(ErrorMessage.CONTINUE_NOT_IN_LOOP.getMessage(), "", ast.position);
+             reporter.reportError(ErrorMessage.CONTINUE_NOT_IN_LOOP.getMessage(), "", ast.span);
          }
          return null;
      }
  
      @Override
-     public Object visitReturnStmt(ReturnStmt ast, Object o) {
+     public Type visitReturnStmt(ReturnStmt ast, Object o) {
          curFuncReturn = true;
      
          FuncDecl currentFunc = null;
@@ -287,7 +394,7 @@
      
          if (currentFunc == null) {
              if (ast.E != null) {
-                 ast.E.visit(this, o);
+                 visit(ast.E, o);
              }
              return null;
          }
@@ -303,72 +410,74 @@
      
      
      private void checkEmptyReturn(ReturnStmt ast, Type t1) {
-         if (!t1.equals(StdEnvironment.voidType)) {
-             reporter.reportError(ErrorMessage.INCOMPATIBLE_TYPE_FOR_RETURN.getMessage(), "", ast.position);
+         if (!t1.equals(types.voidType)) {
+             reporter.reportError(ErrorMessage.INCOMPATIBLE_TYPE_FOR_RETURN.getMessage(), "", ast.span);
          }
      }
      
      private void checkValueReturn(ReturnStmt ast, Type t1) {
-         Type t2 = (Type) ast.E.visit(this, null);
+         Type t2 = visit(ast.E, null);
          
          if (!t1.assignable(t2)) {
-             reporter.reportError(ErrorMessage.INCOMPATIBLE_TYPE_FOR_RETURN.getMessage(), "", ast.position
+             reporter.reportError(ErrorMessage.INCOMPATIBLE_TYPE_FOR_RETURN.getMessage(), "", ast.span
              );
          } 
-         else if (t1.equals(StdEnvironment.floatType) && t2.equals(StdEnvironment.intType)) {
+         else if (t1.equals(types.floatType) && t2.equals(types.intType)) {
              ast.E = createI2f(ast.E);
          }
      }
      
      private Expr createI2f(Expr expr) {
+         Fingerprint.invalidate(expr.parent);  // which is given the new node
          Operator op = new Operator("i2f", dummyPos);
          UnaryExpr e = new UnaryExpr(op, expr, dummyPos);
-         e.type = StdEnvironment.floatType;
+         e.type = types.floatType;
          return e;
      }
  
  
      // Expressions
      @Override
-     public Object visitEmptyExpr(EmptyExpr ast, Object o) {
-         ast.type = (ast.parent instanceof ReturnStmt) ? StdEnvironment.voidType : StdEnvironment.errorType;
+     public Type visitEmptyExpr(EmptyExpr ast, Object o) {
+         ast.type = (ast.parent instanceof ReturnStmt) ? types.voidType : types.errorType;
          return ast.type;
      }
  
      @Override
-     public Object visitBooleanExpr(BooleanExpr ast, Object o) {
-         ast.type = StdEnvironment.booleanType;
+     public Type visitBooleanExpr(BooleanExpr ast, Object o) {
+         ast.type = types.booleanType;
          return ast.type;
      }
  
      @Override
-     public Object visitIntExpr(IntExpr ast, Object o) {
-         ast.type = StdEnvironment.intType;
+     public Type visitIntExpr(IntExpr ast, Object o) {
+         ast.type = types.intType;
          return ast.type;
      }
  
      @Override
-     public Object visitFloatExpr(FloatExpr ast, Object o) {
-         ast.type = StdEnvironment.floatType;
+     public Type visitFloatExpr(FloatExpr ast, Object o) {
+         ast.type = types.floatType;
          return ast.type;
      }
  
      @Override
-     public Object visitVarExpr(VarExpr ast, Object o) {
-        ast.type = (Type) ast.V.visit(this, ast.parent);
+     public Type visitVarExpr(VarExpr ast, Object o) {
+        ast.type = visit(ast.V, ast.parent);
         return ast.type;
      }
  
      @Override
-     public Object visitStringExpr(StringExpr ast, Object o) {
-         ast.type = StdEnvironment.stringType;
+     public Type visitStringExpr(StringExpr ast, Object o) {
+         ast.type = types.stringType;
          return ast.type;
      }
   
      @Override
-     public Object visitUnaryExpr(UnaryExpr ast, Object o) {
-         Type t1 = (Type) ast.E.visit(this, o);
+     public Type visitUnaryExpr(UnaryExpr ast, Object o) {
+         Type t1 = visit(ast.E, o);
          String op = ast.O.spelling;
+         Fingerprint.invalidate(ast.O);  // whose spelling is given the type
          
          switch (op) {
              case "i2f":
@@ -382,54 +491,58 @@
                  return handleArithu(ast, t1, op);
                  
              default:
-                 reporter.reportError(ErrorMessage.INCOMPATIBLE_TYPE_FOR_UNARY_OPERATOR.getMessage(), "", ast.position);
-                 ast.type = StdEnvironment.errorType;
+                 reporter.reportError(ErrorMessage.INCOMPATIBLE_TYPE_FOR_UNARY_OPERATOR.getMessage(), "", ast.span);
+                 ast.type = types.errorType;
                  return ast.type;
          }
      }
      
      private Type handleI2fu(UnaryExpr ast, Type t1) {
-         if (t1.isErrorType()) {
-             ast.type = StdEnvironment.errorType;
-             return ast.type;
-         }
-         if (t1.equals(StdEnvironment.intType)) {
-             ast.type = StdEnvironment.floatType;
-         } else {
-             ast.type = t1; 
+         switch (t1.code()) {
+             case Types.ERROR:
+                 ast.type = types.errorType;
+                 break;
+             case Types.INT:
+                 ast.type = types.floatType;
+                 break;
+             default:
+                 ast.type = t1;
          }
          return ast.type;
      }
      
      private Type handleNotu(UnaryExpr ast, Type t1) {
-         if (t1.isErrorType()) {
-             ast.type = StdEnvironment.errorType;
-             return ast.type;
-         }
-         if (t1.equals(StdEnvironment.booleanType)) {
-             ast.type = StdEnvironment.booleanType;
-             ast.O.spelling = "i" + ast.O.spelling; 
-         } else {
-             reporter.reportError(ErrorMessage.INCOMPATIBLE_TYPE_FOR_UNARY_OPERATOR.getMessage(), "", ast.position);
-             ast.type = StdEnvironment.errorType;
+         switch (t1.code()) {
+             case Types.ERROR:
+                 ast.type = types.errorType;
+                 break;
+             case Types.BOOLEAN:
+                 ast.type = types.booleanType;
+                 ast.O.spelling = "i" + ast.O.spelling; 
+                 break;
+             default:
+                 reporter.reportError(ErrorMessage.INCOMPATIBLE_TYPE_FOR_UNARY_OPERATOR.getMessage(), "", ast.span);
+                 ast.type = types.errorType;
          }
          return ast.type;
      }
      
      private Type handleArithu(UnaryExpr ast, Type t1, String op) {
-         if (t1.isErrorType()) {
-             ast.type = StdEnvironment.errorType;
-             return ast.type;
-         }
-         if (t1.equals(StdEnvironment.intType)) {
-             ast.type = StdEnvironment.intType;
-             ast.O.spelling = "i" + op;
-         } else if (t1.equals(StdEnvironment.floatType)) {
-             ast.type = StdEnvironment.floatType;
-             ast.O.spelling = "f" + op;
-         } else {
-             reporter.reportError(ErrorMessage.INCOMPATIBLE_TYPE_FOR_UNARY_OPERATOR.getMessage(), "", ast.position);
-             ast.type = StdEnvironment.errorType;
+         switch (t1.code()) {
+             case Types.ERROR:
+                 ast.type = types.errorType;
+                 break;
+             case Types.INT:
+                 ast.type = types.intType;
+                 ast.O.spelling = "i" + op;
+                 break;
+             case Types.FLOAT:
+                 ast.type = types.floatType;
+                 ast.O.spelling = "f" + op;
+                 break;
+             default:
+                 reporter.reportError(ErrorMessage.INCOMPATIBLE_TYPE_FOR_UNARY_OPERATOR.getMessage(), "", ast.span);
+                 ast.type = types.errorType;
          }
          return ast.type;
      }
@@ -437,14 +550,15 @@
  
  
      @Override
-     public Object visitBinaryExpr(BinaryExpr ast, Object o) {
-         Type t1 = (Type) ast.E1.visit(this, o);
-         Type t2 = (Type) ast.E2.visit(this, o);
+     public Type visitBinaryExpr(BinaryExpr ast, Object o) {
+         Type t1 = visit(ast.E1, o);
+         Type t2 = visit(ast.E2, o);
          String op = ast.O.spelling;
          boolean hasArrayError = false;
+         Fingerprint.invalidate(ast.O);  // whose spelling is given the type
          
          if (t1.isArrayType() || t2.isArrayType()) {
-             reporter.reportError(ErrorMessage.ARRAY_FUNCTION_AS_SCALAR.getMessage(), "", ast.position);
+             reporter.reportError(ErrorMessage.ARRAY_FUNCTION_AS_SCALAR.getMessage(), "", ast.span);
              hasArrayError = true;
          }
          
@@ -475,12 +589,12 @@
                  break;
                  
              default:
-                 reporter.reportError(ErrorMessage.INCOMPATIBLE_TYPE_FOR_BINARY_OPERATOR.getMessage(), "", ast.position);
-                 result = StdEnvironment.errorType;
+                 reporter.reportError(ErrorMessage.INCOMPATIBLE_TYPE_FOR_BINARY_OPERATOR.getMessage(), "", ast.span);
+                 result = types.errorType;
          }
          
          if (hasArrayError) {
-             ast.type = StdEnvironment.errorType;
+             ast.type = types.errorType;
              return ast.type;
          }
          
@@ -489,241 +603,267 @@
      }
      
      private Type handleLogic(BinaryExpr ast, Type t1, Type t2) {
-         if (t1 instanceof ErrorType || t2 instanceof ErrorType) {
-             ast.type = StdEnvironment.errorType;
+         int c1 = t1.code(), c2 = t2.code();
+         if (c1 == Types.ERROR || c2 == Types.ERROR) {
+             ast.type = types.errorType;
              return ast.type;
          }
-         if (!t1.equals(StdEnvironment.booleanType) || !t2.equals(StdEnvironment.booleanType)) {
-             reporter.reportError(ErrorMessage.INCOMPATIBLE_TYPE_FOR_BINARY_OPERATOR.getMessage(), "", ast.position);
-             ast.type = StdEnvironment.errorType;
+         if (c1 != Types.BOOLEAN || c2 != Types.BOOLEAN) {
+             reporter.reportError(ErrorMessage.INCOMPATIBLE_TYPE_FOR_BINARY_OPERATOR.getMessage(), "", ast.span);
+             ast.type = types.errorType;
          } else {
-             ast.type = StdEnvironment.booleanType;
+             ast.type = types.booleanType;
              ast.O.spelling = "i" + ast.O.spelling;
          }
          return ast.type;
      }
      
      
+     // The operands of the comparisons and arithmetic operators are
+     // told apart by the pair of their type codes (see Types), one of
+     // these when both are int or float.
+
+     private static final int INT_INT = Types.INT << 3 | Types.INT;
+     private static final int INT_FLOAT = Types.INT << 3 | Types.FLOAT;
+     private static final int FLOAT_INT = Types.FLOAT << 3 | Types.INT;
+     private static final int FLOAT_FLOAT = Types.FLOAT << 3 | Types.FLOAT;
+
+     private static int numericPair(int c1, int c2) {
+         return (Types.isNumeric(c1) && Types.isNumeric(c2)) ? c1 << 3 | c2 : -1;
+     }
+
+     // Converts the int operand of ast to float, given the pair of the
+     // codes of its operands, one int and the other float.
+
+     private void widenOperand(BinaryExpr ast, int pair) {
+         if (pair == INT_FLOAT) {
+             ast.E1 = createI2f(ast.E1);
+         } else {
+             ast.E2 = createI2f(ast.E2);
+         }
+     }
+
      private Type handleEQ(BinaryExpr ast, Type t1, Type t2) {
-         if (t1 instanceof ErrorType || t2 instanceof ErrorType) {
-             ast.type = StdEnvironment.errorType;
+         int c1 = t1.code(), c2 = t2.code();
+         if (c1 == Types.ERROR || c2 == Types.ERROR) {
+             ast.type = types.errorType;
              return ast.type;
          }
-         ast.type = StdEnvironment.booleanType;
-         if (t1.equals(t2)) {
-             if (t1.equals(StdEnvironment.floatType)) {
-                 ast.O.spelling = "f" + ast.O.spelling;
-             } else {
-                 ast.O.spelling = "i" + ast.O.spelling;
-             }
-         } else if (t1.equals(StdEnvironment.intType) && t2.equals(StdEnvironment.floatType)) {
-             ast.E1 = createI2f(ast.E1);
-             ast.O.spelling = "f" + ast.O.spelling;
-         } else if (t1.equals(StdEnvironment.floatType) && t2.equals(StdEnvironment.intType)) {
-             ast.E2 = createI2f(ast.E2);
+         ast.type = types.booleanType;
+         int pair = numericPair(c1, c2);
+         if (pair == INT_FLOAT || pair == FLOAT_INT) {
+             widenOperand(ast, pair);
              ast.O.spelling = "f" + ast.O.spelling;
+         } else if (c1 == c2 && !Types.isArray(c1)) {  // arrays are never equal
+             ast.O.spelling = (c1 == Types.FLOAT ? "f" : "i") + ast.O.spelling;
          } else {
-             reporter.reportError(ErrorMessage.INCOMPATIBLE_TYPE_FOR_BINARY_OPERATOR.getMessage(), "", ast.position);
-             ast.type = StdEnvironment.errorType;
+             reporter.reportError(ErrorMessage.INCOMPATIBLE_TYPE_FOR_BINARY_OPERATOR.getMessage(), "", ast.span);
+             ast.type = types.errorType;
          }
          return ast.type;
      }
      
      private Type handleCompare(BinaryExpr ast, Type t1, Type t2) {
-         if (t1 instanceof ErrorType || t2 instanceof ErrorType) {
-             ast.type = StdEnvironment.errorType;
+         int c1 = t1.code(), c2 = t2.code();
+         if (c1 == Types.ERROR || c2 == Types.ERROR) {
+             ast.type = types.errorType;
              return ast.type;
          }
-         if ((t1.equals(StdEnvironment.intType) || t1.equals(StdEnvironment.floatType)) &&
-             (t2.equals(StdEnvironment.intType) || t2.equals(StdEnvironment.floatType))) {
-             ast.type = StdEnvironment.booleanType;
-             
-             if (t1.equals(StdEnvironment.floatType) || t2.equals(StdEnvironment.floatType)) {
-                 ast.O.spelling = "f" + ast.O.spelling;
-                 
-                 if (t1.equals(StdEnvironment.intType)) {
-                     ast.E1 = createI2f(ast.E1);
-                 } else if (t2.equals(StdEnvironment.intType)) {
-                     ast.E2 = createI2f(ast.E2);
-                 }
-             } else {
+         int pair = numericPair(c1, c2);
+         if (pair == INT_FLOAT || pair == FLOAT_INT) {
+             widenOperand(ast, pair);
+             pair = FLOAT_FLOAT;
+         }
+         switch (pair) {
+             case INT_INT:
+                 ast.type = types.booleanType;
                  ast.O.spelling = "i" + ast.O.spelling;
-             }
-         } else {
-             reporter.reportError(ErrorMessage.INCOMPATIBLE_TYPE_FOR_BINARY_OPERATOR.getMessage(), "", ast.position);
-             ast.type = StdEnvironment.errorType;
+                 break;
+             case FLOAT_FLOAT:
+                 ast.type = types.booleanType;
+                 ast.O.spelling = "f" + ast.O.spelling;
+                 break;
+             default:
+                 reporter.reportError(ErrorMessage.INCOMPATIBLE_TYPE_FOR_BINARY_OPERATOR.getMessage(), "", ast.span);
+                 ast.type = types.errorType;
          }
          return ast.type;
      }
      
      private Type handleArith(BinaryExpr ast, Type t1, Type t2) {
-         if (t1 instanceof ErrorType || t2 instanceof ErrorType) {
-             ast.type = StdEnvironment.errorType;
+         int c1 = t1.code(), c2 = t2.code();
+         if (c1 == Types.ERROR || c2 == Types.ERROR) {
+             ast.type = types.errorType;
              return ast.type;
-         }  
-         if ((t1.equals(StdEnvironment.intType) || t1.equals(StdEnvironment.floatType)) &&
-             (t2.equals(StdEnvironment.intType) || t2.equals(StdEnvironment.floatType))) {
-             if (t1.equals(StdEnvironment.floatType) || t2.equals(StdEnvironment.floatType)) {
-                 ast.type = StdEnvironment.floatType;
-                 ast.O.spelling = "f" + ast.O.spelling;
-                 
-                 if (t1.equals(StdEnvironment.intType)) {
-                     ast.E1 = createI2f(ast.E1);
-                 } else if (t2.equals(StdEnvironment.intType)) {
-                     ast.E2 = createI2f(ast.E2);
-                 }
-             } else {
-                 ast.type = StdEnvironment.intType;
+         }
+         int pair = numericPair(c1, c2);
+         if (pair == INT_FLOAT || pair == FLOAT_INT) {
+             widenOperand(ast, pair);
+             pair = FLOAT_FLOAT;
+         }
+         switch (pair) {
+             case INT_INT:
+                 ast.type = types.intType;
                  ast.O.spelling = "i" + ast.O.spelling;
-             }
-         } else {
-             reporter.reportError(ErrorMessage.INCOMPATIBLE_TYPE_FOR_BINARY_OPERATOR.getMessage(), "", ast.position);
-             ast.type = StdEnvironment.errorType;
+                 break;
+             case FLOAT_FLOAT:
+                 ast.type = types.floatType;
+                 ast.O.spelling = "f" + ast.O.spelling;
+                 break;
+             default:
+                 reporter.reportError(ErrorMessage.INCOMPATIBLE_TYPE_FOR_BINARY_OPERATOR.getMessage(), "", ast.span);
+                 ast.type = types.errorType;
          }
          return ast.type;
      }
  
      @Override
-     public Object visitAssignExpr(AssignExpr ast, Object o) {
+     public Type visitAssignExpr(AssignExpr ast, Object o) {
         
         if(!(ast.E1 instanceof VarExpr || ast.E1 instanceof ArrayExpr)) {
-            reporter.reportError(ErrorMessage.INVALID_LVALUE_IN_ASSIGNMENT.getMessage(), "", ast.position);
-            ast.type = StdEnvironment.errorType;
+            reporter.reportError(ErrorMessage.INVALID_LVALUE_IN_ASSIGNMENT.getMessage(), "", ast.span);
+            ast.type = types.errorType;
             return ast.type;
         }
-         Type t1 = (Type) ast.E1.visit(this, o);
-         Type t2 = (Type) ast.E2.visit(this, o);
+         Type t1 = visit(ast.E1, o);
+         Type t2 = visit(ast.E2, o);
          
          if (ast.E1 instanceof VarExpr) {
              VarExpr varExpr = (VarExpr) ast.E1;
              if (varExpr.V instanceof SimpleVar) {
                  SimpleVar simpleVar = (SimpleVar) varExpr.V;
                  Ident ident = (Ident) simpleVar.I;
-                 if (ident.decl instanceof FuncDecl) {
-                     reporter.reportError(ErrorMessage.INVALID_LVALUE_IN_ASSIGNMENT.getMessage(), "", ast.position);
-                     ast.type = StdEnvironment.errorType;
+                 if (ident.symbol != Symbols.NONE && symbols.isFunction(ident.symbol)) {
+                     reporter.reportError(ErrorMessage.INVALID_LVALUE_IN_ASSIGNMENT.getMessage(), "", ast.span);
+                     ast.type = types.errorType;
                      return ast.type;
                  }
              }
          }
          
          if (t1.isArrayType() && !(ast.E1 instanceof ArrayExpr)) {
-             reporter.reportError(ErrorMessage.ARRAY_FUNCTION_AS_SCALAR.getMessage(), "", ast.position);
-             ast.type = StdEnvironment.errorType;
+             reporter.reportError(ErrorMessage.ARRAY_FUNCTION_AS_SCALAR.getMessage(), "", ast.span);
+             ast.type = types.errorType;
              return ast.type;
          }
          
          if (t1.assignable(t2)) {
              ast.type = t1;
              
-             if (t1.equals(StdEnvironment.floatType) && t2.equals(StdEnvironment.intType)) {
+             if (t1.equals(types.floatType) && t2.equals(types.intType)) {
                  ast.E2 = createI2f(ast.E2);
              }
          } else {
-             reporter.reportError(ErrorMessage.INCOMPATIBLE_TYPE_FOR_ASSIGNMENT.getMessage(), "", ast.position);
-             ast.type = StdEnvironment.errorType;
+             reporter.reportError(ErrorMessage.INCOMPATIBLE_TYPE_FOR_ASSIGNMENT.getMessage(), "", ast.span);
+             ast.type = types.errorType;
          }
          
          return ast.type;
      }
  
      @Override
-     public Object visitCallExpr(CallExpr ast, Object o) {
-         ast.I.visit(this, null);
-         AST d = ((Ident) ast.I).decl;
+     public Type visitCallExpr(CallExpr ast, Object o) {
+         visit(ast.I, null);
+         int symbol = ast.I.symbol;
          
-         if (ast.I.spelling.equals("main")) {
-             reporter.reportError(ErrorMessage.MISC_1.getMessage() + ": main cannot be called", "", ast.position);
-             ast.type = StdEnvironment.errorType;
+         if (ast.I.spelling == "main") { // spellings are interned by IdentifierPool
+             reporter.reportError(ErrorMessage.MISC_1.getMessage() + ": main cannot be called", "", ast.span);
+             ast.type = types.errorType;
              return ast.type;
          }
          
-         if (d == null) {
-             reporter.reportError(ErrorMessage.IDENTIFIER_UNDECLARED.getMessage(), ast.I.spelling, ast.position);
-             ast.type = StdEnvironment.errorType;
+         if (symbol == Symbols.NONE) {
+             reporter.reportError(ErrorMessage.IDENTIFIER_UNDECLARED.getMessage(), ast.I.spelling, ast.span);
+             ast.type = types.errorType;
              return ast.type;
          }
          
-         if (!(d instanceof FuncDecl)) {
-             reporter.reportError(ErrorMessage.SCALAR_ARRAY_AS_FUNCTION.getMessage(), ast.I.spelling, ast.position);
-             ast.type = StdEnvironment.errorType;
+         if (!symbols.isFunction(symbol)) {
+             reporter.reportError(ErrorMessage.SCALAR_ARRAY_AS_FUNCTION.getMessage(), ast.I.spelling, ast.span);
+             ast.type = types.errorType;
              return ast.type;
          }
          
-         FuncDecl fD = (FuncDecl) d;
-         ast.type = (fD.T != null) ? fD.T : StdEnvironment.errorType;
+         FuncDecl fD = (FuncDecl) symbols.decl(symbol);
+         ast.type = (fD.T != null) ? types.intern(fD.T) : types.errorType;
          
-         ast.AL.visit(this, fD.PL);
+         visit(ast.AL, fD.PL);
          
          return ast.type;
      }
      
      @Override
-     public Object visitArgList(ArgList ast, Object o) {
+     public Type visitArgList(ArgList ast, Object o) {
+         // o is the list of parameters, which are matched with the
+         // arguments pairwise
          if (o instanceof EmptyParaList) {
-             reporter.reportError(ErrorMessage.TOO_MANY_ACTUAL_PARAMETERS.getMessage(), "", ast.position);
+             reporter.reportError(ErrorMessage.TOO_MANY_ACTUAL_PARAMETERS.getMessage(), "", ast.span);
              return null;
          }
-         
-         ast.A.visit(this, ((ParaList) o).P);
-         
-         AST remainingParams = ((ParaList) o).PL;
-         AST remainingArgs = ast.AL;
 
-         if (remainingParams instanceof ParaList && !(remainingArgs instanceof ArgList)) {
-             reporter.reportError(ErrorMessage.TOO_FEW_ACTUAL_PARAMETERS.getMessage(), "", ast.position);
-         } 
-         else if (!(remainingParams instanceof ParaList) && remainingArgs instanceof ArgList) {
-             reporter.reportError(ErrorMessage.TOO_MANY_ACTUAL_PARAMETERS.getMessage(), "", ast.position);
-         } 
-         else if (remainingParams instanceof ParaList && remainingArgs instanceof ArgList) {
-             remainingArgs.visit(this, remainingParams);
+         int n = ast.size();
+         AST remainingParams = (AST) o;
+         for (int i = 0; i < n; i++) {
+             ArgList args = (ArgList) ast.cell(i);
+             ParaList params = (ParaList) remainingParams;
+             visit(args.A, params.P);
+
+             remainingParams = params.PL;
+             boolean moreArgs = i + 1 < n;
+
+             if (remainingParams instanceof ParaList && !moreArgs) {
+                 reporter.reportError(ErrorMessage.TOO_FEW_ACTUAL_PARAMETERS.getMessage(), "", args.span);
+             } 
+             else if (!(remainingParams instanceof ParaList) && moreArgs) {
+                 reporter.reportError(ErrorMessage.TOO_MANY_ACTUAL_PARAMETERS.getMessage(), "", args.span);
+                 break;
+             }
          }
          
          return null;
      }
      
      @Override
-     public Object visitEmptyArgList(EmptyArgList ast, Object o) {
+     public Type visitEmptyArgList(EmptyArgList ast, Object o) {
          if (o instanceof ParaList) {
-             reporter.reportError(ErrorMessage.TOO_FEW_ACTUAL_PARAMETERS.getMessage(), "", ast.position);
+             reporter.reportError(ErrorMessage.TOO_FEW_ACTUAL_PARAMETERS.getMessage(), "", ast.span);
          }
          return null;
      }
      
      @Override
-     public Object visitArg(Arg ast, Object o) {
+     public Type visitArg(Arg ast, Object o) {
          if (!(o instanceof ParaDecl)) {
-             return ast.E.visit(this, null);
+             return visit(ast.E, null);
          }
          
          ParaDecl paramDecl = (ParaDecl) o;
          Type paramType = paramDecl.T;
-         Type argType = (Type) ast.E.visit(this, null);
+         Type argType = visit(ast.E, null);
          
          boolean isParamArray = paramType.isArrayType();
          boolean isArgArray = argType.isArrayType();
          
          if (isParamArray != isArgArray) {
-             reporter.reportError(ErrorMessage.WRONG_TYPE_FOR_ACTUAL_PARAMETER.getMessage(), "", ast.position);
+             reporter.reportError(ErrorMessage.WRONG_TYPE_FOR_ACTUAL_PARAMETER.getMessage(), "", ast.span);
          }
          else if (isParamArray) {
              ArrayType pArrayType = (ArrayType) paramType;
              ArrayType aArrayType = (ArrayType) argType;
              
              if (pArrayType.T == null || aArrayType.T == null || !pArrayType.T.equals(aArrayType.T)) {
-                 reporter.reportError(ErrorMessage.WRONG_TYPE_FOR_ACTUAL_PARAMETER.getMessage(), "", ast.position);
+                 reporter.reportError(ErrorMessage.WRONG_TYPE_FOR_ACTUAL_PARAMETER.getMessage(), "", ast.span);
              }
          }
          else if (!paramType.equals(argType)) {
-             if (paramType.equals(StdEnvironment.floatType) && argType.equals(StdEnvironment.intType)) {
+             if (paramType.equals(types.floatType) && argType.equals(types.intType)) {
                  ast.E = createI2f(ast.E); 
              } 
-             else if (paramType.equals(StdEnvironment.intType) && argType.equals(StdEnvironment.floatType)) {
-                 reporter.reportError(ErrorMessage.WRONG_TYPE_FOR_ACTUAL_PARAMETER.getMessage(), "", ast.position);
+             else if (paramType.equals(types.intType) && argType.equals(types.floatType)) {
+                 reporter.reportError(ErrorMessage.WRONG_TYPE_FOR_ACTUAL_PARAMETER.getMessage(), "", ast.span);
              }
              else if (!paramType.assignable(argType)) {
-                 reporter.reportError(ErrorMessage.WRONG_TYPE_FOR_ACTUAL_PARAMETER.getMessage(), "", ast.position);
+                 reporter.reportError(ErrorMessage.WRONG_TYPE_FOR_ACTUAL_PARAMETER.getMessage(), "", ast.span);
              }
          }
          
@@ -731,19 +871,19 @@
      }
  
      @Override
-     public Object visitArrayExpr(ArrayExpr ast, Object o) {
-         Type t1 = (Type) ast.V.visit(this, o);
-         Type t2 = (Type) ast.E.visit(this, o);
+     public Type visitArrayExpr(ArrayExpr ast, Object o) {
+         Type t1 = visit(ast.V, o);
+         Type t2 = visit(ast.E, o);
          
          if (!t1.isArrayType()) {
-             reporter.reportError(ErrorMessage.SCALAR_FUNCTION_AS_ARRAY.getMessage(), "", ast.position);
-             ast.type = StdEnvironment.errorType;
+             reporter.reportError(ErrorMessage.SCALAR_FUNCTION_AS_ARRAY.getMessage(), "", ast.span);
+             ast.type = types.errorType;
              return ast.type;
          }
          
-         if (!t2.equals(StdEnvironment.intType)) {
-             reporter.reportError(ErrorMessage.ARRAY_SUBSCRIPT_NOT_INTEGER.getMessage(), "", ast.position);
-             ast.type = StdEnvironment.errorType;
+         if (!t2.equals(types.intType)) {
+             reporter.reportError(ErrorMessage.ARRAY_SUBSCRIPT_NOT_INTEGER.getMessage(), "", ast.span);
+             ast.type = types.errorType;
              return ast.type;
          }
          
@@ -754,51 +894,54 @@
      }
      
      @Override
-     public Object visitArrayInitExpr(ArrayInitExpr ast, Object o) {
-         Type elementType = (Type) ast.IL.visit(this, o);
-         ast.type = new ArrayType(elementType, new EmptyExpr(dummyPos), dummyPos);
+     public Type visitArrayInitExpr(ArrayInitExpr ast, Object o) {
+         Type elementType = visit(ast.IL, o);
+         ast.type = types.array(elementType, Types.NO_SIZE);
          
          return ast.type;
      }
      
      @Override
-     public Object visitArrayExprList(ArrayExprList ast, Object o) {
-         Type currentElementType = (Type) ast.E.visit(this, null);
-         if (currentElementType instanceof ErrorType) {
-             return StdEnvironment.errorType;
-         }
-         
-         if (o instanceof Object[]) {
-             return checkArraySizeAndType(ast, (Object[])o, currentElementType);
-         } else if (o instanceof Decl) {
-             checkElementType(ast, ((Decl)o).T, currentElementType);
-         }
-         
-         if (!(ast.EL instanceof EmptyArrayExprList)) {
-             ast.EL.visit(this, o);
+     public Type visitArrayExprList(ArrayExprList ast, Object o) {
+         // the type of the list is that of its first element (or, when
+         // checking its size, that of the array), and the elements after
+         // one of error type are not checked
+         Type listType = types.errorType;
+         int n = ast.size();
+         for (int i = 0; i < n; i++) {
+             ArrayExprList cell = (ArrayExprList) ast.cell(i);
+             Type currentElementType = visit(cell.E, null);
+             if (currentElementType instanceof ErrorType) {
+                 return listType;
+             }
+
+             if (o instanceof Object[]) {
+                 listType = checkArraySizeAndType(cell, i, (Object[])o, currentElementType);
+             } else {
+                 if (o instanceof Decl) {
+                     checkElementType(cell, ((Decl)o).T, currentElementType);
+                 }
+                 if (i == 0) {
+                     listType = currentElementType;
+                 }
+             }
          }
          
-         return currentElementType;
+         return listType;
      }
      
-     private Type checkArraySizeAndType(ArrayExprList ast, Object[] params, Type currentElementType) {
+     private Type checkArraySizeAndType(ArrayExprList ast, int currentIndex, Object[] params, Type currentElementType) {
          Decl decl = (Decl)params[0];
          int declaredSize = (int)params[1];
          ArrayType arrayType = (ArrayType) decl.T;
          
-         int currentIndex = countElementIndex(ast);
-         
          if (currentIndex >= declaredSize) {
              reporter.reportError(ErrorMessage.EXCESS_ELEMENTS_IN_ARRAY_INITIALISER.getMessage(), 
-                             "", ast.E.position);
+                             "", ast.E.span);
          } else {
              checkElementType(ast, arrayType, currentElementType);
          }
          
-         if (!(ast.EL instanceof EmptyArrayExprList)) {
-             ast.EL.visit(this, params);
-         }
-         
          return arrayType.T;
      }
      
@@ -807,125 +950,114 @@
              Type elementType = ((ArrayType) arrayType).T;
              
              if (!elementType.equals(currentElementType)) {
-                 if (elementType.equals(StdEnvironment.floatType) && currentElementType.equals(StdEnvironment.intType)) {
+                 if (elementType.equals(types.floatType) && currentElementType.equals(types.intType)) {
                      ast.E = createI2f(ast.E);
                  } else {
                      reporter.reportError(ErrorMessage.WRONG_TYPE_FOR_ARRAY_INITIALISER.getMessage(), 
-                                     "", ast.E.position);
+                                     "", ast.E.span);
                  }
              }
          }
      }
      
-     private int countElementIndex(ArrayExprList ast) {
-         int count = 0;
-         AST current = ast;
-         
-         while (current != null && current.parent != null) {
-             if (current.parent instanceof ArrayExprList) {
-                 ArrayExprList parent = (ArrayExprList) current.parent;
-                 if (parent.EL == current) {
-                     count++;
-                     current = parent;
-                 } else {
-                     break;
-                 }
-             } else {
-                 break;
-             }
-         }
-         
-         return count;
-     }
-     
      @Override
-     public Object visitEmptyArrayExprList(EmptyArrayExprList ast, Object o) {
-         return StdEnvironment.errorType; 
+     public Type visitEmptyArrayExprList(EmptyArrayExprList ast, Object o) {
+         return types.errorType; 
      }
  
      // Declarations
  
      @Override
-     public Object visitFuncDecl(FuncDecl ast, Object o) {
+     public Type visitFuncDecl(FuncDecl ast, Object o) {
          declareVariable(ast.I, ast);
+         if (ast.hasErrors) {
+             // its body is incomplete, so checking it would only give
+             // spurious errors
+             return null;
+         }
+         checkBody(ast);
+         return null;
+     }
+
+     void checkBody(FuncDecl ast) {
          idTable.openScope();
          curFuncReturn = ast.T.isVoidType();
 
-         if (ast.I.spelling.equals("main")) {
-            if (!ast.T.equals(StdEnvironment.intType)) {
-                reporter.reportError(ErrorMessage.MAIN_RETURN_TYPE_NOT_INT.getMessage(), "", ast.position);
+         if (ast.I.spelling == "main") { // spellings are interned by IdentifierPool
+            if (!ast.T.equals(types.intType)) {
+                reporter.reportError(ErrorMessage.MAIN_RETURN_TYPE_NOT_INT.getMessage(), "", ast.span);
             }
         }
-         ast.PL.visit(this, ast);
+         visit(ast.PL, ast);
+         ast.scope = idTable.snapshot();
          
-         ast.S.visit(this, ast);
+         visit(ast.S, ast);
          
          if (!curFuncReturn) {
-             reporter.reportError(ErrorMessage.MISSING_RETURN_STATEMENT.getMessage(), "", ast.position);
+             reporter.reportError(ErrorMessage.MISSING_RETURN_STATEMENT.getMessage(), "", ast.span);
          }
          
          idTable.closeScope();
-         
-         return null;
      }
  
      @Override
-     public Object visitDeclList(DeclList ast, Object o) {
-         ast.D.visit(this, null);
-         ast.DL.visit(this, null);
+     public Type visitDeclList(DeclList ast, Object o) {
+         int n = ast.size();
+         for (int i = 0; i < n; i++) {
+             visit(ast.get(i), null);
+         }
          return null;
      }
  
      @Override
-     public Object visitEmptyDeclList(EmptyDeclList ast, Object o) {
+     public Type visitEmptyDeclList(EmptyDeclList ast, Object o) {
+         return null;
+     }
+
+     // A declaration with a syntax error is skipped.
+
+     @Override
+     public Type visitErrorDecl(ErrorDecl ast, Object o) {
+         skippedDecls = true;
          return null;
      }
  
      @Override
-     public Object visitGlobalVarDecl(GlobalVarDecl ast, Object o) {
-         
-         if (ast.T.equals(StdEnvironment.voidType)) {
-             reporter.reportError(ErrorMessage.IDENTIFIER_DECLARED_VOID.getMessage(), ast.I.spelling, ast.position);
-         }
-         
-         if (ast.T.isArrayType() && ((ArrayType)ast.T).T.equals(StdEnvironment.voidType)) {
-             reporter.reportError(ErrorMessage.IDENTIFIER_DECLARED_VOID_ARRAY.getMessage(), ast.I.spelling, ast.position);
-         }
+     public Type visitGlobalVarDecl(GlobalVarDecl ast, Object o) {
+         checkVarType(ast);
          declareVariable(ast.I, ast);
-         
-         if(ast.E instanceof EmptyExpr){
-             if(ast.T.isArrayType()){
-                 ArrayType arrayType = (ArrayType) ast.T;
-                 if (arrayType.E instanceof EmptyExpr) {
-                     reporter.reportError(ErrorMessage.ARRAY_SIZE_MISSING.getMessage(), "", ast.position);
-                 }
-             }
-         } else {
-             if(ast.T.isArrayType()){
-                 processArrayInit(ast);
-             } else {
-                 processScalarInit(ast);
-             }
-         }
+         checkVarInit(ast);
          return ast.T;
      }
  
      @Override
-     public Object visitLocalVarDecl(LocalVarDecl ast, Object o) {
-         if (ast.T.equals(StdEnvironment.voidType)) {
-             reporter.reportError(ErrorMessage.IDENTIFIER_DECLARED_VOID.getMessage(), ast.I.spelling, ast.position);
+     public Type visitLocalVarDecl(LocalVarDecl ast, Object o) {
+         checkVarType(ast);
+         declareVariable(ast.I, ast);
+         checkVarInit(ast);
+         return ast.T;
+     }
+
+     // The checks of a variable declaration before, and after, the
+     // variable is declared.
+
+     void checkVarType(Decl ast) {
+         if (ast.T.equals(types.voidType)) {
+             reporter.reportError(ErrorMessage.IDENTIFIER_DECLARED_VOID.getMessage(), ast.I.spelling, ast.span);
          }
          
-         if (ast.T.isArrayType() && ((ArrayType)ast.T).T.equals(StdEnvironment.voidType)) {
-             reporter.reportError(ErrorMessage.IDENTIFIER_DECLARED_VOID_ARRAY.getMessage(), ast.I.spelling, ast.position);
+         if (ast.T.isArrayType() && ((ArrayType)ast.T).T.equals(types.voidType)) {
+             reporter.reportError(ErrorMessage.IDENTIFIER_DECLARED_VOID_ARRAY.getMessage(), ast.I.spelling, ast.span);
          }
-         declareVariable(ast.I, ast);
-         
-         if(ast.E instanceof EmptyExpr){
+     }
+
+     void checkVarInit(Decl ast) {
+         Expr init = (ast instanceof GlobalVarDecl) ? ((GlobalVarDecl) ast).E : ((LocalVarDecl) ast).E;
+         if(init instanceof EmptyExpr){
              if(ast.T.isArrayType()){
                  ArrayType arrayType = (ArrayType) ast.T;
                  if (arrayType.E instanceof EmptyExpr) {
-                     reporter.reportError(ErrorMessage.ARRAY_SIZE_MISSING.getMessage(), "", ast.position);
+                     reporter.reportError(ErrorMessage.ARRAY_SIZE_MISSING.getMessage(), "", ast.span);
                  }
              }
          } else {
@@ -935,7 +1067,6 @@
                  processScalarInit(ast);
              }
          }
-         return ast.T;
      }
  
      private void processArrayInit(Decl ast) {
@@ -944,12 +1075,13 @@
              ArrayType arrayType = (ArrayType) gAst.T;
              if (arrayType.T.isVoidType()) {
                  reporter.reportError(ErrorMessage.IDENTIFIER_DECLARED_VOID_ARRAY.getMessage(), 
-                                 gAst.I.spelling, gAst.I.position);
+                                 gAst.I.spelling, gAst.I.span);
              }
              if(gAst.E instanceof ArrayInitExpr){
                  if (arrayType.E instanceof EmptyExpr) {
                      int size = countArraynums(gAst.E);
                      arrayType.E = new IntExpr(new IntLiteral(Integer.toString(size), dummyPos), dummyPos);
+                     Fingerprint.invalidate(arrayType);
                  }
                  else if (arrayType.E instanceof IntExpr) {
                      IntExpr sizeExpr = (IntExpr) arrayType.E;
@@ -957,29 +1089,30 @@
                      int actualSize = countArraynums(gAst.E);
                      
                      if (actualSize > declaredSize) {
-                         gAst.E.visit(this, new Object[]{gAst, declaredSize});
+                         visit(gAst.E, new Object[]{gAst, declaredSize});
                      } else {
-                         gAst.E.visit(this, gAst);
+                         visit(gAst.E, gAst);
                      }
                      return;
                  }
-                 gAst.E.visit(this, gAst);
+                 visit(gAst.E, gAst);
              } else {
                  reporter.reportError(ErrorMessage.INVALID_INITIALISER_SCALAR_FOR_ARRAY.getMessage(), 
-                                 "", gAst.position);
+                                 "", gAst.span);
              }
          } else if(ast instanceof LocalVarDecl){
              LocalVarDecl lAst = (LocalVarDecl) ast;
              ArrayType arrayType = (ArrayType) lAst.T;
              if (arrayType.T.isVoidType()) {
                  reporter.reportError(ErrorMessage.IDENTIFIER_DECLARED_VOID_ARRAY.getMessage(), 
-                                 lAst.I.spelling, lAst.position);
+                                 lAst.I.spelling, lAst.span);
              }
              
              if (lAst.E instanceof ArrayInitExpr) {
                  if (arrayType.E instanceof EmptyExpr) {
                      int size = countArraynums(lAst.E);
                      arrayType.E = new IntExpr(new IntLiteral(Integer.toString(size), dummyPos), dummyPos);
+                     Fingerprint.invalidate(arrayType);
                  }
                  else if (arrayType.E instanceof IntExpr) {
                      IntExpr sizeExpr = (IntExpr) arrayType.E;
@@ -987,16 +1120,16 @@
                      int actualSize = countArraynums(lAst.E);
                      
                      if (actualSize > declaredSize) {
-                         lAst.E.visit(this, new Object[]{lAst, declaredSize});
+                         visit(lAst.E, new Object[]{lAst, declaredSize});
                      } else {
-                         lAst.E.visit(this, lAst);
+                         visit(lAst.E, lAst);
                      }
                      return;
                  }
-                 lAst.E.visit(this, lAst);
+                 visit(lAst.E, lAst);
              } else {
                  reporter.reportError(ErrorMessage.INVALID_INITIALISER_SCALAR_FOR_ARRAY.getMessage(), 
-                                 "", lAst.position);
+                                 "", lAst.span);
              }   
          }
      }
@@ -1006,30 +1139,30 @@
              GlobalVarDecl gAst = (GlobalVarDecl) ast;
              if (gAst.E instanceof ArrayInitExpr) {
                  reporter.reportError(ErrorMessage.INVALID_INITIALISER_ARRAY_FOR_SCALAR.getMessage(), 
-                                     "", gAst.position);
+                                     "", gAst.span);
              } else {
-                 Type t2 = (Type) gAst.E.visit(this, null);
+                 Type t2 = visit(gAst.E, null);
                  if(gAst.T.assignable(t2)){
-                     if (gAst.T.equals(StdEnvironment.floatType) && t2.equals(StdEnvironment.intType)) {
+                     if (gAst.T.equals(types.floatType) && t2.equals(types.intType)) {
                          gAst.E = createI2f(gAst.E);
                      }
                  } else {
-                     reporter.reportError(ErrorMessage.INCOMPATIBLE_TYPE_FOR_ASSIGNMENT.getMessage(), "", gAst.position);
+                     reporter.reportError(ErrorMessage.INCOMPATIBLE_TYPE_FOR_ASSIGNMENT.getMessage(), "", gAst.span);
                  }
              } 
          } else if(ast instanceof LocalVarDecl){
              LocalVarDecl lAst = (LocalVarDecl) ast;
              if (lAst.E instanceof ArrayInitExpr) {
                  reporter.reportError(ErrorMessage.INVALID_INITIALISER_ARRAY_FOR_SCALAR.getMessage(), 
-                                     "", lAst.position);
+                                     "", lAst.span);
              } else {
-                 Type t2 = (Type) lAst.E.visit(this, null);
+                 Type t2 = visit(lAst.E, null);
                  if (lAst.T.assignable(t2)) {
-                     if (lAst.T.equals(StdEnvironment.floatType) && t2.equals(StdEnvironment.intType)) {
+                     if (lAst.T.equals(types.floatType) && t2.equals(types.intType)) {
                          lAst.E = createI2f(lAst.E);
                      }
                  } else {
-                     reporter.reportError(ErrorMessage.INCOMPATIBLE_TYPE_FOR_ASSIGNMENT.getMessage(), "", lAst.position);
+                     reporter.reportError(ErrorMessage.INCOMPATIBLE_TYPE_FOR_ASSIGNMENT.getMessage(), "", lAst.span);
                  }
              }  
          }
@@ -1040,115 +1173,113 @@
              return 0;
          }
          
-         ArrayInitExpr arrayInitExpr = (ArrayInitExpr) initExpr;
-         AST currentList = arrayInitExpr.IL;
-         int count = 0;
-         while (currentList instanceof ArrayExprList) {
-             count++;
-             
-             ArrayExprList exprList = (ArrayExprList) currentList;
-             currentList = exprList.EL;
-         }
-         
-         return count;
+         return ((ArrayInitExpr) initExpr).IL.size();
      }
      
      // Parameters
  
      @Override
-     public Object visitParaList(ParaList ast, Object o) {
-        ast.P.visit(this, o);
-        ast.PL.visit(this, o);
+     public Type visitParaList(ParaList ast, Object o) {
+        int n = ast.size();
+        for (int i = 0; i < n; i++) {
+            visit(ast.get(i), o);
+        }
         return null;
      }
  
      @Override
-     public Object visitParaDecl(ParaDecl ast, Object o) {
+     public Type visitParaDecl(ParaDecl ast, Object o) {
         declareVariable(ast.I, ast);
 
          if (ast.T.isVoidType()) {
-             reporter.reportError(ErrorMessage.IDENTIFIER_DECLARED_VOID.getMessage(), ast.I.spelling, ast.I.position);
+             reporter.reportError(ErrorMessage.IDENTIFIER_DECLARED_VOID.getMessage(), ast.I.spelling, ast.I.span);
          } else if (ast.T.isArrayType()) {
              if (((ArrayType) ast.T).T.isVoidType()) {
-                 reporter.reportError(ErrorMessage.IDENTIFIER_DECLARED_VOID_ARRAY.getMessage(), ast.I.spelling, ast.I.position);
+                 reporter.reportError(ErrorMessage.IDENTIFIER_DECLARED_VOID_ARRAY.getMessage(), ast.I.spelling, ast.I.span);
              }
          }
          return null;
      }
  
      @Override
-     public Object visitEmptyParaList(EmptyParaList ast, Object o) {
+     public Type visitEmptyParaList(EmptyParaList ast, Object o) {
          return null;
      }
  
      // Types
  
      @Override
-     public Object visitErrorType(ErrorType ast, Object o) {
-         return StdEnvironment.errorType;
+     public Type visitErrorType(ErrorType ast, Object o) {
+         return types.errorType;
      }
  
      @Override
-     public Object visitBooleanType(BooleanType ast, Object o) {
-         return StdEnvironment.booleanType;
+     public Type visitBooleanType(BooleanType ast, Object o) {
+         return types.booleanType;
      }
  
      @Override
-     public Object visitIntType(IntType ast, Object o) {
-         return StdEnvironment.intType;
+     public Type visitIntType(IntType ast, Object o) {
+         return types.intType;
      }
  
      @Override
-     public Object visitFloatType(FloatType ast, Object o) {
-         return StdEnvironment.floatType;
+     public Type visitFloatType(FloatType ast, Object o) {
+         return types.floatType;
      }
  
      @Override
-     public Object visitStringType(StringType ast, Object o) {
-         return StdEnvironment.stringType;
+     public Type visitStringType(StringType ast, Object o) {
+         return types.stringType;
      }
  
      @Override
-     public Object visitVoidType(VoidType ast, Object o) {
-         return StdEnvironment.voidType;
+     public Type visitVoidType(VoidType ast, Object o) {
+         return types.voidType;
      }
  
      @Override
-     public Object visitArrayType(ArrayType ast, Object o) {
-         return ast;
+     public Type visitArrayType(ArrayType ast, Object o) {
+         return types.intern(ast);
      }
  
      // Literals, Identifiers and Operators
  
      @Override
-     public Object visitIdent(Ident I, Object o) {
+     public Type visitIdent(Ident I, Object o) {
         Optional<IdEntry> binding = idTable.retrieve(I.spelling);
-        binding.ifPresent(entry -> I.decl = entry.attr); // Link the identifier to its declaration
-        return binding.map(entry -> entry.attr).orElse(null);
+        binding.ifPresent(entry -> {
+            I.decl = entry.attr; // Link the identifier to its declaration
+            I.symbol = entry.attr.symbol;
+        });
+        if (references != null && (I.decl == null || IncrementalChecker.isGlobal((Decl) I.decl))) {
+            references.add(I);
+        }
+        return null;
      }
  
      @Override
-     public Object visitBooleanLiteral(BooleanLiteral SL, Object o) {
-         return StdEnvironment.booleanType;
+     public Type visitBooleanLiteral(BooleanLiteral SL, Object o) {
+         return types.booleanType;
      }
  
      @Override
-     public Object visitIntLiteral(IntLiteral IL, Object o) {
-         return StdEnvironment.intType;
+     public Type visitIntLiteral(IntLiteral IL, Object o) {
+         return types.intType;
      }
  
      @Override
-     public Object visitFloatLiteral(FloatLiteral IL, Object o) {
-         return StdEnvironment.floatType;
+     public Type visitFloatLiteral(FloatLiteral IL, Object o) {
+         return types.floatType;
      }
  
      @Override
-     public Object visitStringLiteral(StringLiteral IL, Object o) {
-         return StdEnvironment.stringType;
+     public Type visitStringLiteral(StringLiteral IL, Object o) {
+         return types.stringType;
      }
  
      @Override
-     public Object visitOperator(Operator O, Object o) {
+     public Type visitOperator(Operator O, Object o) {
          return null;
      }
  
@@ -1160,6 +1291,7 @@
      private FuncDecl declareStdFunc(Type resultType, String id, VC.ASTs.List pl) {
          var binding = new FuncDecl(resultType, new Ident(id, dummyPos), pl,
                  new EmptyStmt(dummyPos), dummyPos);
+         symbols.add(binding);
          idTable.insert(id, binding);
          return binding;
      }
@@ -1171,58 +1303,58 @@
      private final static Ident dummyI = new Ident("x", dummyPos);
  
      private void establishStdEnvironment() {
-         // Define four primitive types
-         // errorType is assigned to ill-typed expressions
+         // The primitive types are the canonical ones of this check (see
+         // TypeTable); errorType is assigned to ill-typed expressions
  
-         StdEnvironment.booleanType = new BooleanType(dummyPos);
-         StdEnvironment.intType = new IntType(dummyPos);
-         StdEnvironment.floatType = new FloatType(dummyPos);
-         StdEnvironment.stringType = new StringType(dummyPos);
-         StdEnvironment.voidType = new VoidType(dummyPos);
-         StdEnvironment.errorType = new ErrorType(dummyPos);
+         StdEnvironment.booleanType = types.booleanType;
+         StdEnvironment.intType = types.intType;
+         StdEnvironment.floatType = types.floatType;
+         StdEnvironment.stringType = types.stringType;
+         StdEnvironment.voidType = types.voidType;
+         StdEnvironment.errorType = types.errorType;
  
          // enter into the declarations for built-in functions into the table
  
-         StdEnvironment.getIntDecl = declareStdFunc(StdEnvironment.intType,
+         StdEnvironment.getIntDecl = declareStdFunc(types.intType,
                  "getInt", new EmptyParaList(dummyPos));
-         StdEnvironment.putIntDecl = declareStdFunc(StdEnvironment.voidType,
+         StdEnvironment.putIntDecl = declareStdFunc(types.voidType,
                  "putInt", new ParaList(
-                         new ParaDecl(StdEnvironment.intType, dummyI, dummyPos),
+                         new ParaDecl(types.intType, dummyI, dummyPos),
                          new EmptyParaList(dummyPos), dummyPos));
-         StdEnvironment.putIntLnDecl = declareStdFunc(StdEnvironment.voidType,
+         StdEnvironment.putIntLnDecl = declareStdFunc(types.voidType,
                  "putIntLn", new ParaList(
-                         new ParaDecl(StdEnvironment.intType, dummyI, dummyPos),
+                         new ParaDecl(types.intType, dummyI, dummyPos),
                          new EmptyParaList(dummyPos), dummyPos));
-         StdEnvironment.getFloatDecl = declareStdFunc(StdEnvironment.floatType,
+         StdEnvironment.getFloatDecl = declareStdFunc(types.floatType,
                  "getFloat", new EmptyParaList(dummyPos));
-         StdEnvironment.putFloatDecl = declareStdFunc(StdEnvironment.voidType,
+         StdEnvironment.putFloatDecl = declareStdFunc(types.voidType,
                  "putFloat", new ParaList(
-                         new ParaDecl(StdEnvironment.floatType, dummyI, dummyPos),
+                         new ParaDecl(types.floatType, dummyI, dummyPos),
                          new EmptyParaList(dummyPos), dummyPos));
-         StdEnvironment.putFloatLnDecl = declareStdFunc(StdEnvironment.voidType,
+         StdEnvironment.putFloatLnDecl = declareStdFunc(types.voidType,
                  "putFloatLn", new ParaList(
-                         new ParaDecl(StdEnvironment.floatType, dummyI, dummyPos),
+                         new ParaDecl(types.floatType, dummyI, dummyPos),
                          new EmptyParaList(dummyPos), dummyPos));
-         StdEnvironment.putBoolDecl = declareStdFunc(StdEnvironment.voidType,
+         StdEnvironment.putBoolDecl = declareStdFunc(types.voidType,
                  "putBool", new ParaList(
-                         new ParaDecl(StdEnvironment.booleanType, dummyI, dummyPos),
+                         new ParaDecl(types.booleanType, dummyI, dummyPos),
                          new EmptyParaList(dummyPos), dummyPos));
-         StdEnvironment.putBoolLnDecl = declareStdFunc(StdEnvironment.voidType,
+         StdEnvironment.putBoolLnDecl = declareStdFunc(types.voidType,
                  "putBoolLn", new ParaList(
-                         new ParaDecl(StdEnvironment.booleanType, dummyI, dummyPos),
+                         new ParaDecl(types.booleanType, dummyI, dummyPos),
                          new EmptyParaList(dummyPos), dummyPos));
  
-         StdEnvironment.putStringLnDecl = declareStdFunc(StdEnvironment.voidType,
+         StdEnvironment.putStringLnDecl = declareStdFunc(types.voidType,
                  "putStringLn", new ParaList(
-                         new ParaDecl(StdEnvironment.stringType, dummyI, dummyPos),
+                         new ParaDecl(types.stringType, dummyI, dummyPos),
                          new EmptyParaList(dummyPos), dummyPos));
  
-         StdEnvironment.putStringDecl = declareStdFunc(StdEnvironment.voidType,
+         StdEnvironment.putStringDecl = declareStdFunc(types.voidType,
                  "putString", new ParaList(
-                         new ParaDecl(StdEnvironment.stringType, dummyI, dummyPos),
+                         new ParaDecl(types.stringType, dummyI, dummyPos),
                          new EmptyParaList(dummyPos), dummyPos));
  
-         StdEnvironment.putLnDecl = declareStdFunc(StdEnvironment.voidType,
+         StdEnvironment.putLnDecl = declareStdFunc(types.voidType,
                  "putLn", new EmptyParaList(dummyPos));
      }
  
@@ -1230,33 +1362,28 @@
      
      // VALUE
      @Override
-     public Object visitSimpleVar(SimpleVar ast, Object o) {
-         ast.I.visit(this, o);
-         AST dAST = ((Ident) ast.I).decl;
+     public Type visitSimpleVar(SimpleVar ast, Object o) {
+         visit(ast.I, o);
+         int symbol = ast.I.symbol;
          
          Type resultType;
          
-         if (dAST == null) {
-             reporter.reportError(ErrorMessage.IDENTIFIER_UNDECLARED.getMessage(), ((Ident)ast.I).spelling, ast.position);
-             resultType = StdEnvironment.errorType;
-         } else if (dAST instanceof Decl) {
-             Decl decl = (Decl) dAST;
-             if (decl instanceof FuncDecl) {
-                 if (!(o instanceof CallExpr) && !(o instanceof ExprStmt)) {
-                     reporter.reportError(ErrorMessage.ARRAY_FUNCTION_AS_SCALAR.getMessage(), "", ast.position);
-                     resultType = StdEnvironment.errorType;
-                 } else {
-                     resultType = decl.T;
-                 }
+         if (symbol == Symbols.NONE) {
+             reporter.reportError(ErrorMessage.IDENTIFIER_UNDECLARED.getMessage(), ast.I.spelling, ast.span);
+             resultType = types.errorType;
+         } else if (symbols.isFunction(symbol)) {
+             if (!(o instanceof CallExpr) && !(o instanceof ExprStmt)) {
+                 reporter.reportError(ErrorMessage.ARRAY_FUNCTION_AS_SCALAR.getMessage(), "", ast.span);
+                 resultType = types.errorType;
              } else {
-                 resultType = decl.T;
-                 
-                 if (resultType.isArrayType() && o instanceof ExprStmt) {
-                     reporter.reportError(ErrorMessage.ARRAY_FUNCTION_AS_SCALAR.getMessage(), "", ast.position);
-                 }
+                 resultType = types.intern(symbols.type(symbol));
              }
          } else {
-             resultType = StdEnvironment.errorType;
+             resultType = types.intern(symbols.type(symbol));
+             
+             if (resultType.isArrayType() && o instanceof ExprStmt) {
+                 reporter.reportError(ErrorMessage.ARRAY_FUNCTION_AS_SCALAR.getMessage(), "", ast.span);
+             }
          }
          
          ast.type = resultType;
@@ -6,20 +6,22 @@
 package VC.Checker;
 
 import VC.ASTs.Decl;
+import VC.ASTs.Scope;
 
 import java.util.Objects;
 
 /**
  * Represents an entry in the symbol table for an identifier.
- * Each entry contains the identifier's name, its associated declaration,
- * the scope level, and a reference to the previous entry in the symbol table.
+ * Each entry contains the identifier's name, its associated declaration
+ * and the scope level of the declaration. An entry is a view of the
+ * binding of the identifier in the Scope of the symbol table, made when
+ * the identifier is retrieved.
  */
 public final class IdEntry {
 
     protected final String id;            // The identifier's name
     protected final Decl attr;            // The associated declaration
     protected final int level;            // The scope level of the identifier
-    protected final IdEntry previousEntry; // Reference to the previous entry in the symbol table
 
     /**
      * Constructs a new IdEntry.
@@ -27,18 +29,24 @@ public final class IdEntry {
      * @param id            The identifier's name.
      * @param attr          The associated declaration.
      * @param level         The scope level of the identifier.
-     * @param previousEntry The previous entry in the symbol table.
      */
-    public IdEntry(String id, Decl attr, int level, IdEntry previousEntry) {
+    public IdEntry(String id, Decl attr, int level) {
         this.id = Objects.requireNonNull(id, "Identifier must not be null");
         this.attr = Objects.requireNonNull(attr, "Declaration must not be null");
         this.level = level;
-        this.previousEntry = previousEntry;
+    }
+
+    /**
+     * Constructs the entry for a binding of a Scope.
+     *
+     * @param binding       The binding.
+     */
+    IdEntry(Scope.Binding binding) {
+        this(binding.id, binding.decl, binding.level);
     }
 
     @Override
     public String toString() {
-        return String.format("IdEntry{id='%s', attr=%s, level=%d, previousEntry=%s}",
-                id, attr, level, previousEntry != null ? previousEntry.id : "null");
+        return String.format("IdEntry{id='%s', attr=%s, level=%d}", id, attr, level);
     }
 }
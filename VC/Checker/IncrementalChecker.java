@@ -0,0 +1,406 @@
+/*
+ * IncrementalChecker.java
+ *
+ * Checks a program again after an edit, doing again only the work the
+ * edit calls for.
+ *
+ * What the checker does with a top-level declaration is in three parts:
+ * the checks before it is declared (that a variable is not void), its
+ * declaration in the global scope (with the check that it is not
+ * declared already), and the checks of its initialiser or function body.
+ * The first and last depend only on the declaration itself and on the
+ * global declarations that the identifiers in it resolve to (or that
+ * they do not resolve at all), which are recorded, with the errors each
+ * part reported.
+ *
+ * The declarations checked before are found by their fingerprints (see
+ * Fingerprint): those that the parser reused, as Parser.reparse does,
+ * by the fingerprint they have as checked, and those that it built
+ * again, as a full parse does, by the one they had as it built them.
+ * A declaration built again that is the same as one checked before is
+ * replaced by it, given its spans (see Respanner), if the declarations
+ * that shared its Type are all the same too. The declarations are then
+ * walked in order, and each is declared again, which is cheap. A
+ * declaration that is not one checked before is checked in full. One
+ * that is has its checks done again only if one of the identifiers
+ * recorded for it now resolves to a different declaration, unless that
+ * one has the same signature (see signature) as the one it resolved to:
+ * then the identifiers are just linked to it, as the checks of the
+ * declaration see no more of it than that, and the types found for its
+ * expressions are the canonical ones of the TypeTable rather than parts
+ * of either declaration. A declaration checked again is first returned
+ * to the form the parser built it in (see Unchecker). Otherwise the
+ * annotations in its subtree stand, and the errors recorded are
+ * reported again (moved with its span if the edit moved that). The tree
+ * and the errors are then those of a full check, in the same order.
+ *
+ * Only the identifiers of the declarations that are new or gone can
+ * resolve differently, so a declaration that uses none of them (as told
+ * by a mask of the identifiers it uses) is not looked at beyond being
+ * declared and having its errors reported.
+ *
+ * So editing the body of a function checks just that body, and editing
+ * the type of a global variable or of a function also checks the bodies
+ * and initialisers that use it. The declarations keep their numbers
+ * (see Symbols), and the ones checked again are numbered after the
+ * others, so the numbering is not in the order of the program, as after
+ * a full check. The Scopes left in the subtrees that are not checked
+ * again are those of their last check: they name declarations of the
+ * same signatures for all the identifiers used there, but may not for
+ * others.
+ */
+
+package VC.Checker;
+
+import VC.ErrorReporter;
+import VC.ASTs.*;
+import VC.Scanner.Span;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+final class IncrementalChecker {
+
+  // What was recorded about a top-level declaration when it was last
+  // checked.
+
+  private static final class Entry {
+    final Decl decl;
+    long key;           // the fingerprint of decl as checked
+    final long shape;   // and as the parser built it
+    long spans;         // and with its spans, unless they have moved since (0)
+    int unit;           // the number of declarations that share its Type
+    Entry next;         // the next with the same fingerprint, as checked
+    Entry nextShape;    // the next with the same shape
+    int pass;           // the last check that found it in the program
+    long span;   // the span of the declaration when its errors were recorded
+    final ParallelChecker.Diagnostics before = new ParallelChecker.Diagnostics();
+    ParallelChecker.Diagnostics after;
+    Ident[] references;
+    long names;   // the identifiers of references, as by mask
+    boolean skippedDecls;
+
+    Entry(Decl decl) {
+      this.decl = decl;
+      this.shape = Fingerprint.of(decl);
+      this.spans = Fingerprint.withSpans(decl);
+      this.span = decl.span;
+    }
+  }
+
+  private final Checker checker;
+  private final Scope std;   // the std environment
+  private final HashMap<Long, Entry> entries = new HashMap<>();   // by key
+  private final HashMap<Long, Entry> shapes = new HashMap<>();    // by shape
+  private int size;   // the number of entries
+  private int pass;   // the number of checks done
+
+  IncrementalChecker(Checker checker) {
+    this.checker = checker;
+    this.std = checker.symbolTable().snapshot();
+  }
+
+  static boolean isGlobal(Decl decl) {
+    int kind = decl.kind();
+    return kind == Kinds.FUNC_DECL || kind == Kinds.GLOBAL_VAR_DECL;
+  }
+
+  // A hash of what the checks of other declarations look at in decl,
+  // once it has been checked: its kind, its type (with the size that an
+  // array takes from its initialiser) and whether it has syntax errors,
+  // and the types of the parameters of a function.
+
+  private static long signature(Decl decl) {
+    long h = decl.kind();
+    h = 31 * h + Fingerprint.of(decl.T);
+    h = 31 * h + (decl.hasErrors ? 1 : 0);
+    if (decl instanceof FuncDecl) {
+      List pl = ((FuncDecl) decl).PL;
+      for (int i = 0; i < pl.size(); i++)
+        h = 31 * h + Fingerprint.of(((ParaDecl) pl.get(i)).T);
+    }
+    return h;
+  }
+
+  // A set of identifiers, as a 64-bit mask with a bit for each (chosen
+  // by its hash): identifiers not in one set are then not in another if
+  // their masks have no bit in common.
+
+  private static long mask(String id) {
+    int h = id.hashCode();
+    return 1L << ((h ^ (h >>> 16)) & 63);
+  }
+
+  // The Type that decl was declared with, which the declarations of a
+  // declaration list share (an array through its ArrayType).
+
+  private static Type base(Decl decl) {
+    Type t = decl.T;
+    return (t instanceof ArrayType) ? ((ArrayType) t).T : t;
+  }
+
+  // The end of the declarations from the i-th on that share its Type.
+
+  private static int unitEnd(List decls, int i) {
+    Type t = base((Decl) decls.get(i));
+    int j = i + 1;
+    while (t != null && j < decls.size() && base((Decl) decls.get(j)) == t)
+      j++;
+    return j;
+  }
+
+  void check(Program program) {
+    pass++;
+    ErrorReporter reporter = checker.reporter;
+    Checker c = new Checker(checker, reporter, std, Symbols.NONE);
+    boolean skippedDecls = false;
+    program.symbols = checker.symbols();
+
+    // The declarations checked before, found by their fingerprints: a
+    // declaration that the parser reused is one of them, and one that
+    // it built again is given the checked one that it is the same as.
+    // The identifiers declared by the declarations that are new or gone
+    // are the only ones that can resolve differently: the others name
+    // the same declarations, in the same order, as before.
+    List decls = program.FL;
+    int n = decls.size();
+    Entry[] found = new Entry[n];
+    int kept = 0;
+    long changed = 0;
+    for (int i = 0; i < n; ) {
+      int j = unitEnd(decls, i);
+      for (int k = i; k < j; k++)
+        found[k] = find((Decl) decls.get(k));
+      if (decls.get(i).kind() != Kinds.ERROR_DECL)
+        adopt(decls, i, j, found);
+      for (int k = i; k < j; k++) {
+        Decl decl = (Decl) decls.get(k);
+        if (found[k] != null)
+          kept++;
+        else if (decl.kind() != Kinds.ERROR_DECL)
+          changed |= mask(decl.I.spelling);
+      }
+      i = j;
+    }
+    if (kept < size) {
+      ArrayList<Entry> gone = new ArrayList<>();
+      for (Entry first : entries.values())
+        for (Entry e = first; e != null; e = e.next)
+          if (e.pass != pass)
+            gone.add(e);
+      for (Entry e : gone) {
+        changed |= mask(e.decl.I.spelling);
+        remove(e);
+      }
+    }
+
+    int unitStart = 0, unitEnd = 0;
+    for (int i = 0; i < n; i++) {
+      Decl decl = (Decl) decls.get(i);
+      if (i == unitEnd) {
+        unitStart = i;
+        unitEnd = unitEnd(decls, i);
+      }
+      if (decl.kind() == Kinds.ERROR_DECL) {
+        skippedDecls = true;
+        continue;
+      }
+      Entry e = found[i];
+      boolean fresh = (e == null);
+      if (fresh) {
+        e = new Entry(decl);
+        if (decl.kind() == Kinds.GLOBAL_VAR_DECL) {
+          c.reporter = e.before;
+          c.checkVarType(decl);
+        }
+      } else if (e.span != decl.span) {
+        // the edit moved it, or the end of the program, where the spans
+        // of the top-level declarations end (see Parser.shareSpan)
+        e.before.move(e.span, decl.span);
+        e.after.move(e.span, decl.span);
+        e.span = decl.span;
+        e.spans = 0;
+      }
+      e.before.replay(reporter, 0, e.before.size());
+
+      c.reporter = reporter;
+      if (fresh)
+        c.declareVariable(decl.I, decl);
+      else
+        c.enter(decl.I, decl);
+
+      Scope scope = null;
+      if (!fresh && (e.names & changed) != 0)
+        scope = c.symbolTable().snapshot();
+      boolean check = fresh || scope != null && dependenciesChanged(e, scope);
+      if (check) {
+        if (!fresh) {
+          new Unchecker().uncheck(decl);
+          decl.I.decl = decl;
+          decl.I.symbol = decl.symbol;
+        }
+        e.after = new ParallelChecker.Diagnostics();
+        c.reporter = e.after;
+        c.references = new ArrayList<>();
+        c.skippedDecls = false;
+        if (decl.kind() == Kinds.GLOBAL_VAR_DECL)
+          c.checkVarInit(decl);
+        else if (!decl.hasErrors)
+          c.checkBody((FuncDecl) decl);
+        e.references = c.references.toArray(new Ident[0]);
+        e.names = 0;
+        for (Ident I : e.references)
+          e.names |= mask(I.spelling);
+        e.skippedDecls = c.skippedDecls;
+        c.references = null;
+        c.reporter = reporter;
+      } else if (scope != null) {
+        relink(e, scope);
+      }
+      e.after.replay(reporter, 0, e.after.size());
+      skippedDecls |= e.skippedDecls;
+
+      e.unit = unitEnd - unitStart;
+      e.pass = pass;
+      if (check) {
+        // checked again, it may have been changed otherwise
+        long key = Fingerprint.of(decl);
+        if (fresh || key != e.key) {
+          if (!fresh)
+            remove(e);
+          e.key = key;
+          add(e);
+        }
+      }
+    }
+
+    c.skippedDecls = skippedDecls;
+    c.checkMain(program);
+  }
+
+  // The entry of decl, if it is a declaration checked before.
+
+  private Entry find(Decl decl) {
+    for (Entry e = entries.get(Fingerprint.of(decl)); e != null; e = e.next) {
+      if (e.decl == decl) {
+        e.pass = pass;
+        return e;
+      }
+    }
+    return null;
+  }
+
+  // Puts in the place of the declarations i to j of decls, which the
+  // parser has built anew and share a Type, the declarations checked
+  // before that they are the same as, if those are all the declarations
+  // that shared a Type and they can be given the spans of the new ones
+  // with their errors moved too (see Respanner).
+
+  private void adopt(List decls, int i, int j, Entry[] found) {
+    for (int k = i; k < j; k++)
+      if (found[k] != null)
+        return;
+    Type type = null;
+    for (int k = i; k < j; k++) {
+      Decl decl = (Decl) decls.get(k);
+      Entry e = shapes.get(Fingerprint.of(decl));
+      while (e != null && (e.pass == pass || e.span != e.decl.span))
+        e = e.nextShape;
+      if (k == i && e != null && e.unit == j - i)
+        type = base(e.decl);
+      if (e == null || base(e.decl) != type) {
+        release(found, i, k);
+        return;
+      }
+      e.pass = pass;
+      found[k] = e;
+    }
+    Respanner respanner = new Respanner();
+    for (int k = i; k < j; k++) {
+      Entry e = found[k];
+      long spans = Fingerprint.withSpans(decls.get(k));
+      if (e.spans != spans && !respanner.respan(e.decl, (Decl) decls.get(k))) {
+        release(found, i, j);
+        return;
+      }
+    }
+    for (int k = i; k < j; k++) {
+      Entry e = found[k];
+      DeclList cell = (DeclList) decls.cell(k);
+      e.spans = Fingerprint.withSpans(cell.D);
+      e.before.move(e.span, cell.D.span);
+      e.after.move(e.span, cell.D.span);
+      e.span = cell.D.span;
+      cell.D = e.decl;
+      cell.D.parent = cell;
+      Fingerprint.invalidate(cell);
+    }
+  }
+
+  private void add(Entry e) {
+    e.next = entries.put(e.key, e);
+    e.nextShape = shapes.put(e.shape, e);
+    size++;
+  }
+
+  private void remove(Entry e) {
+    Entry first = entries.get(e.key);
+    if (first == e) {
+      if (e.next == null)
+        entries.remove(e.key);
+      else
+        entries.put(e.key, e.next);
+    } else {
+      while (first.next != e)
+        first = first.next;
+      first.next = e.next;
+    }
+    first = shapes.get(e.shape);
+    if (first == e) {
+      if (e.nextShape == null)
+        shapes.remove(e.shape);
+      else
+        shapes.put(e.shape, e.nextShape);
+    } else {
+      while (first.nextShape != e)
+        first = first.nextShape;
+      first.nextShape = e.nextShape;
+    }
+    size--;
+  }
+
+  private void release(Entry[] found, int i, int j) {
+    for (int k = i; k < j; k++) {
+      found[k].pass = pass - 1;
+      found[k] = null;
+    }
+  }
+
+  // Whether an identifier recorded for e resolves in scope to what it
+  // did not resolve to before, other than to a declaration with the same
+  // signature.
+
+  private static boolean dependenciesChanged(Entry e, Scope scope) {
+    for (Ident I : e.references) {
+      Decl now = scope.lookup(I.spelling);
+      Decl was = (Decl) I.decl;
+      if (now != was && (now == null || was == null || signature(now) != signature(was)))
+        return true;
+    }
+    return false;
+  }
+
+  // Links the identifiers recorded for e to the declarations they now
+  // resolve to, which have the signatures of those they resolved to.
+
+  private static void relink(Entry e, Scope scope) {
+    for (Ident I : e.references) {
+      Decl now = scope.lookup(I.spelling);
+      if (now != I.decl) {
+        I.decl = now;
+        I.symbol = now.symbol;
+      }
+    }
+  }
+
+}
@@ -0,0 +1,207 @@
+/*
+ * ParallelChecker.java
+ *
+ * Checks the bodies of the functions of a program on a fork-join pool.
+ *
+ * The declarations of the program are first walked in order by the
+ * Checker of the program, which checks the global variables and enters
+ * each function in the global scope, but leaves its body. What a body
+ * can see of the global scope is what was declared before its end, that
+ * is, the Scope of the global symbol table then (SymbolTable.snapshot),
+ * which is recorded; and the numbers a sequential check would give the
+ * parameters and local variables of the function (those right after the
+ * function's own) are set aside for it (see Symbols.reserve).
+ *
+ * Once all the declarations have been walked, each body is checked by a
+ * Checker of its own, in a symbol table that starts from the Scope
+ * recorded for it. A body changes nothing outside its own subtree, so
+ * bodies can be checked in any order and at the same time. The errors
+ * of each body, like those of the walk over the declarations, are
+ * buffered, and are finally reported in the order a sequential check
+ * would report them, followed by the check for main. The tree, its numbering and the errors
+ * are then exactly those of Checker.check(ast).
+ */
+
+package VC.Checker;
+
+import VC.ErrorReporter;
+import VC.ASTs.*;
+import VC.Scanner.Span;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+final class ParallelChecker {
+
+  // A function body to be checked.
+
+  static final class Body {
+    final FuncDecl decl;
+    final Scope globals;          // what it sees of the global scope
+    final int firstSymbol;        // the first number reserved for it
+    final int reportedBefore;     // the errors of the declarations before it
+    final Diagnostics diagnostics = new Diagnostics();
+    boolean skippedDecls;
+
+    Body(FuncDecl decl, Scope globals, int firstSymbol, int reportedBefore) {
+      this.decl = decl;
+      this.globals = globals;
+      this.firstSymbol = firstSymbol;
+      this.reportedBefore = reportedBefore;
+    }
+  }
+
+  // The errors reported while checking, in order, to be reported again
+  // in their place.
+
+  static final class Diagnostics extends ErrorReporter {
+    private final ArrayList<String> messages = new ArrayList<>();
+    private final ArrayList<String> tokenNames = new ArrayList<>();
+    private long[] spans = new long[4];
+
+    @Override
+    public void reportError(String message, String tokenName, long span) {
+      int i = messages.size();
+      if (i == spans.length)
+        spans = Arrays.copyOf(spans, 2 * i);
+      messages.add(message);
+      tokenNames.add(tokenName);
+      spans[i] = span;
+    }
+
+    int size() {
+      return messages.size();
+    }
+
+    // Reports errors from to to (exclusive) to reporter.
+
+    void replay(ErrorReporter reporter, int from, int to) {
+      for (int i = from; i < to; i++)
+        reporter.reportError(messages.get(i), tokenNames.get(i), spans[i]);
+    }
+
+    // Moves the errors reported in a declaration whose span was from to
+    // where its span is to: those at its span are now at to, and the
+    // others are moved with its start.
+
+    void move(long from, long to) {
+      int delta = Span.start(to) - Span.start(from);
+      for (int i = 0; i < messages.size(); i++)
+        spans[i] = (spans[i] == from) ? to : Span.shift(spans[i], delta);
+    }
+  }
+
+  private final Checker checker;
+  private final Program program;
+  private final ArrayList<Body> bodies = new ArrayList<>();
+
+  ParallelChecker(Checker checker, Program program) {
+    this.checker = checker;
+    this.program = program;
+  }
+
+  void check(ForkJoinPool pool) {
+    ErrorReporter reporter = checker.reporter;
+    Diagnostics declarations = new Diagnostics();
+    checker.reporter = declarations;
+    try {
+      program.symbols = checker.symbols();
+      declare(declarations);
+      if (!bodies.isEmpty())
+        pool.invoke(new CheckBodies(0, bodies.size()));
+      for (Body body : bodies)
+        checker.skippedDecls |= body.skippedDecls;
+      checker.checkMain(program);
+    } finally {
+      checker.reporter = reporter;
+    }
+
+    int reported = 0;
+    for (Body body : bodies) {
+      declarations.replay(reporter, reported, body.reportedBefore);
+      body.diagnostics.replay(reporter, 0, body.diagnostics.size());
+      reported = body.reportedBefore;
+    }
+    declarations.replay(reporter, reported, declarations.size());
+  }
+
+  // Walks the declarations of the program, checking all but the bodies
+  // of the functions, which are recorded.
+
+  private void declare(Diagnostics declarations) {
+    List decls = program.FL;
+    int n = decls.size();
+    for (int i = 0; i < n; i++) {
+      AST decl = decls.get(i);
+      if (decl.kind() != Kinds.FUNC_DECL) {
+        checker.visit(decl, null);
+        continue;
+      }
+      FuncDecl f = (FuncDecl) decl;
+      checker.declareVariable(f.I, f);
+      if (f.hasErrors)
+        continue;  // its body is not checked (see Checker.visitFuncDecl)
+      int first = checker.symbols().reserve(countDecls(f));
+      bodies.add(new Body(f, checker.symbolTable().snapshot(), first, declarations.size()));
+    }
+  }
+
+  // The number of declarations that checking the body of f numbers: its
+  // parameters and its local variables.
+
+  private static int countDecls(FuncDecl f) {
+    return f.PL.size() + countDecls(f.S);
+  }
+
+  private static int countDecls(Stmt s) {
+    switch (s.kind()) {
+      case Kinds.COMPOUND_STMT: {
+        CompoundStmt c = (CompoundStmt) s;
+        int count = 0;
+        for (int i = 0; i < c.DL.size(); i++)
+          if (c.DL.get(i).kind() == Kinds.LOCAL_VAR_DECL)
+            count++;
+        for (int i = 0; i < c.SL.size(); i++)
+          count += countDecls((Stmt) c.SL.get(i));
+        return count;
+      }
+      case Kinds.IF_STMT:
+        return countDecls(((IfStmt) s).S1) + countDecls(((IfStmt) s).S2);
+      case Kinds.WHILE_STMT:
+        return countDecls(((WhileStmt) s).S);
+      case Kinds.FOR_STMT:
+        return countDecls(((ForStmt) s).S);
+      default:
+        return 0;
+    }
+  }
+
+  private void checkBody(Body body) {
+    Checker c = new Checker(checker, body.diagnostics, body.globals, body.firstSymbol);
+    c.checkBody(body.decl);
+    body.skippedDecls = c.skippedDecls;
+  }
+
+  @SuppressWarnings("serial")  // a task is never serialized
+  private final class CheckBodies extends RecursiveAction {
+    private final int lo, hi;
+
+    CheckBodies(int lo, int hi) {
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    @Override
+    protected void compute() {
+      if (hi - lo == 1) {
+        checkBody(bodies.get(lo));
+      } else {
+        int mid = (lo + hi) >>> 1;
+        invokeAll(new CheckBodies(lo, mid), new CheckBodies(mid, hi));
+      }
+    }
+  }
+
+}
@@ -0,0 +1,460 @@
+/*
+ * Respanner.java
+ *
+ * Gives the nodes of a top-level declaration that the Checker has
+ * checked the spans of the same declaration as the parser built it
+ * again, so that the checked one can stand in for it (see
+ * IncrementalChecker). The two are walked side by side, passing over
+ * what the checker put in (see Unchecker): the i2f conversions, and the
+ * sizes of arrays taken from their initialisers, which keep no span.
+ *
+ * The errors recorded for the checked declaration can be moved with it
+ * only if every span moved with its start, or is its span and moved to
+ * the span of the other (see ParallelChecker.Diagnostics.move), which
+ * respan tells. The declarations of one declaration list share their
+ * Type, which is given its span once, by the first of them. Lists are
+ * walked iteratively, as they can be longer than the stack is deep.
+ */
+
+package VC.Checker;
+
+import VC.ASTs.*;
+import VC.Scanner.Span;
+
+final class Respanner implements Visitor {
+
+  private long from, to;      // the spans of the two declarations
+  private int delta;
+  private boolean moved;      // whether each span has moved as the errors can
+  private Type lastType;      // the last Type given its span
+
+  // Gives decl, which has been checked, the spans of parsed, which has
+  // the same shape as decl had before it was checked. Returns whether
+  // the spans moved as the errors recorded for decl can be moved.
+
+  boolean respan(Decl decl, Decl parsed) {
+    from = decl.span;
+    to = parsed.span;
+    delta = Span.start(to) - Span.start(from);
+    moved = true;
+    pair(decl, parsed);
+    return moved;
+  }
+
+  private void pair(AST ast, AST with) {
+    if (ast instanceof UnaryExpr && ast.span == Span.NONE
+        && ((UnaryExpr) ast).O.spelling.equals("i2f"))
+      ast = ((UnaryExpr) ast).E;
+    if (ast.kind() != with.kind())
+      moved = false;
+    else
+      ast.visit(this, with);
+  }
+
+  private void move(AST ast, AST with) {
+    if (with.span != Span.shift(ast.span, delta) && (ast.span != from || with.span != to))
+      moved = false;
+    if (ast.span != with.span) {
+      ast.span = with.span;
+      Fingerprint.invalidateSpans(ast);
+    }
+  }
+
+  private void moveType(Type ast, Object with) {
+    if (ast != lastType) {
+      lastType = ast;
+      move(ast, (Type) with);
+    }
+  }
+
+  private void moveDecl(Decl ast, Decl with) {
+    move(ast, with);
+    pair(ast.T, with.T);
+    pair(ast.I, with.I);
+  }
+
+  // Programs
+
+  public Object visitProgram(Program ast, Object o) {
+    Program with = (Program) o;
+    move(ast, with);
+    pair(ast.FL, with.FL);
+    return null;
+  }
+
+  // Lists for denoting the null reference
+
+  public Object visitEmptyDeclList(EmptyDeclList ast, Object o) {
+    move(ast, (AST) o);
+    return null;
+  }
+
+  public Object visitEmptyStmtList(EmptyStmtList ast, Object o) {
+    move(ast, (AST) o);
+    return null;
+  }
+
+  public Object visitEmptyArrayExprList(EmptyArrayExprList ast, Object o) {
+    move(ast, (AST) o);
+    return null;
+  }
+
+  public Object visitEmptyParaList(EmptyParaList ast, Object o) {
+    move(ast, (AST) o);
+    return null;
+  }
+
+  public Object visitEmptyArgList(EmptyArgList ast, Object o) {
+    move(ast, (AST) o);
+    return null;
+  }
+
+  // Declarations
+
+  public Object visitDeclList(DeclList ast, Object o) {
+    List list = ast, with = (List) o;
+    for (; list instanceof DeclList && with instanceof DeclList;
+         list = ((DeclList) list).DL, with = ((DeclList) with).DL) {
+      move(list, with);
+      pair(((DeclList) list).D, ((DeclList) with).D);
+    }
+    pair(list, with);
+    return null;
+  }
+
+  public Object visitFuncDecl(FuncDecl ast, Object o) {
+    FuncDecl with = (FuncDecl) o;
+    moveDecl(ast, with);
+    pair(ast.PL, with.PL);
+    pair(ast.S, with.S);
+    return null;
+  }
+
+  public Object visitGlobalVarDecl(GlobalVarDecl ast, Object o) {
+    GlobalVarDecl with = (GlobalVarDecl) o;
+    moveDecl(ast, with);
+    pair(ast.E, with.E);
+    return null;
+  }
+
+  public Object visitLocalVarDecl(LocalVarDecl ast, Object o) {
+    LocalVarDecl with = (LocalVarDecl) o;
+    moveDecl(ast, with);
+    pair(ast.E, with.E);
+    return null;
+  }
+
+  public Object visitErrorDecl(ErrorDecl ast, Object o) {
+    move(ast, (AST) o);
+    return null;
+  }
+
+  // Stmts
+
+  public Object visitStmtList(StmtList ast, Object o) {
+    List list = ast, with = (List) o;
+    for (; list instanceof StmtList && with instanceof StmtList;
+         list = ((StmtList) list).SL, with = ((StmtList) with).SL) {
+      move(list, with);
+      pair(((StmtList) list).S, ((StmtList) with).S);
+    }
+    pair(list, with);
+    return null;
+  }
+
+  public Object visitIfStmt(IfStmt ast, Object o) {
+    IfStmt with = (IfStmt) o;
+    move(ast, with);
+    pair(ast.E, with.E);
+    pair(ast.S1, with.S1);
+    pair(ast.S2, with.S2);
+    return null;
+  }
+
+  public Object visitWhileStmt(WhileStmt ast, Object o) {
+    WhileStmt with = (WhileStmt) o;
+    move(ast, with);
+    pair(ast.E, with.E);
+    pair(ast.S, with.S);
+    return null;
+  }
+
+  public Object visitForStmt(ForStmt ast, Object o) {
+    ForStmt with = (ForStmt) o;
+    move(ast, with);
+    pair(ast.E1, with.E1);
+    pair(ast.E2, with.E2);
+    pair(ast.E3, with.E3);
+    pair(ast.S, with.S);
+    return null;
+  }
+
+  public Object visitBreakStmt(BreakStmt ast, Object o) {
+    move(ast, (AST) o);
+    return null;
+  }
+
+  public Object visitContinueStmt(ContinueStmt ast, Object o) {
+    move(ast, (AST) o);
+    return null;
+  }
+
+  public Object visitReturnStmt(ReturnStmt ast, Object o) {
+    ReturnStmt with = (ReturnStmt) o;
+    move(ast, with);
+    pair(ast.E, with.E);
+    return null;
+  }
+
+  public Object visitCompoundStmt(CompoundStmt ast, Object o) {
+    CompoundStmt with = (CompoundStmt) o;
+    move(ast, with);
+    pair(ast.DL, with.DL);
+    pair(ast.SL, with.SL);
+    return null;
+  }
+
+  public Object visitExprStmt(ExprStmt ast, Object o) {
+    ExprStmt with = (ExprStmt) o;
+    move(ast, with);
+    pair(ast.E, with.E);
+    return null;
+  }
+
+  public Object visitEmptyCompStmt(EmptyCompStmt ast, Object o) {
+    move(ast, (AST) o);
+    return null;
+  }
+
+  public Object visitEmptyStmt(EmptyStmt ast, Object o) {
+    move(ast, (AST) o);
+    return null;
+  }
+
+  public Object visitErrorStmt(ErrorStmt ast, Object o) {
+    move(ast, (AST) o);
+    return null;
+  }
+
+  // Expressions
+
+  public Object visitIntExpr(IntExpr ast, Object o) {
+    IntExpr with = (IntExpr) o;
+    move(ast, with);
+    pair(ast.IL, with.IL);
+    return null;
+  }
+
+  public Object visitFloatExpr(FloatExpr ast, Object o) {
+    FloatExpr with = (FloatExpr) o;
+    move(ast, with);
+    pair(ast.FL, with.FL);
+    return null;
+  }
+
+  public Object visitBooleanExpr(BooleanExpr ast, Object o) {
+    BooleanExpr with = (BooleanExpr) o;
+    move(ast, with);
+    pair(ast.BL, with.BL);
+    return null;
+  }
+
+  public Object visitStringExpr(StringExpr ast, Object o) {
+    StringExpr with = (StringExpr) o;
+    move(ast, with);
+    pair(ast.SL, with.SL);
+    return null;
+  }
+
+  public Object visitUnaryExpr(UnaryExpr ast, Object o) {
+    UnaryExpr with = (UnaryExpr) o;
+    move(ast, with);
+    pair(ast.O, with.O);
+    pair(ast.E, with.E);
+    return null;
+  }
+
+  public Object visitBinaryExpr(BinaryExpr ast, Object o) {
+    BinaryExpr with = (BinaryExpr) o;
+    move(ast, with);
+    pair(ast.E1, with.E1);
+    pair(ast.O, with.O);
+    pair(ast.E2, with.E2);
+    return null;
+  }
+
+  public Object visitArrayInitExpr(ArrayInitExpr ast, Object o) {
+    ArrayInitExpr with = (ArrayInitExpr) o;
+    move(ast, with);
+    pair(ast.IL, with.IL);
+    return null;
+  }
+
+  public Object visitArrayExprList(ArrayExprList ast, Object o) {
+    List list = ast, with = (List) o;
+    for (; list instanceof ArrayExprList && with instanceof ArrayExprList;
+         list = ((ArrayExprList) list).EL, with = ((ArrayExprList) with).EL) {
+      move(list, with);
+      pair(((ArrayExprList) list).E, ((ArrayExprList) with).E);
+    }
+    pair(list, with);
+    return null;
+  }
+
+  public Object visitArrayExpr(ArrayExpr ast, Object o) {
+    ArrayExpr with = (ArrayExpr) o;
+    move(ast, with);
+    pair(ast.V, with.V);
+    pair(ast.E, with.E);
+    return null;
+  }
+
+  public Object visitVarExpr(VarExpr ast, Object o) {
+    VarExpr with = (VarExpr) o;
+    move(ast, with);
+    pair(ast.V, with.V);
+    return null;
+  }
+
+  public Object visitCallExpr(CallExpr ast, Object o) {
+    CallExpr with = (CallExpr) o;
+    move(ast, with);
+    pair(ast.I, with.I);
+    pair(ast.AL, with.AL);
+    return null;
+  }
+
+  public Object visitAssignExpr(AssignExpr ast, Object o) {
+    AssignExpr with = (AssignExpr) o;
+    move(ast, with);
+    pair(ast.E1, with.E1);
+    pair(ast.E2, with.E2);
+    return null;
+  }
+
+  public Object visitEmptyExpr(EmptyExpr ast, Object o) {
+    move(ast, (AST) o);
+    return null;
+  }
+
+  // Literals and identifiers
+
+  public Object visitIntLiteral(IntLiteral ast, Object o) {
+    move(ast, (AST) o);
+    return null;
+  }
+
+  public Object visitFloatLiteral(FloatLiteral ast, Object o) {
+    move(ast, (AST) o);
+    return null;
+  }
+
+  public Object visitBooleanLiteral(BooleanLiteral ast, Object o) {
+    move(ast, (AST) o);
+    return null;
+  }
+
+  public Object visitStringLiteral(StringLiteral ast, Object o) {
+    move(ast, (AST) o);
+    return null;
+  }
+
+  public Object visitIdent(Ident ast, Object o) {
+    move(ast, (AST) o);
+    return null;
+  }
+
+  public Object visitOperator(Operator ast, Object o) {
+    move(ast, (AST) o);
+    return null;
+  }
+
+  // Parameters
+
+  public Object visitParaList(ParaList ast, Object o) {
+    List list = ast, with = (List) o;
+    for (; list instanceof ParaList && with instanceof ParaList;
+         list = ((ParaList) list).PL, with = ((ParaList) with).PL) {
+      move(list, with);
+      pair(((ParaList) list).P, ((ParaList) with).P);
+    }
+    pair(list, with);
+    return null;
+  }
+
+  public Object visitParaDecl(ParaDecl ast, Object o) {
+    moveDecl(ast, (ParaDecl) o);
+    return null;
+  }
+
+  // Arguments
+
+  public Object visitArgList(ArgList ast, Object o) {
+    List list = ast, with = (List) o;
+    for (; list instanceof ArgList && with instanceof ArgList;
+         list = ((ArgList) list).AL, with = ((ArgList) with).AL) {
+      move(list, with);
+      pair(((ArgList) list).A, ((ArgList) with).A);
+    }
+    pair(list, with);
+    return null;
+  }
+
+  public Object visitArg(Arg ast, Object o) {
+    Arg with = (Arg) o;
+    move(ast, with);
+    pair(ast.E, with.E);
+    return null;
+  }
+
+  // Types
+
+  public Object visitVoidType(VoidType ast, Object o) {
+    moveType(ast, o);
+    return null;
+  }
+
+  public Object visitBooleanType(BooleanType ast, Object o) {
+    moveType(ast, o);
+    return null;
+  }
+
+  public Object visitIntType(IntType ast, Object o) {
+    moveType(ast, o);
+    return null;
+  }
+
+  public Object visitFloatType(FloatType ast, Object o) {
+    moveType(ast, o);
+    return null;
+  }
+
+  public Object visitStringType(StringType ast, Object o) {
+    moveType(ast, o);
+    return null;
+  }
+
+  public Object visitArrayType(ArrayType ast, Object o) {
+    ArrayType with = (ArrayType) o;
+    move(ast, with);
+    pair(ast.T, with.T);
+    if (!(ast.E instanceof IntExpr && ast.E.span == Span.NONE))   // not the size taken from the initialiser
+      pair(ast.E, with.E);
+    return null;
+  }
+
+  public Object visitErrorType(ErrorType ast, Object o) {
+    moveType(ast, o);
+    return null;
+  }
+
+  // Variables
+
+  public Object visitSimpleVar(SimpleVar ast, Object o) {
+    SimpleVar with = (SimpleVar) o;
+    move(ast, with);
+    pair(ast.I, with.I);
+    return null;
+  }
+
+}
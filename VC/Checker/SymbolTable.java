@@ -11,6 +11,22 @@
  * openScope: increment the current scope level by 1 
  * closeScope: pop off all entries in the current scope level
  *
+ * Identifiers are compared by reference: every id passed to insert,
+ * retrieve and retrieveOneLevel must be interned by
+ * VC.Scanner.IdentifierPool, as the spellings of Ident nodes and ID
+ * tokens are.
+ *
+ * The table is kept as a persistent map (see VC.ASTs.Scope): each
+ * insert and openScope makes a new immutable Scope that shares all but
+ * a path of the old one, and the stack holds the Scope in effect when
+ * each enclosing level was opened. So retrieve and retrieveOneLevel take
+ * time logarithmic (base 32) in the number of identifiers visible,
+ * closeScope just goes back to the Scope it was opened in, and the
+ * current Scope can be kept (snapshot) and queried later, from any
+ * thread, whatever is done to the table afterwards. A table can also
+ * start from such a Scope rather than from an empty one. The IdEntry
+ * that retrieve returns is made from the binding in the Scope.
+ *
  *
  * In an industry compiler for a block-structured language, it is
  * common to build a new symbol table for each scope and link the
@@ -28,47 +44,46 @@
 package VC.Checker;
 
 import VC.ASTs.*;
+import java.util.ArrayList;
 import java.util.Optional;
 
 public final class SymbolTable {
 
-    private int level;
-    private IdEntry latest;
+    private Scope current;
+    private final ArrayList<Scope> enclosing;
 
     public SymbolTable() {
-        level = 1;
-        latest = null;
+        this(Scope.EMPTY);
+    }
+
+    // Makes a table in which what scope declares is visible, at the
+    // level of scope.
+
+    public SymbolTable(Scope scope) {
+        current = scope;
+        enclosing = new ArrayList<>();
     }
 
     // Opens a new level in the symbol table, 1 higher than the
     // current topmost level.
 
     public void openScope() {
-        level++;
+        enclosing.add(current);
+        current = current.open();
     }
 
     // Closes the topmost level in the symbol table, discarding
     // all entries belonging to that level.
 
     public void closeScope() {
-        IdEntry entry;
-
-        // Presumably, idTable.level > 0.
-        entry = this.latest;
-        while (entry != null && entry.level == this.level) {
-            entry = entry.previousEntry;
-        }
-
-        this.level--;
-        this.latest = entry;
+        current = enclosing.remove(enclosing.size() - 1);
     }
 
     // Makes a new entry in the symbol table for the given identifier
     // and attribute. The new entry belongs to the current scope level.
 
     public void insert(String id, Decl attr) {
-        IdEntry entry = new IdEntry(id, attr, this.level, this.latest);
-        this.latest = entry;
+        current = current.declare(id, attr);
     }
 
     // Finds an entry for the given identifier in the symbol table,
@@ -78,14 +93,8 @@ public final class SymbolTable {
     // or an empty Optional if no entry is found.
 
     public Optional<IdEntry> retrieve(String id) {
-        IdEntry entry = this.latest;
-        while (entry != null) {
-            if (entry.id.equals(id)) {
-                return Optional.of(entry);
-            }
-            entry = entry.previousEntry;
-        }
-        return Optional.empty();
+        Scope.Binding binding = current.binding(id);
+        return (binding != null) ? Optional.of(new IdEntry(binding)) : Optional.empty();
     }
 
     // Used in type checking to find multiply declared names.
@@ -93,18 +102,17 @@ public final class SymbolTable {
     // or an empty Optional otherwise.
 
     public Optional<IdEntry> retrieveOneLevel(String id) {
-        IdEntry entry = this.latest;
-
-        while (entry != null) {
-            if (entry.level != this.level) {
-                return Optional.empty();
-            }
-            if (entry.id.equals(id)) {
-                return Optional.of(entry);
-            }
-            entry = entry.previousEntry;
+        Scope.Binding binding = current.binding(id);
+        if (binding != null && binding.level == current.level()) {
+            return Optional.of(new IdEntry(binding));
         }
-
         return Optional.empty();
     }
+
+    // The Scope in effect now, which later changes to the table leave
+    // as it is.
+
+    public Scope snapshot() {
+        return current;
+    }
 }
@@ -0,0 +1,389 @@
+/*
+ * Unchecker.java
+ *
+ * Returns a subtree that the Checker has checked to the form the parser
+ * built it in, so that it can be checked again (see IncrementalChecker):
+ * it takes out the i2f conversions the checker put in, takes the types
+ * off the spellings of the operators ("i+" back to "+"), empties the
+ * sizes of arrays that were taken from their initialisers, and unlinks
+ * the identifiers from their declarations, the expressions from their
+ * types and the functions and compound statements from their scopes.
+ *
+ * The checker makes its nodes with no span, and the operators of the
+ * program are never spelled with letters, which is how what it did is
+ * told from what the parser did. Lists are walked iteratively, as they
+ * can be longer than the stack is deep.
+ */
+
+package VC.Checker;
+
+import VC.ASTs.*;
+import VC.Scanner.Span;
+
+final class Unchecker implements Visitor {
+
+  void uncheck(AST ast) {
+    ast.visit(this, null);
+  }
+
+  // The expression e, a child of parent, was before the checker
+  // converted it to float. (The checker does not set the parent of the
+  // conversions it puts in.)
+
+  private static Expr plain(Expr e, AST parent) {
+    if (e instanceof UnaryExpr && e.span == Span.NONE
+        && ((UnaryExpr) e).O.spelling.equals("i2f")) {
+      Expr converted = ((UnaryExpr) e).E;
+      converted.parent = parent;
+      Fingerprint.invalidate(parent);
+      return converted;
+    }
+    return e;
+  }
+
+  // Programs
+
+  public Object visitProgram(Program ast, Object o) {
+    ast.FL.visit(this, null);
+    return null;
+  }
+
+  // Lists for denoting the null reference
+
+  public Object visitEmptyDeclList(EmptyDeclList ast, Object o) {
+    return null;
+  }
+
+  public Object visitEmptyStmtList(EmptyStmtList ast, Object o) {
+    return null;
+  }
+
+  public Object visitEmptyArrayExprList(EmptyArrayExprList ast, Object o) {
+    return null;
+  }
+
+  public Object visitEmptyParaList(EmptyParaList ast, Object o) {
+    return null;
+  }
+
+  public Object visitEmptyArgList(EmptyArgList ast, Object o) {
+    return null;
+  }
+
+  // Declarations
+
+  public Object visitDeclList(DeclList ast, Object o) {
+    List list = ast;
+    for (; list instanceof DeclList; list = ((DeclList) list).DL) {
+      ((DeclList) list).D.visit(this, null);
+    }
+    list.visit(this, null);
+    return null;
+  }
+
+  public Object visitFuncDecl(FuncDecl ast, Object o) {
+    ast.scope = null;
+    ast.T.visit(this, null);
+    ast.I.visit(this, null);
+    ast.PL.visit(this, null);
+    ast.S.visit(this, null);
+    return null;
+  }
+
+  public Object visitGlobalVarDecl(GlobalVarDecl ast, Object o) {
+    ast.T.visit(this, null);
+    ast.I.visit(this, null);
+    ast.E = plain(ast.E, ast);
+    ast.E.visit(this, null);
+    return null;
+  }
+
+  public Object visitLocalVarDecl(LocalVarDecl ast, Object o) {
+    ast.T.visit(this, null);
+    ast.I.visit(this, null);
+    ast.E = plain(ast.E, ast);
+    ast.E.visit(this, null);
+    return null;
+  }
+
+  public Object visitErrorDecl(ErrorDecl ast, Object o) {
+    return null;
+  }
+
+  // Stmts
+
+  public Object visitStmtList(StmtList ast, Object o) {
+    List list = ast;
+    for (; list instanceof StmtList; list = ((StmtList) list).SL) {
+      ((StmtList) list).S.visit(this, null);
+    }
+    list.visit(this, null);
+    return null;
+  }
+
+  public Object visitIfStmt(IfStmt ast, Object o) {
+    ast.E.visit(this, null);
+    ast.S1.visit(this, null);
+    ast.S2.visit(this, null);
+    return null;
+  }
+
+  public Object visitWhileStmt(WhileStmt ast, Object o) {
+    ast.E.visit(this, null);
+    ast.S.visit(this, null);
+    return null;
+  }
+
+  public Object visitForStmt(ForStmt ast, Object o) {
+    ast.E1.visit(this, null);
+    ast.E2.visit(this, null);
+    ast.E3.visit(this, null);
+    ast.S.visit(this, null);
+    return null;
+  }
+
+  public Object visitBreakStmt(BreakStmt ast, Object o) {
+    return null;
+  }
+
+  public Object visitContinueStmt(ContinueStmt ast, Object o) {
+    return null;
+  }
+
+  public Object visitReturnStmt(ReturnStmt ast, Object o) {
+    ast.E = plain(ast.E, ast);
+    ast.E.visit(this, null);
+    return null;
+  }
+
+  public Object visitCompoundStmt(CompoundStmt ast, Object o) {
+    ast.scope = null;
+    ast.DL.visit(this, null);
+    ast.SL.visit(this, null);
+    return null;
+  }
+
+  public Object visitExprStmt(ExprStmt ast, Object o) {
+    ast.E.visit(this, null);
+    return null;
+  }
+
+  public Object visitEmptyCompStmt(EmptyCompStmt ast, Object o) {
+    return null;
+  }
+
+  public Object visitEmptyStmt(EmptyStmt ast, Object o) {
+    return null;
+  }
+
+  public Object visitErrorStmt(ErrorStmt ast, Object o) {
+    return null;
+  }
+
+  // Expressions
+
+  public Object visitIntExpr(IntExpr ast, Object o) {
+    ast.type = null;
+    ast.IL.visit(this, null);
+    return null;
+  }
+
+  public Object visitFloatExpr(FloatExpr ast, Object o) {
+    ast.type = null;
+    ast.FL.visit(this, null);
+    return null;
+  }
+
+  public Object visitBooleanExpr(BooleanExpr ast, Object o) {
+    ast.type = null;
+    ast.BL.visit(this, null);
+    return null;
+  }
+
+  public Object visitStringExpr(StringExpr ast, Object o) {
+    ast.type = null;
+    ast.SL.visit(this, null);
+    return null;
+  }
+
+  public Object visitUnaryExpr(UnaryExpr ast, Object o) {
+    ast.type = null;
+    ast.O.visit(this, null);
+    ast.E.visit(this, null);
+    return null;
+  }
+
+  public Object visitBinaryExpr(BinaryExpr ast, Object o) {
+    ast.type = null;
+    ast.E1 = plain(ast.E1, ast);
+    ast.E2 = plain(ast.E2, ast);
+    ast.E1.visit(this, null);
+    ast.O.visit(this, null);
+    ast.E2.visit(this, null);
+    return null;
+  }
+
+  public Object visitArrayInitExpr(ArrayInitExpr ast, Object o) {
+    ast.type = null;
+    ast.IL.visit(this, null);
+    return null;
+  }
+
+  public Object visitArrayExprList(ArrayExprList ast, Object o) {
+    List list = ast;
+    for (; list instanceof ArrayExprList; list = ((ArrayExprList) list).EL) {
+      ArrayExprList cell = (ArrayExprList) list;
+      cell.E = plain(cell.E, cell);
+      cell.E.visit(this, null);
+    }
+    list.visit(this, null);
+    return null;
+  }
+
+  public Object visitArrayExpr(ArrayExpr ast, Object o) {
+    ast.type = null;
+    ast.V.visit(this, null);
+    ast.E.visit(this, null);
+    return null;
+  }
+
+  public Object visitVarExpr(VarExpr ast, Object o) {
+    ast.type = null;
+    ast.V.visit(this, null);
+    return null;
+  }
+
+  public Object visitCallExpr(CallExpr ast, Object o) {
+    ast.type = null;
+    ast.I.visit(this, null);
+    ast.AL.visit(this, null);
+    return null;
+  }
+
+  public Object visitAssignExpr(AssignExpr ast, Object o) {
+    ast.type = null;
+    ast.E2 = plain(ast.E2, ast);
+    ast.E1.visit(this, null);
+    ast.E2.visit(this, null);
+    return null;
+  }
+
+  public Object visitEmptyExpr(EmptyExpr ast, Object o) {
+    ast.type = null;
+    return null;
+  }
+
+  // Literals and identifiers
+
+  public Object visitIntLiteral(IntLiteral ast, Object o) {
+    return null;
+  }
+
+  public Object visitFloatLiteral(FloatLiteral ast, Object o) {
+    return null;
+  }
+
+  public Object visitBooleanLiteral(BooleanLiteral ast, Object o) {
+    return null;
+  }
+
+  public Object visitStringLiteral(StringLiteral ast, Object o) {
+    return null;
+  }
+
+  public Object visitIdent(Ident ast, Object o) {
+    ast.decl = null;
+    ast.symbol = Symbols.NONE;
+    return null;
+  }
+
+  public Object visitOperator(Operator ast, Object o) {
+    String s = ast.spelling;
+    if (s.length() > 1 && Character.isLetter(s.charAt(0))) {
+      ast.spelling = s.substring(1);
+      Fingerprint.invalidate(ast);
+    }
+    return null;
+  }
+
+  // Parameters
+
+  public Object visitParaList(ParaList ast, Object o) {
+    List list = ast;
+    for (; list instanceof ParaList; list = ((ParaList) list).PL) {
+      ((ParaList) list).P.visit(this, null);
+    }
+    list.visit(this, null);
+    return null;
+  }
+
+  public Object visitParaDecl(ParaDecl ast, Object o) {
+    ast.T.visit(this, null);
+    ast.I.visit(this, null);
+    return null;
+  }
+
+  // Arguments
+
+  public Object visitArgList(ArgList ast, Object o) {
+    List list = ast;
+    for (; list instanceof ArgList; list = ((ArgList) list).AL) {
+      ((ArgList) list).A.visit(this, null);
+    }
+    list.visit(this, null);
+    return null;
+  }
+
+  public Object visitArg(Arg ast, Object o) {
+    ast.E = plain(ast.E, ast);
+    ast.E.visit(this, null);
+    return null;
+  }
+
+  // Types
+
+  public Object visitVoidType(VoidType ast, Object o) {
+    return null;
+  }
+
+  public Object visitBooleanType(BooleanType ast, Object o) {
+    return null;
+  }
+
+  public Object visitIntType(IntType ast, Object o) {
+    return null;
+  }
+
+  public Object visitFloatType(FloatType ast, Object o) {
+    return null;
+  }
+
+  public Object visitStringType(StringType ast, Object o) {
+    return null;
+  }
+
+  public Object visitArrayType(ArrayType ast, Object o) {
+    if (ast.E instanceof IntExpr && ast.E.span == Span.NONE) {
+      // the size taken from the initialiser
+      ast.E = new EmptyExpr(ast.span);
+      ast.E.parent = ast;
+      Fingerprint.invalidate(ast);
+    }
+    ast.T.visit(this, null);
+    ast.E.visit(this, null);
+    return null;
+  }
+
+  public Object visitErrorType(ErrorType ast, Object o) {
+    return null;
+  }
+
+  // Variables
+
+  public Object visitSimpleVar(SimpleVar ast, Object o) {
+    ast.type = null;
+    ast.I.visit(this, null);
+    return null;
+  }
+
+}
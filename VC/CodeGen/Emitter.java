@@ -18,12 +18,13 @@ import VC.ASTs.*;
 import VC.ErrorReporter;
 import VC.StdEnvironment;
 
-public final class Emitter implements Visitor {
+public final class Emitter implements TypedVisitor<Void, Frame> {
 
 private ErrorReporter errorReporter;
 private String inputFilename;
 private String classname;
 private String outputFilename;
+private Symbols symbols;  // the declarations numbered by the checker
 
 public Emitter(String inputFilename, ErrorReporter reporter) {
     this.inputFilename = inputFilename;
@@ -40,12 +41,14 @@ public Emitter(String inputFilename, ErrorReporter reporter) {
 // ast must be a Program node
 
 public final void gen(AST ast) {
-    ast.visit(this, null); 
+    visit(ast, null);
     JVM.dump(classname + ".j");
 }
     
 // Programs
-public Object visitProgram(Program ast, Object o) {
+public Void visitProgram(Program ast, Frame o) {
+
+    symbols = ast.symbols;
 
     /* This method works for scalar variables only. You need to add code
      * to handle all array-related declarations and initialisations.
@@ -64,13 +67,11 @@ public Object visitProgram(Program ast, Object o) {
     //
     // This can also be done using a separate visitor.
     List list = ast.FL;
-    while (!list.isEmpty()) {
-    	DeclList dlAST = (DeclList) list;
-    	if (dlAST.D instanceof GlobalVarDecl) {
-            GlobalVarDecl vAST = (GlobalVarDecl) dlAST.D;
+    for (int i = 0; i < list.size(); i++) {
+    	if (list.get(i) instanceof GlobalVarDecl) {
+            GlobalVarDecl vAST = (GlobalVarDecl) list.get(i);
             emit(JVM.STATIC_FIELD, vAST.I.spelling, VCtoJavaType(vAST.T));
         }
-    	list = dlAST.DL;
     }
 
     emit("");
@@ -87,13 +88,11 @@ public Object visitProgram(Program ast, Object o) {
 
     Frame frame = new Frame(false);
 
-    list = ast.FL;
-    while (!list.isEmpty()) {
-    	DeclList dlAST = (DeclList) list;
-    	if (dlAST.D instanceof GlobalVarDecl) {
-            GlobalVarDecl vAST = (GlobalVarDecl) dlAST.D;
+    for (int i = 0; i < list.size(); i++) {
+    	if (list.get(i) instanceof GlobalVarDecl) {
+            GlobalVarDecl vAST = (GlobalVarDecl) list.get(i);
             if (!vAST.E.isEmptyExpr()) {
-            	vAST.E.visit(this, frame);
+            	visit(vAST.E, frame);
             } else {
             	if (vAST.T.equals(StdEnvironment.floatType))
             	    emit(JVM.FCONST_0);
@@ -105,7 +104,6 @@ public Object visitProgram(Program ast, Object o) {
             emitPUTSTATIC(VCtoJavaType(vAST.T), vAST.I.spelling); 
             frame.pop();
     	}
-        list = dlAST.DL;
     }
 
     emit("");
@@ -130,19 +128,18 @@ public Object visitProgram(Program ast, Object o) {
     emit(JVM.RETURN);
     emit(JVM.METHOD_END, "method");
 
-    return ast.FL.visit(this, o);
+    return visit(ast.FL, o);
 }
 
 // Statements
 
-public Object visitStmtList(StmtList ast, Object o) {
-    ast.S.visit(this, o);
-    ast.SL.visit(this, o);
+public Void visitStmtList(StmtList ast, Frame frame) {
+    for (int i = 0; i < ast.size(); i++)
+        visit(ast.get(i), frame);
     return null;
 }
 
-public Object visitCompoundStmt(CompoundStmt ast, Object o) {
-    Frame frame = (Frame) o; 
+public Void visitCompoundStmt(CompoundStmt ast, Frame frame) {
 
     String scopeStart = frame.getNewLabel();
     String scopeEnd = frame.getNewLabel();
@@ -164,12 +161,12 @@ public Object visitCompoundStmt(CompoundStmt ast, Object o) {
             frame.pop();
     	} else {
             emit(JVM.VAR, "0 is this L" + classname + "; from " + (String) frame.scopeStart.peek() + " to " +  (String) frame.scopeEnd.peek());
-        ((FuncDecl) ast.parent).PL.visit(this, o);
+        visit(((FuncDecl) ast.parent).PL, frame);
         }
     }
 
-    ast.DL.visit(this, o);
-    ast.SL.visit(this, o);
+    visit(ast.DL, frame);
+    visit(ast.SL, frame);
     emit(scopeEnd + ":");
 
     frame.scopeStart.pop();
@@ -177,8 +174,7 @@ public Object visitCompoundStmt(CompoundStmt ast, Object o) {
     return null;
 }
 
-Object visitReturnStmt(ReturnStmt ast, Object o) {
-    Frame frame = (Frame)o;
+Void visitReturnStmt(ReturnStmt ast, Frame frame) {
 
 /*
 int main() { return 0; } must be interpretted as 
@@ -196,70 +192,75 @@ must be translated into a RETURN rather than IRETURN instruction.
         
 }
 
-public Object visitEmptyStmtList(EmptyStmtList ast, Object o) {
+public Void visitEmptyStmtList(EmptyStmtList ast, Frame frame) {
+    return null;
+}
+
+public Void visitEmptyCompStmt(EmptyCompStmt ast, Frame frame) {
     return null;
 }
 
-public Object visitEmptyCompStmt(EmptyCompStmt ast, Object o) {
+public Void visitEmptyStmt(EmptyStmt ast, Frame frame) {
     return null;
 }
 
-public Object visitEmptyStmt(EmptyStmt ast, Object o) {
+// No code is generated for a program with syntax errors.
+
+public Void visitErrorStmt(ErrorStmt ast, Frame frame) {
     return null;
 }
 
 // Expressions
 
-public Object visitCallExpr(CallExpr ast, Object o) {
-    Frame frame = (Frame) o;
+public Void visitCallExpr(CallExpr ast, Frame frame) {
     String fname = ast.I.spelling;
 
     if (fname.equals("getInt")) {
-    	ast.AL.visit(this, o); // push args (if any) into the op stack
+    	visit(ast.AL, frame); // push args (if any) into the op stack
     	emit("invokestatic VC/lang/System/getInt()I");
     	frame.push();
     } else if (fname.equals("putInt")) {
-    	ast.AL.visit(this, o); // push args (if any) into the op stack
+    	visit(ast.AL, frame); // push args (if any) into the op stack
     	emit("invokestatic VC/lang/System/putInt(I)V");
     	frame.pop();
     } else if (fname.equals("putIntLn")) {
-    	ast.AL.visit(this, o); // push args (if any) into the op stack
+    	visit(ast.AL, frame); // push args (if any) into the op stack
     	emit("invokestatic VC/lang/System/putIntLn(I)V");
     	frame.pop();
     } else if (fname.equals("getFloat")) {
-    	ast.AL.visit(this, o); // push args (if any) into the op stack
+    	visit(ast.AL, frame); // push args (if any) into the op stack
     	emit("invokestatic VC/lang/System/getFloat()F");
     	frame.push();
     } else if (fname.equals("putFloat")) {
-    	ast.AL.visit(this, o); // push args (if any) into the op stack
+    	visit(ast.AL, frame); // push args (if any) into the op stack
     	emit("invokestatic VC/lang/System/putFloat(F)V");
     	frame.pop();
     } else if (fname.equals("putFloatLn")) {
-    	ast.AL.visit(this, o); // push args (if any) into the op stack
+    	visit(ast.AL, frame); // push args (if any) into the op stack
     	emit("invokestatic VC/lang/System/putFloatLn(F)V");
     	frame.pop();
     } else if (fname.equals("putBool")) {
-    	ast.AL.visit(this, o); // push args (if any) into the op stack
+    	visit(ast.AL, frame); // push args (if any) into the op stack
     	emit("invokestatic VC/lang/System/putBool(Z)V");
     	frame.pop();
     } else if (fname.equals("putBoolLn")) {
-    	ast.AL.visit(this, o); // push args (if any) into the op stack
+    	visit(ast.AL, frame); // push args (if any) into the op stack
     	emit("invokestatic VC/lang/System/putBoolLn(Z)V");
     	frame.pop();
     } else if (fname.equals("putString")) {
-    	ast.AL.visit(this, o);
+    	visit(ast.AL, frame);
     	emit(JVM.INVOKESTATIC, "VC/lang/System/putString(Ljava/lang/String;)V");
     	frame.pop();
     } else if (fname.equals("putStringLn")) {
-    	ast.AL.visit(this, o);
+    	visit(ast.AL, frame);
     	emit(JVM.INVOKESTATIC, "VC/lang/System/putStringLn(Ljava/lang/String;)V");
     	frame.pop();
     } else if (fname.equals("putLn")) {
-    	ast.AL.visit(this, o); // push args (if any) into the op stack
+    	visit(ast.AL, frame); // push args (if any) into the op stack
     	emit("invokestatic VC/lang/System/putLn()V");
     } else { // programmer-defined functions
 
-    	FuncDecl fAST = (FuncDecl) ast.I.decl;
+    	FuncDecl fAST = (FuncDecl) symbols.decl(ast.I.symbol);
 
     	// all functions except main are assumed to be instance methods
     	if (frame.isMain()) 
@@ -269,7 +270,7 @@ public Object visitCallExpr(CallExpr ast, Object o) {
 
         frame.push();
 
-    	ast.AL.visit(this, o);
+    	visit(ast.AL, frame);
     
     	String retType = VCtoJavaType(fAST.T);
     
@@ -279,15 +280,14 @@ public Object visitCallExpr(CallExpr ast, Object o) {
 
     	StringBuffer argsTypes = new StringBuffer("");
     	List fpl = fAST.PL;
-    	while (! fpl.isEmpty()) {
-            if (((ParaList) fpl).P.T.equals(StdEnvironment.booleanType))
+    	for (int i = 0; i < fpl.size(); i++) {
+            Type T = ((ParaDecl) fpl.get(i)).T;
+            if (T.equals(StdEnvironment.booleanType))
         	argsTypes.append("Z");         
-            else if (((ParaList) fpl).P.T.equals(StdEnvironment.intType))
+            else if (T.equals(StdEnvironment.intType))
         	argsTypes.append("I");         
             else
         	argsTypes.append("F");         
-
-            fpl = ((ParaList) fpl).PL;
      	}
     
     	emit("invokevirtual", classname + "/" + fname + "(" + argsTypes + ")" + retType);
@@ -299,43 +299,43 @@ public Object visitCallExpr(CallExpr ast, Object o) {
     return null;
 }
 
-public Object visitEmptyExpr(EmptyExpr ast, Object o) {
+public Void visitEmptyExpr(EmptyExpr ast, Frame frame) {
     return null;
 }
 
-public Object visitIntExpr(IntExpr ast, Object o) {
-    ast.IL.visit(this, o);
+public Void visitIntExpr(IntExpr ast, Frame frame) {
+    visit(ast.IL, frame);
     return null;
 }
 
-public Object visitFloatExpr(FloatExpr ast, Object o) {
-    ast.FL.visit(this, o);
+public Void visitFloatExpr(FloatExpr ast, Frame frame) {
+    visit(ast.FL, frame);
     return null;
 }
 
-public Object visitBooleanExpr(BooleanExpr ast, Object o) {
-    ast.BL.visit(this, o);
+public Void visitBooleanExpr(BooleanExpr ast, Frame frame) {
+    visit(ast.BL, frame);
     return null;
 }
 
-public Object visitStringExpr(StringExpr ast, Object o) {
-    ast.SL.visit(this, o);
+public Void visitStringExpr(StringExpr ast, Frame frame) {
+    visit(ast.SL, frame);
     return null;
 }
 
 // Declarations
 
-public Object visitDeclList(DeclList ast, Object o) {
-    ast.D.visit(this, o);
-    ast.DL.visit(this, o);
+public Void visitDeclList(DeclList ast, Frame frame) {
+    for (int i = 0; i < ast.size(); i++)
+        visit(ast.get(i), frame);
     return null;
 }
 
-public Object visitEmptyDeclList(EmptyDeclList ast, Object o) {
+public Void visitEmptyDeclList(EmptyDeclList ast, Frame frame) {
     return null;
 }
 
-public Object visitFuncDecl(FuncDecl ast, Object o) {
+public Void visitFuncDecl(FuncDecl ast, Frame o) {
 
     Frame frame; 
 
@@ -370,20 +370,20 @@ public Object visitFuncDecl(FuncDecl ast, Object o) {
 
     	StringBuffer argsTypes = new StringBuffer("");
     	List fpl = ast.PL;
-    	while (! fpl.isEmpty()) {
-            if (((ParaList) fpl).P.T.equals(StdEnvironment.booleanType))
+    	for (int i = 0; i < fpl.size(); i++) {
+            Type T = ((ParaDecl) fpl.get(i)).T;
+            if (T.equals(StdEnvironment.booleanType))
         	argsTypes.append("Z");         
-            else if (((ParaList) fpl).P.T.equals(StdEnvironment.intType))
+            else if (T.equals(StdEnvironment.intType))
         	argsTypes.append("I");         
             else
         	argsTypes.append("F");         
-        fpl = ((ParaList) fpl).PL;
     }
 
     emit(JVM.METHOD_START, ast.I.spelling + "(" + argsTypes + ")" + retType);
     }
 
-    ast.S.visit(this, frame);
+    visit(ast.S, frame);
 
     // JVM requires an explicit return in every method. 
     // In VC, a function returning void may not contain a return, and
@@ -412,23 +412,23 @@ public Object visitFuncDecl(FuncDecl ast, Object o) {
     return null;
 }
 
-public Object visitGlobalVarDecl(GlobalVarDecl ast, Object o) {
+public Void visitGlobalVarDecl(GlobalVarDecl ast, Frame frame) {
     // nothing to be done
     return null;
 }
 
-public Object visitLocalVarDecl(LocalVarDecl ast, Object o) {
+public Void visitLocalVarDecl(LocalVarDecl ast, Frame frame) {
 
     /* You need to add code to handle arrays */
 
-    Frame frame = (Frame) o;
     ast.index = frame.getNewIndex();
+    symbols.setSlot(ast.symbol, ast.index);
     String T = VCtoJavaType(ast.T);
 
     emit(JVM.VAR + " " + ast.index + " is " + ast.I.spelling + " " + T + " from " + (String) frame.scopeStart.peek() + " to " +  (String) frame.scopeEnd.peek());
 
     if (!ast.E.isEmptyExpr()) {
-    	ast.E.visit(this, o);
+    	visit(ast.E, frame);
 
     	if (ast.T.equals(StdEnvironment.floatType)) {
             emitFSTORE(ast.I);
@@ -441,110 +441,110 @@ public Object visitLocalVarDecl(LocalVarDecl ast, Object o) {
     return null;
 }
 
+public Void visitErrorDecl(ErrorDecl ast, Frame frame) {
+    return null;
+}
+
 // Parameters
 
-public Object visitParaList(ParaList ast, Object o) {
-    ast.P.visit(this, o);
-    ast.PL.visit(this, o);
+public Void visitParaList(ParaList ast, Frame frame) {
+    for (int i = 0; i < ast.size(); i++)
+        visit(ast.get(i), frame);
     return null;
 }
 
-public Object visitParaDecl(ParaDecl ast, Object o) {
+public Void visitParaDecl(ParaDecl ast, Frame frame) {
 
     /* You need to add code to handle arrays */
 
-    Frame frame = (Frame) o;
     ast.index = frame.getNewIndex();
+    symbols.setSlot(ast.symbol, ast.index);
     String T = VCtoJavaType(ast.T);
 
     emit(JVM.VAR + " " + ast.index + " is " + ast.I.spelling + " " + T + " from " + (String) frame.scopeStart.peek() + " to " +  (String) frame.scopeEnd.peek());
     return null;
 }
 
-public Object visitEmptyParaList(EmptyParaList ast, Object o) {
+public Void visitEmptyParaList(EmptyParaList ast, Frame frame) {
     return null;
 }
 
 // Arguments
 
-public Object visitArgList(ArgList ast, Object o) {
-    ast.A.visit(this, o);
-    ast.AL.visit(this, o);
+public Void visitArgList(ArgList ast, Frame frame) {
+    for (int i = 0; i < ast.size(); i++)
+        visit(ast.get(i), frame);
     return null;
 }
 
-public Object visitArg(Arg ast, Object o) {
-    ast.E.visit(this, o);
+public Void visitArg(Arg ast, Frame frame) {
+    visit(ast.E, frame);
     return null;
 }
 
-public Object visitEmptyArgList(EmptyArgList ast, Object o) {
+public Void visitEmptyArgList(EmptyArgList ast, Frame frame) {
     return null;
 }
 
 // Types
 
-public Object visitIntType(IntType ast, Object o) {
+public Void visitIntType(IntType ast, Frame frame) {
     return null;
 }
 
-public Object visitFloatType(FloatType ast, Object o) {
+public Void visitFloatType(FloatType ast, Frame frame) {
     return null;
 }
 
-public Object visitBooleanType(BooleanType ast, Object o) {
+public Void visitBooleanType(BooleanType ast, Frame frame) {
     return null;
 }
 
-public Object visitVoidType(VoidType ast, Object o) {
+public Void visitVoidType(VoidType ast, Frame frame) {
     return null;
 }
 
-public Object visitErrorType(ErrorType ast, Object o) {
+public Void visitErrorType(ErrorType ast, Frame frame) {
     return null;
 }
 
 // Literals, Identifiers and Operators 
 
-public Object visitIdent(Ident ast, Object o) {
+public Void visitIdent(Ident ast, Frame frame) {
     return null;
 }
 
-public Object visitIntLiteral(IntLiteral ast, Object o) {
-    Frame frame = (Frame) o;
+public Void visitIntLiteral(IntLiteral ast, Frame frame) {
     emitICONST(Integer.parseInt(ast.spelling));
     frame.push();
     return null;
 }
 
-public Object visitFloatLiteral(FloatLiteral ast, Object o) {
-    Frame frame = (Frame) o;
+public Void visitFloatLiteral(FloatLiteral ast, Frame frame) {
     emitFCONST(Float.parseFloat(ast.spelling));
     frame.push();
     return null;
 }
 
-public Object visitBooleanLiteral(BooleanLiteral ast, Object o) {
-    Frame frame = (Frame) o;
+public Void visitBooleanLiteral(BooleanLiteral ast, Frame frame) {
     emitBCONST(ast.spelling.equals("true"));
     frame.push();
     return null;
 }
 
-public Object visitStringLiteral(StringLiteral ast, Object o) {
-    Frame frame = (Frame) o;
+public Void visitStringLiteral(StringLiteral ast, Frame frame) {
     emit(JVM.LDC, "\"" + ast.spelling.replace("\"","\\\"") + "\"");
     frame.push();
     return null;
 }
 
-public Object visitOperator(Operator ast, Object o) {
+public Void visitOperator(Operator ast, Frame frame) {
     return null;
 }
 
 // Variables 
 
-public Object visitSimpleVar(SimpleVar ast, Object o) {
+public Void visitSimpleVar(SimpleVar ast, Frame frame) {
     return null;
 }
 
@@ -656,11 +656,7 @@ private void emitGETSTATIC(String T, String I) {
 }
 
 private void emitISTORE(Ident ast) {
-    int index;
-    if (ast.decl instanceof ParaDecl)
-    	index = ((ParaDecl) ast.decl).index; 
-    else
-    	index = ((LocalVarDecl) ast.decl).index; 
+    int index = symbols.slot(ast.symbol);
     
     if (index >= 0 && index <= 3) 
     	emit(JVM.ISTORE + "_" + index); 
@@ -669,11 +665,7 @@ private void emitISTORE(Ident ast) {
 }
 
 private void emitFSTORE(Ident ast) {
-    int index;
-    if (ast.decl instanceof ParaDecl)
-    	index = ((ParaDecl) ast.decl).index; 
-    else
-    	index = ((LocalVarDecl) ast.decl).index; 
+    int index = symbols.slot(ast.symbol);
     if (index >= 0 && index <= 3) 
     	emit(JVM.FSTORE + "_" + index); 
     else
@@ -716,14 +708,16 @@ private void emitBCONST(boolean value) {
 }
 
 private String VCtoJavaType(Type t) {
-    if (t.equals(StdEnvironment.booleanType))
-    	return "Z";
-    else if (t.equals(StdEnvironment.intType))
-    	return "I";
-    else if (t.equals(StdEnvironment.floatType))
-    	return "F";
-    else // if (t.equals(StdEnvironment.voidType))
-    	return "V";
+    switch (t.code()) {
+    	case Types.BOOLEAN:
+    	    return "Z";
+    	case Types.INT:
+    	    return "I";
+    	case Types.FLOAT:
+    	    return "F";
+    	default: // Types.VOID
+    	    return "V";
+    }
 }
 
 }
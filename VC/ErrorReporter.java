@@ -4,14 +4,26 @@
 
 package VC;
 
+import VC.Scanner.LineTable;
 import VC.Scanner.SourcePosition;
 
 public class ErrorReporter {
 
     private int numErrors;
+    private final LineTable lines;
 
     public ErrorReporter() {
+        this(null);
+    }
+
+    /**
+     * Creates a reporter that can report errors at spans in a program.
+     *
+     * @param lines The line table of the program's source file
+     */
+    public ErrorReporter(LineTable lines) {
         numErrors = 0;
+        this.lines = lines;
     }
 
     /**
@@ -38,6 +50,18 @@ public class ErrorReporter {
         numErrors++;
     }
 
+    /**
+     * Reports an error message at a span (see Span.java), which is
+     * resolved to lines and columns only now.
+     *
+     * @param message The error message template
+     * @param tokenName The token causing the error
+     * @param span The span of the error in the source file
+     */
+    public void reportError(String message, String tokenName, long span) {
+        reportError(message, tokenName, lines.position(span));
+    }
+
     /**
      * Not used this year
      *
@@ -0,0 +1,175 @@
+/*
+ * ParallelParser.java
+ *
+ * Parses the bodies of the functions of a program on a fork-join pool,
+ * ahead of the Parser that parses the program.
+ *
+ * A pre-pass over the kinds of the tokens finds where each body starts.
+ * Outside braces, a "{" that follows a ")" can only start the body of a
+ * function, after its parameter list, and matching braces skips the
+ * pre-pass over the body to the next declaration. Each body is then
+ * parsed by the parseCompoundStmt of a Parser of its own, whose errors
+ * are buffered rather than reported.
+ *
+ * What a compound statement parses to depends only on the tokens from
+ * its "{" on. So when the Parser of the program reaches a function body
+ * at one of these tokens, it takes the tree parsed there, reports the
+ * buffered errors in their place and carries on after the body, exactly
+ * as if it had parsed the body itself: the tree and the errors, and
+ * their order, are those of a sequential parse. The body parsers recover
+ * from syntax errors as the Parser does, but leave the error limit to it.
+ * A body that the Parser never reaches (because a syntax error fooled the
+ * pre-pass, or the error limit was reached) is dropped.
+ */
+
+package VC.Parser;
+
+import VC.ErrorReporter;
+import VC.ASTs.Stmt;
+import VC.Scanner.Token;
+import VC.Scanner.TokenStream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+final class ParallelParser {
+
+  // A function body parsed in advance.
+
+  static final class Body {
+    final int start;              // the index of its "{"
+    Stmt ast;                     // null if it has a syntax error
+    Parser parser;                // the parser that parsed it, as it was left
+    final Diagnostics diagnostics = new Diagnostics();
+
+    Body(int start) {
+      this.start = start;
+    }
+  }
+
+  // The errors reported while a body is parsed, in order, to be
+  // reported again in their place by the Parser of the program.
+
+  static final class Diagnostics extends ErrorReporter {
+    private final ArrayList<String> messages = new ArrayList<>();
+    private final ArrayList<String> tokenNames = new ArrayList<>();
+    private long[] spans = new long[4];
+    private boolean[] syntactic = new boolean[4];
+
+    @Override
+    public void reportError(String message, String tokenName, long span) {
+      int i = messages.size();
+      if (i == spans.length) {
+        spans = Arrays.copyOf(spans, 2 * i);
+        syntactic = Arrays.copyOf(syntactic, 2 * i);
+      }
+      messages.add(message);
+      tokenNames.add(tokenName);
+      spans[i] = span;
+    }
+
+    // Marks the error reported last as a syntax error, after which the
+    // Parser of the program checks its error limit.
+
+    void syntaxErrorReported() {
+      syntactic[messages.size() - 1] = true;
+    }
+
+    // Reports the errors to reporter, stopping with false, without
+    // reporting it, at a syntax error found once limit errors have been
+    // reported.
+
+    boolean replay(ErrorReporter reporter, int limit) {
+      for (int i = 0; i < messages.size(); i++) {
+        if (syntactic[i] && reporter.getNumErrors() >= limit)
+          return false;
+        reporter.reportError(messages.get(i), tokenNames.get(i), spans[i]);
+      }
+      return true;
+    }
+  }
+
+  private final TokenStream tokens;
+  private final Body[] bodies;
+
+  ParallelParser(TokenStream tokens) {
+    this.tokens = tokens;
+    this.bodies = findBodies(tokens);
+  }
+
+  private static Body[] findBodies(TokenStream tokens) {
+    ArrayList<Body> bodies = new ArrayList<>();
+    int depth = 0;
+    int previous = Token.EOF;
+    for (int i = 0; i < tokens.size(); i++) {
+      int kind = tokens.kind(i);
+      if (kind == Token.LCURLY) {
+        if (depth == 0 && previous == Token.RPAREN)
+          bodies.add(new Body(i));
+        depth++;
+      } else if (kind == Token.RCURLY && depth > 0) {
+        depth--;
+      }
+      previous = kind;
+    }
+    return bodies.toArray(new Body[0]);
+  }
+
+  // Parses all the bodies on pool.
+
+  ParallelParser parse(ForkJoinPool pool) {
+    if (bodies.length > 0)
+      pool.invoke(new ParseBodies(0, bodies.length));
+    return this;
+  }
+
+  private void parseBody(Body body) {
+    body.parser = new Parser(tokens.cursor(body.diagnostics, body.start + 1),
+                             body.diagnostics, tokens.token(body.start));
+    try {
+      body.ast = body.parser.parseCompoundStmt();
+    } catch (SyntaxError s) {
+      body.ast = null;
+    }
+  }
+
+  @SuppressWarnings("serial")  // a task is never serialized
+  private final class ParseBodies extends RecursiveAction {
+    private final int lo, hi;
+
+    ParseBodies(int lo, int hi) {
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    @Override
+    protected void compute() {
+      if (hi - lo == 1) {
+        parseBody(bodies[lo]);
+      } else {
+        int mid = (lo + hi) >>> 1;
+        invokeAll(new ParseBodies(lo, mid), new ParseBodies(mid, hi));
+      }
+    }
+  }
+
+  // Returns the body parsed from the "{" at token index start, or null
+  // if none was.
+
+  Body body(int start) {
+    int lo = 0, hi = bodies.length - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      if (bodies[mid].start < start)
+        lo = mid + 1;
+      else if (bodies[mid].start > start)
+        hi = mid - 1;
+      else
+        return bodies[mid];
+    }
+    return null;
+  }
+
+}
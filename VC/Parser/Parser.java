@@ -60,73 +60,253 @@ primary-expr        -> identifier
 package VC.Parser;
 
 import VC.Scanner.Scanner;
-import VC.Scanner.SourcePosition;
+import VC.Scanner.Span;
 import VC.Scanner.Token;
+import VC.Scanner.TokenCursor;
+import VC.Scanner.TokenStream;
 import VC.ErrorReporter;
 import VC.ASTs.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
 public class Parser {
 
   private Scanner scanner;
+  private TokenCursor cursor;   // used instead of scanner if not null
   private ErrorReporter errorReporter;
   private Token currentToken;
-  private SourcePosition previousTokenPosition;
-  private SourcePosition dummyPos = new SourcePosition();
+  private long previousTokenSpan;
+  private ParallelParser bodies; // the function bodies parsed in advance, if not null
+  private static final long dummyPos = Span.NONE;
+
+  // error recovery (see ERROR RECOVERY below)
+  public static final int DEFAULT_ERROR_LIMIT = 100;
+  private int errorLimit = DEFAULT_ERROR_LIMIT;
+  private boolean tooManyErrors;
+  private int lastErrorOffset = -1;  // where the last syntax error reported is
+  private int recoveries;            // the number of error nodes built
+  private ParallelParser.Diagnostics diagnostics; // for a function body only
 
   public Parser (Scanner lexer, ErrorReporter reporter) {
     scanner = lexer;
     errorReporter = reporter;
 
-    previousTokenPosition = new SourcePosition();
+    previousTokenSpan = Span.NONE;
 
     currentToken = scanner.getToken();
   }
 
+  // Parses a program already lexed into a TokenStream.
+
+  public Parser (TokenCursor tokens, ErrorReporter reporter) {
+    cursor = tokens;
+    errorReporter = reporter;
+
+    previousTokenSpan = Span.NONE;
+
+    currentToken = nextToken();
+  }
+
+  // Parses a program already lexed into a TokenStream, with the bodies
+  // of its functions parsed in parallel on pool (see ParallelParser).
+  // The AST, and the errors reported, are those of a sequential parse.
+
+  public Parser (TokenStream tokens, ErrorReporter reporter, ForkJoinPool pool) {
+    this(tokens.cursor(reporter), reporter);
+
+    bodies = new ParallelParser(tokens).parse(pool);
+  }
+
+  // Parses a function body for ParallelParser from its "{", which is
+  // current, with the cursor at the token after it. The error limit is
+  // left to the Parser that takes the body.
+
+  Parser (TokenCursor tokens, ParallelParser.Diagnostics reporter, Token current) {
+    cursor = tokens;
+    errorReporter = diagnostics = reporter;
+    errorLimit = Integer.MAX_VALUE;
+
+    previousTokenSpan = Span.NONE;
+
+    currentToken = current;
+  }
+
+  // Makes the parser give up at a syntax error found once this many
+  // errors, lexical or syntactic, have been reported (without reporting
+  // it); parseProgram then returns null.
+
+  public void setErrorLimit(int limit) {
+    errorLimit = limit;
+  }
+
+  // Whether the parser gave up because of the error limit, that is,
+  // whether an error was left unreported.
+
+  public boolean reachedErrorLimit() {
+    return tooManyErrors;
+  }
+
+  private Token nextToken() {
+    return (cursor != null) ? cursor.getToken() : scanner.getToken();
+  }
+
 // match checks to see f the current token matches tokenExpected.
 // If so, fetches the next token.
 // If not, reports a syntactic error.
 
   void match(int tokenExpected) throws SyntaxError {
     if (currentToken.kind == tokenExpected) {
-      previousTokenPosition = currentToken.position;
-      currentToken = scanner.getToken();
+      previousTokenSpan = currentToken.span;
+      currentToken = nextToken();
     } else {
       syntacticError("\"%\" expected here", Token.spell(tokenExpected));
     }
   }
 
   void accept() {
-    previousTokenPosition = currentToken.position;
-    currentToken = scanner.getToken();
+    previousTokenSpan = currentToken.span;
+    currentToken = nextToken();
   }
 
   void syntacticError(String messageTemplate, String tokenQuoted) throws SyntaxError {
-    SourcePosition pos = currentToken.position;
-    errorReporter.reportError(messageTemplate, tokenQuoted, pos);
+    long pos = currentToken.span;
+    // An error no further on than the last one is a consequence of
+    // recovering from that one, so it is not reported.
+    // One found once errorLimit errors have been reported is not
+    // reported either, and the parser gives up.
+    if (Span.start(pos) > lastErrorOffset) {
+      lastErrorOffset = Span.start(pos);
+      if (errorReporter.getNumErrors() >= errorLimit) {
+        tooManyErrors = true;
+      } else {
+        errorReporter.reportError(messageTemplate, tokenQuoted, pos);
+        if (diagnostics != null)
+          diagnostics.syntaxErrorReported();
+      }
+    }
     throw(new SyntaxError());
   }
 
-// start records the position of the start of a phrase.
-// This is defined to be the position of the first
+// ========================== ERROR RECOVERY ========================
+// After a syntax error, the parser skips to where a statement or a
+// declaration can start again, builds an ErrorStmt or an ErrorDecl for
+// what it skipped and carries on, until it finds a syntax error after
+// errorLimit errors have been reported. Statements resynchronise at a ";" or a "}", and top-level
+// declarations at a type keyword outside braces.
+
+// skipStatement skips the tokens up to and including the ";" that ends
+// the current statement, or the "}" that closes a block it opens, and
+// stops before a "}" that closes the block the statement is in.
+
+  private void skipStatement() {
+    int depth = 0;
+    while (currentToken.kind != Token.EOF) {
+      int kind = currentToken.kind;
+      if (kind == Token.RCURLY && depth == 0)
+        return;
+      accept();
+      if (kind == Token.LCURLY) {
+        depth++;
+      } else if (kind == Token.RCURLY) {
+        if (--depth == 0)
+          return;
+      } else if (kind == Token.SEMICOLON && depth == 0) {
+        return;
+      }
+    }
+  }
+
+// skipDeclaration skips the tokens up to the type keyword, outside
+// braces, that starts the next top-level declaration.
+
+  private void skipDeclaration() {
+    int depth = 0;
+    do {
+      if (currentToken.kind == Token.LCURLY)
+        depth++;
+      else if (currentToken.kind == Token.RCURLY && depth > 0)
+        depth--;
+      accept();
+    } while (currentToken.kind != Token.EOF
+             && (depth > 0 || !isTypeToken(currentToken.kind)));
+  }
+
+// start returns the span of a phrase starting at the current token.
+// Its start is defined to be the position of the first
 // character of the first token of the phrase.
 
-  void start(SourcePosition position) {
-    position.lineStart = currentToken.position.lineStart;
-    position.charStart = currentToken.position.charStart;
+  long start() {
+    return Span.withStart(Span.NONE, currentToken.span);
   }
 
-// finish records the position of the end of a phrase.
+// finish returns span completed with the end of the phrase.
 // This is defined to be the position of the last
 // character of the last token of the phrase.
 
-  void finish(SourcePosition position) {
-    position.lineFinish = previousTokenPosition.lineFinish;
-    position.charFinish = previousTokenPosition.charFinish;
+  long finish(long span) {
+    return Span.withFinish(span, previousTokenSpan);
+  }
+
+// A declaration, and the array type and array size parsed for it, all
+// take the span of the declaration list (or parameter) that the
+// declaration starts, which ends with the last declaration of the list.
+// A node whose span is changed (one of a reused declaration) has its
+// fingerprints forgotten. The size that the checker fills in for an
+// array declared without one has no span, and is left so (Unchecker
+// tells it by that).
+
+  private void shareSpan(Decl dAST, long span) {
+    setSpan(dAST, span);
+    if (dAST.T instanceof ArrayType) {
+      ArrayType atAST = (ArrayType) dAST.T;
+      setSpan(atAST, span);
+      if (atAST.E.span != Span.NONE)
+        setSpan(atAST.E, span);
+    }
+  }
+
+  private static void setSpan(AST ast, long span) {
+    if (ast.span != span) {
+      ast.span = span;
+      Fingerprint.invalidateSpans(ast);
+    }
   }
 
-  void copyStart(SourcePosition from, SourcePosition to) {
-    to.lineStart = from.lineStart;
-    to.charStart = from.charStart;
+// The elements of a list, each with the span of the list node that it
+// heads, as collected by the loops that parse lists. A list is parsed
+// iteratively, so that a long one does not overflow the stack, and its
+// nodes are linked back to front once its last element is parsed, when
+// every span, which ends with the list, can be finished.
+
+  private static final class Elements<T extends AST> {
+    private Object[] elements = new Object[8];
+    private long[] spans = new long[8];
+    private int size;
+
+    void add(T element, long span) {
+      if (size == elements.length) {
+        elements = Arrays.copyOf(elements, 2 * size);
+        spans = Arrays.copyOf(spans, 2 * size);
+      }
+      elements[size] = element;
+      spans[size] = span;
+      size++;
+    }
+
+    int size() {
+      return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    T get(int i) {
+      return (T) elements[i];
+    }
+
+    long span(int i) {
+      return spans[i];
+    }
   }
 
 // ========================== PROGRAMS ========================
@@ -135,16 +315,14 @@ public class Parser {
 
     Program programAST = null;
 
-    SourcePosition programPos = new SourcePosition();
-    start(programPos);
+    long programPos = start();
     List dlAST = new EmptyDeclList(dummyPos);
     try {
         if (currentToken.kind != Token.EOF) {
-            Type tAST = parseType();
-            dlAST = parseDeclList(tAST);
+            dlAST = parseDeclList();
         }
         match(Token.EOF);
-        finish(programPos);
+        programPos = finish(programPos);
         programAST = new Program(dlAST, programPos);
     } catch (SyntaxError s) {
         return null;
@@ -152,44 +330,329 @@ public class Parser {
     return programAST;
   }
 
+// ===================== INCREMENTAL REPARSING =====================
+// After an edit, reparse gives the AST of the edited program by parsing
+// again only the top-level declarations around the edit and reusing the
+// others.
+//
+// The top-level declarations fall into units: a function, or the
+// variables declared with one type, together with any ErrorDecls after
+// it. Each unit starts at the token of its type, where parseDecls is at
+// the top of its loop, and what parseDecls does from there on depends
+// only on the tokens from there on. So the edited program is parsed
+// from the start of the unit before the first changed token (or of an
+// earlier unit with an error, whose errors have to be reported again)
+// until parseDecls comes to the start of a unit after the last changed
+// token, from which on no unit has an error. The units before and after
+// the ones parsed are reused, those after with their spans moved by the
+// change in length. The tree, and the errors reported, are those of a
+// full parse of the edited program.
+
+// reparse returns the AST of the program with tokens change.stream,
+// given the AST, as the parser built it, of the program before the
+// edit. The nodes of declarations that are reused are taken out of
+// that AST, so it must not be used any more. Errors are reported to
+// reporter as by parseProgram, which should not have reported any yet.
+//
+// Apart from walking the list of top-level declarations, the work done
+// depends on the declarations parsed again rather than on the length
+// of the program, except that the spans of the nodes after the edit
+// have to be moved when the edit changes the length of the program.
+
+  public static Program reparse(Program program, TokenStream.Change change,
+                                ErrorReporter reporter) {
+    TokenStream tokens = change.stream;
+    Units units = (program == null) ? null : new Units(program, change);
+    if (units == null || units.count == 0)
+      return new Parser(tokens.cursor(reporter), reporter).parseProgram();
+
+    // parse from the unit before the first changed token, or from the
+    // first unit with an error before that
+    int lo = 0, hi = units.count - 1;
+    while (lo < hi) {
+      int mid = (lo + hi + 1) >>> 1;
+      int start = units.start(mid);
+      if (start >= 0 && start < change.first)
+        lo = mid;
+      else
+        hi = mid - 1;
+    }
+    int from = lo;
+    for (int i = 0; i < units.first[from]; i++) {
+      if (units.decls.get(i).hasErrors) {
+        from = units.unitOf(i);
+        break;
+      }
+    }
+    if (tokens.hasErrors(0, units.start(from))) {
+      lo = 0;
+      hi = from;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (tokens.hasErrors(0, units.start(mid + 1)))
+          hi = mid;
+        else
+          lo = mid + 1;
+      }
+      from = lo;
+    }
+
+    // to a unit after the last changed token from which on no unit has
+    // an error
+    lo = from + 1;
+    hi = units.count;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (units.start(mid) >= change.oldEnd)
+        hi = mid;
+      else
+        lo = mid + 1;
+    }
+    int to = lo;
+    for (int i = units.decls.size() - 1; i >= units.first[to]; i--) {
+      if (units.decls.get(i).hasErrors) {
+        to = units.unitOf(i) + 1;
+        break;
+      }
+    }
+    if (to < units.count && tokens.hasErrors(units.newStart(to), tokens.size())) {
+      lo = to;
+      hi = units.count - 1;
+      while (lo < hi) {
+        int mid = (lo + hi + 1) >>> 1;
+        if (tokens.hasErrors(units.newStart(mid), tokens.size()))
+          lo = mid;
+        else
+          hi = mid - 1;
+      }
+      to = lo + 1;
+    }
+    units.resumeFrom(to);
+
+    int start = units.start(from);
+    Parser parser = new Parser(tokens.cursor(reporter, start), reporter);
+    if (start > 0)
+      parser.previousTokenSpan = tokens.span(start - 1);
+    return parser.reparseDecls(units, from, change.delta);
+  }
+
+// The top-level declarations of a program before an edit, in units. The
+// token that a unit starts at is found when it is first asked for.
+
+  private static final class Units {
+    final ArrayList<Decl> decls = new ArrayList<>();
+    final int count;
+    final int[] first;    // the index in decls of the first declaration of each
+    private final Type[] types;
+    private final int[] starts;
+    private final TokenStream.Change change;
+    private int next;     // the first unit that reparseDecls may resume at
+
+    private static final int UNKNOWN = -2;
+
+    Units(Program program, TokenStream.Change change) {
+      this.change = change;
+      for (List l = program.FL; l instanceof DeclList; l = ((DeclList) l).DL)
+        decls.add(((DeclList) l).D);
+      first = new int[decls.size() + 1];
+      types = new Type[decls.size() + 1];
+      int units = 0;
+      for (int i = 0; i < decls.size(); i++) {
+        Type tAST = decls.get(i).T;
+        if (tAST instanceof ArrayType)
+          tAST = ((ArrayType) tAST).T;
+        if (i == 0 || (tAST != null && tAST != types[units - 1])) {
+          first[units] = i;
+          types[units++] = tAST;
+        }
+      }
+      count = units;
+      first[count] = decls.size();
+      starts = new int[count + 1];
+      Arrays.fill(starts, UNKNOWN);
+      starts[0] = 0;
+      starts[count] = change.oldEnd + change.stream.size() - change.newEnd;
+    }
+
+    // Returns the index before the edit of the token that unit u starts
+    // at, or -1 if it is one of the tokens changed.
+
+    int start(int u) {
+      if (starts[u] == UNKNOWN) {
+        TokenStream tokens = change.stream;
+        int offset = Span.start(types[u].span);
+        int i = tokenAt(tokens, offset);
+        if (i < change.first && tokens.start(i) == offset) {
+          starts[u] = i;
+        } else {
+          i = tokenAt(tokens, offset + change.delta);
+          if (i >= change.newEnd && tokens.start(i) == offset + change.delta)
+            starts[u] = i - change.newEnd + change.oldEnd;
+          else
+            starts[u] = -1;
+        }
+      }
+      return starts[u];
+    }
+
+    // The index after the edit of the token that unit u, which starts
+    // after the tokens changed, starts at.
+
+    int newStart(int u) {
+      return start(u) - change.oldEnd + change.newEnd;
+    }
+
+    int unitOf(int decl) {
+      int lo = 0, hi = count - 1;
+      while (lo < hi) {
+        int mid = (lo + hi + 1) >>> 1;
+        if (first[mid] <= decl)
+          lo = mid;
+        else
+          hi = mid - 1;
+      }
+      return lo;
+    }
+
+    void resumeFrom(int u) {
+      next = u;
+    }
+
+    // Returns the unit from next on that starts at token index i after
+    // the edit, or -1 if none does. As the parser only moves forward,
+    // the units before i are not looked at again.
+
+    int resumeAt(int i) {
+      while (next < count && newStart(next) < i)
+        next++;
+      return (next < count && newStart(next) == i) ? next : -1;
+    }
+
+    private static int tokenAt(TokenStream tokens, int offset) {
+      int lo = 0, hi = tokens.size() - 1;
+      while (lo < hi) {
+        int mid = (lo + hi) >>> 1;
+        if (tokens.start(mid) < offset)
+          lo = mid + 1;
+        else
+          hi = mid;
+      }
+      return lo;
+    }
+  }
+
+  // Parses the declarations from the start of unit from on until it
+  // comes to a unit it can resume at, and takes the declarations from
+  // there on from the program before the edit, moved by delta chars.
+
+  private Program reparseDecls(Units units, int from, int delta) {
+    TokenStream tokens = cursor.stream();
+    long programPos = Span.withStart(Span.NONE, tokens.span(0));
+    Elements<Decl> decls = new Elements<>();
+    for (int i = 0; i < units.first[from]; i++) {
+      Decl dAST = units.decls.get(i);
+      decls.add(dAST, Span.withStart(Span.NONE, dAST.span));
+    }
+    try {
+      int u = -1;
+      if (currentToken.kind != Token.EOF)
+        u = parseDecls(decls, units);
+      if (u >= 0) {
+        SpanShifter shifter = new SpanShifter(delta);
+        for (int i = units.first[u]; i < units.decls.size(); i++) {
+          Decl dAST = units.decls.get(i);
+          if (delta != 0)
+            shifter.shift(dAST);
+          decls.add(dAST, Span.withStart(Span.NONE, dAST.span));
+        }
+        // the rest of the tokens, which have no lexical errors, as read
+        cursor.skipTo(tokens.size() - 1);
+        previousTokenSpan = tokens.span(tokens.size() - 2);
+        currentToken = nextToken();
+      }
+      List dlAST = linkDecls(decls);
+      match(Token.EOF);
+      return new Program(dlAST, finish(programPos));
+    } catch (SyntaxError s) {
+      return null;
+    }
+  }
+
 // ========================== DECLARATIONS ========================
 // Compared to recogniser add linked list
-List parseDeclList(Type tAST) throws SyntaxError {
-    List dlAST = null;
-    Decl dAST = null;
-    Ident iAST = parseIdent();
-    SourcePosition dlPos = new SourcePosition();
-    start(dlPos);
+List parseDeclList() throws SyntaxError {
+    Elements<Decl> decls = new Elements<>();
+    parseDecls(decls, null);
+    return linkDecls(decls);
+  }
+
+// parseDecls parses top-level declarations into decls up to the end of
+// the program or, if resume is not null, up to the start of a unit that
+// can be resumed at (see INCREMENTAL REPARSING), and returns which unit
+// that is, or -1.
+
+  private int parseDecls(Elements<Decl> decls, Units resume) throws SyntaxError {
+    Type tAST = null;
     boolean hasComma = false;
-    boolean isFunction = currentToken.kind == Token.LPAREN;
-    if (isFunction) {
-      dAST = parseFuncDecl(tAST, iAST, dlPos);
-    } else {
-      dAST = parseVarDeclNoList(tAST, iAST, dlPos, true);
-      boolean hasMoreVars = currentToken.kind == Token.COMMA;
-      if (hasMoreVars) {
-        match(Token.COMMA);
-        hasComma = true;
-      } else {
-        match(Token.SEMICOLON);
+    do {
+      long errorPos = start();
+      boolean added = false;
+      try {
+        if (!hasComma || isTypeToken(currentToken.kind))
+          tAST = parseType();
+        Decl dAST = null;
+        Ident iAST = parseIdent();
+        long dlPos = start();
+        hasComma = false;
+        boolean isFunction = currentToken.kind == Token.LPAREN;
+        if (isFunction) {
+          dAST = parseFuncDecl(tAST, iAST, dlPos);
+        } else {
+          dAST = parseVarDeclNoList(tAST, iAST, dlPos, true);
+          boolean hasMoreVars = currentToken.kind == Token.COMMA;
+          if (hasMoreVars) {
+            match(Token.COMMA);
+            hasComma = true;
+          } else {
+            match(Token.SEMICOLON);
+          }
+        }
+        decls.add(dAST, dlPos);
+        added = true;
+
+        // the program must end unless another declaration follows
+        if (!isTypeToken(currentToken.kind) && currentToken.kind != Token.EOF
+            && (currentToken.kind != Token.ID || !hasComma))
+          syntacticError("\"%\" expected here", Token.spell(Token.EOF));
+      } catch (SyntaxError s) {
+        if (tooManyErrors)
+          throw s;
+        if (added)
+          errorPos = start();
+        skipDeclaration();
+        decls.add(new ErrorDecl(finish(errorPos)), errorPos);
+        recoveries++;
+        hasComma = false;
       }
-    }
 
-    if (isTypeToken(currentToken.kind)) {
-      tAST = parseType();
-      List restDeclList = parseDeclList(tAST);
-      finish(dlPos);
-      dlAST = new DeclList(dAST, restDeclList, dlPos);
-    } else if(currentToken.kind == Token.ID && hasComma == true) {
-      List restDeclList = parseDeclList(tAST);
-      finish(dlPos);
-      dlAST = new DeclList(dAST, restDeclList, dlPos);
-    } else {
-      finish(dlPos);
-      dlAST = new DeclList(dAST, new EmptyDeclList(dummyPos), dlPos);
-    }
+      if (resume != null && currentToken.kind != Token.EOF) {
+        int u = resume.resumeAt(cursor.index() - 1);
+        if (u >= 0)
+          return u;
+      }
+    } while (currentToken.kind != Token.EOF);
 
-    return (dlAST != null) ? dlAST : new EmptyDeclList(dummyPos);
+    return -1;
+  }
+
+  private List linkDecls(Elements<Decl> decls) {
+    List dlAST = new EmptyDeclList(dummyPos);
+    for (int i = decls.size() - 1; i >= 0; i--) {
+      long dlPos = finish(decls.span(i));
+      dlAST = new DeclList(decls.get(i), dlAST, dlPos);
+      shareSpan(decls.get(i), dlPos);
+    }
+    return dlAST;
   }
 
 
@@ -199,7 +662,7 @@ List parseDeclList(Type tAST) throws SyntaxError {
   }
 
 
-  Decl parseVarDeclNoList(Type tAST, Ident iAST, SourcePosition dPos, boolean isGlobal) throws SyntaxError {
+  Decl parseVarDeclNoList(Type tAST, Ident iAST, long dPos, boolean isGlobal) throws SyntaxError {
       Type typeCopy = tAST;
 
       if (currentToken.kind == Token.LBRACKET) {
@@ -219,29 +682,60 @@ List parseDeclList(Type tAST) throws SyntaxError {
         return new LocalVarDecl(typeCopy, iAST, initAST, dPos);
       }
     }
-  Decl parseFuncDecl(Type tAST, Ident iAST, SourcePosition dPos) throws SyntaxError {
+  Decl parseFuncDecl(Type tAST, Ident iAST, long dPos) throws SyntaxError {
       Decl dAST = null;
       List fplAST = parseParaList();
-      Stmt cAST = parseCompoundStmt();
-      finish(dPos);
+      int errors = recoveries;
+      Stmt cAST = parseFunctionBody();
+      dPos = finish(dPos);
       dAST = new FuncDecl(tAST, iAST, fplAST, cAST, dPos);
+      dAST.hasErrors = recoveries > errors;
       return dAST;
   }
 
+// Parses the body of a function, or takes the one parsed in advance
+// from the current token, reporting the errors found in it (and
+// stopping where the error limit is reached, or at a syntax error it
+// did not recover from) as if it had been parsed now. (A body parsed
+// in advance is not taken after a syntax error reported at its "{",
+// as its parser would not have known to suppress errors there.)
+
+  Stmt parseFunctionBody() throws SyntaxError {
+    ParallelParser.Body body = null;
+    if (bodies != null && currentToken.kind == Token.LCURLY
+        && Span.start(currentToken.span) > lastErrorOffset)
+      body = bodies.body(cursor.index() - 1);
+    if (body == null)
+      return parseCompoundStmt();
+
+    if (!body.diagnostics.replay(errorReporter, errorLimit)) {
+      tooManyErrors = true;
+      throw new SyntaxError();
+    }
+    Parser p = body.parser;
+    currentToken = p.currentToken;
+    previousTokenSpan = p.previousTokenSpan;
+    cursor.skipTo(p.cursor);
+    lastErrorOffset = Math.max(lastErrorOffset, p.lastErrorOffset);
+    recoveries += p.recoveries;
+    if (body.ast == null)
+      throw new SyntaxError();
+    return body.ast;
+  }
+
   Expr parseInitialiser() throws SyntaxError {
     Expr initAST = null;
-    SourcePosition initPos = new SourcePosition();
-    start(initPos);
+    long initPos = start();
     if(currentToken.kind == Token.LCURLY) {
             match(Token.LCURLY);
             if(currentToken.kind == Token.RCURLY) {
               match(Token.RCURLY);
-              finish(initPos);
+              initPos = finish(initPos);
               initAST = new ArrayInitExpr(new EmptyArrayExprList(dummyPos), initPos);
             } else {
               List aiAST = parseArrayExprList();
               match(Token.RCURLY);
-              finish(initPos);
+              initPos = finish(initPos);
               initAST = new ArrayInitExpr(aiAST, initPos);
             }
     } else {
@@ -251,85 +745,85 @@ List parseDeclList(Type tAST) throws SyntaxError {
   }
 
   List parseArrayExprList() throws SyntaxError {
-    List aiAST = null;
-    SourcePosition aPos = new SourcePosition();
-    start(aPos);
-    Expr exprAST = parseExpr();
-    if (currentToken.kind == Token.COMMA) {
+    Elements<Expr> exprs = new Elements<>();
+    do {
+      long aPos = start();
+      Expr exprAST = parseExpr();
+      exprs.add(exprAST, aPos);
+      if (currentToken.kind != Token.COMMA)
+        break;
       match(Token.COMMA);
-      if (currentToken.kind == Token.RCURLY) {
-        finish(aPos);
-        aiAST = new ArrayExprList(exprAST, new EmptyArrayExprList(dummyPos), aPos);
-      } else {
-        aiAST = parseArrayExprList();
-        finish(aPos);
-        aiAST = new ArrayExprList(exprAST, aiAST, aPos);
-      }
-    } else {
-      finish(aPos);
-      aiAST = new ArrayExprList(exprAST, new EmptyArrayExprList(dummyPos), aPos);
+    } while (currentToken.kind != Token.RCURLY);
+
+    List aiAST = new EmptyArrayExprList(dummyPos);
+    for (int i = exprs.size() - 1; i >= 0; i--) {
+      long aPos = finish(exprs.span(i));
+      aiAST = new ArrayExprList(exprs.get(i), aiAST, aPos);
     }
     return aiAST;
   }
 
   // Parse local variable declarations
   List parseLocalVarDeclList(Type tAST) throws SyntaxError {
-    List dlAST = null;
-    SourcePosition dlPos = new SourcePosition();
-    start(dlPos);
-    Ident iAST = parseIdent();
-    boolean hasComma = false;
-    Decl dAST = parseVarDeclNoList(tAST, iAST, dlPos, false);
-    boolean hasMoreVars = currentToken.kind == Token.COMMA;
-    if (hasMoreVars) {
-      match(Token.COMMA);
-      hasComma = true;
-    } else {
-      match(Token.SEMICOLON);
-    }
-    if (isTypeToken(currentToken.kind)) {
-      tAST = parseType();
-      List restDeclList = parseLocalVarDeclList(tAST);
-      finish(dlPos);
-      dlAST = new DeclList(dAST, restDeclList, dlPos);
-    } else if(currentToken.kind == Token.ID && hasComma == true) {
-      List restDeclList = parseLocalVarDeclList(tAST);
-      finish(dlPos);
-      dlAST = new DeclList(dAST, restDeclList, dlPos);
-    } else {
-      finish(dlPos);
-      dlAST = new DeclList(dAST, new EmptyDeclList(dummyPos), dlPos);
-    }
+    Elements<Decl> decls = new Elements<>();
+    boolean more;
+    do {
+      long dlPos = start();
+      boolean hasComma = false;
+      try {
+        Ident iAST = parseIdent();
+        Decl dAST = parseVarDeclNoList(tAST, iAST, dlPos, false);
+        boolean hasMoreVars = currentToken.kind == Token.COMMA;
+        if (hasMoreVars) {
+          match(Token.COMMA);
+          hasComma = true;
+        } else {
+          match(Token.SEMICOLON);
+        }
+        decls.add(dAST, dlPos);
+      } catch (SyntaxError s) {
+        if (tooManyErrors || currentToken.kind == Token.EOF)
+          throw s;
+        skipStatement();
+        decls.add(new ErrorDecl(finish(dlPos)), dlPos);
+        recoveries++;
+      }
 
-    return (dlAST != null) ? dlAST : new EmptyDeclList(dummyPos);
+      more = true;
+      if (isTypeToken(currentToken.kind)) {
+        tAST = parseType();
+      } else if (currentToken.kind != Token.ID || !hasComma) {
+        more = false;
+      }
+    } while (more);
 
+    return linkDecls(decls);
   }
 //  ======================== TYPES ==========================
 
   Type parseType() throws SyntaxError {
     Type typeAST = null;
 
-    SourcePosition typePos = new SourcePosition();
-    start(typePos);
+    long typePos = start();
     switch (currentToken.kind) {
             case Token.VOID:
                 match(Token.VOID);
-                finish(typePos);
+                typePos = finish(typePos);
                 typeAST = new VoidType(typePos);
                 break;
             case Token.BOOLEAN:
                 match(Token.BOOLEAN);
-                finish(typePos);
+                typePos = finish(typePos);
                 typeAST = new BooleanType(typePos);
                 break;
             case Token.INT:
                 match(Token.INT);
-                finish(typePos);
+                typePos = finish(typePos);
                 typeAST = new IntType(typePos);
                 break;
             case Token.FLOAT:
                 match(Token.FLOAT);
-                finish(typePos);
+                typePos = finish(typePos);
                 typeAST = new FloatType(typePos);
                 break;
             default:
@@ -339,7 +833,7 @@ List parseDeclList(Type tAST) throws SyntaxError {
     return typeAST;
     }
 
-  Type parseArrayType(Type tAST, SourcePosition dPos) throws SyntaxError {
+  Type parseArrayType(Type tAST, long dPos) throws SyntaxError {
     Expr atAST = new EmptyExpr(dPos);
     if(currentToken.kind == Token.INTLITERAL) {
       atAST = new IntExpr(parseIntLiteral(), dPos);
@@ -354,8 +848,7 @@ List parseDeclList(Type tAST) throws SyntaxError {
   Stmt parseCompoundStmt() throws SyntaxError {
     Stmt cAST = null;
 
-    SourcePosition stmtPos = new SourcePosition();
-    start(stmtPos);
+    long stmtPos = start();
 
     match(Token.LCURLY);
 
@@ -368,7 +861,7 @@ List parseDeclList(Type tAST) throws SyntaxError {
 
     List slAST = parseStmtList();
     match(Token.RCURLY);
-    finish(stmtPos);
+    stmtPos = finish(stmtPos);
 
     /* In the subset of the VC grammar, no variable declarations are
      * allowed. Therefore, a block is empty iff it has no statements.
@@ -381,27 +874,28 @@ List parseDeclList(Type tAST) throws SyntaxError {
   }
 
   List parseStmtList() throws SyntaxError {
-    List slAST = null;
-
-    SourcePosition stmtPos = new SourcePosition();
-    start(stmtPos);
-
-    if (currentToken.kind != Token.RCURLY) {
-      Stmt sAST = parseStmt();
-      {
-        if (currentToken.kind != Token.RCURLY) {
-          slAST = parseStmtList();
-          finish(stmtPos);
-          slAST = new StmtList(sAST, slAST, stmtPos);
-        } else {
-          finish(stmtPos);
-          slAST = new StmtList(sAST, new EmptyStmtList(dummyPos), stmtPos);
-        }
+    Elements<Stmt> stmts = new Elements<>();
+
+    while (currentToken.kind != Token.RCURLY) {
+      long stmtPos = start();
+      Stmt sAST;
+      try {
+        sAST = parseStmt();
+      } catch (SyntaxError s) {
+        if (tooManyErrors || currentToken.kind == Token.EOF)
+          throw s;
+        skipStatement();
+        sAST = new ErrorStmt(finish(stmtPos));
+        recoveries++;
       }
+      stmts.add(sAST, stmtPos);
     }
-    else
-      slAST = new EmptyStmtList(dummyPos);
 
+    List slAST = new EmptyStmtList(dummyPos);
+    for (int i = stmts.size() - 1; i >= 0; i--) {
+      long stmtPos = finish(stmts.span(i));
+      slAST = new StmtList(stmts.get(i), slAST, stmtPos);
+    }
     return slAST;
   }
 
@@ -438,8 +932,7 @@ List parseDeclList(Type tAST) throws SyntaxError {
 
   Stmt parseIfStmt() throws SyntaxError {
       Stmt sAST = null;
-      SourcePosition sPos = new SourcePosition();
-      start(sPos);
+      long sPos = start();
       match(Token.IF);
       match(Token.LPAREN);
       Expr eAST = parseExpr();
@@ -449,10 +942,10 @@ List parseDeclList(Type tAST) throws SyntaxError {
       if (currentToken.kind == Token.ELSE) {
         match(Token.ELSE);
         Stmt s2AST = parseStmt();
-        finish(sPos);
+        sPos = finish(sPos);
         sAST = new IfStmt(eAST, s1AST, s2AST, sPos);
       } else {
-        finish(sPos);
+        sPos = finish(sPos);
         sAST = new IfStmt(eAST, s1AST, sPos);
       }
 
@@ -462,8 +955,7 @@ List parseDeclList(Type tAST) throws SyntaxError {
 
   Stmt parseForStmt() throws SyntaxError {
     Stmt sAST = null;
-    SourcePosition sPos = new SourcePosition();
-    start(sPos);
+    long sPos = start();
 
     match(Token.FOR);
     match(Token.LPAREN);
@@ -493,7 +985,7 @@ List parseDeclList(Type tAST) throws SyntaxError {
     match(Token.RPAREN);
 
     Stmt s3AST = parseStmt();
-    finish(sPos);
+    sPos = finish(sPos);
     sAST = new ForStmt(e1AST, e2AST, e3AST, s3AST, sPos);
 
     return sAST;
@@ -501,15 +993,14 @@ List parseDeclList(Type tAST) throws SyntaxError {
 
   Stmt parseWhileStmt() throws SyntaxError {
     Stmt sAST = null;
-    SourcePosition sPos = new SourcePosition();
-    start(sPos);
+    long sPos = start();
 
     match(Token.WHILE);
     match(Token.LPAREN);
     Expr eAST = parseExpr();
     match(Token.RPAREN);
     Stmt s1AST = parseStmt();
-    finish(sPos);
+    sPos = finish(sPos);
     sAST = new WhileStmt(eAST, s1AST, sPos);
 
     return sAST;
@@ -517,12 +1008,11 @@ List parseDeclList(Type tAST) throws SyntaxError {
 
   Stmt parseBreakStmt() throws SyntaxError {
     Stmt sAST = null;
-    SourcePosition sPos = new SourcePosition();
-    start(sPos);
+    long sPos = start();
 
     match(Token.BREAK);
     match(Token.SEMICOLON);
-    finish(sPos);
+    sPos = finish(sPos);
     sAST = new BreakStmt(sPos);
 
     return sAST;
@@ -530,12 +1020,11 @@ List parseDeclList(Type tAST) throws SyntaxError {
 
   Stmt parseContinueStmt() throws SyntaxError {
     Stmt sAST = null;
-    SourcePosition sPos = new SourcePosition();
-    start(sPos);
+    long sPos = start();
 
     match(Token.CONTINUE);
     match(Token.SEMICOLON);
-    finish(sPos);
+    sPos = finish(sPos);
     sAST = new ContinueStmt(sPos);
 
     return sAST;
@@ -544,8 +1033,7 @@ List parseDeclList(Type tAST) throws SyntaxError {
 
 Stmt parseReturnStmt() throws SyntaxError {
   Stmt sAST = null;
-  SourcePosition sPos = new SourcePosition();
-  start(sPos);
+  long sPos = start();
 
   match(Token.RETURN);
   Expr eAST = null;
@@ -556,7 +1044,7 @@ Stmt parseReturnStmt() throws SyntaxError {
   }
 
   match(Token.SEMICOLON);
-  finish(sPos);
+  sPos = finish(sPos);
   sAST = new ReturnStmt(eAST, sPos);
 
   return sAST;
@@ -565,18 +1053,17 @@ Stmt parseReturnStmt() throws SyntaxError {
   Stmt parseExprStmt() throws SyntaxError {
     Stmt sAST = null;
 
-    SourcePosition stmtPos = new SourcePosition();
-    start(stmtPos);
+    long stmtPos = start();
 
     if (currentToken.kind != Token.SEMICOLON) {
         Expr eAST = parseExpr();
         match(Token.SEMICOLON);
-        finish(stmtPos);
+        stmtPos = finish(stmtPos);
         sAST = new ExprStmt(eAST, stmtPos);
 
     } else {
       match(Token.SEMICOLON);
-      finish(stmtPos);
+      stmtPos = finish(stmtPos);
       sAST = new ExprStmt(new EmptyExpr(dummyPos), stmtPos);
     }
     return sAST;
@@ -588,8 +1075,7 @@ Stmt parseReturnStmt() throws SyntaxError {
   List parseParaList() throws SyntaxError {
     List formalsAST = null;
 
-    SourcePosition formalsPos = new SourcePosition();
-    start(formalsPos);
+    long formalsPos = start();
 
     match(Token.LPAREN);
     if(currentToken.kind != Token.RPAREN) {
@@ -597,36 +1083,35 @@ Stmt parseReturnStmt() throws SyntaxError {
       match(Token.RPAREN);
     } else {
       match(Token.RPAREN);
-      finish(formalsPos);
+      formalsPos = finish(formalsPos);
       formalsAST = new EmptyParaList (formalsPos);
     }
     return formalsAST;
   }
 
   List parseProperParaList() throws SyntaxError {
-    List formalsAST = null;
-    SourcePosition formalsPos = new SourcePosition();
-    start(formalsPos);
+    Elements<ParaDecl> formals = new Elements<>();
 
-    ParaDecl pdAST = parseParaDecl();
-
-    if (currentToken.kind == Token.COMMA) {
+    do {
+      long formalsPos = start();
+      ParaDecl pdAST = parseParaDecl();
+      formals.add(pdAST, formalsPos);
+      if (currentToken.kind != Token.COMMA)
+        break;
       match(Token.COMMA);
-      List restFormalsAST = parseProperParaList();
-      finish(formalsPos);
-      formalsAST = new ParaList(pdAST, restFormalsAST, formalsPos);
-    } else {
-      finish(formalsPos);
-      formalsAST = new ParaList(pdAST, new EmptyParaList(dummyPos), formalsPos);
-    }
+    } while (true);
 
+    List formalsAST = new EmptyParaList(dummyPos);
+    for (int i = formals.size() - 1; i >= 0; i--) {
+      long formalsPos = finish(formals.span(i));
+      formalsAST = new ParaList(formals.get(i), formalsAST, formalsPos);
+    }
     return formalsAST;
   }
 
   ParaDecl parseParaDecl() throws SyntaxError {
     ParaDecl pdAST = null;
-    SourcePosition paraPos = new SourcePosition();
-    start(paraPos);
+    long paraPos = start();
 
     Type tAST = parseType();
     Ident iAST = parseIdent();
@@ -636,160 +1121,87 @@ Stmt parseReturnStmt() throws SyntaxError {
       tAST = parseArrayType(tAST, paraPos);
     }
 
-    finish(paraPos);
+    paraPos = finish(paraPos);
     pdAST = new ParaDecl(tAST, iAST, paraPos);
+    shareSpan(pdAST, paraPos);
     return pdAST;
   }
 
 // ======================= EXPRESSIONS ======================
 
 
-  Expr parseExpr() throws SyntaxError {
-    Expr exprAST = null;
-    exprAST = parseAssignExpr();
-    return exprAST;
-  }
-
-  Expr parseAssignExpr() throws SyntaxError {
-    Expr exprAST = null;
-
-    SourcePosition exprPos = new SourcePosition();
-    start(exprPos);
-
-    exprAST = parseCondOrExpr();
-
-    if (currentToken.kind == Token.EQ) {
-      Operator opAST = acceptOperator();
-      Expr e2AST = parseAssignExpr();
-      SourcePosition assPos = new SourcePosition();
-      copyStart(exprPos, assPos);
-      finish(assPos);
-      exprAST = new AssignExpr(exprAST, e2AST, assPos);
-    }
-
-    return exprAST;
+// Binary and assignment expressions are parsed by precedence climbing
+// rather than by one method per level of the grammar:
+//
+//   expr            -> assignment-expr
+//   assignment-expr -> cond-or-expr ( "=" assignment-expr )?
+//   cond-or-expr    -> cond-and-expr ( "||" cond-and-expr )*
+//   cond-and-expr   -> equality-expr ( "&&" equality-expr )*
+//   equality-expr   -> rel-expr ( ( "==" | "!=" ) rel-expr )*
+//   rel-expr        -> additive-expr ( ( "<" | "<=" | ">" | ">=" ) additive-expr )*
+//   additive-expr   -> multiplicative-expr ( ( "+" | "-" ) multiplicative-expr )*
+//   multiplicative-expr -> unary-expr ( ( "*" | "/" ) unary-expr )*
+//
+// precedence[kind] is the level of the binary operator of that token
+// kind, or 0 if the token is not one. All the operators but "=" are
+// left associative.
+
+  private static final int
+    ASSIGNMENT     = 1,
+    COND_OR        = 2,
+    COND_AND       = 3,
+    EQUALITY       = 4,
+    RELATIONAL     = 5,
+    ADDITIVE       = 6,
+    MULTIPLICATIVE = 7;
+
+  private static final int[] precedence = new int[Token.EOF + 1];
+
+  static {
+    precedence[Token.EQ] = ASSIGNMENT;
+    precedence[Token.OROR] = COND_OR;
+    precedence[Token.ANDAND] = COND_AND;
+    precedence[Token.EQEQ] = EQUALITY;
+    precedence[Token.NOTEQ] = EQUALITY;
+    precedence[Token.LT] = RELATIONAL;
+    precedence[Token.LTEQ] = RELATIONAL;
+    precedence[Token.GT] = RELATIONAL;
+    precedence[Token.GTEQ] = RELATIONAL;
+    precedence[Token.PLUS] = ADDITIVE;
+    precedence[Token.MINUS] = ADDITIVE;
+    precedence[Token.MULT] = MULTIPLICATIVE;
+    precedence[Token.DIV] = MULTIPLICATIVE;
   }
 
-
-  Expr parseCondOrExpr() throws SyntaxError {
-    Expr exprAST = null;
-
-    SourcePosition exprPos = new SourcePosition();
-    start(exprPos);
-
-    exprAST = parseCondAndExpr();
-
-    while (currentToken.kind == Token.OROR) {
-      Operator opAST = acceptOperator();
-      Expr e2AST = parseCondAndExpr();
-      SourcePosition orPos = new SourcePosition();
-      copyStart(exprPos, orPos);
-      finish(orPos);
-      exprAST = new BinaryExpr(exprAST, opAST, e2AST, orPos);
-    }
-
-    return exprAST;
-  }
-
-  Expr parseCondAndExpr() throws SyntaxError {
-    Expr exprAST = null;
-
-    SourcePosition exprPos = new SourcePosition();
-    start(exprPos);
-
-    exprAST = parseEqualityExpr();
-
-    while (currentToken.kind == Token.ANDAND) {
-      Operator opAST = acceptOperator();
-      Expr e2AST = parseEqualityExpr();
-      SourcePosition andPos = new SourcePosition();
-      copyStart(exprPos, andPos);
-      finish(andPos);
-      exprAST = new BinaryExpr(exprAST, opAST, e2AST, andPos);
-    }
-
-    return exprAST;
+  Expr parseExpr() throws SyntaxError {
+    return parseBinaryExpr(ASSIGNMENT);
   }
 
-  Expr parseEqualityExpr() throws SyntaxError {
-    Expr exprAST = null;
-
-    SourcePosition exprPos = new SourcePosition();
-    start(exprPos);
-
-    exprAST = parseRelExpr();
-
-    while (currentToken.kind == Token.EQEQ || currentToken.kind == Token.NOTEQ) {
-      Operator opAST = acceptOperator();
-      Expr e2AST = parseRelExpr();
-      SourcePosition eqPos = new SourcePosition();
-      copyStart(exprPos, eqPos);
-      finish(eqPos);
-      exprAST = new BinaryExpr(exprAST, opAST, e2AST, eqPos);
-    }
+  // Parses an expression whose operators (outside parentheses) are at
+  // level minLevel or above. Every node built spans the expression from
+  // its first token, as each level of the grammar starts there.
 
-    return exprAST;
-  }
-
-  Expr parseRelExpr() throws SyntaxError {
+  Expr parseBinaryExpr(int minLevel) throws SyntaxError {
     Expr exprAST = null;
 
-    SourcePosition exprPos = new SourcePosition();
-    start(exprPos);
-
-    exprAST = parseAdditiveExpr();
+    long exprPos = start();
 
-    while (currentToken.kind == Token.LT || currentToken.kind == Token.LTEQ ||
-           currentToken.kind == Token.GT || currentToken.kind == Token.GTEQ) {
-      Operator opAST = acceptOperator();
-      Expr e2AST = parseAdditiveExpr();
-      SourcePosition relPos = new SourcePosition();
-      copyStart(exprPos, relPos);
-      finish(relPos);
-      exprAST = new BinaryExpr(exprAST, opAST, e2AST, relPos);
-    }
-
-    return exprAST;
-  }
-
-
-  Expr parseAdditiveExpr() throws SyntaxError {
-    Expr exprAST = null;
-
-    SourcePosition addStartPos = new SourcePosition();
-    start(addStartPos);
+    exprAST = parseUnaryExpr();
 
-    exprAST = parseMultiplicativeExpr();
-    while (currentToken.kind == Token.PLUS
-           || currentToken.kind == Token.MINUS) {
+    int level = precedence[currentToken.kind];
+    while (level >= minLevel && level > 0) {
       Operator opAST = acceptOperator();
-      Expr e2AST = parseMultiplicativeExpr();
-
-      SourcePosition addPos = new SourcePosition();
-      copyStart(addStartPos, addPos);
-      finish(addPos);
-      exprAST = new BinaryExpr(exprAST, opAST, e2AST, addPos);
+      if (level == ASSIGNMENT) {
+        Expr e2AST = parseBinaryExpr(ASSIGNMENT);
+        exprPos = finish(exprPos);
+        return new AssignExpr(exprAST, e2AST, exprPos);
+      }
+      Expr e2AST = parseBinaryExpr(level + 1);
+      exprPos = finish(exprPos);
+      exprAST = new BinaryExpr(exprAST, opAST, e2AST, exprPos);
+      level = precedence[currentToken.kind];
     }
-    return exprAST;
-  }
-
-  Expr parseMultiplicativeExpr() throws SyntaxError {
 
-    Expr exprAST = null;
-
-    SourcePosition multStartPos = new SourcePosition();
-    start(multStartPos);
-
-    exprAST = parseUnaryExpr();
-    while (currentToken.kind == Token.MULT
-           || currentToken.kind == Token.DIV) {
-      Operator opAST = acceptOperator();
-      Expr e2AST = parseUnaryExpr();
-      SourcePosition multPos = new SourcePosition();
-      copyStart(multStartPos, multPos);
-      finish(multPos);
-      exprAST = new BinaryExpr(exprAST, opAST, e2AST, multPos);
-    }
     return exprAST;
   }
 
@@ -797,8 +1209,7 @@ Stmt parseReturnStmt() throws SyntaxError {
 
     Expr exprAST = null;
 
-    SourcePosition unaryPos = new SourcePosition();
-    start(unaryPos);
+    long unaryPos = start();
 
     switch (currentToken.kind) {
       case Token.MINUS:
@@ -807,7 +1218,7 @@ Stmt parseReturnStmt() throws SyntaxError {
         {
           Operator opAST = acceptOperator();
           Expr e2AST = parseUnaryExpr();
-          finish(unaryPos);
+          unaryPos = finish(unaryPos);
           exprAST = new UnaryExpr(opAST, e2AST, unaryPos);
         }
         break;
@@ -824,8 +1235,7 @@ Stmt parseReturnStmt() throws SyntaxError {
 
     Expr exprAST = null;
 
-    SourcePosition primPos = new SourcePosition();
-    start(primPos);
+    long primPos = start();
 
     switch (currentToken.kind) {
 
@@ -843,23 +1253,23 @@ Stmt parseReturnStmt() throws SyntaxError {
 
       case Token.INTLITERAL:
         IntLiteral ilAST = parseIntLiteral();
-        finish(primPos);
+        primPos = finish(primPos);
         exprAST = new IntExpr(ilAST, primPos);
         break;
       case Token.FLOATLITERAL:
         FloatLiteral flAST = parseFloatLiteral();
-        finish(primPos);
+        primPos = finish(primPos);
         exprAST = new FloatExpr(flAST, primPos);
         break;
 
       case Token.BOOLEANLITERAL:
         BooleanLiteral blAST = parseBooleanLiteral();
-        finish(primPos);
+        primPos = finish(primPos);
         exprAST = new BooleanExpr(blAST, primPos);
         break;
       case Token.STRINGLITERAL:
         StringLiteral slAST = parseStringLiteral();
-        finish(primPos);
+        primPos = finish(primPos);
         exprAST = new StringExpr(slAST, primPos);
         break;
 
@@ -870,24 +1280,24 @@ Stmt parseReturnStmt() throws SyntaxError {
     return exprAST;
   }
 
-  Expr parsePrimaryRest(Ident iAST, SourcePosition primPos) throws SyntaxError {
+  Expr parsePrimaryRest(Ident iAST, long primPos) throws SyntaxError {
     Expr exprAST = null;
 
     if (currentToken.kind == Token.LPAREN) {
       match(Token.LPAREN);
       List aplAST = parseArgList();
       match(Token.RPAREN);
-      finish(primPos);
+      primPos = finish(primPos);
       exprAST = new CallExpr(iAST, aplAST, primPos);
     } else if (currentToken.kind == Token.LBRACKET) {
       match(Token.LBRACKET);
       Expr indexExpr = parseExpr();
       match(Token.RBRACKET);
-      finish(primPos);
+      primPos = finish(primPos);
       Var simVAST = new SimpleVar(iAST, primPos);
       exprAST = new ArrayExpr(simVAST, indexExpr, primPos);
     } else {
-      finish(primPos);
+      primPos = finish(primPos);
       Var simVAST = new SimpleVar(iAST, primPos);
       exprAST = new VarExpr(simVAST, primPos);
     }
@@ -898,13 +1308,12 @@ Stmt parseReturnStmt() throws SyntaxError {
 // Arguments:
   List parseArgList() throws SyntaxError {
     List argsAST = null;
-    SourcePosition argsPos = new SourcePosition();
-    start(argsPos);
+    long argsPos = start();
 
     if(currentToken.kind != Token.RPAREN) {
       argsAST = parseProperArgList();
     } else {
-      finish(argsPos);
+      argsPos = finish(argsPos);
       argsAST = new EmptyArgList(argsPos);
     }
 
@@ -912,33 +1321,32 @@ Stmt parseReturnStmt() throws SyntaxError {
   }
 
   List parseProperArgList() throws SyntaxError {
-    List argsAST = null;
-    SourcePosition argsPos = new SourcePosition();
-    start(argsPos);
+    Elements<Arg> args = new Elements<>();
 
-    Arg argAST = parseArg();
-
-    if (currentToken.kind == Token.COMMA) {
+    do {
+      long argsPos = start();
+      Arg argAST = parseArg();
+      args.add(argAST, argsPos);
+      if (currentToken.kind != Token.COMMA)
+        break;
       match(Token.COMMA);
-      List raAST = parseProperArgList();
-      finish(argsPos);
-      argsAST = new ArgList(argAST, raAST, argsPos);
-    } else {
-      finish(argsPos);
-      argsAST = new ArgList(argAST, new EmptyArgList(dummyPos), argsPos);
-    }
+    } while (true);
 
+    List argsAST = new EmptyArgList(dummyPos);
+    for (int i = args.size() - 1; i >= 0; i--) {
+      long argsPos = finish(args.span(i));
+      argsAST = new ArgList(args.get(i), argsAST, argsPos);
+    }
     return argsAST;
   }
 
   Arg parseArg() throws SyntaxError {
     Arg argAST = null;
-    SourcePosition argPos = new SourcePosition();
-    start(argPos);
+    long argPos = start();
 
     Expr exprAST = parseExpr();
 
-    finish(argPos);
+    argPos = finish(argPos);
     argAST = new Arg(exprAST, argPos);
     return argAST;
   }
@@ -951,10 +1359,10 @@ Stmt parseReturnStmt() throws SyntaxError {
     Ident I = null;
 
     if (currentToken.kind == Token.ID) {
-      previousTokenPosition = currentToken.position;
+      previousTokenSpan = currentToken.span;
       String spelling = currentToken.spelling;
-      I = new Ident(spelling, previousTokenPosition);
-      currentToken = scanner.getToken();
+      I = new Ident(spelling, previousTokenSpan);
+      currentToken = nextToken();
     } else
       syntacticError("identifier expected here", "");
     return I;
@@ -965,10 +1373,10 @@ Stmt parseReturnStmt() throws SyntaxError {
   Operator acceptOperator() throws SyntaxError {
     Operator O = null;
 
-    previousTokenPosition = currentToken.position;
+    previousTokenSpan = currentToken.span;
     String spelling = currentToken.spelling;
-    O = new Operator(spelling, previousTokenPosition);
-    currentToken = scanner.getToken();
+    O = new Operator(spelling, previousTokenSpan);
+    currentToken = nextToken();
     return O;
   }
 
@@ -979,7 +1387,7 @@ Stmt parseReturnStmt() throws SyntaxError {
     if (currentToken.kind == Token.INTLITERAL) {
       String spelling = currentToken.spelling;
       accept();
-      IL = new IntLiteral(spelling, previousTokenPosition);
+      IL = new IntLiteral(spelling, previousTokenSpan);
     } else
       syntacticError("integer literal expected here", "");
     return IL;
@@ -991,7 +1399,7 @@ Stmt parseReturnStmt() throws SyntaxError {
     if (currentToken.kind == Token.FLOATLITERAL) {
       String spelling = currentToken.spelling;
       accept();
-      FL = new FloatLiteral(spelling, previousTokenPosition);
+      FL = new FloatLiteral(spelling, previousTokenSpan);
     } else
       syntacticError("float literal expected here", "");
     return FL;
@@ -1003,7 +1411,7 @@ Stmt parseReturnStmt() throws SyntaxError {
     if (currentToken.kind == Token.BOOLEANLITERAL) {
       String spelling = currentToken.spelling;
       accept();
-      BL = new BooleanLiteral(spelling, previousTokenPosition);
+      BL = new BooleanLiteral(spelling, previousTokenSpan);
     } else
       syntacticError("boolean literal expected here", "");
     return BL;
@@ -1015,7 +1423,7 @@ Stmt parseReturnStmt() throws SyntaxError {
     if (currentToken.kind == Token.STRINGLITERAL) {
         String spelling = currentToken.spelling;
         accept();
-        SL = new StringLiteral(spelling, previousTokenPosition);
+        SL = new StringLiteral(spelling, previousTokenSpan);
     } else
         syntacticError("string literal expected here", "");
     return SL;
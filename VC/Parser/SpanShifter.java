@@ -0,0 +1,403 @@
+/*
+ * SpanShifter.java
+ *
+ * Moves the spans of the nodes of a subtree by a number of chars, for
+ * the declarations after an edit that Parser.reparse reuses.
+ *
+ * The declarations of one declaration list share the Type that they
+ * were declared with (arrays through their ArrayType), which is moved
+ * once, by the first of them. Lists are walked iteratively, as they can
+ * be longer than the stack is deep.
+ */
+
+package VC.Parser;
+
+import VC.ASTs.*;
+import VC.Scanner.Span;
+
+final class SpanShifter implements Visitor {
+
+  private final int delta;
+  private Type lastType;      // the last Type moved
+
+  SpanShifter(int delta) {
+    this.delta = delta;
+  }
+
+  void shift(AST ast) {
+    ast.visit(this, null);
+  }
+
+  private void move(AST ast) {
+    ast.span = Span.shift(ast.span, delta);
+    Fingerprint.invalidateSpans(ast);
+  }
+
+  private void moveType(Type ast) {
+    if (ast != lastType) {
+      lastType = ast;
+      move(ast);
+    }
+  }
+
+  private void moveDecl(Decl ast) {
+    move(ast);
+    ast.T.visit(this, null);
+    ast.I.visit(this, null);
+  }
+
+  // Programs
+
+  public Object visitProgram(Program ast, Object o) {
+    move(ast);
+    ast.FL.visit(this, null);
+    return null;
+  }
+
+  // Lists for denoting the null reference
+
+  public Object visitEmptyDeclList(EmptyDeclList ast, Object o) {
+    move(ast);
+    return null;
+  }
+
+  public Object visitEmptyStmtList(EmptyStmtList ast, Object o) {
+    move(ast);
+    return null;
+  }
+
+  public Object visitEmptyArrayExprList(EmptyArrayExprList ast, Object o) {
+    move(ast);
+    return null;
+  }
+
+  public Object visitEmptyParaList(EmptyParaList ast, Object o) {
+    move(ast);
+    return null;
+  }
+
+  public Object visitEmptyArgList(EmptyArgList ast, Object o) {
+    move(ast);
+    return null;
+  }
+
+  // Declarations
+
+  public Object visitDeclList(DeclList ast, Object o) {
+    List list = ast;
+    for (; list instanceof DeclList; list = ((DeclList) list).DL) {
+      move(list);
+      ((DeclList) list).D.visit(this, null);
+    }
+    list.visit(this, null);
+    return null;
+  }
+
+  public Object visitFuncDecl(FuncDecl ast, Object o) {
+    moveDecl(ast);
+    ast.PL.visit(this, null);
+    ast.S.visit(this, null);
+    return null;
+  }
+
+  public Object visitGlobalVarDecl(GlobalVarDecl ast, Object o) {
+    moveDecl(ast);
+    ast.E.visit(this, null);
+    return null;
+  }
+
+  public Object visitLocalVarDecl(LocalVarDecl ast, Object o) {
+    moveDecl(ast);
+    ast.E.visit(this, null);
+    return null;
+  }
+
+  public Object visitErrorDecl(ErrorDecl ast, Object o) {
+    move(ast);
+    return null;
+  }
+
+  // Stmts
+
+  public Object visitStmtList(StmtList ast, Object o) {
+    List list = ast;
+    for (; list instanceof StmtList; list = ((StmtList) list).SL) {
+      move(list);
+      ((StmtList) list).S.visit(this, null);
+    }
+    list.visit(this, null);
+    return null;
+  }
+
+  public Object visitIfStmt(IfStmt ast, Object o) {
+    move(ast);
+    ast.E.visit(this, null);
+    ast.S1.visit(this, null);
+    ast.S2.visit(this, null);
+    return null;
+  }
+
+  public Object visitWhileStmt(WhileStmt ast, Object o) {
+    move(ast);
+    ast.E.visit(this, null);
+    ast.S.visit(this, null);
+    return null;
+  }
+
+  public Object visitForStmt(ForStmt ast, Object o) {
+    move(ast);
+    ast.E1.visit(this, null);
+    ast.E2.visit(this, null);
+    ast.E3.visit(this, null);
+    ast.S.visit(this, null);
+    return null;
+  }
+
+  public Object visitBreakStmt(BreakStmt ast, Object o) {
+    move(ast);
+    return null;
+  }
+
+  public Object visitContinueStmt(ContinueStmt ast, Object o) {
+    move(ast);
+    return null;
+  }
+
+  public Object visitReturnStmt(ReturnStmt ast, Object o) {
+    move(ast);
+    ast.E.visit(this, null);
+    return null;
+  }
+
+  public Object visitCompoundStmt(CompoundStmt ast, Object o) {
+    move(ast);
+    ast.DL.visit(this, null);
+    ast.SL.visit(this, null);
+    return null;
+  }
+
+  public Object visitExprStmt(ExprStmt ast, Object o) {
+    move(ast);
+    ast.E.visit(this, null);
+    return null;
+  }
+
+  public Object visitEmptyCompStmt(EmptyCompStmt ast, Object o) {
+    move(ast);
+    return null;
+  }
+
+  public Object visitEmptyStmt(EmptyStmt ast, Object o) {
+    move(ast);
+    return null;
+  }
+
+  public Object visitErrorStmt(ErrorStmt ast, Object o) {
+    move(ast);
+    return null;
+  }
+
+  // Expressions
+
+  public Object visitIntExpr(IntExpr ast, Object o) {
+    move(ast);
+    ast.IL.visit(this, null);
+    return null;
+  }
+
+  public Object visitFloatExpr(FloatExpr ast, Object o) {
+    move(ast);
+    ast.FL.visit(this, null);
+    return null;
+  }
+
+  public Object visitBooleanExpr(BooleanExpr ast, Object o) {
+    move(ast);
+    ast.BL.visit(this, null);
+    return null;
+  }
+
+  public Object visitStringExpr(StringExpr ast, Object o) {
+    move(ast);
+    ast.SL.visit(this, null);
+    return null;
+  }
+
+  public Object visitUnaryExpr(UnaryExpr ast, Object o) {
+    move(ast);
+    ast.O.visit(this, null);
+    ast.E.visit(this, null);
+    return null;
+  }
+
+  public Object visitBinaryExpr(BinaryExpr ast, Object o) {
+    move(ast);
+    ast.E1.visit(this, null);
+    ast.O.visit(this, null);
+    ast.E2.visit(this, null);
+    return null;
+  }
+
+  public Object visitArrayInitExpr(ArrayInitExpr ast, Object o) {
+    move(ast);
+    ast.IL.visit(this, null);
+    return null;
+  }
+
+  public Object visitArrayExprList(ArrayExprList ast, Object o) {
+    List list = ast;
+    for (; list instanceof ArrayExprList; list = ((ArrayExprList) list).EL) {
+      move(list);
+      ((ArrayExprList) list).E.visit(this, null);
+    }
+    list.visit(this, null);
+    return null;
+  }
+
+  public Object visitArrayExpr(ArrayExpr ast, Object o) {
+    move(ast);
+    ast.V.visit(this, null);
+    ast.E.visit(this, null);
+    return null;
+  }
+
+  public Object visitVarExpr(VarExpr ast, Object o) {
+    move(ast);
+    ast.V.visit(this, null);
+    return null;
+  }
+
+  public Object visitCallExpr(CallExpr ast, Object o) {
+    move(ast);
+    ast.I.visit(this, null);
+    ast.AL.visit(this, null);
+    return null;
+  }
+
+  public Object visitAssignExpr(AssignExpr ast, Object o) {
+    move(ast);
+    ast.E1.visit(this, null);
+    ast.E2.visit(this, null);
+    return null;
+  }
+
+  public Object visitEmptyExpr(EmptyExpr ast, Object o) {
+    move(ast);
+    return null;
+  }
+
+  // Literals and identifiers
+
+  public Object visitIntLiteral(IntLiteral ast, Object o) {
+    move(ast);
+    return null;
+  }
+
+  public Object visitFloatLiteral(FloatLiteral ast, Object o) {
+    move(ast);
+    return null;
+  }
+
+  public Object visitBooleanLiteral(BooleanLiteral ast, Object o) {
+    move(ast);
+    return null;
+  }
+
+  public Object visitStringLiteral(StringLiteral ast, Object o) {
+    move(ast);
+    return null;
+  }
+
+  public Object visitIdent(Ident ast, Object o) {
+    move(ast);
+    return null;
+  }
+
+  public Object visitOperator(Operator ast, Object o) {
+    move(ast);
+    return null;
+  }
+
+  // Parameters
+
+  public Object visitParaList(ParaList ast, Object o) {
+    List list = ast;
+    for (; list instanceof ParaList; list = ((ParaList) list).PL) {
+      move(list);
+      ((ParaList) list).P.visit(this, null);
+    }
+    list.visit(this, null);
+    return null;
+  }
+
+  public Object visitParaDecl(ParaDecl ast, Object o) {
+    moveDecl(ast);
+    return null;
+  }
+
+  // Arguments
+
+  public Object visitArgList(ArgList ast, Object o) {
+    List list = ast;
+    for (; list instanceof ArgList; list = ((ArgList) list).AL) {
+      move(list);
+      ((ArgList) list).A.visit(this, null);
+    }
+    list.visit(this, null);
+    return null;
+  }
+
+  public Object visitArg(Arg ast, Object o) {
+    move(ast);
+    ast.E.visit(this, null);
+    return null;
+  }
+
+  // Types
+
+  public Object visitVoidType(VoidType ast, Object o) {
+    moveType(ast);
+    return null;
+  }
+
+  public Object visitBooleanType(BooleanType ast, Object o) {
+    moveType(ast);
+    return null;
+  }
+
+  public Object visitIntType(IntType ast, Object o) {
+    moveType(ast);
+    return null;
+  }
+
+  public Object visitFloatType(FloatType ast, Object o) {
+    moveType(ast);
+    return null;
+  }
+
+  public Object visitStringType(StringType ast, Object o) {
+    moveType(ast);
+    return null;
+  }
+
+  public Object visitArrayType(ArrayType ast, Object o) {
+    move(ast);
+    ast.T.visit(this, null);
+    ast.E.visit(this, null);
+    return null;
+  }
+
+  public Object visitErrorType(ErrorType ast, Object o) {
+    moveType(ast);
+    return null;
+  }
+
+  // Variables
+
+  public Object visitSimpleVar(SimpleVar ast, Object o) {
+    move(ast);
+    ast.I.visit(this, null);
+    return null;
+  }
+
+}
@@ -4,71 +4,136 @@
  * Wed 26 Feb 2025 14:06:17 AEDT
  */
 
-/* This recogniser accepts a subset of VC defined by the following CFG:
+/* This recogniser accepts the whole of VC. It is the Parser without the
+   AST: it checks the syntax of a program and reports the same errors, at
+   the same positions, as Parser.parseProgram, recovering from them in the
+   same way, but builds nothing.
 
-	program       -> func-decl
+	program       -> ( func-decl | var-decl )*
 
-	// declaration
+	// declarations
 
-	func-decl     -> void identifier "(" ")" compound-stmt
+	func-decl     -> type identifier para-list compound-stmt
+	var-decl      -> type init-declarator-list ";"
+	init-declarator-list -> init-declarator ( "," init-declarator )*
+	init-declarator      -> declarator ( "=" initialiser )?
+	declarator    -> identifier
+	              |  identifier "[" INTLITERAL? "]"
+	initialiser   -> expr
+	              |  "{" ( expr ( "," expr )* ","? )? "}"
 
+	type          -> void | boolean | int | float
 	identifier    -> ID
 
 	// statements
-	compound-stmt -> "{" stmt* "}"
-	stmt          -> continue-stmt
-	    	      |  expr-stmt
+	compound-stmt -> "{" var-decl* stmt* "}"
+	stmt          -> compound-stmt
+	              |  if-stmt
+	              |  for-stmt
+	              |  while-stmt
+	              |  break-stmt
+	              |  continue-stmt
+	              |  return-stmt
+	              |  expr-stmt
+	if-stmt       -> if "(" expr ")" stmt ( else stmt )?
+	for-stmt      -> for "(" expr? ";" expr? ";" expr? ")" stmt
+	while-stmt    -> while "(" expr ")" stmt
+	break-stmt    -> break ";"
 	continue-stmt -> continue ";"
+	return-stmt   -> return expr? ";"
 	expr-stmt     -> expr? ";"
 
-	// expressions
-	expr                -> assignment-expr
-	assignment-expr     -> additive-expr
-	additive-expr       -> multiplicative-expr
-	                    |  additive-expr "+" multiplicative-expr
-	multiplicative-expr -> unary-expr
-		            |  multiplicative-expr "*" unary-expr
-	unary-expr          -> "-" unary-expr
-			    |  primary-expr
-
-	primary-expr        -> identifier
-	 		    |  INTLITERAL
-			    | "(" expr ")"
-
-It serves as a good starting point for implementing your own VC recogniser.
-You can modify the existing parsing methods (if necessary) and add any missing ones
-to build a complete recogniser for VC.
-
-Alternatively, you are free to disregard the starter code entirely and develop
-your own solution, as long as it adheres to the same public interface.
+	// expressions (see parseBinaryExpr)
+	expr          -> assignment-expr
+	unary-expr    -> ( "+" | "-" | "!" ) unary-expr
+	              |  primary-expr
+	primary-expr  -> identifier arg-list?
+	              |  identifier "[" expr "]"
+	              |  "(" expr ")"
+	              |  INTLITERAL | FLOATLITERAL | BOOLLITERAL | STRINGLITERAL
+
+	// parameters and arguments
+	para-list     -> "(" ( para-decl ( "," para-decl )* )? ")"
+	para-decl     -> type declarator
+	arg-list      -> "(" ( expr ( "," expr )* )? ")"
+
+As in Parser, a declarator after a "," may start with a type of its own,
+as in int i, float f;, both at the top level and in a compound statement.
+
+Given a TokenCursor over a TokenStream, the recogniser keeps only the
+index of the current token and reads its kind and span from the
+stream, so that nothing is allocated per token (the spelling of a
+token is only built for an error message). Given a Scanner, it reads
+the Tokens that the Scanner builds.
 
 */
 
 package VC.Recogniser;
 
 import VC.Scanner.Scanner;
-import VC.Scanner.SourcePosition;
+import VC.Scanner.Span;
 import VC.Scanner.Token;
+import VC.Scanner.TokenCursor;
+import VC.Scanner.TokenStream;
 import VC.ErrorReporter;
 
 public class Recogniser {
 
     private Scanner scanner;
+    private TokenCursor cursor;     // used instead of scanner if not null
+    private TokenStream tokens;     // the stream that cursor is over
     private ErrorReporter errorReporter;
-    private Token currentToken;
+    private Token currentToken;     // when reading from scanner
+    private int currentIndex;       // when reading from cursor
+    private int currentKind;
+    private long currentSpan;
+
+    // error recovery, as in Parser
+    private int errorLimit = VC.Parser.Parser.DEFAULT_ERROR_LIMIT;
+    private boolean tooManyErrors;
+    private int lastErrorOffset = -1;
 
     public Recogniser(Scanner lexer, ErrorReporter reporter) {
         scanner = lexer;
         errorReporter = reporter;
-        currentToken = scanner.getToken();
+        accept();
+    }
+
+    // Recognises a program already lexed into a TokenStream.
+
+    public Recogniser(TokenCursor tokens, ErrorReporter reporter) {
+        cursor = tokens;
+        this.tokens = tokens.stream();
+        errorReporter = reporter;
+        accept();
+    }
+
+    // Makes the recogniser give up at a syntax error found once this
+    // many errors, lexical or syntactic, have been reported (without
+    // reporting it).
+
+    public void setErrorLimit(int limit) {
+        errorLimit = limit;
+    }
+
+    // Whether the recogniser gave up because of the error limit.
+
+    public boolean reachedErrorLimit() {
+        return tooManyErrors;
+    }
+
+    // The spelling of the current token, for an error message.
+
+    private String currentSpelling() {
+        return (cursor != null) ? tokens.spelling(currentIndex) : currentToken.spelling;
     }
 
     // match checks to see if the current token matches tokenExpected.
     // If so, fetches the next token.
     // If not, reports a syntactic error.
     void match(int tokenExpected) throws SyntaxError {
-        if (currentToken.kind == tokenExpected) {
-            currentToken = scanner.getToken();
+        if (currentKind == tokenExpected) {
+            accept();
         } else {
             syntacticError("\"%\" expected here", Token.spell(tokenExpected));
         }
@@ -76,38 +141,121 @@ public class Recogniser {
 
     // accepts the current token and fetches the next
     void accept() {
-        currentToken = scanner.getToken();
+        if (cursor != null) {
+            currentIndex = cursor.advance();
+            currentKind = tokens.kind(currentIndex);
+            currentSpan = tokens.span(currentIndex);
+        } else {
+            currentToken = scanner.getToken();
+            currentKind = currentToken.kind;
+            currentSpan = currentToken.span;
+        }
     }
 
     // Handles syntactic errors and reports them via the error reporter.
+    // An error no further on than the last one is a consequence of
+    // recovering from that one, so it is not reported.
     void syntacticError(String messageTemplate, String tokenQuoted) throws SyntaxError {
-        SourcePosition pos = currentToken.position;
-        errorReporter.reportError(messageTemplate, tokenQuoted, pos);
+        long pos = currentSpan;
+        // One found once errorLimit errors have been reported is not
+        // reported either, and the recogniser gives up.
+        if (Span.start(pos) > lastErrorOffset) {
+            lastErrorOffset = Span.start(pos);
+            if (errorReporter.getNumErrors() >= errorLimit)
+                tooManyErrors = true;
+            else
+                errorReporter.reportError(messageTemplate, tokenQuoted, pos);
+        }
         throw new SyntaxError();
     }
 
+    // ========================== ERROR RECOVERY ========================
+    // As in Parser: after a syntax error, statements resynchronise at a
+    // ";" or a "}", and top-level declarations at a type keyword outside
+    // braces, until the error limit stops it (see syntacticError).
+
+    // Skips the tokens up to and including the ";" that ends the current
+    // statement, or the "}" that closes a block it opens, and stops
+    // before a "}" that closes the block the statement is in.
+    private void skipStatement() {
+        int depth = 0;
+        while (currentKind != Token.EOF) {
+            int kind = currentKind;
+            if (kind == Token.RCURLY && depth == 0)
+                return;
+            accept();
+            if (kind == Token.LCURLY) {
+                depth++;
+            } else if (kind == Token.RCURLY) {
+                if (--depth == 0)
+                    return;
+            } else if (kind == Token.SEMICOLON && depth == 0) {
+                return;
+            }
+        }
+    }
+
+    // Skips the tokens up to the type keyword, outside braces, that
+    // starts the next top-level declaration.
+    private void skipDeclaration() {
+        int depth = 0;
+        do {
+            if (currentKind == Token.LCURLY)
+                depth++;
+            else if (currentKind == Token.RCURLY && depth > 0)
+                depth--;
+            accept();
+        } while (currentKind != Token.EOF
+                 && (depth > 0 || !isTypeToken(currentKind)));
+    }
+
     // ========================== PROGRAMS ========================
     public void parseProgram() {
         try {
-            while(currentToken.kind == Token.VOID || currentToken.kind == Token.INT || currentToken.kind == Token.FLOAT || currentToken.kind == Token.BOOLEAN) {
-                parseDecl();
-            }
-            if (currentToken.kind != Token.EOF) {
-                syntacticError("\"%\" wrong result type for a function", currentToken.spelling);
+            if (currentKind != Token.EOF) {
+                parseDeclList();
             }
+            match(Token.EOF);
         } catch (SyntaxError s) { }
     }
 
     // ========================== DECLARATIONS ========================
-    void parseDecl() throws SyntaxError {
-        parseType();
-        parseIdent();
-        // parse DeclRest
-        if (currentToken.kind == Token.LPAREN) {
-            parseFuncDecl();
-        } else {
-            parseVarDecl();
-        }
+    void parseDeclList() throws SyntaxError {
+        boolean hasComma = false;
+        do {
+            try {
+                if (!hasComma || isTypeToken(currentKind))
+                    parseType();
+                parseIdent();
+                hasComma = false;
+                if (currentKind == Token.LPAREN) {
+                    parseFuncDecl();
+                } else {
+                    parseVarDeclNoList();
+                    if (currentKind == Token.COMMA) {
+                        match(Token.COMMA);
+                        hasComma = true;
+                    } else {
+                        match(Token.SEMICOLON);
+                    }
+                }
+
+                // the program must end unless another declaration follows
+                if (!isTypeToken(currentKind) && currentKind != Token.EOF
+                    && (currentKind != Token.ID || !hasComma))
+                    syntacticError("\"%\" expected here", Token.spell(Token.EOF));
+            } catch (SyntaxError s) {
+                if (tooManyErrors)
+                    throw s;
+                skipDeclaration();
+                hasComma = false;
+            }
+        } while (currentKind != Token.EOF);
+    }
+
+    private boolean isTypeToken(int tokenKind) {
+        return tokenKind == Token.VOID || tokenKind == Token.BOOLEAN ||
+               tokenKind == Token.INT || tokenKind == Token.FLOAT;
     }
 
     void parseFuncDecl() throws SyntaxError {
@@ -115,50 +263,24 @@ public class Recogniser {
         parseCompoundStmt();
     }
 
-    void parseVarDecl() throws SyntaxError {
-        if (currentToken.kind == Token.LBRACKET) {
+    // The rest of a declarator, after its identifier, and its initialiser.
+    void parseVarDeclNoList() throws SyntaxError {
+        if (currentKind == Token.LBRACKET) {
             match(Token.LBRACKET);
-            if (currentToken.kind == Token.INTLITERAL) {
-                parseIntLiteral();
-            }
-            match(Token.RBRACKET);
+            parseArrayType();
         }
 
-        if (currentToken.kind == Token.EQ) {
-            match(Token.EQ);
-            parseInitialiser();
-        }
-        while(currentToken.kind == Token.COMMA) {
-            match(Token.COMMA);
-            parseInitDeclarator();
-        }
-        match(Token.SEMICOLON);
-    }
-
-    void parseInitDeclarator() throws SyntaxError {
-        parseIdent();
-        if (currentToken.kind == Token.LBRACKET) {
-            match(Token.LBRACKET);
-            if (currentToken.kind == Token.INTLITERAL) {
-                parseIntLiteral();
-            }
-            match(Token.RBRACKET);
-        }
-
-        if (currentToken.kind == Token.EQ) {
+        if (currentKind == Token.EQ) {
             match(Token.EQ);
             parseInitialiser();
         }
     }
 
     void parseInitialiser() throws SyntaxError {
-        if(currentToken.kind == Token.LCURLY) {
+        if (currentKind == Token.LCURLY) {
             match(Token.LCURLY);
-            parseExpr();
-
-            while(currentToken.kind == Token.COMMA) {
-                match(Token.COMMA);
-                parseExpr();
+            if (currentKind != Token.RCURLY) {
+                parseArrayExprList();
             }
             match(Token.RCURLY);
         } else {
@@ -166,37 +288,72 @@ public class Recogniser {
         }
     }
 
+    void parseArrayExprList() throws SyntaxError {
+        do {
+            parseExpr();
+            if (currentKind != Token.COMMA)
+                break;
+            match(Token.COMMA);
+        } while (currentKind != Token.RCURLY);
+    }
+
+    void parseLocalVarDeclList() throws SyntaxError {
+        boolean more;
+        do {
+            boolean hasComma = false;
+            try {
+                parseIdent();
+                parseVarDeclNoList();
+                if (currentKind == Token.COMMA) {
+                    match(Token.COMMA);
+                    hasComma = true;
+                } else {
+                    match(Token.SEMICOLON);
+                }
+            } catch (SyntaxError s) {
+                if (tooManyErrors || currentKind == Token.EOF)
+                    throw s;
+                skipStatement();
+            }
+
+            more = true;
+            if (isTypeToken(currentKind)) {
+                parseType();
+            } else if (currentKind != Token.ID || !hasComma) {
+                more = false;
+            }
+        } while (more);
+    }
+
     // ========================== TYPES ========================
     void parseType() throws SyntaxError {
-        switch (currentToken.kind) {
+        switch (currentKind) {
             case Token.VOID:
-                match(Token.VOID);
-                break;
             case Token.BOOLEAN:
-                match(Token.BOOLEAN);
-                break;
             case Token.INT:
-                match(Token.INT);
-                break;
             case Token.FLOAT:
-                match(Token.FLOAT);
+                accept();
                 break;
             default:
-                syntacticError("\"%\" expected here", currentToken.spelling);
+                syntacticError("\"%\" expected here", currentSpelling());
                 break;
         }
     }
+
+    // The size and "]" of an array type, after its "[".
+    void parseArrayType() throws SyntaxError {
+        if (currentKind == Token.INTLITERAL) {
+            parseIntLiteral();
+        }
+        match(Token.RBRACKET);
+    }
+
     // ======================= STATEMENTS ==============================
     void parseCompoundStmt() throws SyntaxError {
         match(Token.LCURLY);
-        while(currentToken.kind == Token.VOID || currentToken.kind == Token.INT || currentToken.kind == Token.FLOAT || currentToken.kind == Token.BOOLEAN) {
-                //parseDecl();
-                parseType();
-                parseIdent();
-                if (currentToken.kind == Token.LPAREN) {
-                    syntacticError("\"%\" expected here", Token.spell(Token.SEMICOLON));
-                }
-                parseVarDecl();
+        if (isTypeToken(currentKind)) {
+            parseType();
+            parseLocalVarDeclList();
         }
         parseStmtList();
         match(Token.RCURLY);
@@ -204,12 +361,19 @@ public class Recogniser {
 
     // Defines a list of statements enclosed within curly braces
     void parseStmtList() throws SyntaxError {
-        while (currentToken.kind != Token.RCURLY)
-            parseStmt();
+        while (currentKind != Token.RCURLY) {
+            try {
+                parseStmt();
+            } catch (SyntaxError s) {
+                if (tooManyErrors || currentKind == Token.EOF)
+                    throw s;
+                skipStatement();
+            }
+        }
     }
 
     void parseStmt() throws SyntaxError {
-        switch (currentToken.kind) {
+        switch (currentKind) {
             case Token.LCURLY:
                 parseCompoundStmt();
                 break;
@@ -244,7 +408,7 @@ public class Recogniser {
         parseExpr();
         match(Token.RPAREN);
         parseStmt();
-        if (currentToken.kind == Token.ELSE) {
+        if (currentKind == Token.ELSE) {
             match(Token.ELSE);
             parseStmt();
         }
@@ -254,15 +418,15 @@ public class Recogniser {
     void parseForStmt() throws SyntaxError {
         match(Token.FOR);
         match(Token.LPAREN);
-        if(currentToken.kind != Token.SEMICOLON) {
+        if (currentKind != Token.SEMICOLON) {
             parseExpr();
         }
         match(Token.SEMICOLON);
-        if(currentToken.kind!=Token.SEMICOLON) {
+        if (currentKind != Token.SEMICOLON) {
             parseExpr();
         }
         match(Token.SEMICOLON);
-        if(currentToken.kind != Token.RPAREN) {
+        if (currentKind != Token.RPAREN) {
             parseExpr();
         }
         match(Token.RPAREN);
@@ -285,7 +449,7 @@ public class Recogniser {
     // Handles return statements
     void parseReturnStmt() throws SyntaxError {
         match(Token.RETURN);
-        if (currentToken.kind != Token.SEMICOLON) {
+        if (currentKind != Token.SEMICOLON) {
             parseExpr();
         }
         match(Token.SEMICOLON);
@@ -298,109 +462,91 @@ public class Recogniser {
 
     // Handles expression statements, optionally parsing an expression followed by a semicolon
     void parseExprStmt() throws SyntaxError {
-        if (currentToken.kind != Token.SEMICOLON) {
+        if (currentKind != Token.SEMICOLON) {
             parseExpr();
-            match(Token.SEMICOLON);
-        } else {
-            match(Token.SEMICOLON);
         }
+        match(Token.SEMICOLON);
     }
 
     // ======================= IDENTIFIERS ======================
-    // Calls parseIdent rather than match(Token.ID). In future assignments,
-    // an Identifier node will be constructed in this method.
     void parseIdent() throws SyntaxError {
-        if (currentToken.kind == Token.ID) {
+        if (currentKind == Token.ID) {
             accept();
         } else {
             syntacticError("identifier expected here", "");
         }
     }
 
-    // ======================= OPERATORS ======================
-    // Calls acceptOperator rather than accept(). In future assignments,
-    // an Operator Node will be constructed in this method.
-    void acceptOperator() throws SyntaxError {
-        currentToken = scanner.getToken();
-    }
-
     // ======================= EXPRESSIONS ======================
-    void parseExpr() throws SyntaxError {
-        parseAssignExpr();
-    }
-
-    void parseAssignExpr() throws SyntaxError {
-        parseCondOrExpr();
-        if (currentToken.kind == Token.EQ) {
-            acceptOperator();
-            parseAssignExpr();
-        }
-    }
-
-    void parseCondOrExpr() throws SyntaxError {
-        parseCondAndExpr();
-        while (currentToken.kind == Token.OROR) {
-            acceptOperator();
-            parseCondAndExpr();
-        }
+    // Binary and assignment expressions are recognised by precedence
+    // climbing, with the levels of Parser:
+    //
+    //   assignment-expr -> cond-or-expr ( "=" assignment-expr )?
+    //   cond-or-expr    -> cond-and-expr ( "||" cond-and-expr )*
+    //   cond-and-expr   -> equality-expr ( "&&" equality-expr )*
+    //   equality-expr   -> rel-expr ( ( "==" | "!=" ) rel-expr )*
+    //   rel-expr        -> additive-expr ( ( "<" | "<=" | ">" | ">=" ) additive-expr )*
+    //   additive-expr   -> multiplicative-expr ( ( "+" | "-" ) multiplicative-expr )*
+    //   multiplicative-expr -> unary-expr ( ( "*" | "/" ) unary-expr )*
+
+    private static final int
+        ASSIGNMENT     = 1,
+        COND_OR        = 2,
+        COND_AND       = 3,
+        EQUALITY       = 4,
+        RELATIONAL     = 5,
+        ADDITIVE       = 6,
+        MULTIPLICATIVE = 7;
+
+    private static final int[] precedence = new int[Token.EOF + 1];
+
+    static {
+        precedence[Token.EQ] = ASSIGNMENT;
+        precedence[Token.OROR] = COND_OR;
+        precedence[Token.ANDAND] = COND_AND;
+        precedence[Token.EQEQ] = EQUALITY;
+        precedence[Token.NOTEQ] = EQUALITY;
+        precedence[Token.LT] = RELATIONAL;
+        precedence[Token.LTEQ] = RELATIONAL;
+        precedence[Token.GT] = RELATIONAL;
+        precedence[Token.GTEQ] = RELATIONAL;
+        precedence[Token.PLUS] = ADDITIVE;
+        precedence[Token.MINUS] = ADDITIVE;
+        precedence[Token.MULT] = MULTIPLICATIVE;
+        precedence[Token.DIV] = MULTIPLICATIVE;
     }
 
-    void parseCondAndExpr() throws SyntaxError {
-        parseEqualityExpr();
-        while(currentToken.kind == Token.ANDAND) {
-            acceptOperator();
-            parseEqualityExpr();
-        }
-    }
-
-    void parseEqualityExpr() throws SyntaxError {
-        parseRelExpr();
-        while(currentToken.kind == Token.NOTEQ || currentToken.kind == Token.EQEQ) {
-            acceptOperator();
-            parseRelExpr();
-        }
-    }
-
-    void parseRelExpr() throws SyntaxError {
-        parseAdditiveExpr();
-        while(currentToken.kind == Token.LT || currentToken.kind == Token.LTEQ || currentToken.kind == Token.GT || currentToken.kind == Token.GTEQ) {
-            acceptOperator();
-            parseAdditiveExpr();
-        }
-    }
-
-    void parseAdditiveExpr() throws SyntaxError {
-        parseMultiplicativeExpr();
-        while (currentToken.kind == Token.PLUS||currentToken.kind == Token.MINUS) {
-            acceptOperator();
-            parseMultiplicativeExpr();
-        }
+    void parseExpr() throws SyntaxError {
+        parseBinaryExpr(ASSIGNMENT);
     }
 
-    void parseMultiplicativeExpr() throws SyntaxError {
+    // Recognises an expression whose operators (outside parentheses) are
+    // at level minLevel or above.
+    void parseBinaryExpr(int minLevel) throws SyntaxError {
         parseUnaryExpr();
-        while (currentToken.kind == Token.MULT || currentToken.kind == Token.DIV) {
-            acceptOperator();
-            parseUnaryExpr();
+
+        int level = precedence[currentKind];
+        while (level >= minLevel && level > 0) {
+            accept();
+            if (level == ASSIGNMENT) {
+                parseBinaryExpr(ASSIGNMENT);
+                return;
+            }
+            parseBinaryExpr(level + 1);
+            level = precedence[currentKind];
         }
     }
 
     void parseUnaryExpr() throws SyntaxError {
-        switch (currentToken.kind) {
-            case Token.PLUS:
-            case Token.MINUS:
-            case Token.NOT:
-                acceptOperator();
-                parseUnaryExpr();
-                break;
-            default:
-                parsePrimaryExpr();
-                break;
+        while (currentKind == Token.PLUS || currentKind == Token.MINUS
+               || currentKind == Token.NOT) {
+            accept();
         }
+        parsePrimaryExpr();
     }
 
     void parsePrimaryExpr() throws SyntaxError {
-        switch (currentToken.kind) {
+        switch (currentKind) {
             case Token.ID:
                 parseIdent();
                 parsePrimaryRest();
@@ -423,24 +569,24 @@ public class Recogniser {
                 parseStringLiteral();
                 break;
             default:
-                syntacticError("illegal primary expression", currentToken.spelling);
+                syntacticError("illegal primary expression", currentSpelling());
                 break;
         }
     }
     void parsePrimaryRest() throws SyntaxError {
-        if(currentToken.kind == Token.LPAREN) {
+        if (currentKind == Token.LPAREN) {
+            match(Token.LPAREN);
             parseArgList();
-        } else if(currentToken.kind == Token.LBRACKET) {
+            match(Token.RPAREN);
+        } else if (currentKind == Token.LBRACKET) {
             match(Token.LBRACKET);
             parseExpr();
             match(Token.RBRACKET);
         }
     }
     // ========================== LITERALS ========================
-    // Calls these methods rather than accept(). In future assignments,
-    // literal AST nodes will be constructed inside these methods.
     void parseIntLiteral() throws SyntaxError {
-        if (currentToken.kind == Token.INTLITERAL) {
+        if (currentKind == Token.INTLITERAL) {
             accept();
         } else {
             syntacticError("integer literal expected here", "");
@@ -448,7 +594,7 @@ public class Recogniser {
     }
 
     void parseFloatLiteral() throws SyntaxError {
-        if (currentToken.kind == Token.FLOATLITERAL) {
+        if (currentKind == Token.FLOATLITERAL) {
             accept();
         } else {
             syntacticError("float literal expected here", "");
@@ -456,24 +602,24 @@ public class Recogniser {
     }
 
     void parseBooleanLiteral() throws SyntaxError {
-        if (currentToken.kind == Token.BOOLEANLITERAL) {
+        if (currentKind == Token.BOOLEANLITERAL) {
             accept();
         } else {
             syntacticError("boolean literal expected here", "");
         }
     }
     void parseStringLiteral() throws SyntaxError {
-        if(currentToken.kind == Token.STRINGLITERAL) {
+        if (currentKind == Token.STRINGLITERAL) {
             accept();
         } else {
-            syntacticError("string literal expected here","");
+            syntacticError("string literal expected here", "");
         }
     }
 
     //-------------------- paras --------------------
     void parseParaList() throws SyntaxError {
         match(Token.LPAREN);
-        if(currentToken.kind != Token.RPAREN) {
+        if (currentKind != Token.RPAREN) {
             parseProperParaList();
         }
         match(Token.RPAREN);
@@ -481,7 +627,7 @@ public class Recogniser {
 
     void parseProperParaList() throws SyntaxError {
         parseParaDecl();
-        while(currentToken.kind == Token.COMMA) {
+        while (currentKind == Token.COMMA) {
             match(Token.COMMA);
             parseParaDecl();
         }
@@ -490,26 +636,22 @@ public class Recogniser {
     void parseParaDecl() throws SyntaxError {
         parseType();
         parseIdent();
-        if(currentToken.kind == Token.LBRACKET) {
+        if (currentKind == Token.LBRACKET) {
             match(Token.LBRACKET);
-            if(currentToken.kind == Token.INTLITERAL){
-                parseIntLiteral();
-            }
-            match(Token.RBRACKET);
+            parseArrayType();
         }
     }
 
+    // The arguments of a call, after its "(".
     void parseArgList() throws SyntaxError {
-        match(Token.LPAREN);
-        if(currentToken.kind != Token.RPAREN) {
+        if (currentKind != Token.RPAREN) {
             parseProperArgList();
         }
-        match(Token.RPAREN);
     }
 
     void parseProperArgList() throws SyntaxError {
         parseArg();
-        while(currentToken.kind == Token.COMMA) {
+        while (currentKind == Token.COMMA) {
             match(Token.COMMA);
             parseArg();
         }
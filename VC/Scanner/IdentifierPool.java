@@ -0,0 +1,30 @@
+/*
+ * IdentifierPool.java
+ *
+ * The intern pool for the spellings of identifiers. It is shared by
+ * all phases of a compilation: the scanner interns the spelling of
+ * every ID token, and every Ident node interns its spelling, so that
+ * all occurrences of an identifier share one String. SymbolTable and
+ * Checker can therefore compare identifiers with == instead of equals.
+ *
+ * A canonical spelling is the one returned by String.intern, so
+ * identifiers also compare equal by reference to string literals
+ * such as "main" in the compiler itself. The JVM's string table is the
+ * pool: it holds no more than the identifiers still in use, so a long
+ * run (e.g., checking edit after edit) does not keep the spellings of
+ * programs it is done with.
+ */
+
+package VC.Scanner;
+
+public final class IdentifierPool {
+
+  private IdentifierPool() { }
+
+  // Returns the canonical String with the same characters as spelling.
+
+  public static String intern(String spelling) {
+    return spelling.intern();
+  }
+
+}
@@ -0,0 +1,200 @@
+/*
+ * LineTable.java
+ *
+ * Resolves the character offsets of a Span to the lines and columns
+ * the scanner has always reported.
+ *
+ * The table holds the offset at which each line starts and, because a
+ * column is not simply the distance from the start of the line, one
+ * checkpoint for each tab that moves to a tab stop. The scanner counts
+ * a tab in whitespace or in a block comment as a move to the next tab
+ * stop, but every other character, including a tab in a string literal
+ * or a line comment, as one column. So the table follows the text with
+ * a small state machine that knows whether a character is in a string
+ * or a comment, and records (offset after the tab, its column) for the
+ * tabs that expand. The column of any offset is then the column of the
+ * nearest checkpoint or line start before it plus the distance to it.
+ *
+ * A table over a whole program text is built on the first query, so a
+ * compilation that reports no errors never builds one. A table for a
+ * source that is read one character at a time is fed those characters
+ * as they are read.
+ */
+
+package VC.Scanner;
+
+import java.util.Arrays;
+
+public final class LineTable {
+
+  // where the state machine is in the text
+  private static final int
+    NORMAL        = 0,
+    SLASH         = 1,   // after a '/' in NORMAL
+    LINE_COMMENT  = 2,
+    BLOCK_COMMENT = 3,
+    BLOCK_STAR    = 4,   // after a '*' in BLOCK_COMMENT
+    STRING        = 5,
+    STRING_ESCAPE = 6;   // after a '\' in STRING
+
+  private volatile char[] text;  // the text still to be fed on the first query
+  private int textLength;
+
+  private int[] lineStarts = new int[64];
+  private int lines;
+  private int[] tabOffsets = new int[16];
+  private int[] tabColumns = new int[16];
+  private int tabs;
+
+  private int state = NORMAL;
+  private int size;      // the number of characters fed
+  private int column = 1; // the column of the next character fed
+
+  // A table for the first length characters of text, built lazily.
+
+  LineTable(char[] text, int length) {
+    this();
+    this.text = text;
+    this.textLength = length;
+  }
+
+  // A table fed by append.
+
+  LineTable() {
+    lineStarts[0] = 0;
+    lines = 1;
+  }
+
+  private synchronized void build() {
+    if (text != null) {
+      for (int i = 0; i < textLength; i++)
+        append(text[i]);
+      text = null;
+    }
+  }
+
+  void append(char[] chars, int from, int to) {
+    for (int i = from; i < to; i++)
+      append(chars[i]);
+  }
+
+  void append(char c) {
+    boolean expandsTab = false;
+    switch (state) {
+      case SLASH:
+        if (c == '/')
+          state = LINE_COMMENT;
+        else if (c == '*')
+          state = BLOCK_COMMENT;
+        else
+          expandsTab = normal(c);   // c is an ordinary character
+        break;
+      case NORMAL:
+        expandsTab = normal(c);
+        break;
+      case LINE_COMMENT:
+        if (c == '\n')
+          state = NORMAL;
+        break;
+      case BLOCK_STAR:
+        if (c == '/')
+          state = NORMAL;
+        else
+          expandsTab = inBlockComment(c);
+        break;
+      case BLOCK_COMMENT:
+        expandsTab = inBlockComment(c);
+        break;
+      case STRING:
+        if (c == '"' || c == '\n')
+          state = NORMAL;
+        else if (c == '\\')
+          state = STRING_ESCAPE;
+        break;
+      case STRING_ESCAPE:
+        // a newline ends the (unterminated) string; anything else is
+        // the escaped character
+        state = (c == '\n') ? NORMAL : STRING;
+        break;
+    }
+
+    int offset = size++;
+    if (c == '\n') {
+      if (lines == lineStarts.length)
+        lineStarts = Arrays.copyOf(lineStarts, 2 * lines);
+      lineStarts[lines++] = offset + 1;
+      column = 1;
+    } else if (c == '\t' && expandsTab) {
+      column = ((column - 1) / 8 + 1) * 8 + 1;
+      if (tabs == tabOffsets.length) {
+        tabOffsets = Arrays.copyOf(tabOffsets, 2 * tabs);
+        tabColumns = Arrays.copyOf(tabColumns, 2 * tabs);
+      }
+      tabOffsets[tabs] = offset + 1;
+      tabColumns[tabs] = column;
+      tabs++;
+    } else {
+      column++;
+    }
+  }
+
+  // Moves the state machine over c, which is in the text outside any
+  // comment or string, or in a block comment. A tab there expands, so
+  // both return true.
+
+  private boolean normal(char c) {
+    state = (c == '/') ? SLASH : (c == '"') ? STRING : NORMAL;
+    return true;
+  }
+
+  private boolean inBlockComment(char c) {
+    state = (c == '*') ? BLOCK_STAR : BLOCK_COMMENT;
+    return true;
+  }
+
+  // Returns the index of the last element of a[0 .. n - 1] that is
+  // <= key, or -1 if there is none. a is sorted.
+
+  private static int floor(int[] a, int n, int key) {
+    int lo = 0, hi = n - 1;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      if (a[mid] <= key)
+        lo = mid + 1;
+      else
+        hi = mid - 1;
+    }
+    return hi;
+  }
+
+  // The line of the character at offset; 0 for the offsets of Span.NONE.
+
+  public int line(int offset) {
+    if (offset < 0)
+      return 0;
+    if (text != null)
+      build();
+    return floor(lineStarts, lines, offset) + 1;
+  }
+
+  // The column of the character at offset; 0 for the offsets of Span.NONE.
+
+  public int column(int offset) {
+    if (offset < 0)
+      return 0;
+    if (text != null)
+      build();
+    int lineStart = lineStarts[floor(lineStarts, lines, offset)];
+    int tab = floor(tabOffsets, tabs, offset);
+    if (tab >= 0 && tabOffsets[tab] >= lineStart)
+      return tabColumns[tab] + offset - tabOffsets[tab];
+    return 1 + offset - lineStart;
+  }
+
+  public SourcePosition position(long span) {
+    int start = Span.start(span);
+    int finish = Span.finish(span);
+    return new SourcePosition(line(start), line(finish), column(start), column(finish));
+  }
+
+}
@@ -0,0 +1,166 @@
+/*
+ * ParallelLexer.java
+ *
+ * Lexes a large program on a fork-join pool.
+ *
+ * The text is split into chunks that each end with a newline. No token
+ * crosses a newline (an unterminated string literal stops at one, as
+ * does a line comment), so the only way for a chunk to depend on the
+ * chunks before it is to start inside a block comment. Each chunk is
+ * lexed speculatively, by a StreamScanner that assumes it does not,
+ * and the chunks are then stitched together in order. A chunk that
+ * turns out to start inside a comment opened by an earlier chunk has
+ * its tokens thrown away and is lexed again from the end of the
+ * comment, or contributes no tokens if the comment does not end in it.
+ *
+ * The stitched stream is the one that lexing the text in one piece
+ * gives, errors included: the errors of a chunk are tagged with its
+ * token indices, which are shifted into the whole stream when it is
+ * appended, and an unterminated comment is reported, as it is by the
+ * sequential scanner, at its start and just before the EOF token.
+ * A text with an eof char before its end is lexed sequentially, as
+ * everything after that char is ignored.
+ */
+
+package VC.Scanner;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+final class ParallelLexer {
+
+  // Chunks are at least this long, so that small programs are lexed
+  // in one piece and no task is too small to pay for itself.
+  static final int MIN_CHUNK = 1 << 16;
+
+  // The number of chunks per worker, to balance the load.
+  private static final int CHUNKS_PER_THREAD = 4;
+
+  private final char[] text;
+  private final int length;
+  private final LineTable lines;
+
+  private static final class Chunk {
+    final int from;
+    final int to;            // exclusive
+    TokenStream tokens;
+    int openComment;         // see StreamScanner
+    boolean sawEof;
+
+    Chunk(int from, int to) {
+      this.from = from;
+      this.to = to;
+    }
+  }
+
+  ParallelLexer(char[] text, int length, LineTable lines) {
+    this.text = text;
+    this.length = length;
+    this.lines = lines;
+  }
+
+  TokenStream lex(ForkJoinPool pool) {
+    Chunk[] chunks = split(pool.getParallelism() * CHUNKS_PER_THREAD);
+    if (chunks.length == 1) {
+      return new StreamScanner(text, length, lines).scan();
+    }
+    pool.invoke(new LexChunks(chunks, 0, chunks.length));
+    for (Chunk c : chunks) {
+      if (c.sawEof) {
+        return new StreamScanner(text, length, lines).scan();
+      }
+    }
+    return stitch(chunks);
+  }
+
+  // Splits the text into at most n chunks, each but the last ending
+  // with a newline.
+
+  private Chunk[] split(int n) {
+    int size = Math.max(MIN_CHUNK, length / n);
+    ArrayList<Chunk> chunks = new ArrayList<>();
+    int from = 0;
+    do {
+      int to = (length - from <= size) ? length : lineEnd(from + size);
+      chunks.add(new Chunk(from, to));
+      from = to;
+    } while (from < length);
+    return chunks.toArray(new Chunk[0]);
+  }
+
+  // Returns the offset just past the first newline at or after i, or
+  // length if there is none.
+
+  private int lineEnd(int i) {
+    while (i < length && text[i] != '\n')
+      i++;
+    return (i < length) ? i + 1 : length;
+  }
+
+  private void lexChunk(Chunk c, int from) {
+    StreamScanner scanner = new StreamScanner(text, from, c.to, c.to == length, lines);
+    c.tokens = scanner.scan();
+    c.openComment = scanner.openComment;
+    c.sawEof = scanner.sawEof;
+  }
+
+  @SuppressWarnings("serial")  // a task is never serialized
+  private final class LexChunks extends RecursiveAction {
+    private final Chunk[] chunks;
+    private final int lo, hi;
+
+    LexChunks(Chunk[] chunks, int lo, int hi) {
+      this.chunks = chunks;
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    @Override
+    protected void compute() {
+      if (hi - lo == 1) {
+        lexChunk(chunks[lo], chunks[lo].from);
+      } else {
+        int mid = (lo + hi) >>> 1;
+        invokeAll(new LexChunks(chunks, lo, mid), new LexChunks(chunks, mid, hi));
+      }
+    }
+  }
+
+  private TokenStream stitch(Chunk[] chunks) {
+    int tokens = 0;
+    for (Chunk c : chunks)
+      tokens += c.tokens.size();
+    TokenStream stream = new TokenStream(text, length, lines, tokens);
+
+    int openComment = -1;   // the start of a comment still open
+    for (Chunk c : chunks) {
+      if (openComment >= 0) {
+        int end = commentEnd(c.from, c.to);
+        if (end < 0) {
+          if (c.to == length) {
+            stream.addError(": unterminated comment", Span.of(openComment, openComment));
+            stream.add(Token.EOF, length, length);
+          }
+          continue;
+        }
+        lexChunk(c, end);
+      }
+      stream.append(c.tokens);
+      openComment = c.openComment;
+    }
+    return stream;
+  }
+
+  // Returns the offset just past the first "*/" in text[from .. to - 1],
+  // or -1 if there is none.
+
+  private int commentEnd(int from, int to) {
+    for (int i = from; i + 1 < to; i++) {
+      if (text[i] == '*' && text[i + 1] == '/')
+        return i + 2;
+    }
+    return -1;
+  }
+
+}
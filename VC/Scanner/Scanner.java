@@ -19,14 +19,16 @@ public final class Scanner {
     private SourceFile sourceFile;
     private ErrorReporter errorReporter;
     private boolean debug;
+    private boolean tableDriven;
 
     private StringBuilder currentSpelling;
     private char currentChar;
-    private SourcePosition sourcePos;
+    private LineTable lines;
 
-    private int currentTokenColumnStart;
-    private int currentTokenLine;
-    private int currentTokenColumnEnd;
+    // The scanner keeps offsets only; lines resolves them to lines and
+    // columns when a position is printed.
+    private int offset;       // the offset of currentChar
+    private int tokenStart;   // the offset of the first char of the current token
     // =========================================================
 
     public Scanner(SourceFile source, ErrorReporter reporter) {
@@ -34,27 +36,30 @@ public final class Scanner {
         errorReporter = reporter;
         debug = false;
 
+        lines = source.lineTable();
+
         // Initiaise currentChar for the starter code.
         // Change it if necessary for your full implementation
+        offset = -1;
         currentChar = getNextChar();
-
-        // Initialise your counters for counting line and column numbers here
-        currentTokenColumnEnd = 1;
-        currentTokenColumnStart = 1;
-        currentTokenLine = 1;
     }
 
     public void enableDebugging() {
         debug = true;
     }
 
+    // Switches to the table-driven engine (see ScannerTables.java).
+    // Both engines produce the same tokens and report the same errors.
+    public void enableTableDriven() {
+        tableDriven = true;
+    }
+
     // accept gets the next character from the source program.
     private void accept() {
   	// You may save the lexeme of the current token incrementally here
   	// You may also increment your line and column counters here
         currentSpelling.append(currentChar);
         currentChar = getNextChar();
-        currentTokenColumnEnd++;
     }
 
 
@@ -74,6 +79,7 @@ public final class Scanner {
 
     // Wrap the sourceFile method to get the next character
     private char getNextChar() {
+        offset++;
         return sourceFile.getNextChar();
     }
 
@@ -171,7 +177,6 @@ public final class Scanner {
 	        // ...
             case SourceFile.eof:
                 currentSpelling.append(Token.spell(Token.EOF));
-                currentTokenColumnEnd = currentTokenColumnEnd + 1;
                 return Token.EOF;
             default:
                 // Identifiers and reserved words
@@ -188,12 +193,10 @@ public final class Scanner {
 
     private int handle_strings() {
         currentChar = getNextChar();
-        currentTokenColumnEnd = currentTokenColumnEnd + 1;
         boolean stringTerminated = false;
         while(!stringTerminated) {
             if(currentChar == '\\') {
                 currentChar = getNextChar();
-                currentTokenColumnEnd = currentTokenColumnEnd + 1;
                 if( currentChar == 'b' || currentChar == 'f' || currentChar == 'n' ||
                     currentChar == 't' || currentChar == 'r' || currentChar == '"' ||
                     currentChar == '\'' || currentChar == '\\') {
@@ -228,36 +231,26 @@ public final class Scanner {
                         }
                         currentSpelling.append(temp);
                         currentChar = getNextChar();
-                        currentTokenColumnEnd = currentTokenColumnEnd + 1;
                 } else {
                     if(currentChar == '\n' || currentChar == SourceFile.eof) {
-                        SourcePosition err_pos1 = new SourcePosition(currentTokenLine, currentTokenLine, currentTokenColumnStart, currentTokenColumnEnd-1);
+                        long err_pos1 = Span.of(tokenStart, offset - 1);
                         errorReporter.reportError( "\\" + currentChar +": illegal escape character", "", err_pos1);
                         currentSpelling.append('\\');
-                        SourcePosition err_pos2 = new SourcePosition(currentTokenLine, currentTokenLine, currentTokenColumnStart, currentTokenColumnStart);
+                        long err_pos2 = Span.of(tokenStart, tokenStart);
                         errorReporter.reportError(currentSpelling+": unterminated string", "", err_pos2);
                         stringTerminated = true;
                         break;
                     }
-                    SourcePosition err_pos = new SourcePosition();
-                    err_pos.lineStart = currentTokenLine;
-                    err_pos.lineFinish = currentTokenLine;
-                    err_pos.charStart = currentTokenColumnStart;
-                    err_pos.charFinish = currentTokenColumnEnd - 1;
+                    long err_pos = Span.of(tokenStart, offset - 1);
                     errorReporter.reportError( "\\" + currentChar +": illegal escape character", "", err_pos);
                     currentSpelling.append('\\');
                     accept();
                 }
             } else if(currentChar == '"') {
                 currentChar = getNextChar();
-                currentTokenColumnEnd = currentTokenColumnEnd + 1;
                 stringTerminated = true;
             } else if(currentChar == '\n' || currentChar == SourceFile.eof) {
-                SourcePosition err_pos = new SourcePosition();
-                err_pos.lineStart = currentTokenLine;
-                err_pos.lineFinish = currentTokenLine;
-                err_pos.charStart = currentTokenColumnStart;
-                err_pos.charFinish = currentTokenColumnStart;
+                long err_pos = Span.of(tokenStart, tokenStart);
                 errorReporter.reportError(currentSpelling+": unterminated string", "", err_pos);
                 stringTerminated = true;
             } else {
@@ -351,18 +344,8 @@ public final class Scanner {
         boolean done = false;
         while (!done) {
             // Handle whitespace characters
-            if (currentChar == ' ') {
-                currentChar = getNextChar();
-                currentTokenColumnEnd++;
-                currentTokenColumnStart = currentTokenColumnEnd;
-            } else if (currentChar == '\t') {
+            if (currentChar == ' ' || currentChar == '\t' || currentChar == '\n') {
                 currentChar = getNextChar();
-                currentTokenColumnEnd = ((currentTokenColumnEnd - 1) / 8 + 1) * 8 + 1;
-            } else if (currentChar == '\n') {
-                currentChar = getNextChar();
-                currentTokenLine++;
-                currentTokenColumnEnd = 1;
-                currentTokenColumnStart = 1;
             }
             // Handle comments
             else if (currentChar == '/') {
@@ -370,51 +353,29 @@ public final class Scanner {
                     // Skip everything until end of line
                     while (currentChar != '\n' && currentChar != SourceFile.eof) {
                         currentChar = getNextChar();
-                        currentTokenColumnEnd++;
                     }
                     // Handle the newline if we found one
                     if (currentChar == '\n') {
                         currentChar = getNextChar();
-                        currentTokenLine++;
-                        currentTokenColumnEnd = 1;
                     }
                 } else if (inspectChar(1) == '*') {
                     // Create positions for error reporting
-                    SourcePosition commentPos = new SourcePosition();
-                    commentPos.lineStart = currentTokenLine;
-                    commentPos.charStart = currentTokenColumnEnd;
+                    long commentPos = Span.of(offset, offset);
                     currentChar = getNextChar();
-                    currentTokenColumnEnd++;
                     currentChar = getNextChar();
-                    currentTokenColumnEnd++;
                     boolean commentTerminated = false;
                     while (!commentTerminated && currentChar != SourceFile.eof) {
                         if (currentChar == '*' && inspectChar(1) == '/') {
                             currentChar = getNextChar();
-                            currentTokenColumnEnd++;
                             currentChar = getNextChar();
-                            currentTokenColumnEnd++;
                             commentTerminated = true;
                         } else {
-                            if (currentChar == '\n') {
-                                currentChar = getNextChar();
-                                currentTokenLine++;
-                                currentTokenColumnEnd = 1;
-                                currentTokenColumnStart = 1;
-                            } else if (currentChar == '\t') {
-                                currentChar = getNextChar();
-                                currentTokenColumnEnd = ((currentTokenColumnEnd - 1) / 8 + 1) * 8 + 1;
-                            } else {
-                                currentChar = getNextChar();
-                                currentTokenColumnEnd++;
-                            }
+                            currentChar = getNextChar();
                         }
                     }
                     // Check if comment was closed
                     if (!commentTerminated) {
                         // Report unterminated comment error
-                        commentPos.lineFinish = commentPos.lineStart;
-                        commentPos.charFinish = commentPos.charStart;
                         errorReporter.reportError(": unterminated comment", "", commentPos);
                     }
                 } else {
@@ -424,28 +385,165 @@ public final class Scanner {
                 done = true;
             }
         }
-        currentTokenColumnStart = currentTokenColumnEnd;
     }
 
+    // ========================= TABLE-DRIVEN ENGINE =========================
+
+    private int nextTokenFromTables() {
+        int charClass = ScannerTables.classOf(currentChar);
+        if (charClass == ScannerTables.QUOTE) {
+            return stringFromTables();
+        } else if (charClass == ScannerTables.EOF) {
+            currentSpelling.append(Token.spell(Token.EOF));
+            return Token.EOF;
+        }
+
+        // Run the DFA over currentChar and the characters after it
+        // without consuming them, then accept the longest match.
+        int state = ScannerTables.next(ScannerTables.START, charClass);
+        int length = 1;
+        int acceptedLength = 0;
+        int acceptedKind = Token.ERROR;
+        while (state != ScannerTables.NO_MOVE) {
+            int kind = ScannerTables.acceptedKind(state);
+            if (kind != ScannerTables.NO_MOVE) {
+                acceptedLength = length;
+                acceptedKind = kind;
+            }
+            state = ScannerTables.next(state, ScannerTables.classOf(inspectChar(length)));
+            length++;
+        }
+        for (int i = 0; i < acceptedLength; i++) {
+            accept();
+        }
+
+        if (acceptedKind == Token.ID) {
+            String spelling = currentSpelling.toString();
+            if (spelling.equals("true") || spelling.equals("false")) {
+                return Token.BOOLEANLITERAL;
+            }
+        }
+        return acceptedKind;
+    }
+
+    private int stringFromTables() {
+        currentChar = getNextChar();
+        while (true) {
+            switch (ScannerTables.classOf(currentChar)) {
+                case ScannerTables.QUOTE:
+                    currentChar = getNextChar();
+                    return Token.STRINGLITERAL;
+                case ScannerTables.NEWLINE:
+                case ScannerTables.EOF:
+                    errorReporter.reportError(currentSpelling + ": unterminated string", "",
+                        Span.of(tokenStart, tokenStart));
+                    return Token.STRINGLITERAL;
+                case ScannerTables.BACKSLASH:
+                    currentChar = getNextChar();
+                    char escaped = ScannerTables.escape(currentChar);
+                    if (escaped != 0) {
+                        currentSpelling.append(escaped);
+                        currentChar = getNextChar();
+                        break;
+                    }
+                    errorReporter.reportError("\\" + currentChar + ": illegal escape character", "",
+                        Span.of(tokenStart, offset - 1));
+                    currentSpelling.append('\\');
+                    int charClass = ScannerTables.classOf(currentChar);
+                    if (charClass == ScannerTables.NEWLINE || charClass == ScannerTables.EOF) {
+                        errorReporter.reportError(currentSpelling + ": unterminated string", "",
+                            Span.of(tokenStart, tokenStart));
+                        return Token.STRINGLITERAL;
+                    }
+                    accept();
+                    break;
+                default:
+                    accept();
+                    break;
+            }
+        }
+    }
+
+    private void skipSpaceAndCommentsFromTables() {
+        while (true) {
+            switch (ScannerTables.classOf(currentChar)) {
+                case ScannerTables.SPACE:
+                case ScannerTables.TAB:
+                case ScannerTables.NEWLINE:
+                    currentChar = getNextChar();
+                    break;
+                case ScannerTables.SLASH:
+                    int nextClass = ScannerTables.classOf(inspectChar(1));
+                    if (nextClass == ScannerTables.SLASH) {
+                        skipLineComment();
+                        break;
+                    } else if (nextClass == ScannerTables.STAR) {
+                        skipBlockComment();
+                        break;
+                    }
+                    return;
+                default:
+                    return;
+            }
+        }
+    }
+
+    private void skipLineComment() {
+        while (true) {
+            int charClass = ScannerTables.classOf(currentChar);
+            if (charClass == ScannerTables.EOF) {
+                return;
+            }
+            currentChar = getNextChar();
+            if (charClass == ScannerTables.NEWLINE) {
+                return;
+            }
+        }
+    }
+
+    private void skipBlockComment() {
+        long commentPos = Span.of(offset, offset);
+        currentChar = getNextChar();
+        currentChar = getNextChar();
+        while (true) {
+            switch (ScannerTables.classOf(currentChar)) {
+                case ScannerTables.EOF:
+                    errorReporter.reportError(": unterminated comment", "", commentPos);
+                    return;
+                case ScannerTables.STAR:
+                    currentChar = getNextChar();
+                    if (ScannerTables.classOf(currentChar) == ScannerTables.SLASH) {
+                        currentChar = getNextChar();
+                        return;
+                    }
+                    break;
+                default:
+                    currentChar = getNextChar();
+                    break;
+            }
+        }
+    }
+
+    // ========================================================================
+
     public Token getToken() {
         Token token;
         int kind;
 
         // Skip white space and comments
-        skipSpaceAndComments();
+        if (tableDriven) {
+            skipSpaceAndCommentsFromTables();
+        } else {
+            skipSpaceAndComments();
+        }
         currentSpelling = new StringBuilder();
 
-        sourcePos = new SourcePosition();
-
-        // You need to record the position of the current token somehow
-
-        kind = nextToken();
-        sourcePos.lineStart = currentTokenLine;
-        sourcePos.lineFinish = currentTokenLine;
-        sourcePos.charStart = currentTokenColumnStart;
-        sourcePos.charFinish = currentTokenColumnEnd - 1;
-        token = new Token(kind, currentSpelling.toString(), sourcePos);
-        currentTokenColumnStart = currentTokenColumnEnd;
+        // A token is positioned by the offsets of its first and last
+        // characters; EOF has no characters and finishes where it starts.
+        tokenStart = offset;
+        kind = tableDriven ? nextTokenFromTables() : nextToken();
+        long span = Span.of(tokenStart, (kind == Token.EOF) ? tokenStart : offset - 1);
+        token = new Token(kind, currentSpelling.toString(), span, lines);
    	// * do not remove these three lines below (for debugging purposes)
         if (debug) {
             System.out.println(token);
@@ -0,0 +1,292 @@
+/*
+ * ScannerTables.java
+ *
+ * The character-class and state-transition tables used by the
+ * table-driven engine of the scanner (see Scanner.enableTableDriven).
+ *
+ * Every character is first mapped to one of the classes below. The
+ * DFA then recognises all tokens except string literals and EOF, which
+ * need actions (escapes, error reporting) and are handled by the
+ * scanner itself. Whitespace and comments are skipped by dispatching
+ * on the same character classes.
+ *
+ * The DFA is run with maximal munch: the scanner remembers the last
+ * accepting state seen and backs off to it when no move is possible.
+ * This is how "1e+x" is split into "1", "e", "+" and "x", exactly as
+ * the hand-written engine does with its two-character lookahead.
+ */
+
+package VC.Scanner;
+
+import java.util.Arrays;
+
+final class ScannerTables {
+
+  // character classes
+
+  static final int
+    OTHER     = 0,
+    LETTER    = 1,   // letters and '_', except 'e' and 'E'
+    E         = 2,   // 'e' and 'E'
+    DIGIT     = 3,   // '0' .. '9'
+    UDIGIT    = 4,   // non-ASCII digits: never start a number
+    DOT       = 5,
+    PLUS      = 6,
+    MINUS     = 7,
+    STAR      = 8,
+    SLASH     = 9,
+    BANG      = 10,
+    EQUALS    = 11,
+    LESS      = 12,
+    GREATER   = 13,
+    AMP       = 14,
+    BAR       = 15,
+    LPAREN    = 16,
+    RPAREN    = 17,
+    LCURLY    = 18,
+    RCURLY    = 19,
+    LBRACKET  = 20,
+    RBRACKET  = 21,
+    SEMICOLON = 22,
+    COMMA     = 23,
+    QUOTE     = 24,
+    BACKSLASH = 25,
+    SPACE     = 26,
+    TAB       = 27,
+    NEWLINE   = 28,
+    EOF       = 29;
+
+  static final int CLASSES = 30;
+
+  // DFA states
+
+  static final int
+    START          = 0,
+    IN_ID          = 1,
+    IN_INT         = 2,
+    IN_FRACTION    = 3,
+    IN_EXPONENT_E  = 4,
+    IN_EXPONENT_SIGN = 5,
+    IN_EXPONENT    = 6,
+    SAW_DOT        = 7,
+    SAW_BANG       = 8,
+    SAW_EQUALS     = 9,
+    SAW_LESS       = 10,
+    SAW_GREATER    = 11,
+    SAW_AMP        = 12,
+    SAW_BAR        = 13,
+    DONE_PLUS      = 14,
+    DONE_MINUS     = 15,
+    DONE_MULT      = 16,
+    DONE_DIV       = 17,
+    DONE_NOTEQ     = 18,
+    DONE_EQEQ      = 19,
+    DONE_LTEQ      = 20,
+    DONE_GTEQ      = 21,
+    DONE_ANDAND    = 22,
+    DONE_OROR      = 23,
+    DONE_LCURLY    = 24,
+    DONE_RCURLY    = 25,
+    DONE_LPAREN    = 26,
+    DONE_RPAREN    = 27,
+    DONE_LBRACKET  = 28,
+    DONE_RBRACKET  = 29,
+    DONE_SEMICOLON = 30,
+    DONE_COMMA     = 31,
+    DONE_ERROR     = 32;
+
+  static final int STATES = 33;
+
+  static final int NO_MOVE = -1;
+
+  // The most characters the DFA reads past the end of the token it
+  // accepts: from an accepting state it passes through at most two
+  // states that are not (the 'e' and sign of an exponent, as in "1e+x")
+  // and then reads the character it cannot move on.
+  static final int MAX_LOOKAHEAD = 3;
+
+  private static final byte[] asciiClass = new byte[128];
+  private static final byte[] delta = new byte[STATES * CLASSES];
+  private static final int[] accepting = new int[STATES];
+  private static final char[] escapes = new char[128];
+
+  static {
+    Arrays.fill(asciiClass, (byte) OTHER);
+    for (char c = 'a'; c <= 'z'; c++) asciiClass[c] = LETTER;
+    for (char c = 'A'; c <= 'Z'; c++) asciiClass[c] = LETTER;
+    for (char c = '0'; c <= '9'; c++) asciiClass[c] = DIGIT;
+    asciiClass['_'] = LETTER;
+    asciiClass['e'] = E;
+    asciiClass['E'] = E;
+    asciiClass['.'] = DOT;
+    asciiClass['+'] = PLUS;
+    asciiClass['-'] = MINUS;
+    asciiClass['*'] = STAR;
+    asciiClass['/'] = SLASH;
+    asciiClass['!'] = BANG;
+    asciiClass['='] = EQUALS;
+    asciiClass['<'] = LESS;
+    asciiClass['>'] = GREATER;
+    asciiClass['&'] = AMP;
+    asciiClass['|'] = BAR;
+    asciiClass['('] = LPAREN;
+    asciiClass[')'] = RPAREN;
+    asciiClass['{'] = LCURLY;
+    asciiClass['}'] = RCURLY;
+    asciiClass['['] = LBRACKET;
+    asciiClass[']'] = RBRACKET;
+    asciiClass[';'] = SEMICOLON;
+    asciiClass[','] = COMMA;
+    asciiClass['"'] = QUOTE;
+    asciiClass['\\'] = BACKSLASH;
+    asciiClass[' '] = SPACE;
+    asciiClass['\t'] = TAB;
+    asciiClass['\n'] = NEWLINE;
+    asciiClass[SourceFile.eof] = EOF;
+
+    Arrays.fill(delta, (byte) NO_MOVE);
+    Arrays.fill(accepting, NO_MOVE);
+
+    // From START, every class leads somewhere: any character that does
+    // not begin a token is a one-character error token.
+    for (int c = 0; c < CLASSES; c++)
+      move(START, c, DONE_ERROR);
+    move(START, LETTER, IN_ID);
+    move(START, E, IN_ID);
+    move(START, DIGIT, IN_INT);
+    move(START, DOT, SAW_DOT);
+    move(START, PLUS, DONE_PLUS);
+    move(START, MINUS, DONE_MINUS);
+    move(START, STAR, DONE_MULT);
+    move(START, SLASH, DONE_DIV);
+    move(START, BANG, SAW_BANG);
+    move(START, EQUALS, SAW_EQUALS);
+    move(START, LESS, SAW_LESS);
+    move(START, GREATER, SAW_GREATER);
+    move(START, AMP, SAW_AMP);
+    move(START, BAR, SAW_BAR);
+    move(START, LPAREN, DONE_LPAREN);
+    move(START, RPAREN, DONE_RPAREN);
+    move(START, LCURLY, DONE_LCURLY);
+    move(START, RCURLY, DONE_RCURLY);
+    move(START, LBRACKET, DONE_LBRACKET);
+    move(START, RBRACKET, DONE_RBRACKET);
+    move(START, SEMICOLON, DONE_SEMICOLON);
+    move(START, COMMA, DONE_COMMA);
+
+    // identifiers
+    move(IN_ID, LETTER, IN_ID);
+    move(IN_ID, E, IN_ID);
+    move(IN_ID, DIGIT, IN_ID);
+    move(IN_ID, UDIGIT, IN_ID);
+
+    // integer and float literals
+    move(IN_INT, DIGIT, IN_INT);
+    move(IN_INT, UDIGIT, IN_INT);
+    move(IN_INT, DOT, IN_FRACTION);
+    move(IN_INT, E, IN_EXPONENT_E);
+    move(SAW_DOT, DIGIT, IN_FRACTION);
+    move(SAW_DOT, UDIGIT, IN_FRACTION);
+    move(IN_FRACTION, DIGIT, IN_FRACTION);
+    move(IN_FRACTION, UDIGIT, IN_FRACTION);
+    move(IN_FRACTION, E, IN_EXPONENT_E);
+    move(IN_EXPONENT_E, PLUS, IN_EXPONENT_SIGN);
+    move(IN_EXPONENT_E, MINUS, IN_EXPONENT_SIGN);
+    move(IN_EXPONENT_E, DIGIT, IN_EXPONENT);
+    move(IN_EXPONENT_E, UDIGIT, IN_EXPONENT);
+    move(IN_EXPONENT_SIGN, DIGIT, IN_EXPONENT);
+    move(IN_EXPONENT_SIGN, UDIGIT, IN_EXPONENT);
+    move(IN_EXPONENT, DIGIT, IN_EXPONENT);
+    move(IN_EXPONENT, UDIGIT, IN_EXPONENT);
+
+    // two-character operators
+    move(SAW_BANG, EQUALS, DONE_NOTEQ);
+    move(SAW_EQUALS, EQUALS, DONE_EQEQ);
+    move(SAW_LESS, EQUALS, DONE_LTEQ);
+    move(SAW_GREATER, EQUALS, DONE_GTEQ);
+    move(SAW_AMP, AMP, DONE_ANDAND);
+    move(SAW_BAR, BAR, DONE_OROR);
+
+    accepting[IN_ID] = Token.ID;
+    accepting[IN_INT] = Token.INTLITERAL;
+    accepting[IN_FRACTION] = Token.FLOATLITERAL;
+    accepting[IN_EXPONENT] = Token.FLOATLITERAL;
+    accepting[SAW_DOT] = Token.ERROR;
+    accepting[SAW_BANG] = Token.NOT;
+    accepting[SAW_EQUALS] = Token.EQ;
+    accepting[SAW_LESS] = Token.LT;
+    accepting[SAW_GREATER] = Token.GT;
+    accepting[SAW_AMP] = Token.ERROR;
+    accepting[SAW_BAR] = Token.ERROR;
+    accepting[DONE_PLUS] = Token.PLUS;
+    accepting[DONE_MINUS] = Token.MINUS;
+    accepting[DONE_MULT] = Token.MULT;
+    accepting[DONE_DIV] = Token.DIV;
+    accepting[DONE_NOTEQ] = Token.NOTEQ;
+    accepting[DONE_EQEQ] = Token.EQEQ;
+    accepting[DONE_LTEQ] = Token.LTEQ;
+    accepting[DONE_GTEQ] = Token.GTEQ;
+    accepting[DONE_ANDAND] = Token.ANDAND;
+    accepting[DONE_OROR] = Token.OROR;
+    accepting[DONE_LCURLY] = Token.LCURLY;
+    accepting[DONE_RCURLY] = Token.RCURLY;
+    accepting[DONE_LPAREN] = Token.LPAREN;
+    accepting[DONE_RPAREN] = Token.RPAREN;
+    accepting[DONE_LBRACKET] = Token.LBRACKET;
+    accepting[DONE_RBRACKET] = Token.RBRACKET;
+    accepting[DONE_SEMICOLON] = Token.SEMICOLON;
+    accepting[DONE_COMMA] = Token.COMMA;
+    accepting[DONE_ERROR] = Token.ERROR;
+
+    // legal escape sequences in string literals: \c maps to escapes[c]
+    escapes['b'] = '\b';
+    escapes['f'] = '\f';
+    escapes['n'] = '\n';
+    escapes['t'] = '\t';
+    escapes['r'] = '\r';
+    escapes['"'] = '"';
+    escapes['\''] = '\'';
+    escapes['\\'] = '\\';
+  }
+
+  private ScannerTables() { }
+
+  private static void move(int from, int charClass, int to) {
+    delta[from * CLASSES + charClass] = (byte) to;
+  }
+
+  // Returns the class of c. Non-ASCII characters are classified the
+  // same way Character.isLetter and Character.isDigit classify them.
+
+  static int classOf(char c) {
+    if (c < 128)
+      return asciiClass[c];
+    if (Character.isLetter(c))
+      return LETTER;
+    if (Character.isDigit(c))
+      return UDIGIT;
+    return OTHER;
+  }
+
+  // Returns the state reached from state on a character of charClass,
+  // or NO_MOVE.
+
+  static int next(int state, int charClass) {
+    return delta[state * CLASSES + charClass];
+  }
+
+  // Returns the token kind recognised in state, or NO_MOVE if the
+  // state is not accepting.
+
+  static int acceptedKind(int state) {
+    return accepting[state];
+  }
+
+  // Returns the character denoted by the escape sequence \c, or 0 if
+  // \c is an illegal escape.
+
+  static char escape(char c) {
+    return (c < 128) ? escapes[c] : 0;
+  }
+
+}
@@ -4,57 +4,273 @@
 
 package VC.Scanner;
 
-import java.io.FileReader;
-import java.io.BufferedReader;
-import java.io.LineNumberReader;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// A SourceFile has two backends:
+//
+// (1) a file named on the command line is memory-mapped (or read to
+//     its end, if it is not a regular file) and decoded into a char
+//     array once, so that getNextChar and inspectChar are plain array
+//     accesses, and
+// (2) any other input (e.g., stdin or a pipe) is streamed through a
+//     small ring buffer that holds the lookahead. The input is either
+//     a Reader or a byte channel (or stream), whose bytes are decoded
+//     a block at a time, so a multi-byte character may be split
+//     between two reads. Memory use does not grow with the input,
+//     except that the ring grows to hold the longest lookahead asked
+//     for (at most the longest token).
+//
+// Either way, each "\r\n" and each lone '\r' in the input becomes a
+// '\n' as the chars are decoded, as LineNumberReader did, so the text
+// the scanner (and TokenStream and LineTable) sees has '\n' line ends
+// only, and its offsets are those of that text.
+//
+// lineTable() resolves the offsets of the spans of tokens and phrases
+// in the program to lines and columns.
 
 public class SourceFile {
 
   static final char eof = '\u0000';
-  private LineNumberReader reader;
+
+  private static final int BLOCK = 8192;
+
+  private char[] buffer;  // the whole program text for backend (1)
+  private int length;     // the number of chars in buffer
+  private int next;       // the index of the char returned by getNextChar
+  private LineTable lines;
+
+  // backend (2)
+  private Reader reader;                // either reader,
+  private ReadableByteChannel channel;  // or channel and decoder
+  private CharsetDecoder decoder;
+  private ByteBuffer bytes;     // read but not decoded yet (ready to be filled)
+  private CharBuffer decoded;   // decoded but not in the ring yet (ready to be read)
+  private boolean endOfInput;   // whether the input has been read to its end
+  private boolean afterCR;      // whether the last char decoded was a '\r'
+  private char[] ring;          // the chars after the last one returned
+  private int head;             // the index in ring of the next char
+  private int count;            // the number of chars in ring
 
   public SourceFile(String filename) {
-    try {
-      reader = new LineNumberReader(new BufferedReader(new FileReader(filename)));
-    } catch (java.io.FileNotFoundException e) {
-      System.out.println("[# vc #]: can't read: " + filename);
-      System.exit(1);
-      /*
+    Path path = Paths.get(filename);
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      // a FIFO (or <(...)) has no size to map, and is read to its end
+      ByteBuffer bytes = Files.isRegularFile(path)
+                         ? channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())
+                         : ByteBuffer.wrap(Files.readAllBytes(path));
+      // FileReader decodes with the default charset, so do the same here
+      CharBuffer chars = Charset.defaultCharset().decode(bytes);
+      length = chars.remaining();
+      if (chars.hasArray() && chars.arrayOffset() == 0) {
+        buffer = chars.array();
+      } else {
+        buffer = new char[length];
+        chars.get(buffer);
+      }
+      length = newlines(buffer, length);
+      next = 0;
     } catch (java.io.IOException e) {
-      System.out.println("Caught IOException: " + e.getMessage());
+      System.out.println("[# vc #]: can't read: " + filename);
       System.exit(1);
-    */
     }
   }
 
-  char getNextChar() {
+  public SourceFile(Reader in) {
+    reader = in;
+    startStreaming();
+  }
+
+  // Streams the program from in, decoding it with charset. Malformed
+  // input is replaced, as FileReader does.
+
+  public SourceFile(ReadableByteChannel in, Charset charset) {
+    channel = in;
+    decoder = charset.newDecoder()
+                     .onMalformedInput(CodingErrorAction.REPLACE)
+                     .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    bytes = ByteBuffer.allocate(BLOCK);
+    startStreaming();
+  }
+
+  public SourceFile(ReadableByteChannel in) {
+    this(in, Charset.defaultCharset());
+  }
+
+  public SourceFile(InputStream in) {
+    this(Channels.newChannel(in));
+  }
+
+  // Reads the program from stdin.
+
+  public static SourceFile stdin() {
+    return new SourceFile(System.in);
+  }
+
+  private void startStreaming() {
+    decoded = CharBuffer.allocate(BLOCK);
+    decoded.flip();
+    ring = new char[BLOCK];
+    // the text is not kept, so the table is fed as it is read
+    lines = new LineTable();
+  }
+
+  // Turns each "\r\n" and each lone '\r' in the first length chars of
+  // chars into a '\n', in place, and returns the number of chars left.
+  // A '\n' right after a '\r' that ended the chars before is dropped.
+
+  private int newlines(char[] chars, int length) {
+    int n = 0;
+    for (int i = 0; i < length; i++) {
+      char c = chars[i];
+      if (c == '\n' && afterCR) {
+        afterCR = false;
+        continue;
+      }
+      afterCR = (c == '\r');
+      chars[n++] = afterCR ? '\n' : c;
+    }
+    return n;
+  }
+
+  // Decodes (or reads) the next block of chars into decoded, with its
+  // line ends turned into '\n's. Returns false at the end of the input.
+
+  private boolean nextBlock() {
+    while (readBlock()) {
+      decoded.limit(newlines(decoded.array(), decoded.limit()));
+      if (decoded.hasRemaining())
+        return true;
+    }
+    return false;
+  }
+
+  private boolean readBlock() {
+    decoded.clear();
     try {
-      int  c = reader.read();
-      if (c == -1) c = eof;
-      return (char) c;
+      if (reader != null) {
+        while (decoded.position() == 0 && !endOfInput)
+          endOfInput = reader.read(decoded) < 0;
+      } else {
+        while (decoded.position() == 0 && decoder != null) {
+          bytes.flip();
+          decoder.decode(bytes, decoded, endOfInput);
+          bytes.compact();
+          if (endOfInput) {
+            decoder.flush(decoded);
+            decoder = null;   // everything is decoded
+          } else if (decoded.position() == 0 && channel.read(bytes) < 0) {
+            endOfInput = true;
+          }
+        }
+      }
     } catch (java.io.IOException e) {
       System.out.println("Caught IOException: " + e.getMessage());
+      endOfInput = true;
+      decoder = null;
+    }
+    decoded.flip();
+    return decoded.hasRemaining();
+  }
+
+  // Makes the ring hold at least n chars, unless the input ends first.
+
+  private void fill(int n) {
+    if (n > ring.length) {
+      char[] larger = new char[Math.max(n, 2 * ring.length)];
+      for (int i = 0; i < count; i++)
+        larger[i] = ring[(head + i) % ring.length];
+      ring = larger;
+      head = 0;
+    }
+    while (count < n) {
+      if (!decoded.hasRemaining() && !nextBlock())
+        return;
+      while (count < ring.length && decoded.hasRemaining()) {
+        ring[(head + count) % ring.length] = decoded.get();
+        count++;
+      }
+    }
+  }
+
+  // Returns the whole program text; only the first length() chars are
+  // used. A streamed source is read into memory first, so this must be
+  // called before any call to getNextChar.
+
+  char[] text() {
+    if (buffer == null) {
+      StringBuilder text = new StringBuilder();
+      for (int i = 0; i < count; i++)
+        text.append(ring[(head + i) % ring.length]);
+      while (decoded.hasRemaining() || nextBlock()) {
+        text.append(decoded);
+        decoded.position(decoded.limit());
+      }
+      length = text.length();
+      buffer = new char[length];
+      text.getChars(0, length, buffer, 0);
+      lines.append(buffer, 0, length);
+      reader = null;
+      channel = null;
+      ring = null;
+      next = 0;
+    }
+    return buffer;
+  }
+
+  int length() {
+    text();
+    return length;
+  }
+
+  public LineTable lineTable() {
+    if (lines == null)
+      lines = new LineTable(buffer, length);
+    return lines;
+  }
+
+  char getNextChar() {
+    if (buffer != null) {
+      if (next < length)
+        return buffer[next++];
       return eof;
     }
+    if (count == 0) {
+      fill(1);
+      if (count == 0)
+        return eof;
+    }
+    char c = ring[head];
+    head = (head + 1) % ring.length;
+    count--;
+    lines.append(c);
+    return c;
   }
 
   char inspectChar(int nthChar) {
   // nthChar must be >= 1.
-    int c;
-
-    try {
-    reader.mark(nthChar);
-    do {
-      c = reader.read();
-      nthChar --;
-    } while (nthChar != 0);
-    reader.reset();
-    if (c == -1) c = eof;
-    return (char) c;
-    } catch (java.io.IOException e) {
-      System.out.println("Caught IOException: " + e.getMessage());
-      return eof;
+    if (buffer != null) {
+      int i = next + nthChar - 1;
+      return (i < length) ? buffer[i] : eof;
+    }
+    if (count < nthChar) {
+      fill(nthChar);
+      if (count < nthChar)
+        return eof;
     }
+    return ring[(head + nthChar - 1) % ring.length];
   }
 
 }
@@ -0,0 +1,60 @@
+/*
+ * Span.java
+ *
+ * The position of a token or phrase packed into a long: the offset of
+ * its first character in the high 32 bits and the offset of its last
+ * character in the low 32 bits. Offsets index the program text; a
+ * LineTable turns a span into the line and column SourcePosition that
+ * the error messages and the tree drawer print.
+ *
+ * An EOF token starts and finishes at the offset just past the text.
+ * NONE is the span of the dummy positions of nodes that do not come
+ * from the program text; either of its offsets resolves to line 0,
+ * column 0, which is what new SourcePosition() used to give.
+ */
+
+package VC.Scanner;
+
+public final class Span {
+
+  public static final long NONE = of(-1, -1);
+
+  private Span() { }
+
+  public static long of(int start, int finish) {
+    return (long) start << 32 | (finish & 0xffffffffL);
+  }
+
+  public static int start(long span) {
+    return (int) (span >> 32);
+  }
+
+  public static int finish(long span) {
+    return (int) span;
+  }
+
+  // Returns span with its start replaced by the start of from.
+
+  public static long withStart(long span, long from) {
+    return of(start(from), finish(span));
+  }
+
+  // Returns span with its finish replaced by the finish of from.
+
+  public static long withFinish(long span, long from) {
+    return of(start(span), finish(from));
+  }
+
+  // Returns span moved by delta chars. A start or finish that is not
+  // set (-1, as in NONE) is left as it is.
+
+  public static long shift(long span, int delta) {
+    int start = start(span), finish = finish(span);
+    return of((start < 0) ? start : start + delta, (finish < 0) ? finish : finish + delta);
+  }
+
+  public static String toString(long span) {
+    return "[" + start(span) + ".." + finish(span) + "]";
+  }
+
+}
@@ -0,0 +1,250 @@
+/*
+ * StreamScanner.java
+ *
+ * Lexes a whole program text into a TokenStream. It runs the same
+ * tables as the table-driven engine of Scanner, but over a char array
+ * with the offset of the current character held in a local, and
+ * without building spellings, so no object is created for a token
+ * unless it contains a lexical error. Lines and columns are left to
+ * the LineTable of the source.
+ *
+ * A StreamScanner can also lex one chunk text[from .. limit - 1] of a
+ * program for ParallelLexer. A chunk other than the last ends with a
+ * newline, so no token or lookahead crosses its end. The scanner then
+ * assumes that the chunk does not start inside a block comment, emits
+ * no EOF token, and instead of reporting a block comment still open at
+ * the end of the chunk, records where it starts in openComment.
+ *
+ * Finally, a StreamScanner can re-lex the part of an edited program
+ * that an edit may have changed, for TokenStream.relex.
+ */
+
+package VC.Scanner;
+
+final class StreamScanner {
+
+  private final char[] text;
+  private final int from;
+  private final int limit;
+  private final boolean last;   // whether the chunk ends the program
+  private final TokenStream stream;
+
+  private int offset;   // the offset of the current character
+
+  int openComment = -1; // the start of a block comment open at limit
+  boolean sawEof;       // whether an eof char occurs before limit
+
+  StreamScanner(char[] text, int length, LineTable lines) {
+    this(text, 0, length, true, lines);
+  }
+
+  StreamScanner(char[] text, int from, int limit, boolean last, LineTable lines) {
+    this.text = text;
+    this.from = from;
+    this.limit = limit;
+    this.last = last;
+    // VC programs average roughly one token per three characters
+    this.stream = new TokenStream(text, limit, lines, (limit - from) / 3);
+  }
+
+  // A scanner that adds to stream, which holds the tokens before some
+  // offset of the program text[0 .. length - 1] (see relex).
+
+  StreamScanner(char[] text, int length, TokenStream stream) {
+    this.text = text;
+    this.from = 0;
+    this.limit = length;
+    this.last = true;
+    this.stream = stream;
+  }
+
+  private char charAt(int i) {
+    return (i < limit) ? text[i] : SourceFile.eof;
+  }
+
+  TokenStream scan() {
+    offset = from;
+    int kind;
+    do {
+      skipSpaceAndComments();
+      kind = nextToken();
+    } while (kind != Token.EOF);
+    return stream;
+  }
+
+  // Lexes an edited text from offset from, where a token ends (or 0),
+  // until a token ends at or after editEnd at the offset where a token
+  // of old, the stream before the edit, ended delta characters earlier.
+  // The text from there on is the text that old was lexed from, so the
+  // rest of the tokens are those of old. Returns the index in old of the
+  // token after that one, or -1 if the scanner reached EOF first.
+  // Tokens first .. of old end at or after from.
+
+  int relex(int from, int editEnd, TokenStream old, int first, int delta) {
+    offset = from;
+    int j = first;
+    while (true) {
+      skipSpaceAndComments();
+      if (nextToken() == Token.EOF) {
+        return -1;
+      }
+      if (offset >= editEnd) {
+        while (j < old.size() - 1 && old.end(j) + delta < offset) {
+          j++;
+        }
+        if (old.kind(j) != Token.EOF && old.end(j) + delta == offset) {
+          return j + 1;
+        }
+      }
+    }
+  }
+
+  private int nextToken() {
+    int start = offset;
+    int kind;
+
+    int charClass = ScannerTables.classOf(charAt(offset));
+    if (charClass == ScannerTables.QUOTE) {
+      kind = string(start);
+    } else if (charClass == ScannerTables.EOF) {
+      sawEof |= offset < limit;
+      if (!last) {
+        return Token.EOF;
+      }
+      kind = Token.EOF;
+    } else {
+      int state = ScannerTables.next(ScannerTables.START, charClass);
+      int n = 1;
+      int acceptedLength = 0;
+      kind = Token.ERROR;
+      while (state != ScannerTables.NO_MOVE) {
+        int accepted = ScannerTables.acceptedKind(state);
+        if (accepted != ScannerTables.NO_MOVE) {
+          acceptedLength = n;
+          kind = accepted;
+        }
+        state = ScannerTables.next(state, ScannerTables.classOf(charAt(offset + n)));
+        n++;
+      }
+      offset += acceptedLength;
+      if (kind == Token.ID) {
+        kind = identifierKind(start, acceptedLength);
+      }
+    }
+    stream.add(kind, start, offset);
+    return kind;
+  }
+
+  private int identifierKind(int start, int n) {
+    if ((n == 4 && text[start] == 't' && text[start + 1] == 'r'
+                && text[start + 2] == 'u' && text[start + 3] == 'e')
+        || (n == 5 && text[start] == 'f' && text[start + 1] == 'a'
+                   && text[start + 2] == 'l' && text[start + 3] == 's'
+                   && text[start + 4] == 'e'))
+      return Token.BOOLEANLITERAL;
+    return Token.keywordKind(text, start, n);
+  }
+
+  private int string(int start) {
+    offset++;
+    while (true) {
+      switch (ScannerTables.classOf(charAt(offset))) {
+        case ScannerTables.QUOTE:
+          offset++;
+          return Token.STRINGLITERAL;
+        case ScannerTables.NEWLINE:
+        case ScannerTables.EOF:
+          unterminatedString(start);
+          return Token.STRINGLITERAL;
+        case ScannerTables.BACKSLASH:
+          offset++;
+          char c = charAt(offset);
+          if (ScannerTables.escape(c) != 0) {
+            offset++;
+            break;
+          }
+          stream.addError("\\" + c + ": illegal escape character",
+              Span.of(start, offset - 1));
+          int charClass = ScannerTables.classOf(c);
+          if (charClass == ScannerTables.NEWLINE || charClass == ScannerTables.EOF) {
+            unterminatedString(start);
+            return Token.STRINGLITERAL;
+          }
+          offset++;
+          break;
+        default:
+          offset++;
+          break;
+      }
+    }
+  }
+
+  private void unterminatedString(int start) {
+    stream.addError(TokenStream.stringSpelling(text, start, offset) + ": unterminated string",
+        Span.of(start, start));
+  }
+
+  private void skipSpaceAndComments() {
+    while (true) {
+      switch (ScannerTables.classOf(charAt(offset))) {
+        case ScannerTables.SPACE:
+        case ScannerTables.TAB:
+        case ScannerTables.NEWLINE:
+          offset++;
+          break;
+        case ScannerTables.SLASH:
+          int nextClass = ScannerTables.classOf(charAt(offset + 1));
+          if (nextClass == ScannerTables.SLASH) {
+            skipLineComment();
+            break;
+          } else if (nextClass == ScannerTables.STAR) {
+            skipBlockComment();
+            break;
+          }
+          return;
+        default:
+          return;
+      }
+    }
+  }
+
+  private void skipLineComment() {
+    while (true) {
+      int charClass = ScannerTables.classOf(charAt(offset));
+      if (charClass == ScannerTables.EOF) {
+        return;
+      }
+      offset++;
+      if (charClass == ScannerTables.NEWLINE) {
+        return;
+      }
+    }
+  }
+
+  private void skipBlockComment() {
+    int start = offset;
+    offset += 2;
+    while (true) {
+      switch (ScannerTables.classOf(charAt(offset))) {
+        case ScannerTables.EOF:
+          if (last || offset < limit) {
+            stream.addError(": unterminated comment", Span.of(start, start));
+          } else {
+            openComment = start;
+          }
+          return;
+        case ScannerTables.STAR:
+          offset++;
+          if (ScannerTables.classOf(charAt(offset)) == ScannerTables.SLASH) {
+            offset++;
+            return;
+          }
+          break;
+        default:
+          offset++;
+          break;
+      }
+    }
+  }
+
+}
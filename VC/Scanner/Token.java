@@ -10,28 +10,58 @@ public final class Token {
 
   public int kind;
   public String spelling; // lexeme 
-  public SourcePosition position;
+  public long span;       // see Span.java
+  private final LineTable lines;
 
-  public Token(int kind, String spelling, SourcePosition position) {
+  public Token(int kind, String spelling, long span, LineTable lines) {
     if (kind == Token.ID) {
       this.kind = determineKeywordKind(spelling);
     } else {
       this.kind = kind;
     }
-    this.spelling = spelling;
-    this.position = position;
+    // All identifiers with the same spelling share one String
+    this.spelling = (this.kind == Token.ID) ? IdentifierPool.intern(spelling) : spelling;
+    this.span = span;
+    this.lines = lines;
+  }
+
+  // The line and column position of this token, resolved on demand.
+  public SourcePosition position() {
+    return lines.position(span);
   }
 
   // Determines the keyword kind for the given spelling, if it matches a reserved word.
-  private int determineKeywordKind(String spelling) {
-    for (int i = firstReservedWord; i <= lastReservedWord; i++) {
-      if (keywords[i].equals(spelling)) {
-        return i;
-      }
+  // The hash of the first character and the length is perfect for the reserved
+  // words, so at most one String comparison is made.
+  private static int determineKeywordKind(String spelling) {
+    int i = keywordHash(spelling.charAt(0), spelling.length());
+    int kind = keywordTable[i];
+    if (kind != Token.ID && keywords[kind].equals(spelling)) {
+      return kind;
     }
     return Token.ID; // If not a reserved keyword, return as ID.
   }
 
+  // Returns the kind of the identifier or reserved word spelt by
+  // text[start .. start + length - 1] without creating a String.
+  static int keywordKind(char[] text, int start, int length) {
+    int kind = keywordTable[keywordHash(text[start], length)];
+    if (kind == Token.ID || keywords[kind].length() != length) {
+      return Token.ID;
+    }
+    String keyword = keywords[kind];
+    for (int i = 0; i < length; i++) {
+      if (keyword.charAt(i) != text[start + i]) {
+        return Token.ID;
+      }
+    }
+    return kind;
+  }
+
+  private static int keywordHash(char first, int length) {
+    return (first + 8 * length) & (keywordTable.length - 1);
+  }
+
   // Returns the keyword string for a given token kind.
   public static String spell(int kind) {
     return keywords[kind];
@@ -40,7 +70,7 @@ public final class Token {
   @Override
   public String toString() {
     return String.format("Kind = %d [%s], spelling = \"%s\", position = %s", 
-                          kind, spell(kind), spelling, position);
+                          kind, spell(kind), spelling, position());
   }
 
   // Token kinds...
@@ -145,4 +175,19 @@ public final class Token {
   // Defining the range for the reserved words (keywords).
   private static final int firstReservedWord = Token.BOOLEAN;
   private static final int lastReservedWord = Token.WHILE;
+
+  // keywordTable[keywordHash(w)] is the kind of the reserved word w,
+  // and Token.ID in the unused slots.
+  private static final int[] keywordTable = new int[32];
+
+  static {
+    java.util.Arrays.fill(keywordTable, Token.ID);
+    for (int i = firstReservedWord; i <= lastReservedWord; i++) {
+      int h = keywordHash(keywords[i].charAt(0), keywords[i].length());
+      if (keywordTable[h] != Token.ID) {
+        throw new AssertionError("keyword hash collision: " + keywords[i]);
+      }
+      keywordTable[h] = i;
+    }
+  }
 }
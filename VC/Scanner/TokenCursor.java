@@ -0,0 +1,85 @@
+/*
+ * TokenCursor.java
+ *
+ * A position in a TokenStream. The parser reads tokens through a
+ * cursor exactly as it reads them from a Scanner, and can also look
+ * any number of tokens ahead without consuming them.
+ */
+
+package VC.Scanner;
+
+import VC.ErrorReporter;
+
+public final class TokenCursor {
+
+  private final TokenStream stream;
+  private final ErrorReporter errorReporter;
+  private int index;          // the index of the token returned by the next getToken
+  private int nextError;      // the first lexical error not reported yet
+
+  TokenCursor(TokenStream stream, ErrorReporter reporter, int index) {
+    this.stream = stream;
+    this.errorReporter = reporter;
+    skipTo(index);
+  }
+
+  public TokenStream stream() {
+    return stream;
+  }
+
+  // The index of the token that the next call of getToken returns.
+
+  public int index() {
+    return index;
+  }
+
+  // Moves the cursor to token index, as if the tokens before it had been
+  // read, but without reporting their lexical errors (see cursor in
+  // TokenStream).
+
+  public void skipTo(int index) {
+    this.index = index;
+    this.nextError = stream.firstError(index);
+  }
+
+  // Moves the cursor to where cursor, on the same stream, is, as if it
+  // had read the tokens, and reported the lexical errors, that cursor
+  // has. (At the end of the stream, the index alone does not tell
+  // whether the errors of the EOF token have been reported.)
+
+  public void skipTo(TokenCursor cursor) {
+    this.index = cursor.index;
+    this.nextError = cursor.nextError;
+  }
+
+  // Returns the kind of the n-th token after the one the next call of
+  // getToken returns (n = 0 gives the kind of that token). Past the
+  // end of the stream, this is EOF.
+
+  public int peekKind(int n) {
+    int i = index + n;
+    return (i < stream.size()) ? stream.kind(i) : Token.EOF;
+  }
+
+  // Returns the next token. Like Scanner.getToken, it keeps returning
+  // EOF at the end of the stream, and reports the lexical errors found
+  // while that token was scanned before returning it.
+
+  public Token getToken() {
+    return stream.token(advance());
+  }
+
+  // Moves on to the next token as getToken does, but returns its index
+  // in the stream rather than a Token, so that a reader that only needs
+  // its kind and span (see Recogniser) builds nothing for it.
+
+  public int advance() {
+    int i = Math.min(index, stream.size() - 1);
+    nextError = stream.reportErrors(errorReporter, nextError, i + 1);
+    if (index < stream.size() - 1) {
+      index++;
+    }
+    return i;
+  }
+
+}
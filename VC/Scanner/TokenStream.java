@@ -0,0 +1,371 @@
+/*
+ * TokenStream.java
+ *
+ * A whole program lexed into a packed int array, three ints per token:
+ *
+ *   data[3 * i]     = kind
+ *   data[3 * i + 1] = start offset (index into the program text)
+ *   data[3 * i + 2] = end offset (exclusive)
+ *
+ * Nothing is allocated per token. Spellings are sliced from the program
+ * text only when asked for, which the parser does for identifiers and
+ * literals only, and the offsets are resolved to lines and columns by
+ * the LineTable of the source only when a position is printed.
+ *
+ * Lexical errors are not reported while the stream is built. They are
+ * recorded with the index of the token being scanned when they occur
+ * and reported by a TokenCursor when it reaches that token, so that
+ * errors come out in the same order (and are cut short by a syntax
+ * error at the same point) as when the parser pulls tokens from a
+ * Scanner.
+ *
+ * After an edit to the program, relex gives the stream of the edited
+ * program by re-lexing only the tokens around the edit, which is what
+ * an editor needs to keep a large program lexed as it is typed.
+ */
+
+package VC.Scanner;
+
+import VC.ErrorReporter;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+public final class TokenStream {
+
+  private final char[] text;
+  private final int length;     // the number of chars of text lexed
+  private final LineTable lines;
+  private int[] data;
+  private int size;
+
+  private final ArrayList<LexicalError> errors = new ArrayList<>();
+
+  private static final class LexicalError {
+    final int token;
+    final String message;
+    final long span;
+
+    LexicalError(int token, String message, long span) {
+      this.token = token;
+      this.message = message;
+      this.span = span;
+    }
+  }
+
+  TokenStream(char[] text, int length, LineTable lines, int expectedTokens) {
+    this.text = text;
+    this.length = length;
+    this.lines = lines;
+    this.data = new int[3 * Math.max(16, expectedTokens)];
+    this.size = 0;
+  }
+
+  // Lexes the whole of source. Lexical errors are reported to reporter
+  // by the cursors over the stream (see cursor).
+
+  public static TokenStream lex(SourceFile source) {
+    return new StreamScanner(source.text(), source.length(), source.lineTable()).scan();
+  }
+
+  // Lexes the whole of source in chunks on pool (see ParallelLexer).
+  // The stream, and the errors its cursors report, are the same as
+  // those of lex(source).
+
+  public static TokenStream lex(SourceFile source, ForkJoinPool pool) {
+    return new ParallelLexer(source.text(), source.length(), source.lineTable()).lex(pool);
+  }
+
+  private void ensureCapacity(int tokens) {
+    if (3 * tokens > data.length) {
+      int[] larger = new int[Math.max(2 * data.length, 3 * tokens)];
+      System.arraycopy(data, 0, larger, 0, 3 * size);
+      data = larger;
+    }
+  }
+
+  void add(int kind, int start, int end) {
+    ensureCapacity(size + 1);
+    int i = 3 * size;
+    data[i] = kind;
+    data[i + 1] = start;
+    data[i + 2] = end;
+    size++;
+  }
+
+  void addError(String message, long span) {
+    errors.add(new LexicalError(size, message, span));
+  }
+
+  // Appends the tokens and errors of a stream over the same text.
+
+  void append(TokenStream chunk) {
+    ensureCapacity(size + chunk.size);
+    System.arraycopy(chunk.data, 0, data, 3 * size, 3 * chunk.size);
+    for (LexicalError e : chunk.errors) {
+      errors.add(new LexicalError(size + e.token, e.message, e.span));
+    }
+    size += chunk.size;
+  }
+
+  // ======================== RE-LEXING ========================
+
+  // The result of relex: the stream of the edited program, in which
+  // tokens first .. newEnd - 1 replace tokens first .. oldEnd - 1 of the
+  // stream before the edit. The tokens before first are the same in
+  // both streams, and so are the tokens from oldEnd and newEnd on,
+  // except that their offsets have moved by delta, the change in length.
+
+  public static final class Change {
+    public final TokenStream stream;
+    public final int first;
+    public final int oldEnd;
+    public final int newEnd;
+    public final int delta;
+
+    Change(TokenStream stream, int first, int oldEnd, int newEnd, int delta) {
+      this.stream = stream;
+      this.first = first;
+      this.oldEnd = oldEnd;
+      this.newEnd = newEnd;
+      this.delta = delta;
+    }
+  }
+
+  // Returns the stream of the program obtained by replacing the removed
+  // chars at offset of this stream's program with inserted, together
+  // with the tokens that changed. This stream is left as it is.
+  //
+  // Lexing restarts at the end of the last token whose lexing did not
+  // look at the edited text, i.e., one that ends at least MAX_LOOKAHEAD
+  // chars before offset, as the scanner is outside any comment or
+  // literal there. It stops as soon as a token ends, after the edit,
+  // where a token of this stream ends (moved by the edit), as the text,
+  // and so the tokens, from there on are the same as before. The rest
+  // of the tokens, and their errors, are copied with their offsets
+  // moved. So the work done beyond copying arrays depends on how many
+  // tokens the edit touches rather than on the length of the program.
+
+  public Change relex(int offset, int removed, String inserted) {
+    if (offset < 0 || removed < 0 || offset + removed > length)
+      throw new IndexOutOfBoundsException("edit " + offset + "+" + removed
+                                          + " of a text of length " + length);
+    int delta = inserted.length() - removed;
+    int newLength = length + delta;
+    char[] newText = new char[newLength];
+    System.arraycopy(text, 0, newText, 0, offset);
+    inserted.getChars(0, inserted.length(), newText, offset);
+    System.arraycopy(text, offset + removed, newText, offset + inserted.length(),
+                     length - offset - removed);
+
+    // the first token whose lexing may have looked at the edit; the
+    // final EOF token always has to be lexed again
+    int lo = 0, hi = size - 1;
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (end(mid) + ScannerTables.MAX_LOOKAHEAD <= offset)
+        lo = mid + 1;
+      else
+        hi = mid;
+    }
+    int first = lo;
+    int from = (first == 0) ? 0 : end(first - 1);
+
+    TokenStream stream = new TokenStream(newText, newLength,
+        new LineTable(newText, newLength), size + Math.max(0, delta) / 3);
+    System.arraycopy(data, 0, stream.data, 0, 3 * first);
+    stream.size = first;
+    int e = 0;
+    while (e < errors.size() && errors.get(e).token < first)
+      stream.errors.add(errors.get(e++));
+
+    StreamScanner scanner = new StreamScanner(newText, newLength, stream);
+    int oldEnd = scanner.relex(from, offset + inserted.length(), this, first, delta);
+    int newEnd = stream.size;
+    if (oldEnd < 0) {
+      oldEnd = size;
+    } else {
+      stream.ensureCapacity(newEnd + size - oldEnd);
+      System.arraycopy(data, 3 * oldEnd, stream.data, 3 * newEnd, 3 * (size - oldEnd));
+      stream.size = newEnd + size - oldEnd;
+      if (delta != 0) {
+        for (int i = 3 * newEnd; i < 3 * stream.size; i += 3) {
+          stream.data[i + 1] += delta;
+          stream.data[i + 2] += delta;
+        }
+      }
+      while (e < errors.size() && errors.get(e).token < oldEnd)
+        e++;
+      while (e < errors.size()) {
+        LexicalError error = errors.get(e++);
+        stream.errors.add(new LexicalError(error.token - oldEnd + newEnd, error.message,
+            Span.of(Span.start(error.span) + delta, Span.finish(error.span) + delta)));
+      }
+    }
+
+    // the tokens next to the edit may have been lexed again as they were
+    while (first < oldEnd && first < newEnd && stream.sameToken(first, this, first, 0))
+      first++;
+    while (oldEnd > first && newEnd > first
+           && stream.sameToken(newEnd - 1, this, oldEnd - 1, delta)) {
+      oldEnd--;
+      newEnd--;
+    }
+    return new Change(stream, first, oldEnd, newEnd, delta);
+  }
+
+  // Returns whether token i is token j of other moved by delta chars.
+
+  private boolean sameToken(int i, TokenStream other, int j, int delta) {
+    return kind(i) == other.kind(j)
+           && start(i) == other.start(j) + delta
+           && end(i) == other.end(j) + delta;
+  }
+
+  // Returns a cursor positioned at the first token.
+
+  public TokenCursor cursor(ErrorReporter reporter) {
+    return new TokenCursor(this, reporter, 0);
+  }
+
+  // Returns a cursor positioned at token index, for a parser that takes
+  // over from another one that has read the tokens before it (and so
+  // has reported their lexical errors).
+
+  public TokenCursor cursor(ErrorReporter reporter, int index) {
+    return new TokenCursor(this, reporter, index);
+  }
+
+  // Returns the index in errors of the first error found while scanning
+  // token index or a later token.
+
+  int firstError(int index) {
+    int lo = 0, hi = errors.size();
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (errors.get(mid).token < index)
+        lo = mid + 1;
+      else
+        hi = mid;
+    }
+    return lo;
+  }
+
+  // Returns whether a lexical error was found while scanning tokens
+  // from .. to - 1.
+
+  public boolean hasErrors(int from, int to) {
+    int e = firstError(from);
+    return e < errors.size() && errors.get(e).token < to;
+  }
+
+  // Reports the lexical errors found while scanning tokens
+  // from .. to - 1, starting with errors[next]. Returns the index of
+  // the first error not reported.
+
+  int reportErrors(ErrorReporter reporter, int next, int to) {
+    while (next < errors.size() && errors.get(next).token < to) {
+      LexicalError e = errors.get(next++);
+      reporter.reportError(e.message, "", e.span);
+    }
+    return next;
+  }
+
+  // ======================== ACCESSORS ========================
+
+  // The number of tokens, including the final EOF token.
+
+  public int size() {
+    return size;
+  }
+
+  public int kind(int i) {
+    return data[3 * i];
+  }
+
+  public int start(int i) {
+    return data[3 * i + 1];
+  }
+
+  public int end(int i) {
+    return data[3 * i + 2];
+  }
+
+  // EOF has no characters and finishes where it starts.
+
+  public long span(int i) {
+    return Span.of(start(i), (kind(i) == Token.EOF) ? start(i) : end(i) - 1);
+  }
+
+  // The length of the program text.
+
+  public int length() {
+    return length;
+  }
+
+  // Returns the program text lexed, which is the edited text for a
+  // stream returned by relex.
+
+  public String text() {
+    return new String(text, 0, length);
+  }
+
+  public LineTable lineTable() {
+    return lines;
+  }
+
+  // Returns the spelling of token i, as the Scanner would have built it.
+
+  public String spelling(int i) {
+    int kind = kind(i);
+    switch (kind) {
+      case Token.ID:
+        return IdentifierPool.intern(new String(text, start(i), end(i) - start(i)));
+      case Token.INTLITERAL:
+      case Token.FLOATLITERAL:
+      case Token.BOOLEANLITERAL:
+      case Token.ERROR:
+        return new String(text, start(i), end(i) - start(i));
+      case Token.STRINGLITERAL:
+        return stringSpelling(text, start(i), end(i));
+      default:
+        return Token.spell(kind);
+    }
+  }
+
+  public Token token(int i) {
+    return new Token(kind(i), spelling(i), span(i), lines);
+  }
+
+  // Returns the spelling of the string literal text[start .. end - 1]:
+  // the characters between the quotes with legal escapes translated and
+  // illegal ones kept as they are. An unterminated literal ends at end.
+
+  static String stringSpelling(char[] text, int start, int end) {
+    StringBuilder spelling = new StringBuilder(end - start);
+    int i = start + 1;
+    while (i < end) {
+      char c = text[i];
+      if (c == '"') {
+        break;
+      } else if (c == '\\') {
+        if (i + 1 == end) {
+          spelling.append('\\');
+          break;
+        }
+        char escaped = ScannerTables.escape(text[i + 1]);
+        if (escaped != 0) {
+          spelling.append(escaped);
+        } else {
+          spelling.append('\\').append(text[i + 1]);
+        }
+        i += 2;
+      } else {
+        spelling.append(c);
+        i++;
+      }
+    }
+    return spelling.toString();
+  }
+
+}
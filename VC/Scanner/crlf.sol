@@ -0,0 +1,31 @@
+======= The VC compiler =======
+Kind = 7 [int], spelling = "int", position = 2(1)..2(3)
+Kind = 33 [<id>], spelling = "i", position = 2(5)..2(5)
+Kind = 31 [;], spelling = ";", position = 2(6)..2(6)
+Kind = 4 [float], spelling = "float", position = 3(1)..3(5)
+Kind = 33 [<id>], spelling = "f", position = 3(7)..3(7)
+Kind = 17 [=], spelling = "=", position = 3(9)..3(9)
+Kind = 35 [<float-literal>], spelling = "1.5e2", position = 3(11)..3(15)
+Kind = 31 [;], spelling = ";", position = 3(16)..3(16)
+Kind = 7 [int], spelling = "int", position = 7(1)..7(3)
+Kind = 33 [<id>], spelling = "main", position = 7(5)..7(8)
+Kind = 27 [(], spelling = "(", position = 7(9)..7(9)
+Kind = 28 [)], spelling = ")", position = 7(10)..7(10)
+Kind = 25 [{], spelling = "{", position = 7(12)..7(12)
+Kind = 33 [<id>], spelling = "i", position = 8(9)..8(9)
+Kind = 17 [=], spelling = "=", position = 8(11)..8(11)
+Kind = 34 [<int-literal>], spelling = "2", position = 8(13)..8(13)
+Kind = 31 [;], spelling = ";", position = 8(14)..8(14)
+Kind = 33 [<id>], spelling = "putStringLn", position = 9(3)..9(13)
+Kind = 27 [(], spelling = "(", position = 9(14)..9(14)
+Kind = 37 [<string-literal>], spelling = "CR	LF", position = 9(15)..9(22)
+Kind = 28 [)], spelling = ")", position = 9(23)..9(23)
+Kind = 31 [;], spelling = ";", position = 9(24)..9(24)
+Kind = 8 [return], spelling = "return", position = 10(3)..10(8)
+Kind = 33 [<id>], spelling = "i", position = 10(10)..10(10)
+Kind = 31 [;], spelling = ";", position = 10(11)..10(11)
+Kind = 26 [}], spelling = "}", position = 11(1)..11(1)
+Kind = 7 [int], spelling = "int", position = 13(1)..13(3)
+Kind = 33 [<id>], spelling = "j", position = 13(5)..13(5)
+Kind = 31 [;], spelling = ";", position = 13(6)..13(6)
+Kind = 39 [$], spelling = "$", position = 14(1)..14(1)
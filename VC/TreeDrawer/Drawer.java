@@ -9,6 +9,7 @@ import java.awt.event.*;
 import javax.swing.*;
 
 import VC.ASTs.AST;
+import VC.Scanner.LineTable;
 
 public class Drawer {
 
@@ -19,13 +20,17 @@ public class Drawer {
   private DrawingTree theDrawing;
 
   private boolean debug;
+  private LineTable lines;
 
   public Drawer() {
     debug = false; // do not draw SourcePosition
   }
 
-  public void enableDebugging() {
+  // Draws the SourcePosition of each node, resolved through lines.
+
+  public void enableDebugging(LineTable lines) {
     debug = true;
+    this.lines = lines;
   }
   
   // Draw the AST representing a complete program.
@@ -44,7 +49,7 @@ public class Drawer {
 
     LayoutVisitor layout = new LayoutVisitor(fontMetrics);
     if (debug)
-      layout.enableDebugging();
+      layout.enableDebugging(lines);
     theDrawing = (DrawingTree) theAST.visit(layout, null);
     theDrawing.position(new Point(500, 10));
 
@@ -9,8 +9,10 @@ import java.awt.event.*;
 import javax.swing.*;
 
 import VC.ASTs.Visitor;
+import VC.ASTs.List;
 import VC.ASTs.*;
 
+import VC.Scanner.LineTable;
 import VC.Scanner.SourcePosition;
 
 public class LayoutVisitor implements Visitor {
@@ -21,14 +23,16 @@ public class LayoutVisitor implements Visitor {
   private FontMetrics fontMetrics;
 
   private boolean debug;
+  private LineTable lines;  // resolves the spans drawn when debugging
 
   public LayoutVisitor (FontMetrics fontMetrics) {
     this.fontMetrics = fontMetrics;
     debug = false; // do not draw SourcePosition
   }
 
-  void enableDebugging() {
+  void enableDebugging(LineTable lines) {
     debug = true;
+    this.lines = lines;
   }
 
   // Programs
@@ -54,6 +58,10 @@ public class LayoutVisitor implements Visitor {
     return layoutNullary("EmptyStmt");
   }
 
+  public Object visitErrorStmt(ErrorStmt ast, Object obj) {
+    return layoutNullary("ErrorStmt");
+  }
+
   public Object visitEmptyParaList(EmptyParaList ast, Object obj) {
     return layoutNullary("EmptyParaList");
   }
@@ -65,7 +73,7 @@ public class LayoutVisitor implements Visitor {
 
   // Declarations
   public Object visitDeclList(DeclList ast, Object obj) {
-    return layoutBinary("DecList", ast.D, ast.DL);
+    return layoutList("DecList", ast);
   }
 
   public Object visitFuncDecl(FuncDecl ast, Object obj) {
@@ -80,10 +88,14 @@ public class LayoutVisitor implements Visitor {
     return layoutTernary("L.VarDec", ast.T, ast.I, ast.E);
   }
 
+  public Object visitErrorDecl(ErrorDecl ast, Object obj) {
+    return layoutNullary("ErrorDecl");
+  }
+
   // Stmts
 
   public Object visitStmtList(StmtList ast, Object obj) {
-    return layoutBinary("StmtList", ast.S, ast.SL);
+    return layoutList("StmtList", ast);
   }
 
   public Object visitIfStmt(IfStmt ast, Object obj) {
@@ -173,7 +185,7 @@ public class LayoutVisitor implements Visitor {
   }
 
   public Object visitArrayExprList(ArrayExprList ast, Object obj) {
-    return layoutBinary("ArrExprList", ast.E, ast.EL);
+    return layoutList("ArrExprList", ast);
   }
 
   public Object visitEmptyExpr(EmptyExpr ast, Object obj) {
@@ -183,7 +195,7 @@ public class LayoutVisitor implements Visitor {
   // Formal Parameters
 
   public Object visitParaList (ParaList ast, Object obj) {
-    return layoutBinary("ParaLst", ast.P, ast.PL);
+    return layoutList("ParaLst", ast);
   }
 
   public Object visitParaDecl(ParaDecl ast, Object obj) {
@@ -193,7 +205,7 @@ public class LayoutVisitor implements Visitor {
   // Arguments
 
   public Object visitArgList(ArgList ast, Object obj) {
-    return layoutBinary("ArgList", ast.A, ast.AL);
+    return layoutList("ArgList", ast);
   }
 
   public Object visitArg(Arg ast, Object obj) {
@@ -286,7 +298,7 @@ public class LayoutVisitor implements Visitor {
 
   private DrawingTree layoutUnary (String name, AST child1) {
     if (debug) {
-      SourcePosition pos = child1.parent.position;
+      SourcePosition pos = lines.position(child1.parent.span);
       name += " " + pos.lineStart 
               + "(" + pos.charStart + ").." 
               + pos.lineFinish+ "(" 
@@ -301,7 +313,7 @@ public class LayoutVisitor implements Visitor {
 
   private DrawingTree layoutBinary (String name, AST child1, AST child2) {
     if (debug) {
-      SourcePosition pos = child1.parent.position;
+      SourcePosition pos = lines.position(child1.parent.span);
       name += " " + pos.lineStart 
               + "(" + pos.charStart + ").." 
               + pos.lineFinish+ "(" 
@@ -315,10 +327,38 @@ public class LayoutVisitor implements Visitor {
     return dt;
   }
 
+  // Lays out a list as the chain of binary cells it is, but in loops:
+  // the elements first to last, and then the cells last to first.
+
+  private DrawingTree layoutList (String name, List ast) {
+    int n = ast.size();
+    DrawingTree[] cells = new DrawingTree[n];
+    DrawingTree[] elements = new DrawingTree[n];
+    for (int i = 0; i < n; i++) {
+      String caption = name;
+      if (debug) {
+        SourcePosition pos = lines.position(ast.cell(i).span);
+        caption += " " + pos.lineStart 
+                   + "(" + pos.charStart + ").." 
+                   + pos.lineFinish+ "(" 
+                   + pos.charFinish + ")";
+      }
+      cells[i] = layoutCaption(caption);
+      elements[i] = (DrawingTree) ast.get(i).visit(this, null);
+    }
+    DrawingTree dt = (DrawingTree) ast.cell(n).visit(this, null);
+    for (int i = n - 1; i >= 0; i--) {
+      cells[i].setChildren(new DrawingTree[] {elements[i], dt});
+      attachParent(cells[i], join(cells[i]));
+      dt = cells[i];
+    }
+    return dt;
+  }
+
   private DrawingTree layoutTernary (String name, AST child1, AST child2,
                                      AST child3) {
     if (debug) {
-      SourcePosition pos = child1.parent.position;
+      SourcePosition pos = lines.position(child1.parent.span);
       name += " " + pos.lineStart 
               + "(" + pos.charStart + ").." 
               + pos.lineFinish+ "(" 
@@ -336,7 +376,7 @@ public class LayoutVisitor implements Visitor {
   private DrawingTree layoutQuaternary (String name, AST child1, AST child2,
                                         AST child3, AST child4) {
     if (debug) {
-      SourcePosition pos = child1.parent.position;
+      SourcePosition pos = lines.position(child1.parent.span);
       name += " " + pos.lineStart 
               + "(" + pos.charStart + ").." 
               + pos.lineFinish+ "(" 
@@ -51,6 +51,21 @@ public class Printer implements Visitor {
     textOut.close();
   }
 
+  // Prints a list as the chain of cells it is, each cell a level deeper
+  // than the one before it, but in a loop rather than one call a cell.
+
+  private void printList(List ast, String cell, Object o) {
+    int depth = indent;
+    int n = ast.size();
+    for (int i = 0; i < n; i++) {
+      print(indentString() + cell);
+      ++indent;
+      ast.get(i).visit(this, o);
+    }
+    ast.cell(n).visit(this, o);
+    indent = depth;
+  }
+
   /*
    * In all methods,
    * (1) The second argument "o" is not used, and
@@ -96,11 +111,7 @@ public class Printer implements Visitor {
 
   // Declarations
   public Object visitDeclList(DeclList ast, Object o) {
-    print(indentString() + "DeclList");
-    ++indent;
-    ast.D.visit(this, o);
-    ast.DL.visit(this, o);
-    --indent;
+    printList(ast, "DeclList", o);
     return null;
   }
 
@@ -141,14 +152,15 @@ public class Printer implements Visitor {
     return null;
   }
 
+  public Object visitErrorDecl(ErrorDecl ast, Object o) {
+    print(indentString() + "ErrorDecl");
+    return null;
+  }
+
   // Stmts
 
   public Object visitStmtList(StmtList ast, Object o) {
-    print(indentString() + "StmtList");
-    ++indent;
-    ast.S.visit(this, o);
-    ast.SL.visit(this, o);
-    --indent;
+    printList(ast, "StmtList", o);
     return null;
   }
 
@@ -228,6 +240,11 @@ public class Printer implements Visitor {
     return null;
   }
 
+  public Object visitErrorStmt(ErrorStmt ast, Object o) {
+    print(indentString() + "ErrorStmt");
+    return null;
+  }
+
 
   // Expressions
 
@@ -326,11 +343,7 @@ public class Printer implements Visitor {
   }
 
   public Object visitArrayExprList(ArrayExprList ast, Object o) {
-    print(indentString() + "ArrExprList");
-    ++indent;
-    ast.E.visit(this, o);
-    ast.EL.visit(this, o);
-    --indent;
+    printList(ast, "ArrExprList", o);
     return null;
   }
 
@@ -343,11 +356,7 @@ public class Printer implements Visitor {
   // Parameters
 
   public Object visitParaList (ParaList ast, Object o) {
-    print(indentString() + "ParaList");
-    ++indent;
-    ast.P.visit(this, o);
-    ast.PL.visit(this, o);
-    --indent;
+    printList(ast, "ParaList", o);
     return null;
   }
 
@@ -364,11 +373,7 @@ public class Printer implements Visitor {
   // Arguments
 
   public Object visitArgList(ArgList ast, Object o) {
-    print(indentString() + "ArgList");
-    ++indent;
-    ast.A.visit(this, o);
-    ast.AL.visit(this, o);
-    --indent;
+    printList(ast, "ArgList", o);
     return null;
   }
 
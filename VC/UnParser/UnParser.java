@@ -21,6 +21,7 @@ package VC.UnParser;
 import VC.ASTs.*;
 import java.io.FileWriter;
 import java.io.PrintWriter;
+import java.io.Writer;
 
 public class UnParser implements Visitor {
 
@@ -45,6 +46,14 @@ public class UnParser implements Visitor {
     }
   }
 
+  // Unparses into out, e.g. a StringWriter, rather than into a file.
+
+  public UnParser(Writer out) {
+    level = 1;
+    firstFunction = true; 
+    textOut = new PrintWriter(out);
+  }
+
   public final void unparse(AST ast) {
     ast.visit(this, null);
     textOut.close();
@@ -79,6 +88,19 @@ public class UnParser implements Visitor {
     textOut.print(s);
   }
 
+  // Unparses the elements of a list in a loop, separated by separator,
+  // and then its Empty list.
+
+  void  unparseList(List ast, String separator, Object o) {
+    int n = ast.size();
+    for (int i = 0; i < n; i++) {
+      if (i > 0)
+        print(separator);
+      ast.get(i).visit(this, o);
+    }
+    ast.cell(n).visit(this, o);
+  }
+
 
   // Programs
   public Object visitProgram(Program ast, Object o) {
@@ -114,8 +136,7 @@ public class UnParser implements Visitor {
 
   // Declarations
   public Object visitDeclList(DeclList ast, Object o) {
-    ast.D.visit(this, o);
-    ast.DL.visit(this, o);
+    unparseList(ast, "", o);
     return null;
   }
 
@@ -185,11 +206,16 @@ public class UnParser implements Visitor {
     return null;
   }
 
+  // The tokens of an erroneous declaration or statement are not kept.
+
+  public Object visitErrorDecl(ErrorDecl ast, Object o) {
+    return null;
+  }
+
   // Stmts
 
   public Object visitStmtList(StmtList ast, Object o) {
-    ast.S.visit(this, o);
-    ast.SL.visit(this, o);
+    unparseList(ast, "", o);
     return null;
   }
 
@@ -307,6 +333,10 @@ public class UnParser implements Visitor {
     return null;
   }
 
+  public Object visitErrorStmt(ErrorStmt ast, Object o) {
+    return null;
+  }
+
 
   // Expressions
 
@@ -378,10 +408,7 @@ public class UnParser implements Visitor {
   }
 
   public Object visitArrayExprList(ArrayExprList ast, Object o) {
-    ast.E.visit(this, o);
-    if (! (ast.EL instanceof EmptyArrayExprList))
-      print(",");
-    ast.EL.visit(this, o);
+    unparseList(ast, ",", o);
     return null;
   }
 
@@ -393,10 +420,7 @@ public class UnParser implements Visitor {
   // Parameters
 
   public Object visitParaList (ParaList ast, Object o) {
-    ast.P.visit(this, o);
-    if (! (ast.PL instanceof EmptyParaList))
-      print(", ");
-    ast.PL.visit(this, o);
+    unparseList(ast, ", ", o);
     return null;
   }
 
@@ -417,10 +441,7 @@ public class UnParser implements Visitor {
   // Arguments
 
   public Object visitArgList(ArgList ast, Object o) {
-    ast.A.visit(this, o);
-    if (! (ast.AL instanceof EmptyArgList))
-      print(", ");
-    ast.AL.visit(this, o);
+    unparseList(ast, ", ", o);
     return null;
   }
 
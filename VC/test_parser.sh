@@ -19,29 +19,20 @@ for TEST_FILE in $TEST_FILES; do
     echo "========== 测试文件: $TEST_NAME ==========" | tee -a "$COMPARISON_OUTPUT"
     echo "正在测试 $TEST_NAME..."
 
-    # 运行 VC 编译器，生成 AST 结果 (.vcu)
+    # 运行 VC 编译器，生成 AST 结果 (.vcu)，并在内存中检查往返解析
+    # (parse → unparse → parse) 得到的 AST 是否相同
     OUTPUT_FILE="Parser/${TEST_NAME}.vcu"
-    java VC.vc "$TEST_FILE" > /dev/null 2>&1
+    ROUND_TRIP=$(java VC.vc -r -u "$OUTPUT_FILE" "$TEST_FILE" 2>&1)
 
     if [ ! -f "$OUTPUT_FILE" ]; then
         echo "错误: 未生成 $OUTPUT_FILE" | tee -a "$COMPARISON_OUTPUT"
         continue
     fi
 
-    # 运行 -u 选项进行 AST 解析检查
-    UNPARSED_FILE="Parser/${TEST_NAME}.vcuu"
-    java VC.vc -u "$UNPARSED_FILE" "$OUTPUT_FILE" > /dev/null 2>&1
-
-    if [ ! -f "$UNPARSED_FILE" ]; then
-        echo "错误: 未生成 $UNPARSED_FILE" | tee -a "$COMPARISON_OUTPUT"
-        continue
-    fi
-
-    # 进行 diff 比较，检查 AST 是否正确
     echo "AST 比较结果:" >> "$COMPARISON_OUTPUT"
-    diff "$OUTPUT_FILE" "$UNPARSED_FILE" >> "$COMPARISON_OUTPUT"
+    echo "$ROUND_TRIP" | grep "round trip" >> "$COMPARISON_OUTPUT"
 
-    if [ $? -eq 0 ]; then
+    if echo "$ROUND_TRIP" | grep -q "parses to the same AST"; then
         echo "✅ AST 解析正确: $TEST_NAME" | tee -a "$COMPARISON_OUTPUT"
     else
         echo "❌ AST 解析错误: $TEST_NAME" | tee -a "$COMPARISON_OUTPUT"
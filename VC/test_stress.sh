@@ -0,0 +1,83 @@
+#!/bin/bash
+
+# 压力测试: 生成含超长列表 (声明、局部变量、语句、参数、实参、数组初值) 的
+# VC 程序, 检查解析器在默认线程栈上处理完毕而没有 StackOverflowError,
+# 并比较 10^5 与 10^6 个元素的用时, 用时应大致随元素个数线性增长。
+#
+# 用法: ./test_stress.sh [元素个数 ...]   (默认 100000 1000000)
+
+SIZES=${@:-"100000 1000000"}
+
+# 生成的程序放在临时目录中, 结束时删除
+STRESS_DIR=$(mktemp -d)
+trap 'rm -rf "$STRESS_DIR"' EXIT
+
+# 生成一个列表有 $2 个元素的 $1 类程序
+generate() {
+    awk -v kind="$1" -v n="$2" 'BEGIN {
+        if (kind == "globals") {
+            for (i = 0; i < n; i++) printf "int g%d;\n", i
+            print "int main() { return 0; }"
+        } else if (kind == "locals") {
+            print "int main() {"
+            for (i = 0; i < n; i++) printf "  int l%d;\n", i
+            print "  return 0;\n}"
+        } else if (kind == "stmts") {
+            print "int main() {\n  int x;"
+            for (i = 0; i < n; i++) print "  x = 1;"
+            print "  return 0;\n}"
+        } else if (kind == "params") {
+            printf "int f("
+            for (i = 0; i < n; i++) printf "%sint p%d", (i ? ", " : ""), i
+            print ") { return p0; }"
+            printf "int main() {\n  f("
+            for (i = 0; i < n; i++) printf "%s%d", (i ? ", " : ""), i
+            print ");\n  return 0;\n}"
+        } else if (kind == "array") {
+            printf "int a[] = {"
+            for (i = 0; i < n; i++) printf "%s%d", (i ? ", " : ""), i
+            print "};\nint main() { return 0; }"
+        }
+    }'
+}
+
+FAILED=0
+
+for KIND in globals locals stmts params array; do
+    echo "========== 测试列表: $KIND =========="
+    PREVIOUS=""
+    for N in $SIZES; do
+        TEST_FILE="$STRESS_DIR/${KIND}_${N}.vc"
+        generate "$KIND" "$N" > "$TEST_FILE"
+
+        START=$(date +%s%N)
+        OUTPUT=$(java VC.vc "$TEST_FILE" 2>&1)
+        TIME=$(( ($(date +%s%N) - START) / 1000000 ))
+
+        if echo "$OUTPUT" | grep -q "StackOverflowError"; then
+            echo "❌ 栈溢出: $KIND, $N 个元素" 
+            FAILED=1
+        elif ! echo "$OUTPUT" | grep -q "Pass 2"; then
+            echo "❌ 解析失败: $KIND, $N 个元素"
+            echo "$OUTPUT" | head -5
+            FAILED=1
+        else
+            echo "✅ $KIND, $N 个元素: ${TIME} ms"
+        fi
+
+        # 用时的增长不应超过元素个数增长的两倍
+        if [ -n "$PREVIOUS" ] && [ $(( TIME * PREVIOUS_N )) -gt $(( 2 * PREVIOUS * N )) ]; then
+            echo "⚠️  警告: 用时的增长超过线性 ($PREVIOUS ms → $TIME ms)"
+        fi
+        PREVIOUS=$TIME
+        PREVIOUS_N=$N
+    done
+    echo ""
+done
+
+if [ $FAILED -eq 0 ]; then
+    echo "✅ 所有压力测试通过!"
+else
+    echo "❌ 有压力测试失败"
+fi
+exit $FAILED
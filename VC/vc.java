@@ -8,13 +8,20 @@ package VC;
 
 import VC.Scanner.Scanner;
 import VC.Scanner.SourceFile;
+import VC.Scanner.TokenStream;
+import java.util.concurrent.ForkJoinPool;
 import VC.Parser.Parser;
+import VC.Recogniser.Recogniser;
 import VC.ASTs.AST;
+import VC.ASTs.AstFile;
+import VC.ASTs.Fingerprint;
 import VC.TreeDrawer.Drawer;
 import VC.TreePrinter.Printer;
 import VC.UnParser.UnParser;
 import VC.Checker.Checker;
 import VC.CodeGen.Emitter;
+import java.io.StringReader;
+import java.io.StringWriter;
 
 public class vc {
 
@@ -30,14 +37,35 @@ public class vc {
     private static int drawingAST = 0;
     private static boolean printingAST = false;
     private static boolean unparsingAST = false;
+    private static boolean tableDrivenScanner = false;
+    private static boolean tokenStream = false;
+    private static int lexingThreads = 0;  // lex in parallel if > 0
+    private static int errorLimit = Parser.DEFAULT_ERROR_LIMIT;
+    private static boolean cachingAST = false;
+    private static boolean roundTrip = false;
+    private static boolean syntaxOnly = false;
     private static String inputFilename; 
     private static String astFilename = ""; 
     private static String unparsingFilename = ""; 
 
     private static AST theAST;
  
+    // Unparses ast and parses the text back, in memory. The AST that
+    // results is null if the text has syntax errors (which are reported
+    // at their positions in the unparsed text).
+
+    private static AST reparse(AST ast) {
+      StringWriter text = new StringWriter();
+      new UnParser(text).unparse(ast);
+      SourceFile source = new SourceFile(new StringReader(text.toString()));
+      ErrorReporter errors = new ErrorReporter(source.lineTable());
+      AST reparsed = new Parser(new Scanner(source, errors), errors).parseProgram();
+      return errors.getNumErrors() == 0 ? reparsed : null;
+    }
+
     private static void cmdLineOptions() {
       System.out.println("\nUsage: java VC.vc [-options] filename");
+      System.out.println("       (the program is read from stdin if filename is -)");
       System.out.println();
       System.out.println("where options include:");
       System.out.println("	-d [1234]           display the AST (without SourcePosition)");
@@ -49,6 +77,16 @@ public class vc {
       System.out.println("	                    (or filename + \"t\" if <file> is unspecified)"); 
       System.out.println("	-u [file]  	    unparse the (non-annotated) AST into <file>");
       System.out.println("	                    (or filename + \"u\" if <file> is unspecified)"); 
+      System.out.println("	-l                  scan with the table-driven (DFA) scanner");
+      System.out.println("	-s                  lex the whole file into a packed token stream before parsing");
+      System.out.println("	-j [n]              as -s, but lex, parse and check function bodies, on n threads");
+      System.out.println("	                    (or one per processor if n is unspecified)");
+      System.out.println("	-e n                stop after n errors (default " + Parser.DEFAULT_ERROR_LIMIT + ")");
+      System.out.println("	-c                  cache the AST in filename + \"ast\", and load it from there");
+      System.out.println("	                    instead of Pass 1 while the program is unchanged");
+      System.out.println("	-r                  check that the unparsed program parses to the same AST");
+      System.out.println("	--syntax-only       only check the syntax, reporting the errors the parser would,");
+      System.out.println("	                    without building the AST");
       System.exit(1);
     }
 
@@ -58,7 +96,7 @@ public class vc {
 
         System.out.println("======= The VC compiler =======\n");
 
-        while (i < args.length && args[i].startsWith("-")) {
+        while (i < args.length && args[i].startsWith("-") && !args[i].equals("-")) {
           arg = args[i++];
           
           if (arg.startsWith("-d") && !arg.equals("-d")) {
@@ -108,6 +146,46 @@ public class vc {
             if (i < args.length && !args[i].startsWith("-"))
               unparsingFilename = args[i++];
             // the default is inputFilename + "u"
+          } else if (arg.equals("-l")) {
+            tableDrivenScanner = true;
+          } else if (arg.equals("-s")) {
+            tokenStream = true;
+          } else if (arg.startsWith("-j")) {
+            tokenStream = true;
+            lexingThreads = Runtime.getRuntime().availableProcessors();
+            String n = arg.substring(2);
+            if (n.isEmpty() && i < args.length && args[i].matches("[0-9]+"))
+              n = args[i++];
+            if (! n.isEmpty()) {
+              try {
+                lexingThreads = Integer.parseInt(n);
+              } catch (NumberFormatException e) {
+                lexingThreads = 0;
+              }
+              if (lexingThreads < 1) {
+                System.out.println("[# vc #]: invalid option " + arg); 
+                cmdLineOptions();
+              }
+            }
+          } else if (arg.equals("-c")) {
+            cachingAST = true;
+          } else if (arg.equals("-r")) {
+            roundTrip = true;
+          } else if (arg.equals("--syntax-only")) {
+            syntaxOnly = true;
+          } else if (arg.startsWith("-e")) {
+            String n = arg.substring(2);
+            if (n.isEmpty() && i < args.length)
+              n = args[i++];
+            try {
+              errorLimit = Integer.parseInt(n);
+            } catch (NumberFormatException e) {
+              errorLimit = 0;
+            }
+            if (errorLimit < 1) {
+              System.out.println("[# vc #]: invalid option " + arg); 
+              cmdLineOptions();
+            }
           } else {
             System.out.println("[# vc #]: invalid option " + arg); 
             cmdLineOptions();
@@ -119,17 +197,82 @@ public class vc {
         } else
            inputFilename = args[i];
 
-        SourceFile source = new SourceFile(inputFilename);
+        SourceFile source = inputFilename.equals("-")
+                            ? SourceFile.stdin() : new SourceFile(inputFilename);
 
-        reporter = new ErrorReporter();
+        reporter = new ErrorReporter(source.lineTable());
+        ForkJoinPool pool = (lexingThreads > 0) ? new ForkJoinPool(lexingThreads) : null;
 
-        System.out.println("Pass 1: Lexical and syntactic Analysis");
-        scanner  = new Scanner(source, reporter);
-        parser   = new Parser(scanner, reporter);
+        // With --syntax-only, the program is lexed into a token stream
+        // and recognised, which reports the errors the parser would but
+        // builds no AST, and nothing else is done.
+        if (syntaxOnly) {
+          System.out.println("Pass 1: Lexical and syntactic Analysis (syntax only)");
+          TokenStream tokens = (pool != null)
+                               ? TokenStream.lex(source, pool)
+                               : TokenStream.lex(source);
+          Recogniser recogniser = new Recogniser(tokens.cursor(reporter), reporter);
+          recogniser.setErrorLimit(errorLimit);
+          recogniser.parseProgram();
+          if (recogniser.reachedErrorLimit())
+            System.out.println ("[# vc #]: too many errors (" + errorLimit + "), parsing stopped");
+          if (reporter.getNumErrors() == 0)
+            System.out.println ("Compilation was successful.");
+          else
+            System.out.println ("Compilation was unsuccessful.");
+          return;
+        }
 
-	theAST = parser.parseProgram();
+        // The AST of a program without syntax errors is cached (with -c)
+        // in a file stamped with a hash of the program, and loaded from
+        // there while the hash is the same.
+        byte[] stamp = null;
+        String cacheFilename = inputFilename + "ast";
+        if (cachingAST && !inputFilename.equals("-")) {
+          try {
+            stamp = AstFile.sourceHash(inputFilename);
+            theAST = AstFile.read(cacheFilename, stamp);
+          } catch (java.io.IOException e) {
+            stamp = null;
+          }
+        }
+
+        if (theAST != null) {
+          System.out.println("Pass 1: skipped, the AST loaded from " + cacheFilename);
+        } else {
+          System.out.println("Pass 1: Lexical and syntactic Analysis");
+          if (pool != null) {
+            TokenStream tokens = TokenStream.lex(source, pool);
+            parser = new Parser(tokens, reporter, pool);
+          } else if (tokenStream) {
+            parser = new Parser(TokenStream.lex(source).cursor(reporter), reporter);
+          } else {
+            scanner  = new Scanner(source, reporter);
+            if (tableDrivenScanner)
+              scanner.enableTableDriven();
+            parser   = new Parser(scanner, reporter);
+          }
 
-        if (reporter.getNumErrors() == 0) {
+          parser.setErrorLimit(errorLimit);
+	  theAST = parser.parseProgram();
+
+          if (stamp != null && theAST != null && reporter.getNumErrors() == 0) {
+            try {
+              AstFile.write(theAST, stamp, cacheFilename);
+              System.out.println("[# vc #]: The AST cached in " + cacheFilename);
+            } catch (java.io.IOException e) {
+              System.out.println("[# vc #]: can't write: " + cacheFilename);
+            }
+          }
+        }
+
+        // The parser recovers from syntax errors, so the checker also
+        // checks a program with errors, skipping the declarations that
+        // have them. The AST is only unparsed, printed and drawn, and
+        // code only generated, for a program without errors.
+        boolean parsed = reporter.getNumErrors() == 0;
+
+        if (parsed) {
           // We unparse and print the AST created by the parser. Both 
           // are useful for debugging the construction of the AST 
           // (Assignment 3).
@@ -142,6 +285,13 @@ public class vc {
             unparser.unparse(theAST); 
             System.out.println("[# vc #]: The unparsed VC program printed to " + unparsingFilename);
           }
+          if (roundTrip) {
+            AST reparsed = reparse(theAST);
+            if (reparsed != null && Fingerprint.equal(theAST, reparsed))
+              System.out.println("[# vc #]: round trip: the unparsed program parses to the same AST");
+            else
+              System.out.println("[# vc #]: round trip: the unparsed program parses to a different AST");
+          }
           if (printingAST) {
             if (astFilename.equals(""))
               astFilename = inputFilename + "p";
@@ -152,13 +302,20 @@ public class vc {
           if (1 <= drawingAST && drawingAST <= 2) {
  	    drawer   = new Drawer();
             if (drawingAST == 2)
-              drawer.enableDebugging(); // show SourcePosition
+              drawer.enableDebugging(source.lineTable()); // show SourcePosition
             drawer.draw(theAST); // draw the AST
           }
+        }
 
+        // A program whose parsing was stopped by the error limit is not
+        // checked (parseProgram returns null for it).
+        if (theAST != null && (parser == null || !parser.reachedErrorLimit())) {
           System.out.println("Pass 2: Semantic Analysis");
           checker  = new Checker(reporter);
-          checker.check(theAST);
+          if (pool != null)
+            checker.check(theAST, pool);
+          else
+            checker.check(theAST);
 
           if (reporter.getNumErrors() == 0) {
             System.out.println("Pass 3: Code Generation");
@@ -172,15 +329,18 @@ public class vc {
           } else
             System.out.println ("Compilation was unsuccessful.");
 
-          if (drawingAST >= 3) {
+          if (parsed && drawingAST >= 3) {
  	    drawer   = new Drawer();
             if (drawingAST == 4)
-              drawer.enableDebugging(); // show SourcePosition
+              drawer.enableDebugging(source.lineTable()); // show SourcePosition
             drawer.draw(theAST); // draw the AST
           }
        }
-       else 
+       else {
+         if (parser.reachedErrorLimit())
+           System.out.println ("[# vc #]: too many errors (" + errorLimit + "), parsing stopped");
          System.out.println ("Compilation was unsuccessful.");
+       }
     }
 
 }